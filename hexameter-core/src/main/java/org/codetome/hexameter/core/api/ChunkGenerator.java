@@ -0,0 +1,38 @@
+package org.codetome.hexameter.core.api;
+
+import java.util.Collection;
+
+/**
+ * Callback which generates the contents of a chunk of an unbounded {@link HexagonalGrid}
+ * created by {@link HexagonalGridBuilder#buildChunked()}.
+ * A chunk is a parallelogram of <code>chunkSize * chunkSize</code> {@link Hexagon}s which
+ * starts at the cube coordinate (<code>chunkX * chunkSize</code>, <code>chunkZ * chunkSize</code>).
+ */
+public interface ChunkGenerator {
+
+    /**
+     * Generates a chunk by setting the satellite data of its {@link Hexagon}s.
+     * This is called whenever satellite data of a chunk which is not loaded is accessed
+     * so it is also called again for chunks which were evicted before. Different chunks can be generated by different
+     * threads at the same time while the loaded chunks stay accessible. Threads accessing the chunk being generated
+     * wait until it is complete so a generator must not wait for another thread accessing a chunk which is not loaded.
+     *
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @param hexagons the {@link Hexagon}s of the chunk
+     */
+    void generateChunk(int chunkX, int chunkZ, Collection<Hexagon> hexagons);
+
+    /**
+     * Called when a chunk is evicted, right before its satellite data is dropped. Satellite data which was
+     * changed since the chunk was generated is lost unless it is stored here and restored by
+     * {@link #generateChunk(int, int, Collection)} when the chunk is loaded again. Generators of read-only
+     * content can leave this empty.
+     * The {@link Hexagon}s return the satellite data the chunk had when it was evicted and can't be modified.
+     *
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @param hexagons the {@link Hexagon}s of the evicted chunk
+     */
+    void evictChunk(int chunkX, int chunkZ, Collection<Hexagon> hexagons);
+}
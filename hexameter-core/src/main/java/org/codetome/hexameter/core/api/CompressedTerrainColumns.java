@@ -0,0 +1,65 @@
+package org.codetome.hexameter.core.api;
+
+/**
+ * <p>
+ * {@link ReadableTerrainColumns} for large maps with big uniform regions (water, plains). Consecutive cells
+ * (in dense index order) with the same terrain form a run and every distinct terrain value is stored only once
+ * in a dictionary, so the memory needed is proportional to the number of runs instead of the number of cells.
+ * Use {@link HexagonalGridBuilder#buildCompressedTerrainColumnsFor(HexagonalGrid, ReadableTerrainColumns)} to create one.
+ * </p>
+ * <p>
+ * Random access costs a binary search over the runs. Sequential access should go run by run
+ * (see {@link #getRunStart(int)}) or use {@link #decompressTo(TerrainColumns)}. The columns never change:
+ * decompress them to edit them and compress them again.
+ * </p>
+ */
+public interface CompressedTerrainColumns extends ReadableTerrainColumns {
+
+    /**
+     * Returns the number of runs.
+     *
+     * @return number of runs
+     */
+    int getRunCount();
+
+    /**
+     * Returns the run the cell with the given dense index belongs to.
+     *
+     * @param index dense index
+     * @return run
+     */
+    int runOf(int index);
+
+    /**
+     * Returns the dense index of the first cell of the given run. The run lasts until the start of the next one
+     * (or the end of the columns).
+     *
+     * @param run run
+     * @return dense index of its first cell
+     */
+    int getRunStart(int run);
+
+    /**
+     * Tells whether the cells of the given run are passable.
+     *
+     * @param run run
+     * @return is passable?
+     */
+    boolean isRunPassable(int run);
+
+    /**
+     * Returns the movement cost of the cells of the given run.
+     *
+     * @param run run
+     * @return movement cost
+     */
+    double getRunMovementCost(int run);
+
+    /**
+     * Writes every cell to the given {@link TerrainColumns} of the same grid one run after the other
+     * without decompressing anything in between.
+     *
+     * @param target writable terrain columns with the same cell count
+     */
+    void decompressTo(TerrainColumns target);
+}
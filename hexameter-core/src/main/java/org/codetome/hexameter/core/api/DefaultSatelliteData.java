@@ -20,8 +20,8 @@ import lombok.Setter;
 public class DefaultSatelliteData implements SatelliteData {
 
     private static final long serialVersionUID = 4397186040368615654L;
-    private boolean passable;
-    private double movementCost;
+    private volatile boolean passable;
+    private volatile double movementCost;
     private Map<String, Object> customData = new ConcurrentHashMap<>();
 
     @Override
@@ -0,0 +1,25 @@
+package org.codetome.hexameter.core.api;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * {@link SatelliteDataCodec} which creates {@link DefaultSatelliteData} objects and does not write any custom data.
+ * Extend it if you only need to encode a few custom fields.
+ */
+public class DefaultSatelliteDataCodec implements SatelliteDataCodec {
+
+    @Override
+    public SatelliteData newSatelliteData() {
+        return new DefaultSatelliteData();
+    }
+
+    @Override
+    public void encodeCustomData(final SatelliteData satelliteData, final DataOutput output) throws IOException {
+    }
+
+    @Override
+    public void decodeCustomData(final DataInput input, final SatelliteData satelliteData) throws IOException {
+    }
+}
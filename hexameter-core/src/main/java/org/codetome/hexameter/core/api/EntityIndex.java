@@ -0,0 +1,102 @@
+package org.codetome.hexameter.core.api;
+
+import org.codetome.hexameter.core.backport.Optional;
+
+/**
+ * <p>
+ * Spatial index of entities (units, items, ...) on a bounded {@link HexagonalGrid}. Unlike {@link SatelliteData}
+ * any number of entities can be on a cell. Entities are identified by non-negative <code>int</code> ids (for example
+ * indices into the caller's own arrays) so the index does not hold any objects and moving an entity does not allocate.
+ * Use {@link HexagonalGridBuilder#buildEntityIndexFor(HexagonalGrid)} to create one.
+ * </p>
+ * <p>
+ * Placing, moving, removing and looking up an entity and counting the entities of a cell take constant time.
+ * Range queries take time proportional to the number of cells in the range plus the number of entities found.
+ * </p>
+ * <p>
+ * Implementations are not thread safe: use an index from a single thread (like a simulation loop) or synchronize
+ * externally.
+ * </p>
+ */
+public interface EntityIndex {
+
+    /**
+     * Places an entity on the cell with the given coordinate, moving it if it is on another cell.
+     *
+     * @param entity id of the entity (non-negative)
+     * @param coordinate coordinate of a cell of the grid
+     */
+    void put(int entity, CubeCoordinate coordinate);
+
+    /**
+     * Removes an entity from the index.
+     *
+     * @param entity id of the entity
+     * @return was it in the index?
+     */
+    boolean remove(int entity);
+
+    /**
+     * Tells whether an entity is in the index.
+     *
+     * @param entity id of the entity
+     * @return is it in the index?
+     */
+    boolean contains(int entity);
+
+    /**
+     * Returns the coordinate of the cell an entity is on.
+     *
+     * @param entity id of the entity
+     * @return coordinate or empty if the entity is not in the index
+     */
+    Optional<CubeCoordinate> getCoordinateOf(int entity);
+
+    /**
+     * Returns the number of entities on the cell with the given coordinate.
+     *
+     * @param coordinate coordinate
+     * @return number of entities (0 if the coordinate is not on the grid)
+     */
+    int countAt(CubeCoordinate coordinate);
+
+    /**
+     * Returns the entities on the cell with the given coordinate (the most recently placed first).
+     *
+     * @param coordinate coordinate
+     * @return ids of the entities
+     */
+    int[] getEntitiesAt(CubeCoordinate coordinate);
+
+    /**
+     * Returns the entities on the cells which are at most the given distance away from the given coordinate
+     * (the cells of {@link HexagonalGridCalculator#calculateMovementRangeFrom(Hexagon, int)}).
+     *
+     * @param center coordinate of the center (it does not have to be on the grid)
+     * @param distance distance in cells
+     * @return ids of the entities
+     */
+    int[] getEntitiesInRange(CubeCoordinate center, int distance);
+
+    /**
+     * Returns the entities on the cells whose center is inside the given circle.
+     *
+     * @param centerX x of the center of the circle in pixels
+     * @param centerY y of the center of the circle in pixels
+     * @param radius radius of the circle in pixels
+     * @return ids of the entities
+     */
+    int[] getEntitiesInPixelCircle(double centerX, double centerY, double radius);
+
+    /**
+     * Returns the number of entities in the index.
+     *
+     * @return number of entities
+     */
+    int size();
+
+    /**
+     * Removes every entity.
+     */
+    void clear();
+}
@@ -0,0 +1,55 @@
+package org.codetome.hexameter.core.api;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * <p>
+ * Keeps track of the cells of a bounded {@link HexagonalGrid} whose satellite data was set or cleared since the last
+ * {@link #mark()} (see {@link SatelliteDataListener}). Use {@link HexagonalGridBuilder#buildChangeTrackerFor(HexagonalGrid)} to create one.
+ * </p>
+ * <p>
+ * The changes can be exported as a compact delta with {@link #exportDelta(WritableByteChannel, SatelliteDataCodec)} which contains
+ * the current satellite data of the changed cells only, and applied to a copy of the grid (a client or a replica) with
+ * {@link HexagonalGridBuilder#applyDelta(HexagonalGrid, java.nio.channels.ReadableByteChannel, SatelliteDataCodec)}.
+ * Both the memory and the time needed for these operations are proportional to the number of changed cells.
+ * </p>
+ */
+public interface GridChangeTracker {
+
+    /**
+     * Tells whether the satellite data of the given cell changed since the last mark.
+     *
+     * @param coordinate coordinate
+     * @return is it dirty?
+     */
+    boolean isDirty(CubeCoordinate coordinate);
+
+    /**
+     * Returns the number of cells which changed since the last mark.
+     *
+     * @return number of dirty cells
+     */
+    int getDirtyCellCount();
+
+    /**
+     * Forgets every change made so far.
+     */
+    void mark();
+
+    /**
+     * Writes the current satellite data of the cells which changed since the last mark and marks the grid.
+     * A change made concurrently with the export may be contained both in this delta and in the next one, which is
+     * harmless since deltas contain the values of the cells, not the operations.
+     *
+     * @param channel channel to write to (it is not closed)
+     * @param satelliteDataCodec codec of the custom satellite data
+     * @throws IOException if writing fails
+     */
+    void exportDelta(WritableByteChannel channel, SatelliteDataCodec satelliteDataCodec) throws IOException;
+
+    /**
+     * Stops tracking the grid.
+     */
+    void release();
+}
@@ -0,0 +1,32 @@
+package org.codetome.hexameter.core.api;
+
+/**
+ * <p>
+ * Instrumentation hook which is told about every {@link GridOperation} of the grids built with it
+ * (see {@link HexagonalGridBuilder#setMetrics(GridMetrics)}) and of their calculators. Use
+ * {@link HexagonalGridBuilder#buildMetricsRegistry()} for a ready made implementation.
+ * </p>
+ * <p>
+ * Grids check {@link #isEnabled()} once when they are created: if it is false they don't even read the clock,
+ * so the default implementation costs nothing. Implementations are called from every thread using the grid so
+ * they must be thread safe and fast.
+ * </p>
+ */
+public interface GridMetrics {
+
+    /**
+     * Tells whether operations should be measured at all.
+     *
+     * @return is it enabled?
+     */
+    boolean isEnabled();
+
+    /**
+     * Records a finished operation.
+     *
+     * @param operation operation
+     * @param nanos duration in nanoseconds
+     * @param cellsVisited number of cells (or coordinates) the operation looked at
+     */
+    void record(GridOperation operation, long nanos, long cellsVisited);
+}
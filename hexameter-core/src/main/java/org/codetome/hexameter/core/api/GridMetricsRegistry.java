@@ -0,0 +1,55 @@
+package org.codetome.hexameter.core.api;
+
+/**
+ * {@link GridMetrics} which keeps the call counts, the latency histograms and the number of visited cells of
+ * every {@link GridOperation} in memory. Use {@link HexagonalGridBuilder#buildMetricsRegistry()} to create one.
+ */
+public interface GridMetricsRegistry extends GridMetrics {
+
+    /**
+     * Returns the number of calls of the given operation.
+     *
+     * @param operation operation
+     * @return count
+     */
+    long getCallCount(GridOperation operation);
+
+    /**
+     * Returns the total duration of the calls of the given operation.
+     *
+     * @param operation operation
+     * @return nanoseconds
+     */
+    long getTotalNanos(GridOperation operation);
+
+    /**
+     * Returns the total number of cells visited by the calls of the given operation.
+     *
+     * @param operation operation
+     * @return number of cells
+     */
+    long getCellsVisited(GridOperation operation);
+
+    /**
+     * Returns the latency histogram of the given operation. Bucket <code>i</code> counts the calls which took
+     * less than <code>2^i</code> nanoseconds but not less than <code>2^(i-1)</code>.
+     *
+     * @param operation operation
+     * @return copy of the histogram
+     */
+    long[] getLatencyHistogram(GridOperation operation);
+
+    /**
+     * Returns an upper bound (at most twice the real value) of the given percentile of the latency of the given operation.
+     *
+     * @param operation operation
+     * @param percentile percentile between 0 and 1
+     * @return nanoseconds (0 if there were no calls)
+     */
+    long getLatencyPercentileNanos(GridOperation operation, double percentile);
+
+    /**
+     * Forgets every recorded call.
+     */
+    void reset();
+}
@@ -0,0 +1,43 @@
+package org.codetome.hexameter.core.api;
+
+/**
+ * The operations of a {@link HexagonalGrid} and its {@link HexagonalGridCalculator} which are reported to
+ * {@link GridMetrics}.
+ */
+public enum GridOperation {
+
+    /**
+     * {@link HexagonalGridBuilder#build()}, visits every cell of the grid.
+     */
+    BUILD,
+
+    /**
+     * {@link HexagonalGrid#getByPixelCoordinate(double, double)}, visits the estimated cell and its neighbors.
+     */
+    PIXEL_LOOKUP,
+
+    /**
+     * {@link HexagonalGrid#getNeighborsOf(Hexagon)}, visits the 6 possible neighbors.
+     */
+    NEIGHBORS,
+
+    /**
+     * {@link HexagonalGridCalculator#calculateMovementRangeFrom(Hexagon, int)}, visits every coordinate within the distance.
+     */
+    MOVEMENT_RANGE,
+
+    /**
+     * {@link HexagonalGridCalculator#calculateRingFrom(Hexagon, int)}, visits the cells on the way to the ring.
+     */
+    RING,
+
+    /**
+     * {@link HexagonalGridCalculator#drawLine(Hexagon, Hexagon)}, visits the cells of the line.
+     */
+    LINE,
+
+    /**
+     * Materialization of a lazily built grid (see {@link HexagonalGridBuilder#buildLazy()}), visits every cell of the grid.
+     */
+    MATERIALIZATION
+}
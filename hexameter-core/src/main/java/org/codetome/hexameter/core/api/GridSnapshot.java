@@ -0,0 +1,57 @@
+package org.codetome.hexameter.core.api;
+
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.core.internal.GridData;
+import rx.Observable;
+
+/**
+ * <p>
+ * Consistent view of the satellite data of a {@link HexagonalGrid} at the time {@link HexagonalGrid#snapshot()}
+ * was called. It can be read by any number of threads while the grid itself is being modified. The {@link Hexagon}s
+ * returned by a snapshot are read-only: setting or clearing their satellite data throws an
+ * {@link UnsupportedOperationException}.
+ * </p>
+ * <p>
+ * A snapshot holds the same {@link SatelliteData} objects as the grid did, it does not copy them. Satellite data
+ * must be changed by replacing it ({@link Hexagon#setSatelliteData}, {@link HexagonalGrid#computeSatelliteData})
+ * and never by mutating an object held by the grid in place: such a change shows up in every snapshot holding the object.
+ * </p>
+ * Call {@link #release()} once you are done with it so that the memory it holds can be reclaimed.
+ */
+public interface GridSnapshot {
+
+    /**
+     * Returns the GridData of the grid this snapshot was taken of.
+     *
+     * @return grid data
+     */
+    GridData getGridData();
+
+    /**
+     * Returns all {@link Hexagon}s of the grid with their satellite data as of this snapshot.
+     *
+     * @return hexagons
+     */
+    Observable<Hexagon> getHexagons();
+
+    /**
+     * Returns the {@link Hexagon}s of the grid which have satellite data as of this snapshot in no particular order.
+     * Only the stored satellite data is visited so this is cheap for big grids where few cells have satellite data.
+     *
+     * @return hexagons with satellite data
+     */
+    Observable<Hexagon> getHexagonsWithSatelliteData();
+
+    /**
+     * Returns a {@link Hexagon} by its cube coordinate with its satellite data as of this snapshot.
+     *
+     * @param coordinate coord
+     * @return Optional with a Hexagon if it is present
+     */
+    Optional<Hexagon> getByCubeCoordinate(CubeCoordinate coordinate);
+
+    /**
+     * Releases this snapshot. Reading a released snapshot throws an {@link IllegalStateException}.
+     */
+    void release();
+}
@@ -3,6 +3,7 @@ package org.codetome.hexameter.core.api;
 import org.codetome.hexameter.core.backport.Optional;
 import org.codetome.hexameter.core.internal.GridData;
 import rx.Observable;
+import rx.functions.Func1;
 
 import java.util.Collection;
 
@@ -103,4 +104,46 @@ public interface HexagonalGrid {
      * Clears all satellite data attached to the {@link Hexagon}s in this grid.
      */
     void clearSatelliteData();
+
+    /**
+     * Atomically replaces the {@link SatelliteData} of the {@link Hexagon} at the given cube coordinate
+     * with the result of the given function. The function receives the current satellite data
+     * (or <code>null</code> if there is none) and returns the new one (or <code>null</code> to clear it).
+     * Writes of satellite data (this call, {@link Hexagon#setSatelliteData} and the like) to the same cell
+     * are serialized while writes to most other cells and readers of satellite data are not blocked. If the
+     * coordinate is not on the grid the function is not called.
+     * The function runs while the lock of the cell is held so it must not write the satellite data of other cells:
+     * two functions writing each other's cells on different threads would deadlock.
+     *
+     * @param coordinate coord
+     * @param function computes the new satellite data from the current one
+     * @param <T> type of the satellite data
+     * @return Optional with the new satellite data if there is any
+     */
+    <T extends SatelliteData> Optional<T> computeSatelliteData(CubeCoordinate coordinate, Func1<T, T> function);
+
+    /**
+     * Takes a consistent {@link GridSnapshot} of the satellite data in this grid. The snapshot shares the
+     * {@link SatelliteData} objects with the grid so they must be replaced and not mutated in place.
+     * Bounded grids take snapshots in constant time by sharing their storage pages with the snapshot
+     * and copying a page only when it is written after the snapshot. Other grids copy their satellite data.
+     *
+     * @return snapshot
+     */
+    GridSnapshot snapshot();
+
+    /**
+     * Adds a {@link SatelliteDataListener} which will be notified whenever satellite data is set or cleared in this grid.
+     * Listeners are called while the lock of the changed cell is held so they must not write satellite data.
+     *
+     * @param listener listener
+     */
+    void addSatelliteDataListener(SatelliteDataListener listener);
+
+    /**
+     * Removes a {@link SatelliteDataListener} added by {@link #addSatelliteDataListener(SatelliteDataListener)}.
+     *
+     * @param listener listener
+     */
+    void removeSatelliteDataListener(SatelliteDataListener listener);
 }
@@ -2,13 +2,31 @@ package org.codetome.hexameter.core.api;
 
 import org.codetome.hexameter.core.api.exception.HexagonalGridCreationException;
 import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.AbstractHexagonalGrid;
+import org.codetome.hexameter.core.internal.impl.BinaryHexagonalGridSerializer;
+import org.codetome.hexameter.core.internal.impl.BitSetGridChangeTracker;
+import org.codetome.hexameter.core.internal.impl.ChunkedHexagonalGridImpl;
+import org.codetome.hexameter.core.internal.impl.FileSatelliteJournal;
+import org.codetome.hexameter.core.internal.impl.FlightRecorderGridMetrics;
+import org.codetome.hexameter.core.internal.impl.HeapTerrainColumns;
 import org.codetome.hexameter.core.internal.impl.HexagonalGridCalculatorImpl;
 import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.codetome.hexameter.core.internal.impl.InMemoryGridMetricsRegistry;
+import org.codetome.hexameter.core.internal.impl.IntListEntityIndex;
+import org.codetome.hexameter.core.internal.impl.MappedGridSnapshotFormatImpl;
+import org.codetome.hexameter.core.internal.impl.NoOpGridMetrics;
+import org.codetome.hexameter.core.internal.impl.RunLengthTerrainColumns;
+import org.codetome.hexameter.core.internal.impl.SeedStorage;
+import org.codetome.hexameter.core.internal.impl.SparseHexagonalGridImpl;
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+import static org.codetome.hexameter.core.api.GridOperation.BUILD;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.MASK;
 import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
 
 /**
@@ -23,12 +41,26 @@ import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
  * Defaults for orientation and grid layout are POINTY_TOP and RECTANGULAR.
  */
 public final class  HexagonalGridBuilder {
+    private static final int DEFAULT_CHUNK_SIZE = 32;
+    private static final int DEFAULT_MAX_LOADED_CHUNKS = 256;
+    private static final long DEFAULT_JOURNAL_COMMIT_INTERVAL_MILLIS = 10;
+    private static final long DEFAULT_FLIGHT_RECORDER_COST_THRESHOLD = 10000;
+
     private int gridWidth;
     private int gridHeight;
     private double radius;
-    private Map<CubeCoordinate, Object> customStorage = new ConcurrentHashMap<>();
     private HexagonOrientation orientation = HexagonOrientation.POINTY_TOP;
     private HexagonalGridLayout gridLayout = RECTANGULAR;
+    private HexagonalGridMask gridMask;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxLoadedChunks = DEFAULT_MAX_LOADED_CHUNKS;
+    private ChunkGenerator chunkGenerator;
+    private GridMetrics metrics = NoOpGridMetrics.INSTANCE;
+    private boolean flightRecorderEvents;
+    private long flightRecorderCostThreshold = DEFAULT_FLIGHT_RECORDER_COST_THRESHOLD;
+    private GridMetrics flightRecorderMetrics;
+    private int buildParallelism = Runtime.getRuntime().availableProcessors();
+    private final SeedStorage customStorage = new SeedStorage();
 
     /**
      * Builds a {@link HexagonalGrid} using the parameters supplied.
@@ -40,19 +72,100 @@ public final class  HexagonalGridBuilder {
      */
     public HexagonalGrid build() {
         checkParameters();
-        return new HexagonalGridImpl(this);
+        final GridMetrics buildMetrics = getMetrics();
+        if (!buildMetrics.isEnabled()) {
+            return seedStorageOf(new HexagonalGridImpl(this));
+        }
+        final long start = System.nanoTime();
+        final HexagonalGrid result = new HexagonalGridImpl(this);
+        final GridData data = result.getGridData();
+        buildMetrics.record(BUILD, System.nanoTime() - start, data.getGridLayout().getGridLayoutStrategy().getCellCount(data));
+        return seedStorageOf(result);
     }
 
-    private void checkParameters() {
+    /**
+     * Builds a {@link HexagonalGrid} like {@link #build()} but without enumerating its coordinates. The grid answers
+     * queries from the layout math and is materialized (its coordinates are enumerated and its satellite data storage
+     * is allocated) only when it is traversed or its satellite data is written for the first time. Materializations
+     * are reported to the {@link GridMetrics} as {@link GridOperation#MATERIALIZATION}.
+     * Throws {@link HexagonalGridCreationException} if not all mandatory parameters
+     * are filled and/or they are not valid.
+     *
+     * @return {@link HexagonalGrid}
+     */
+    public HexagonalGrid buildLazy() {
+        checkParameters();
+        final GridMetrics buildMetrics = getMetrics();
+        if (!buildMetrics.isEnabled()) {
+            return seedStorageOf(HexagonalGridImpl.createLazy(this));
+        }
+        final long start = System.nanoTime();
+        final HexagonalGrid result = HexagonalGridImpl.createLazy(this);
+        buildMetrics.record(BUILD, System.nanoTime() - start, 0);
+        return seedStorageOf(result);
+    }
+
+    /**
+     * Builds a {@link SparseHexagonalGrid} using the parameters supplied. Unlike {@link #build()} this does not
+     * enumerate the coordinates of the grid so it can be used for very big grids which are mostly empty.
+     * Throws {@link HexagonalGridCreationException} if not all mandatory parameters
+     * are filled and/or they are not valid.
+     *
+     * @return {@link SparseHexagonalGrid}
+     */
+    public SparseHexagonalGrid buildSparse() {
+        checkParameters();
+        return seedStorageOf(new SparseHexagonalGridImpl(this));
+    }
+
+    /**
+     * Builds an unbounded {@link HexagonalGrid} which is split into chunks of <code>chunkSize * chunkSize</code>
+     * {@link Hexagon}s. Chunks are generated on demand by the {@link ChunkGenerator} and the least recently used
+     * ones are evicted when more than <code>maxLoadedChunks</code> are loaded. An evicted chunk is handed to
+     * {@link ChunkGenerator#evictChunk} and then dropped: satellite data set on it is lost unless the generator stores
+     * it there and restores it when the chunk is generated again. Width, height and grid layout are
+     * not used by a chunked grid.
+     * Throws {@link HexagonalGridCreationException} if not all mandatory parameters are filled and/or they are not valid.
+     *
+     * @return {@link HexagonalGrid}
+     */
+    public HexagonalGrid buildChunked() {
+        checkCommonParameters();
+        if (chunkGenerator == null) {
+            throw new HexagonalGridCreationException("Chunk generator must be set.");
+        }
+        if (chunkSize <= 0) {
+            throw new HexagonalGridCreationException("Chunk size must be greater than 0.");
+        }
+        if (maxLoadedChunks <= 0) {
+            throw new HexagonalGridCreationException("Maximum number of loaded chunks must be greater than 0.");
+        }
+        return seedStorageOf(new ChunkedHexagonalGridImpl(this));
+    }
+
+    private void checkCommonParameters() {
         if (orientation == null) {
             throw new HexagonalGridCreationException("Orientation must be set.");
         }
         if (radius <= 0) {
             throw new HexagonalGridCreationException("Radius must be greater than 0.");
         }
+    }
+
+    private void checkParameters() {
+        checkCommonParameters();
+        if (buildParallelism <= 0) {
+            throw new HexagonalGridCreationException("Build parallelism must be greater than 0.");
+        }
         if (gridLayout == null) {
             throw new HexagonalGridCreationException("Grid layout must be set.");
         }
+        if (MASK.equals(gridLayout) && gridMask == null) {
+            throw new HexagonalGridCreationException("Grid mask must be set for " + MASK.name() + " layout.");
+        }
+        if (MASK.equals(gridLayout) && (gridMask.getWidth() != gridWidth || gridMask.getHeight() != gridHeight)) {
+            throw new HexagonalGridCreationException("Width: " + gridWidth + " and height: " + gridHeight + " does not match the grid mask.");
+        }
         if (!gridLayout.checkParameters(gridHeight, gridWidth)) {
             throw new HexagonalGridCreationException("Width: " + gridWidth + " and height: " + gridHeight + " is not valid for: " + gridLayout.name() + " layout.");
         }
@@ -68,6 +181,141 @@ public final class  HexagonalGridBuilder {
         return new HexagonalGridCalculatorImpl(hexagonalGrid);
     }
 
+    /**
+     * Creates empty {@link TerrainColumns} for your {@link HexagonalGrid}. Only bounded grids are supported
+     * since the columns hold a slot for every cell of the grid.
+     *
+     * @param hexagonalGrid grid
+     * @return terrain columns
+     */
+    public TerrainColumns buildTerrainColumnsFor(final HexagonalGrid hexagonalGrid) {
+        final GridData data = hexagonalGrid.getGridData();
+        if (hexagonalGrid instanceof ChunkedHexagonalGridImpl) {
+            throw new HexagonalGridCreationException("Terrain columns can't be created for an unbounded (chunked) grid.");
+        }
+        if ((long) data.getGridWidth() * data.getGridHeight() > Integer.MAX_VALUE) {
+            throw new HexagonalGridCreationException("Grid is too big for terrain columns: " + data.getGridWidth() + " * " + data.getGridHeight());
+        }
+        return new HeapTerrainColumns(data);
+    }
+
+    /**
+     * Compresses the given {@link ReadableTerrainColumns} of your {@link HexagonalGrid} into read-only {@link CompressedTerrainColumns}.
+     *
+     * @param hexagonalGrid grid
+     * @param terrainColumns terrain columns of the grid
+     * @return compressed terrain columns
+     */
+    public CompressedTerrainColumns buildCompressedTerrainColumnsFor(final HexagonalGrid hexagonalGrid, final ReadableTerrainColumns terrainColumns) {
+        final GridData data = hexagonalGrid.getGridData();
+        if (data.getGridLayout().getGridLayoutStrategy().getCellCount(data) != terrainColumns.getCellCount()) {
+            throw new HexagonalGridCreationException("Terrain columns do not belong to the grid.");
+        }
+        return RunLengthTerrainColumns.compress(data, terrainColumns);
+    }
+
+    /**
+     * Creates a {@link HexagonalGridSerializer} which writes and reads bounded grids in a compact binary format.
+     * The grid parameters are stored by the format so they are not taken from this builder.
+     *
+     * @param satelliteDataCodec codec for the custom satellite data
+     * @return serializer
+     */
+    public HexagonalGridSerializer buildSerializer(final SatelliteDataCodec satelliteDataCodec) {
+        return new BinaryHexagonalGridSerializer(satelliteDataCodec);
+    }
+
+    /**
+     * Creates a {@link MappedGridSnapshotFormat} which writes bounded grids to snapshot files and opens them in constant time.
+     * The grid parameters are stored in the files so they are not taken from this builder.
+     *
+     * @return snapshot format
+     */
+    public MappedGridSnapshotFormat buildMappedGridSnapshotFormat() {
+        return new MappedGridSnapshotFormatImpl();
+    }
+
+    /**
+     * Starts a {@link SatelliteJournal} which records every satellite data change of your {@link HexagonalGrid}
+     * into the given directory. Changes are committed to disk every 10 milliseconds.
+     *
+     * @param hexagonalGrid grid
+     * @param directory journal directory
+     * @param satelliteDataCodec codec for the custom satellite data
+     * @return journal
+     * @throws IOException if the journal can't be opened
+     */
+    public SatelliteJournal buildJournalFor(final HexagonalGrid hexagonalGrid, final Path directory,
+                                            final SatelliteDataCodec satelliteDataCodec) throws IOException {
+        return new FileSatelliteJournal(hexagonalGrid, directory, satelliteDataCodec, DEFAULT_JOURNAL_COMMIT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Applies the changes recorded by a {@link SatelliteJournal} in the given directory to your {@link HexagonalGrid}.
+     * Changes which were not completely committed before a crash are skipped.
+     *
+     * @param hexagonalGrid grid (usually loaded from the last snapshot)
+     * @param directory journal directory
+     * @param satelliteDataCodec codec for the custom satellite data
+     * @return number of changes applied
+     * @throws IOException if reading fails
+     */
+    public int replayJournal(final HexagonalGrid hexagonalGrid, final Path directory, final SatelliteDataCodec satelliteDataCodec) throws IOException {
+        return FileSatelliteJournal.replay(hexagonalGrid, directory, satelliteDataCodec);
+    }
+
+    /**
+     * Creates a {@link GridChangeTracker} which tracks the cells of your {@link HexagonalGrid} whose satellite data changes.
+     * Only bounded grids are supported.
+     *
+     * @param hexagonalGrid grid
+     * @return change tracker
+     */
+    public GridChangeTracker buildChangeTrackerFor(final HexagonalGrid hexagonalGrid) {
+        if (!(hexagonalGrid instanceof HexagonalGridImpl)) {
+            throw new HexagonalGridCreationException("Changes can only be tracked for bounded grids.");
+        }
+        return new BitSetGridChangeTracker((HexagonalGridImpl) hexagonalGrid);
+    }
+
+    /**
+     * Applies a delta exported by a {@link GridChangeTracker} to your {@link HexagonalGrid}.
+     *
+     * @param hexagonalGrid grid with the same parameters as the one the delta was exported from
+     * @param channel channel to read the delta from
+     * @param satelliteDataCodec codec for the custom satellite data
+     * @return number of cells changed
+     * @throws IOException if reading fails or the delta does not fit the grid
+     */
+    public int applyDelta(final HexagonalGrid hexagonalGrid, final ReadableByteChannel channel, final SatelliteDataCodec satelliteDataCodec)
+            throws IOException {
+        return BitSetGridChangeTracker.applyDelta(hexagonalGrid, channel, satelliteDataCodec);
+    }
+
+    /**
+     * Creates an empty {@link EntityIndex} for your {@link HexagonalGrid}. Only bounded grids are supported
+     * since the index holds a slot for every cell of the grid.
+     *
+     * @param hexagonalGrid grid
+     * @return entity index
+     */
+    public EntityIndex buildEntityIndexFor(final HexagonalGrid hexagonalGrid) {
+        if (!(hexagonalGrid instanceof HexagonalGridImpl)) {
+            throw new HexagonalGridCreationException("Entity index can only be created for bounded grids.");
+        }
+        return new IntListEntityIndex(hexagonalGrid.getGridData());
+    }
+
+    /**
+     * Creates a {@link GridMetricsRegistry} which keeps the metrics of the grids in memory. Pass it to
+     * {@link #setMetrics(GridMetrics)} to collect the metrics of the grids built afterwards.
+     *
+     * @return metrics registry
+     */
+    public GridMetricsRegistry buildMetricsRegistry() {
+        return new InMemoryGridMetricsRegistry();
+    }
+
     public double getRadius() {
         return radius;
     }
@@ -96,6 +344,7 @@ public final class  HexagonalGridBuilder {
      */
     public HexagonalGridBuilder setGridWidth(final int gridWidth) {
         this.gridWidth = gridWidth;
+        this.flightRecorderMetrics = null;
         return this;
     }
 
@@ -111,6 +360,7 @@ public final class  HexagonalGridBuilder {
      */
     public HexagonalGridBuilder setGridHeight(final int gridHeight) {
         this.gridHeight = gridHeight;
+        this.flightRecorderMetrics = null;
         return this;
     }
 
@@ -134,6 +384,17 @@ public final class  HexagonalGridBuilder {
         return gridLayout.getGridLayoutStrategy();
     }
 
+    /**
+     * Returns the satellite data every grid built by this builder starts with. Its contents are copied into the
+     * storage of each grid when it is built. Grids keep their own storage (so they can take snapshots) which means
+     * satellite data set on a grid is not seen here or by the other grids. The map can only be modified until the
+     * first grid is built: writes afterwards throw an {@link IllegalStateException} since no grid would see them.
+     *
+     * @return initial satellite data of the grids
+     * @deprecated grids no longer share their storage with the builder; use the satellite data methods of
+     * {@link Hexagon} and {@link HexagonalGrid} instead.
+     */
+    @Deprecated
     public Map<CubeCoordinate, Object> getCustomStorage() {
         return customStorage;
     }
@@ -147,7 +408,7 @@ public final class  HexagonalGridBuilder {
         if (orientation == null || gridLayout == null || radius == 0 || gridWidth == 0 || gridHeight == 0) {
             throw new IllegalStateException("Not all necessary fields are initialized!");
         }
-        return new GridData(orientation, gridLayout, radius, gridWidth, gridHeight);
+        return new GridData(orientation, gridLayout, radius, gridWidth, gridHeight, gridMask);
     }
 
     /**
@@ -159,6 +420,168 @@ public final class  HexagonalGridBuilder {
      */
     public HexagonalGridBuilder setGridLayout(final HexagonalGridLayout gridLayout) {
         this.gridLayout = gridLayout;
+        this.flightRecorderMetrics = null;
+        return this;
+    }
+
+    public HexagonalGridMask getGridMask() {
+        return gridMask;
+    }
+
+    /**
+     * Sets the {@link HexagonalGridMask} which describes the shape of the grid when the
+     * <pre>MASK</pre> layout is used. This also sets the width and the height of the grid
+     * to the dimensions of the mask (unless it is null).
+     *
+     * @param gridMask mask
+     * @return this {@link HexagonalGridBuilder}.
+     */
+    public HexagonalGridBuilder setGridMask(final HexagonalGridMask gridMask) {
+        this.gridMask = gridMask;
+        if (gridMask != null) {
+            this.gridWidth = gridMask.getWidth();
+            this.gridHeight = gridMask.getHeight();
+            this.flightRecorderMetrics = null;
+        }
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the width and height (in {@link Hexagon}s) of the chunks of a grid created with {@link #buildChunked()}.
+     * If it is not set 32 will be used.
+     *
+     * @param chunkSize chunk size
+     * @return this {@link HexagonalGridBuilder}.
+     */
+    public HexagonalGridBuilder setChunkSize(final int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public int getMaxLoadedChunks() {
+        return maxLoadedChunks;
+    }
+
+    /**
+     * Sets the number of chunks a grid created with {@link #buildChunked()} keeps in memory. Chunks above this
+     * are evicted (see {@link ChunkGenerator#evictChunk}).
+     * If it is not set 256 will be used.
+     *
+     * @param maxLoadedChunks maximum number of loaded chunks
+     * @return this {@link HexagonalGridBuilder}.
+     */
+    public HexagonalGridBuilder setMaxLoadedChunks(final int maxLoadedChunks) {
+        this.maxLoadedChunks = maxLoadedChunks;
+        return this;
+    }
+
+    public ChunkGenerator getChunkGenerator() {
+        return chunkGenerator;
+    }
+
+    /**
+     * Mandatory parameter for {@link #buildChunked()}. Sets the {@link ChunkGenerator} which generates the chunks.
+     *
+     * @param chunkGenerator chunk generator
+     * @return this {@link HexagonalGridBuilder}.
+     */
+    public HexagonalGridBuilder setChunkGenerator(final ChunkGenerator chunkGenerator) {
+        this.chunkGenerator = chunkGenerator;
         return this;
     }
+
+    /**
+     * Returns the {@link GridMetrics} the built grids report to. If Flight Recorder events are enabled (and supported
+     * by the JVM) the metrics set by {@link #setMetrics(GridMetrics)} are wrapped so that they are emitted too.
+     * The wrapper is created once and reused until one of the parameters it depends on changes.
+     *
+     * @return metrics
+     */
+    public GridMetrics getMetrics() {
+        if (!flightRecorderEvents) {
+            return metrics;
+        }
+        if (flightRecorderMetrics == null) {
+            flightRecorderMetrics = FlightRecorderGridMetrics.wrap(metrics, gridLayout, gridWidth, gridHeight, flightRecorderCostThreshold);
+        }
+        return flightRecorderMetrics;
+    }
+
+    /**
+     * Sets the {@link GridMetrics} the built {@link HexagonalGrid}s (and their {@link HexagonalGridCalculator}s)
+     * report their operations to. If it is not set nothing is measured.
+     *
+     * @param metrics metrics
+     * @return this {@link HexagonalGridBuilder}.
+     */
+    public HexagonalGridBuilder setMetrics(final GridMetrics metrics) {
+        this.metrics = metrics == null ? NoOpGridMetrics.INSTANCE : metrics;
+        this.flightRecorderMetrics = null;
+        return this;
+    }
+
+    public boolean isFlightRecorderEvents() {
+        return flightRecorderEvents;
+    }
+
+    /**
+     * Enables Java Flight Recorder events (<code>org.codetome.hexameter.GridOperation</code>) for the builds of the
+     * grids and for their operations which visit at least {@link #setFlightRecorderCostThreshold(long)} cells.
+     * The events carry the layout, the dimensions, the number of visited cells and an allocation estimate.
+     * Disabled by default. On JVMs without Flight Recorder it has no effect.
+     *
+     * @param flightRecorderEvents are events enabled?
+     * @return this {@link HexagonalGridBuilder}.
+     */
+    public HexagonalGridBuilder setFlightRecorderEvents(final boolean flightRecorderEvents) {
+        this.flightRecorderEvents = flightRecorderEvents;
+        this.flightRecorderMetrics = null;
+        return this;
+    }
+
+    public long getFlightRecorderCostThreshold() {
+        return flightRecorderCostThreshold;
+    }
+
+    /**
+     * Sets the number of cells an operation has to visit to be emitted as a Flight Recorder event (builds are always
+     * emitted). If it is not set 10000 will be used.
+     *
+     * @param flightRecorderCostThreshold number of cells
+     * @return this {@link HexagonalGridBuilder}.
+     */
+    public HexagonalGridBuilder setFlightRecorderCostThreshold(final long flightRecorderCostThreshold) {
+        this.flightRecorderCostThreshold = flightRecorderCostThreshold;
+        this.flightRecorderMetrics = null;
+        return this;
+    }
+
+    public int getBuildParallelism() {
+        return buildParallelism;
+    }
+
+    /**
+     * Sets the maximum number of threads {@link #build()} uses to enumerate the coordinates of the grid. Big grids
+     * are split into runs of rows which are filled in parallel. If it is not set the number of available
+     * processors will be used.
+     *
+     * @param buildParallelism maximum number of threads
+     * @return this {@link HexagonalGridBuilder}.
+     */
+    public HexagonalGridBuilder setBuildParallelism(final int buildParallelism) {
+        this.buildParallelism = buildParallelism;
+        return this;
+    }
+
+    private <T extends HexagonalGrid> T seedStorageOf(final T hexagonalGrid) {
+        customStorage.seal();
+        if (!customStorage.isEmpty()) {
+            ((AbstractHexagonalGrid) hexagonalGrid).getHexagonStorage().putAll(customStorage);
+        }
+        return hexagonalGrid;
+    }
 }
@@ -2,6 +2,7 @@ package org.codetome.hexameter.core.api;
 
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.HexagonalGridLayoutStrategy;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.MaskGridLayoutStrategy;
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.RectangularGridLayoutStrategy;
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.TrapezoidGridLayoutStrategy;
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.TriangularGridLayoutStrategy;
@@ -33,7 +34,13 @@ public enum HexagonalGridLayout {
     /**
      * A trapezoid layout has no special rules.
      */
-    TRAPEZOID(new TrapezoidGridLayoutStrategy());
+    TRAPEZOID(new TrapezoidGridLayoutStrategy()),
+
+    /**
+     * A mask layout takes its shape from the {@link HexagonalGridMask} supplied
+     * to the {@link HexagonalGridBuilder}. Its width and height are those of the mask.
+     */
+    MASK(new MaskGridLayoutStrategy());
 
     private GridLayoutStrategy gridLayoutStrategy;
 
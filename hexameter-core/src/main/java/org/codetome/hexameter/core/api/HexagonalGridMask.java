@@ -0,0 +1,235 @@
+package org.codetome.hexameter.core.api;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+
+/**
+ * <p>
+ * Immutable bit mask over a bounding parallelogram of cube coordinates which can be used
+ * to describe irregular grid shapes (islands, coastlines) with the {@link HexagonalGridLayout#MASK}
+ * layout. The parallelogram spans <code>gridX</code> from 0 to <code>width - 1</code> and
+ * <code>gridZ</code> from 0 to <code>height - 1</code> (the same area a TRAPEZOID layout covers),
+ * and bit <code>gridZ * width + gridX</code> tells whether the cell is present.
+ * </p>
+ * <p>
+ * Apart from constant time containment checks the mask supports dense rank/select indexing
+ * over the present cells: {@link #indexOf(CubeCoordinate)} maps a present cell to an index in
+ * <code>[0, getCellCount())</code> and {@link #coordinateAt(int)} maps it back. This lets you
+ * keep per-cell data in arrays which are proportional to the number of present cells only.
+ * </p>
+ */
+public final class HexagonalGridMask {
+
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = 63;
+
+    private final int width;
+    private final int height;
+    private final long[] words;
+    private final int[] ranks;
+    private final int cellCount;
+
+    private HexagonalGridMask(final int width, final int height, final long[] words) {
+        this.width = width;
+        this.height = height;
+        this.words = words;
+        this.ranks = new int[words.length];
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            ranks[i] = count;
+            count += Long.bitCount(words[i]);
+        }
+        this.cellCount = count;
+    }
+
+    /**
+     * Creates a {@link HexagonalGridMask} from a {@link BitSet} where bit <code>gridZ * width + gridX</code>
+     * represents the cell at (gridX, gridZ). Bits outside of the parallelogram are ignored.
+     * The {@link BitSet} is copied so it can be reused after this call.
+     *
+     * @param width width of the bounding parallelogram
+     * @param height height of the bounding parallelogram
+     * @param bits present cells
+     * @return mask
+     */
+    public static HexagonalGridMask fromBitSet(final int width, final int height, final BitSet bits) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height of a mask must be greater than 0.");
+        }
+        final long area = (long) width * height;
+        if (area > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Mask area is too big: " + width + " * " + height);
+        }
+        final BitSet clipped = bits.get(0, (int) area);
+        final long[] source = clipped.toLongArray();
+        final long[] words = new long[(int) ((area + WORD_MASK) >>> WORD_SHIFT)];
+        System.arraycopy(source, 0, words, 0, source.length);
+        return new HexagonalGridMask(width, height, words);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of present cells in this mask.
+     *
+     * @return number of present cells
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Tells whether the cell at the given cube coordinate is present in this mask.
+     *
+     * @param gridX cube x
+     * @param gridZ cube z
+     * @return is it present?
+     */
+    public boolean contains(final int gridX, final int gridZ) {
+        if (gridX < 0 || gridX >= width || gridZ < 0 || gridZ >= height) {
+            return false;
+        }
+        final int bit = gridZ * width + gridX;
+        return (words[bit >>> WORD_SHIFT] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Tells whether the cell at the given {@link CubeCoordinate} is present in this mask.
+     *
+     * @param coordinate coordinate
+     * @return is it present?
+     */
+    public boolean contains(final CubeCoordinate coordinate) {
+        return contains(coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    /**
+     * Returns the dense index (rank) of the given {@link CubeCoordinate} among the present cells
+     * or -1 if it is not present.
+     *
+     * @param coordinate coordinate
+     * @return dense index or -1
+     */
+    public int indexOf(final CubeCoordinate coordinate) {
+        return indexOf(coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    /**
+     * Returns the dense index (rank) of the cell at the given cube coordinate among the present cells
+     * or -1 if it is not present.
+     *
+     * @param gridX cube x
+     * @param gridZ cube z
+     * @return dense index or -1
+     */
+    public int indexOf(final int gridX, final int gridZ) {
+        if (!contains(gridX, gridZ)) {
+            return -1;
+        }
+        final int bit = gridZ * width + gridX;
+        final int word = bit >>> WORD_SHIFT;
+        return ranks[word] + Long.bitCount(words[word] & ((1L << bit) - 1));
+    }
+
+    /**
+     * Returns the {@link CubeCoordinate} of the present cell with the given dense index (select).
+     *
+     * @param index dense index in <code>[0, getCellCount())</code>
+     * @return coordinate
+     */
+    public CubeCoordinate coordinateAt(final int index) {
+        if (index < 0 || index >= cellCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", cell count: " + cellCount);
+        }
+        int low = 0;
+        int high = ranks.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (ranks[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        long word = words[low];
+        for (int i = ranks[low]; i < index; i++) {
+            word &= word - 1;
+        }
+        final int bit = (low << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+        return fromCoordinates(bit % width, bit / width);
+    }
+
+    /**
+     * Returns the present cells as a new {@link BitSet} in the format accepted by {@link #fromBitSet(int, int, BitSet)}.
+     *
+     * @return bits
+     */
+    public BitSet toBitSet() {
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Returns a read-only {@link Set} view of the present cells which iterates them in dense index order.
+     * The view does not store any coordinates itself.
+     *
+     * @return coordinate set
+     */
+    public Set<CubeCoordinate> asCoordinateSet() {
+        return new AbstractSet<CubeCoordinate>() {
+            @Override
+            public boolean contains(final Object object) {
+                return object instanceof CubeCoordinate && HexagonalGridMask.this.contains((CubeCoordinate) object);
+            }
+
+            @Override
+            public Iterator<CubeCoordinate> iterator() {
+                return new PresentCellIterator();
+            }
+
+            @Override
+            public int size() {
+                return cellCount;
+            }
+        };
+    }
+
+    private final class PresentCellIterator implements Iterator<CubeCoordinate> {
+
+        private int wordIndex;
+        private long word = words.length > 0 ? words[0] : 0;
+
+        @Override
+        public boolean hasNext() {
+            while (word == 0 && wordIndex < words.length - 1) {
+                word = words[++wordIndex];
+            }
+            return word != 0;
+        }
+
+        @Override
+        public CubeCoordinate next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int bit = (wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return fromCoordinates(bit % width, bit / width);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("A HexagonalGridMask is immutable.");
+        }
+    }
+}
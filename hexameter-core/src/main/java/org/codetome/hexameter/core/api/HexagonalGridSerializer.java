@@ -0,0 +1,34 @@
+package org.codetome.hexameter.core.api;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes and reads bounded {@link HexagonalGrid}s together with their {@link SatelliteData}
+ * using a compact, versioned binary format. Grids are streamed so neither side builds an intermediate
+ * representation of the whole grid. Custom data is handled by a {@link SatelliteDataCodec}.
+ * Use {@link HexagonalGridBuilder#buildSerializer(SatelliteDataCodec)} to create one.
+ */
+public interface HexagonalGridSerializer {
+
+    /**
+     * Writes a consistent snapshot of the given grid to the given channel. The channel is not closed.
+     * Satellite data stored for coordinates which are not on the grid is not written.
+     *
+     * @param hexagonalGrid grid
+     * @param channel channel
+     * @throws IOException if writing fails
+     */
+    void write(HexagonalGrid hexagonalGrid, WritableByteChannel channel) throws IOException;
+
+    /**
+     * Reads a grid written by {@link #write(HexagonalGrid, WritableByteChannel)} from the given channel.
+     * The channel is not closed but it may have been read past the end of the grid.
+     *
+     * @param channel channel
+     * @return grid
+     * @throws IOException if reading fails or the data is not a valid grid
+     */
+    HexagonalGrid read(ReadableByteChannel channel) throws IOException;
+}
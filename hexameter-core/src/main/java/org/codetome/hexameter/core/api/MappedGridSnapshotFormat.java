@@ -0,0 +1,39 @@
+package org.codetome.hexameter.core.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * <p>
+ * Writes bounded {@link HexagonalGrid}s to snapshot files which can be opened in constant time.
+ * A snapshot file starts with a header describing the grid followed by fixed-stride terrain columns
+ * (passability and movement cost) which are memory mapped when the file is opened, so nothing is
+ * deserialized and the operating system loads the pages lazily when they are first read.
+ * Use {@link HexagonalGridBuilder#buildMappedGridSnapshotFormat()} to create one.
+ * </p>
+ * <p>
+ * Only passability and movement cost of the cells of the grid are stored. Custom data and satellite data
+ * stored for coordinates which are not on the grid are not.
+ * </p>
+ */
+public interface MappedGridSnapshotFormat {
+
+    /**
+     * Writes a consistent snapshot of the given grid to the given file. The file is overwritten if it exists.
+     *
+     * @param hexagonalGrid grid
+     * @param file file
+     * @throws IOException if writing fails
+     */
+    void write(HexagonalGrid hexagonalGrid, Path file) throws IOException;
+
+    /**
+     * Opens a grid from a snapshot file. The grid can be modified: modified cells are kept on the heap
+     * while the rest of the cells keep reading the file.
+     *
+     * @param file file
+     * @return grid
+     * @throws IOException if reading fails or the file is not a valid snapshot
+     */
+    HexagonalGrid open(Path file) throws IOException;
+}
@@ -0,0 +1,56 @@
+package org.codetome.hexameter.core.api;
+
+/**
+ * <p>
+ * Read access to columnar terrain fields of {@link SatelliteData} (passability and movement cost)
+ * of every cell in a bounded {@link HexagonalGrid} addressed by the dense index of a cell.
+ * {@link TerrainColumns} can also be written, {@link CompressedTerrainColumns} and the columns of a mapped
+ * snapshot file never change.
+ * </p>
+ * <p>
+ * Cells which were never written are impassable and have a movement cost of 0 just like
+ * a new {@link DefaultSatelliteData}.
+ * </p>
+ */
+public interface ReadableTerrainColumns {
+
+    /**
+     * Returns the number of cells (the size of the columns).
+     *
+     * @return number of cells
+     */
+    int getCellCount();
+
+    /**
+     * Returns the dense index of the cell at the given {@link CubeCoordinate} or -1 if it is not on the grid.
+     *
+     * @param coordinate coord
+     * @return dense index or -1
+     */
+    int indexOf(CubeCoordinate coordinate);
+
+    /**
+     * Tells whether the cell with the given dense index is passable.
+     *
+     * @param index dense index
+     * @return is passable?
+     */
+    boolean isPassable(int index);
+
+    /**
+     * Returns the movement cost of the cell with the given dense index.
+     *
+     * @param index dense index
+     * @return movement cost
+     */
+    double getMovementCost(int index);
+
+    /**
+     * Copies a consistent pair of terrain fields of the cell with the given dense index
+     * to the given {@link SatelliteData}.
+     *
+     * @param index dense index
+     * @param satelliteData target
+     */
+    void copyTerrainTo(int index, SatelliteData satelliteData);
+}
@@ -0,0 +1,39 @@
+package org.codetome.hexameter.core.api;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Pluggable part of the binary grid formats which creates {@link SatelliteData} objects and
+ * writes / reads their custom data. Passability and movement cost are handled by the formats themselves,
+ * a codec only has to deal with whatever it stores using {@link SatelliteData#addCustomData(String, Object)}.
+ * See {@link DefaultSatelliteDataCodec} for a codec which ignores custom data.
+ */
+public interface SatelliteDataCodec {
+
+    /**
+     * Creates a new, empty {@link SatelliteData} which will be filled with decoded data.
+     *
+     * @return satellite data
+     */
+    SatelliteData newSatelliteData();
+
+    /**
+     * Writes the custom data of the given {@link SatelliteData}.
+     *
+     * @param satelliteData satellite data
+     * @param output output
+     * @throws IOException if writing fails
+     */
+    void encodeCustomData(SatelliteData satelliteData, DataOutput output) throws IOException;
+
+    /**
+     * Reads the custom data written by {@link #encodeCustomData(SatelliteData, DataOutput)} into the given {@link SatelliteData}.
+     *
+     * @param input input
+     * @param satelliteData satellite data
+     * @throws IOException if reading fails
+     */
+    void decodeCustomData(DataInput input, SatelliteData satelliteData) throws IOException;
+}
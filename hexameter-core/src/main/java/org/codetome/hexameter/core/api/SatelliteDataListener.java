@@ -0,0 +1,32 @@
+package org.codetome.hexameter.core.api;
+
+/**
+ * Gets notified when the satellite data of a {@link HexagonalGrid} is set or cleared through its {@link Hexagon}s
+ * or the grid itself. Changing the fields of a {@link SatelliteData} object in place is not a change of the grid.
+ * Listeners are called on the thread which made the change while it holds the lock of the changed cell (every lock
+ * for {@link #onAllSatelliteDataCleared()}) so they should return quickly and must not write satellite data of the
+ * grid, otherwise two threads can deadlock.
+ * See {@link HexagonalGrid#addSatelliteDataListener(SatelliteDataListener)}.
+ */
+public interface SatelliteDataListener {
+
+    /**
+     * Called after satellite data was set for a cell.
+     *
+     * @param coordinate coordinate of the cell
+     * @param satelliteData the new satellite data
+     */
+    void onSatelliteDataSet(CubeCoordinate coordinate, SatelliteData satelliteData);
+
+    /**
+     * Called after the satellite data of a cell was cleared.
+     *
+     * @param coordinate coordinate of the cell
+     */
+    void onSatelliteDataCleared(CubeCoordinate coordinate);
+
+    /**
+     * Called after all satellite data of the grid was cleared.
+     */
+    void onAllSatelliteDataCleared();
+}
@@ -0,0 +1,56 @@
+package org.codetome.hexameter.core.api;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * <p>
+ * Write-ahead journal of the satellite data changes of a {@link HexagonalGrid} (see {@link SatelliteDataListener}).
+ * Changes are encoded into memory when they happen and committed to disk in batches with a single fsync per batch
+ * (group commit) by a background thread, so a crash loses at most the changes of the last commit interval. The changes
+ * of a cell are journaled in the order the grid applied them and clearing all satellite data is journaled after every
+ * change applied before it and before every change applied after it. Changes of different cells made concurrently
+ * may be journaled in any order, which does not matter for replay since they don't affect each other.
+ * If a commit fails its changes are kept and written by the next one.
+ * Use {@link HexagonalGridBuilder#buildJournalFor(HexagonalGrid, java.nio.file.Path, SatelliteDataCodec)} to create one.
+ * </p>
+ * <p>
+ * The journal is a directory of segment files. To recover a grid load the last snapshot of it and replay the journal with
+ * {@link HexagonalGridBuilder#replayJournal(HexagonalGrid, java.nio.file.Path, SatelliteDataCodec)}. To keep the journal small
+ * call {@link #rollOver()}, write a snapshot of the grid and then call {@link #deleteSegmentsBefore(long)} with the
+ * segment returned by {@link #rollOver()}.
+ * </p>
+ */
+public interface SatelliteJournal extends Closeable {
+
+    /**
+     * Commits every change journaled so far and waits until it is on disk.
+     *
+     * @throws IOException if writing fails (the changes are kept for the next commit)
+     */
+    void flush() throws IOException;
+
+    /**
+     * Commits every change journaled so far and starts a new segment.
+     *
+     * @return number of the new segment
+     * @throws IOException if writing fails
+     */
+    long rollOver() throws IOException;
+
+    /**
+     * Deletes every segment older than the given one.
+     *
+     * @param segment segment number returned by {@link #rollOver()}
+     * @throws IOException if deleting fails
+     */
+    void deleteSegmentsBefore(long segment) throws IOException;
+
+    /**
+     * Stops journaling the grid, commits the remaining changes and closes the journal.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    void close() throws IOException;
+}
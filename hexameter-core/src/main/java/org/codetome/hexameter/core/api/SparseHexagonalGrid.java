@@ -0,0 +1,57 @@
+package org.codetome.hexameter.core.api;
+
+import rx.Observable;
+
+/**
+ * <p>
+ * A {@link HexagonalGrid} for big, mostly empty worlds. Its cells carry no cost until satellite data
+ * is stored on them or they are explicitly activated. Range, neighbor and pixel queries behave
+ * like on any other grid (they are answered from the layout of the grid) but {@link #getHexagons()}
+ * only returns the occupied {@link Hexagon}s.
+ * </p>
+ * <p>
+ * Use {@link HexagonalGridBuilder#buildSparse()} to create one.
+ * </p>
+ */
+public interface SparseHexagonalGrid extends HexagonalGrid {
+
+    /**
+     * Returns the occupied {@link Hexagon}s of this grid: those which have satellite data
+     * or have been activated.
+     *
+     * @return occupied hexagons
+     */
+    @Override
+    Observable<Hexagon> getHexagons();
+
+    /**
+     * Marks the {@link Hexagon} at the given coordinate as occupied even if it has no satellite data.
+     * Coordinates which are not on the grid are ignored.
+     *
+     * @param coordinate coord
+     */
+    void activate(CubeCoordinate coordinate);
+
+    /**
+     * Removes the activation of the {@link Hexagon} at the given coordinate. It stays occupied
+     * if it has satellite data.
+     *
+     * @param coordinate coord
+     */
+    void deactivate(CubeCoordinate coordinate);
+
+    /**
+     * Tells whether the {@link Hexagon} at the given coordinate is occupied.
+     *
+     * @param coordinate coord
+     * @return is it occupied?
+     */
+    boolean isOccupied(CubeCoordinate coordinate);
+
+    /**
+     * Returns the number of occupied {@link Hexagon}s.
+     *
+     * @return occupied cell count
+     */
+    int getOccupiedCellCount();
+}
@@ -0,0 +1,43 @@
+package org.codetome.hexameter.core.api;
+
+/**
+ * <p>
+ * Columnar storage for the terrain fields of {@link SatelliteData} (passability and movement cost)
+ * of every cell in a bounded {@link HexagonalGrid}. Instead of one object per {@link Hexagon}
+ * the values are kept in flat columns addressed by the dense index of a cell which makes
+ * scanning the whole grid (pathfinding, rendering) cheap.
+ * Use {@link HexagonalGridBuilder#buildTerrainColumnsFor(HexagonalGrid)} to create one.
+ * </p>
+ * <p>
+ * Readers are never blocked by writers: a reader which overlaps with a write simply retries.
+ * Cells which were never written are impassable and have a movement cost of 0 just like
+ * a new {@link DefaultSatelliteData}.
+ * </p>
+ */
+public interface TerrainColumns extends ReadableTerrainColumns {
+
+    /**
+     * Sets whether the cell with the given dense index is passable.
+     *
+     * @param index dense index
+     * @param passable passable?
+     */
+    void setPassable(int index, boolean passable);
+
+    /**
+     * Sets the movement cost of the cell with the given dense index.
+     *
+     * @param index dense index
+     * @param movementCost movement cost
+     */
+    void setMovementCost(int index, double movementCost);
+
+    /**
+     * Sets both terrain fields of the cell with the given dense index in one atomic step.
+     *
+     * @param index dense index
+     * @param passable passable?
+     * @param movementCost movement cost
+     */
+    void setTerrain(int index, boolean passable, double movementCost);
+}
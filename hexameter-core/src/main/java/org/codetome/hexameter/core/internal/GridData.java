@@ -5,6 +5,7 @@ import org.codetome.hexameter.core.api.Hexagon;
 import org.codetome.hexameter.core.api.HexagonOrientation;
 import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridLayout;
+import org.codetome.hexameter.core.api.HexagonalGridMask;
 
 import static java.lang.Math.sqrt;
 import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
@@ -24,6 +25,7 @@ public final class GridData {
     private final double hexagonWidth;
     private final int gridWidth;
     private final int gridHeight;
+    private final HexagonalGridMask gridMask;
 
     /**
      * Creates a new GridData based on <code>orientation</code> and <code>radius</code>.
@@ -36,6 +38,23 @@ public final class GridData {
      */
     public GridData(final HexagonOrientation orientation, final HexagonalGridLayout gridLayout,
                     final double radius, int gridWidth, int gridHeight) {
+        this(orientation, gridLayout, radius, gridWidth, gridHeight, null);
+    }
+
+    /**
+     * Creates a new GridData based on <code>orientation</code> and <code>radius</code> for a grid
+     * which has its shape described by a {@link HexagonalGridMask}.
+     *
+     * @param orientation orientation
+     * @param gridLayout grid layout
+     * @param radius radius
+     * @param gridWidth grid width (units)
+     * @param gridHeight grid height (units)
+     * @param gridMask grid mask (can be null if the layout is not MASK)
+     */
+    public GridData(final HexagonOrientation orientation, final HexagonalGridLayout gridLayout,
+                    final double radius, int gridWidth, int gridHeight, final HexagonalGridMask gridMask) {
+        this.gridMask = gridMask;
         this.orientation = orientation;
         this.gridLayout = gridLayout;
         this.radius = radius;
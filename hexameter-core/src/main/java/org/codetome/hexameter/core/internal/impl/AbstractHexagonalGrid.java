@@ -0,0 +1,255 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.codetome.hexameter.core.api.CoordinateConverter;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridMetrics;
+import org.codetome.hexameter.core.api.GridOperation;
+import org.codetome.hexameter.core.api.GridSnapshot;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.Point;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataListener;
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.core.internal.GridData;
+import rx.Observable;
+import rx.Observable.OnSubscribe;
+import rx.Subscriber;
+import rx.functions.Func1;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.Point.fromPosition;
+import static org.codetome.hexameter.core.internal.impl.HexagonImpl.newHexagon;
+
+/**
+ * Base class for {@link HexagonalGrid} implementations. It implements every operation using
+ * {@link #containsCubeCoordinate(CubeCoordinate)} and the satellite data storage so implementations
+ * only have to decide which coordinates are part of the grid and how they are iterated.
+ */
+@Getter
+@SuppressWarnings("PMD.UnusedPrivateField")
+public abstract class AbstractHexagonalGrid implements HexagonalGrid {
+
+    private static final int[][] NEIGHBOR_OFFSETS = {{+1, 0}, {+1, -1}, {0, -1}, {-1, 0}, {-1, +1}, {0, +1}};
+    private static final int NEIGHBOR_X_INDEX = 0;
+    private static final int NEIGHBOR_Z_INDEX = 1;
+    private static final Func1<Hexagon, CubeCoordinate> TO_CUBE_COORDINATE = new Func1<Hexagon, CubeCoordinate>() {
+        @Override
+        public CubeCoordinate call(final Hexagon hexagon) {
+            return hexagon.getCubeCoordinate();
+        }
+    };
+
+    private final GridData gridData;
+    private final Map<CubeCoordinate, Object> hexagonStorage;
+    @Getter(AccessLevel.NONE)
+    private final ListenableStorage listenableStorage;
+    private final GridMetrics metrics;
+    @Getter(AccessLevel.NONE)
+    private final boolean metricsEnabled;
+
+    protected AbstractHexagonalGrid(final GridData gridData, final Map<CubeCoordinate, Object> hexagonStorage) {
+        this(gridData, hexagonStorage, NoOpGridMetrics.INSTANCE);
+    }
+
+    /**
+     * Creates a grid which reports its operations to the given {@link GridMetrics}.
+     *
+     * @param gridData grid data
+     * @param hexagonStorage satellite data storage
+     * @param metrics metrics
+     */
+    protected AbstractHexagonalGrid(final GridData gridData, final Map<CubeCoordinate, Object> hexagonStorage, final GridMetrics metrics) {
+        this.gridData = gridData;
+        this.listenableStorage = new ListenableStorage(gridData, hexagonStorage);
+        this.hexagonStorage = listenableStorage;
+        this.metrics = metrics;
+        this.metricsEnabled = metrics.isEnabled();
+    }
+
+    @Override
+    public Observable<Hexagon> getHexagonsByCubeRange(final CubeCoordinate from, final CubeCoordinate to) {
+        Observable<Hexagon> result = Observable.create(new OnSubscribe<Hexagon>() {
+            @Override
+            public void call(Subscriber<? super Hexagon> subscriber) {
+                for (int gridZ = from.getGridZ(); gridZ <= to.getGridZ(); gridZ++) {
+                    for (int gridX = from.getGridX(); gridX <= to.getGridX(); gridX++) {
+                        final CubeCoordinate currentCoordinate = fromCoordinates(gridX, gridZ);
+                        if (containsCubeCoordinate(currentCoordinate)) {
+                            subscriber.onNext(getByCubeCoordinate(currentCoordinate).get());
+                        }
+                    }
+                }
+                subscriber.onCompleted();
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Observable<Hexagon> getHexagonsByOffsetRange(final int gridXFrom, final int gridXTo, final int gridYFrom, final int gridYTo) {
+        Observable<Hexagon> result = Observable.create(new OnSubscribe<Hexagon>() {
+            @Override
+            public void call(Subscriber<? super Hexagon> subscriber) {
+                for (int gridX = gridXFrom; gridX <= gridXTo; gridX++) {
+                    for (int gridY = gridYFrom; gridY <= gridYTo; gridY++) {
+                        final int cubeX = CoordinateConverter.convertOffsetCoordinatesToCubeX(gridX, gridY, gridData.getOrientation());
+                        final int cubeZ = CoordinateConverter.convertOffsetCoordinatesToCubeZ(gridX, gridY, gridData.getOrientation());
+                        final CubeCoordinate cubeCoordinate = fromCoordinates(cubeX, cubeZ);
+                        final Optional<Hexagon> hex = getByCubeCoordinate(cubeCoordinate);
+                        if (hex.isPresent()) {
+                            subscriber.onNext(hex.get());
+                        }
+                    }
+                }
+                subscriber.onCompleted();
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Optional<Hexagon> getByCubeCoordinate(final CubeCoordinate coordinate) {
+
+        return containsCubeCoordinate(coordinate)
+                ? Optional.of(newHexagon(gridData, coordinate, hexagonStorage))
+                : Optional.<Hexagon>empty();
+    }
+
+    @Override
+    public Optional<Hexagon> getByPixelCoordinate(final double coordinateX, final double coordinateY) {
+        if (!metricsEnabled) {
+            return findByPixelCoordinate(coordinateX, coordinateY);
+        }
+        final long start = System.nanoTime();
+        final Optional<Hexagon> result = findByPixelCoordinate(coordinateX, coordinateY);
+        metrics.record(GridOperation.PIXEL_LOOKUP, System.nanoTime() - start, NEIGHBOR_OFFSETS.length + 1);
+        return result;
+    }
+
+    private Optional<Hexagon> findByPixelCoordinate(final double coordinateX, final double coordinateY) {
+        int estimatedGridX = (int) (coordinateX / gridData.getHexagonWidth());
+        int estimatedGridZ = (int) (coordinateY / gridData.getHexagonHeight());
+        estimatedGridX = CoordinateConverter.convertOffsetCoordinatesToCubeX(estimatedGridX, estimatedGridZ, gridData.getOrientation());
+        estimatedGridZ = CoordinateConverter.convertOffsetCoordinatesToCubeZ(estimatedGridX, estimatedGridZ, gridData.getOrientation());
+        // it is possible that the estimated coordinates are off the grid so we
+        // create a virtual hexagon
+        final CubeCoordinate estimatedCoordinate = fromCoordinates(estimatedGridX, estimatedGridZ);
+        final Hexagon tempHex = newHexagon(gridData, estimatedCoordinate, hexagonStorage);
+
+        Hexagon trueHex = refineHexagonByPixel(tempHex, fromPosition(coordinateX, coordinateY));
+
+        if (hexagonsAreAtTheSamePosition(tempHex, trueHex)) {
+            return getByCubeCoordinate(estimatedCoordinate);
+        } else {
+            return containsCubeCoordinate(trueHex.getCubeCoordinate()) ? Optional.of(trueHex) : Optional.<Hexagon>empty();
+        }
+    }
+
+    @Override
+    public Optional<Hexagon> getNeighborByIndex(Hexagon hexagon, int index) {
+        final int neighborGridX = hexagon.getGridX() + NEIGHBOR_OFFSETS[index][NEIGHBOR_X_INDEX];
+        final int neighborGridZ = hexagon.getGridZ() + NEIGHBOR_OFFSETS[index][NEIGHBOR_Z_INDEX];
+        final CubeCoordinate neighborCoordinate = fromCoordinates(neighborGridX, neighborGridZ);
+        return getByCubeCoordinate(neighborCoordinate);
+    }
+
+    @Override
+    public Collection<Hexagon> getNeighborsOf(final Hexagon hexagon) {
+        if (!metricsEnabled) {
+            return findNeighborsOf(hexagon);
+        }
+        final long start = System.nanoTime();
+        final Collection<Hexagon> result = findNeighborsOf(hexagon);
+        metrics.record(GridOperation.NEIGHBORS, System.nanoTime() - start, NEIGHBOR_OFFSETS.length);
+        return result;
+    }
+
+    private Collection<Hexagon> findNeighborsOf(final Hexagon hexagon) {
+        final Set<Hexagon> neighbors = new HashSet<>();
+        for (int i = 0; i < NEIGHBOR_OFFSETS.length; i++) {
+            Optional<Hexagon> retHex = getNeighborByIndex(hexagon, i);
+            if (retHex.isPresent()) {
+                neighbors.add(retHex.get());
+            }
+        }
+        return neighbors;
+    }
+
+    @Override
+    public void clearSatelliteData() {
+        hexagonStorage.clear();
+    }
+
+    @Override
+    public GridData getGridData() {
+        return gridData;
+    }
+
+    @Override
+    public <T extends SatelliteData> Optional<T> computeSatelliteData(final CubeCoordinate coordinate, final Func1<T, T> function) {
+        if (!containsCubeCoordinate(coordinate)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(listenableStorage.compute(coordinate, function));
+    }
+
+    @Override
+    public void addSatelliteDataListener(final SatelliteDataListener listener) {
+        listenableStorage.addListener(listener);
+    }
+
+    @Override
+    public void removeSatelliteDataListener(final SatelliteDataListener listener) {
+        listenableStorage.removeListener(listener);
+    }
+
+    @Override
+    public GridSnapshot snapshot() {
+        return new GridSnapshotImpl(this, snapshotStorage());
+    }
+
+    /**
+     * Returns the coordinates of the cells {@link #getHexagons()} returns. Unlike {@link #getHexagons()} this must
+     * not allocate the grid (like materializing a lazy grid) so snapshots can use it.
+     *
+     * @return coordinates
+     */
+    protected Observable<CubeCoordinate> fetchCoordinates() {
+        return getHexagons().map(TO_CUBE_COORDINATE);
+    }
+
+    /**
+     * Returns a frozen copy of the satellite data storage used by {@link #snapshot()}.
+     * Storages which can't take a snapshot of themselves are copied.
+     *
+     * @return frozen satellite data
+     */
+    protected Map<CubeCoordinate, Object> snapshotStorage() {
+        return listenableStorage.snapshot();
+    }
+
+    private static boolean hexagonsAreAtTheSamePosition(final Hexagon hex0, final Hexagon hex1) {
+        return hex0.getGridX() == hex1.getGridX() && hex0.getGridZ() == hex1.getGridZ();
+    }
+
+    private Hexagon refineHexagonByPixel(final Hexagon hexagon, final Point clickedPoint) {
+        Hexagon refined = hexagon;
+        double smallestDistance = clickedPoint.distanceFrom(fromPosition(refined.getCenterX(), refined.getCenterY()));
+        for (final Hexagon neighbor : findNeighborsOf(hexagon)) {
+            final double currentDistance = clickedPoint.distanceFrom(fromPosition(neighbor.getCenterX(), neighbor.getCenterY()));
+            if (currentDistance < smallestDistance) {
+                refined = neighbor;
+                smallestDistance = currentDistance;
+            }
+        }
+        return refined;
+    }
+}
@@ -0,0 +1,212 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.HexagonOrientation;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridLayout;
+import org.codetome.hexameter.core.api.HexagonalGridMask;
+import org.codetome.hexameter.core.api.HexagonalGridSerializer;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataCodec;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
+import java.util.Map;
+
+import static org.codetome.hexameter.core.internal.impl.VarInts.readVarInt;
+import static org.codetome.hexameter.core.internal.impl.VarInts.writeVarInt;
+
+/**
+ * {@link HexagonalGridSerializer} using a streamable binary layout.
+ * The layout is (ints marked as varint use {@link VarInts}):
+ * <ul>
+ * <li>magic number (<code>HXGR</code>) and format version (varint)</li>
+ * <li>orientation and layout ordinals (1 byte each), radius (double), width and height (varint)</li>
+ * <li>for the MASK layout: the number of mask words (varint) followed by the words (long)</li>
+ * <li>the cells which have satellite data in dense index order: the distance from the previous index (varint,
+ * the first cell is measured from -1), a flag byte for passability and a non-zero movement cost, the movement cost (double)
+ * if it is not zero and the custom data written by the {@link SatelliteDataCodec}</li>
+ * <li>0 (varint) marking the end of the cells</li>
+ * </ul>
+ * Satellite data stored for coordinates which are not cells of the grid has no dense index so it can't be
+ * represented by this layout: it is skipped.
+ */
+public final class BinaryHexagonalGridSerializer implements HexagonalGridSerializer {
+
+    public static final int MAGIC = 0x48584752;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PASSABLE_FLAG = 1;
+    private static final int MOVEMENT_COST_FLAG = 2;
+    private static final int END_OF_CELLS = 0;
+
+    private final SatelliteDataCodec satelliteDataCodec;
+
+    public BinaryHexagonalGridSerializer(final SatelliteDataCodec satelliteDataCodec) {
+        this.satelliteDataCodec = satelliteDataCodec;
+    }
+
+    @Override
+    public void write(final HexagonalGrid hexagonalGrid, final WritableByteChannel channel) throws IOException {
+        if (!(hexagonalGrid instanceof HexagonalGridImpl)) {
+            throw new IllegalArgumentException("Only bounded grids can be serialized.");
+        }
+        final GridData gridData = hexagonalGrid.getGridData();
+        final GridLayoutStrategy gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        final Map<CubeCoordinate, Object> satelliteData = ((HexagonalGridImpl) hexagonalGrid).snapshotStorage();
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        writeHeader(gridData, output);
+        int previousIndex = -1;
+        for (final Map.Entry<CubeCoordinate, Object> entry : satelliteData.entrySet()) {
+            final CubeCoordinate coordinate = entry.getKey();
+            final int index = gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+            if (index < 0) {
+                continue;
+            }
+            writeVarInt(output, index - previousIndex);
+            writeSatelliteData(satelliteDataCodec, (SatelliteData) entry.getValue(), output);
+            previousIndex = index;
+        }
+        writeVarInt(output, END_OF_CELLS);
+        output.flush();
+    }
+
+    @Override
+    public HexagonalGrid read(final ReadableByteChannel channel) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        final HexagonalGridImpl result = (HexagonalGridImpl) readHeader(input).build();
+        final GridData gridData = result.getGridData();
+        final GridLayoutStrategy gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        final int cellCount = gridLayoutStrategy.getCellCount(gridData);
+        final Map<CubeCoordinate, Object> storage = result.getHexagonStorage();
+        int index = -1;
+        int distance = readVarInt(input);
+        while (distance != END_OF_CELLS) {
+            index += distance;
+            if (index < 0 || index >= cellCount) {
+                throw new IOException("Cell index out of bounds: " + index);
+            }
+            storage.put(gridLayoutStrategy.coordinateAt(gridData, index), readSatelliteData(satelliteDataCodec, input));
+            distance = readVarInt(input);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the part of the header describing the grid: everything which is needed to rebuild it.
+     *
+     * @param gridData grid data
+     * @param output output
+     * @throws IOException if writing fails
+     */
+    static void writeHeader(final GridData gridData, final DataOutput output) throws IOException {
+        output.writeInt(MAGIC);
+        writeVarInt(output, FORMAT_VERSION);
+        output.writeByte(gridData.getOrientation().ordinal());
+        output.writeByte(gridData.getGridLayout().ordinal());
+        output.writeDouble(gridData.getRadius());
+        writeVarInt(output, gridData.getGridWidth());
+        writeVarInt(output, gridData.getGridHeight());
+        if (HexagonalGridLayout.MASK.equals(gridData.getGridLayout())) {
+            final long[] words = gridData.getGridMask().toBitSet().toLongArray();
+            writeVarInt(output, words.length);
+            for (final long word : words) {
+                output.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Reads a header written by {@link #writeHeader(GridData, DataOutput)} into a builder of the same grid.
+     *
+     * @param input input
+     * @return builder
+     * @throws IOException if reading fails or the header is not valid
+     */
+    static HexagonalGridBuilder readHeader(final DataInput input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a hexameter grid.");
+        }
+        final int version = readVarInt(input);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported format version: " + version);
+        }
+        final HexagonOrientation orientation = readEnum(HexagonOrientation.values(), input.readUnsignedByte());
+        final HexagonalGridLayout gridLayout = readEnum(HexagonalGridLayout.values(), input.readUnsignedByte());
+        final HexagonalGridBuilder builder = new HexagonalGridBuilder()
+                .setOrientation(orientation)
+                .setGridLayout(gridLayout)
+                .setRadius(input.readDouble())
+                .setGridWidth(readVarInt(input))
+                .setGridHeight(readVarInt(input));
+        if (HexagonalGridLayout.MASK.equals(gridLayout)) {
+            final long[] words = new long[readVarInt(input)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = input.readLong();
+            }
+            builder.setGridMask(HexagonalGridMask.fromBitSet(builder.getGridWidth(), builder.getGridHeight(), BitSet.valueOf(words)));
+        }
+        return builder;
+    }
+
+    /**
+     * Writes the passability and movement cost of the given {@link SatelliteData} followed by its custom data.
+     *
+     * @param satelliteDataCodec codec of the custom data
+     * @param satelliteData satellite data
+     * @param output output
+     * @throws IOException if writing fails
+     */
+    static void writeSatelliteData(final SatelliteDataCodec satelliteDataCodec, final SatelliteData satelliteData, final DataOutput output)
+            throws IOException {
+        final double movementCost = satelliteData.getMovementCost();
+        int flags = satelliteData.isPassable() ? PASSABLE_FLAG : 0;
+        if (movementCost != 0) {
+            flags |= MOVEMENT_COST_FLAG;
+        }
+        output.writeByte(flags);
+        if (movementCost != 0) {
+            output.writeDouble(movementCost);
+        }
+        satelliteDataCodec.encodeCustomData(satelliteData, output);
+    }
+
+    /**
+     * Reads {@link SatelliteData} written by {@link #writeSatelliteData(SatelliteDataCodec, SatelliteData, DataOutput)}.
+     *
+     * @param satelliteDataCodec codec of the custom data
+     * @param input input
+     * @return satellite data
+     * @throws IOException if reading fails
+     */
+    static SatelliteData readSatelliteData(final SatelliteDataCodec satelliteDataCodec, final DataInput input) throws IOException {
+        final SatelliteData result = satelliteDataCodec.newSatelliteData();
+        final int flags = input.readUnsignedByte();
+        result.setPassable((flags & PASSABLE_FLAG) != 0);
+        if ((flags & MOVEMENT_COST_FLAG) != 0) {
+            result.setMovementCost(input.readDouble());
+        }
+        satelliteDataCodec.decodeCustomData(input, result);
+        return result;
+    }
+
+    private static <T> T readEnum(final T[] values, final int ordinal) throws IOException {
+        if (ordinal >= values.length) {
+            throw new IOException("Unknown constant: " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,242 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridChangeTracker;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataCodec;
+import org.codetome.hexameter.core.api.SatelliteDataListener;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+import static org.codetome.hexameter.core.internal.impl.BinaryHexagonalGridSerializer.readSatelliteData;
+import static org.codetome.hexameter.core.internal.impl.BinaryHexagonalGridSerializer.writeSatelliteData;
+import static org.codetome.hexameter.core.internal.impl.VarInts.readVarInt;
+import static org.codetome.hexameter.core.internal.impl.VarInts.writeVarInt;
+
+/**
+ * <p>
+ * {@link GridChangeTracker} which keeps a bit for every cell of the grid (by dense index) and the list of the
+ * indices whose bit is set, so marking and exporting never have to scan the whole grid.
+ * </p>
+ * <p>
+ * The layout of a delta is (ints marked as varint use {@link VarInts}):
+ * </p>
+ * <ul>
+ * <li>magic number (<code>HXDL</code>), format version (varint) and cell count (varint) of the grid</li>
+ * <li>a flag byte telling whether all satellite data was cleared before the changes</li>
+ * <li>the changed cells in dense index order: the distance from the previous index (varint, the first cell is
+ * measured from -1), a byte telling whether the cell has satellite data and the satellite data in the format of
+ * {@link BinaryHexagonalGridSerializer} if it has</li>
+ * <li>0 (varint) marking the end of the cells</li>
+ * </ul>
+ */
+public final class BitSetGridChangeTracker implements GridChangeTracker, SatelliteDataListener {
+
+    public static final int MAGIC = 0x4858444C;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int CLEARED_ALL_FLAG = 1;
+    private static final int CELL_CLEARED = 0;
+    private static final int CELL_PRESENT = 1;
+    private static final int END_OF_CELLS = 0;
+
+    private final HexagonalGridImpl hexagonalGrid;
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final BitSet dirtyCells = new BitSet();
+    private int[] dirtyIndices = new int[INITIAL_CAPACITY];
+    private int dirtyCount;
+    private boolean clearedAll;
+
+    /**
+     * Starts tracking the changes of the given grid.
+     *
+     * @param hexagonalGrid grid
+     */
+    public BitSetGridChangeTracker(final HexagonalGridImpl hexagonalGrid) {
+        this.hexagonalGrid = hexagonalGrid;
+        this.gridData = hexagonalGrid.getGridData();
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        hexagonalGrid.addSatelliteDataListener(this);
+    }
+
+    /**
+     * Applies a delta written by {@link #exportDelta(WritableByteChannel, SatelliteDataCodec)} to the given grid.
+     *
+     * @param hexagonalGrid grid with the same parameters as the one the delta was exported from
+     * @param channel channel to read from
+     * @param satelliteDataCodec codec of the custom satellite data
+     * @return number of cells changed
+     * @throws IOException if reading fails or the delta does not fit the grid
+     */
+    public static int applyDelta(final HexagonalGrid hexagonalGrid, final ReadableByteChannel channel, final SatelliteDataCodec satelliteDataCodec)
+            throws IOException {
+        if (!(hexagonalGrid instanceof HexagonalGridImpl)) {
+            throw new IllegalArgumentException("Deltas can only be applied to bounded grids.");
+        }
+        final GridData gridData = hexagonalGrid.getGridData();
+        final GridLayoutStrategy gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        final int cellCount = gridLayoutStrategy.getCellCount(gridData);
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a hexameter delta.");
+        }
+        final int version = readVarInt(input);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported format version: " + version);
+        }
+        final int deltaCellCount = readVarInt(input);
+        if (deltaCellCount != cellCount) {
+            throw new IOException("Delta was exported from a grid with " + deltaCellCount + " cells, this grid has " + cellCount + ".");
+        }
+        if ((input.readUnsignedByte() & CLEARED_ALL_FLAG) != 0) {
+            hexagonalGrid.clearSatelliteData();
+        }
+        final Map<CubeCoordinate, Object> storage = ((HexagonalGridImpl) hexagonalGrid).getHexagonStorage();
+        int result = 0;
+        int index = -1;
+        int distance = readVarInt(input);
+        while (distance != END_OF_CELLS) {
+            index += distance;
+            if (index < 0 || index >= cellCount) {
+                throw new IOException("Cell index out of bounds: " + index);
+            }
+            final CubeCoordinate coordinate = gridLayoutStrategy.coordinateAt(gridData, index);
+            if (input.readUnsignedByte() == CELL_PRESENT) {
+                storage.put(coordinate, readSatelliteData(satelliteDataCodec, input));
+            } else {
+                storage.remove(coordinate);
+            }
+            result++;
+            distance = readVarInt(input);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized boolean isDirty(final CubeCoordinate coordinate) {
+        final int index = gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+        return index >= 0 && dirtyCells.get(index);
+    }
+
+    @Override
+    public synchronized int getDirtyCellCount() {
+        return dirtyCount;
+    }
+
+    @Override
+    public synchronized void mark() {
+        for (int i = 0; i < dirtyCount; i++) {
+            dirtyCells.clear(dirtyIndices[i]);
+        }
+        dirtyCount = 0;
+        clearedAll = false;
+    }
+
+    /**
+     * The changes are forgotten when the delta is taken, so changes made while it is written are kept for the next
+     * one. If writing fails the exported changes are marked dirty again.
+     */
+    @Override
+    public void exportDelta(final WritableByteChannel channel, final SatelliteDataCodec satelliteDataCodec) throws IOException {
+        final int[] indices;
+        final boolean exportedClearedAll;
+        synchronized (this) {
+            indices = Arrays.copyOf(dirtyIndices, dirtyCount);
+            exportedClearedAll = clearedAll;
+            mark();
+        }
+        Arrays.sort(indices);
+        boolean written = false;
+        try {
+            writeDelta(channel, satelliteDataCodec, indices, exportedClearedAll);
+            written = true;
+        } finally {
+            if (!written) {
+                markDirtyAgain(indices, exportedClearedAll);
+            }
+        }
+    }
+
+    @Override
+    public void release() {
+        hexagonalGrid.removeSatelliteDataListener(this);
+    }
+
+    @Override
+    public void onSatelliteDataSet(final CubeCoordinate coordinate, final SatelliteData satelliteData) {
+        markDirty(coordinate);
+    }
+
+    @Override
+    public void onSatelliteDataCleared(final CubeCoordinate coordinate) {
+        markDirty(coordinate);
+    }
+
+    @Override
+    public synchronized void onAllSatelliteDataCleared() {
+        mark();
+        clearedAll = true;
+    }
+
+    private void writeDelta(final WritableByteChannel channel, final SatelliteDataCodec satelliteDataCodec,
+                            final int[] indices, final boolean exportedClearedAll) throws IOException {
+        final Map<CubeCoordinate, Object> storage = hexagonalGrid.getHexagonStorage();
+        final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        output.writeInt(MAGIC);
+        writeVarInt(output, FORMAT_VERSION);
+        writeVarInt(output, gridLayoutStrategy.getCellCount(gridData));
+        output.writeByte(exportedClearedAll ? CLEARED_ALL_FLAG : 0);
+        int previousIndex = -1;
+        for (final int index : indices) {
+            writeVarInt(output, index - previousIndex);
+            final Object satelliteData = storage.get(gridLayoutStrategy.coordinateAt(gridData, index));
+            if (satelliteData == null) {
+                output.writeByte(CELL_CLEARED);
+            } else {
+                output.writeByte(CELL_PRESENT);
+                writeSatelliteData(satelliteDataCodec, (SatelliteData) satelliteData, output);
+            }
+            previousIndex = index;
+        }
+        writeVarInt(output, END_OF_CELLS);
+        output.flush();
+    }
+
+    private synchronized void markDirtyAgain(final int[] indices, final boolean exportedClearedAll) {
+        for (final int index : indices) {
+            markDirty(index);
+        }
+        clearedAll |= exportedClearedAll;
+    }
+
+    private void markDirty(final CubeCoordinate coordinate) {
+        markDirty(gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ()));
+    }
+
+    private synchronized void markDirty(final int index) {
+        if (index < 0 || dirtyCells.get(index)) {
+            return;
+        }
+        dirtyCells.set(index);
+        if (dirtyCount == dirtyIndices.length) {
+            dirtyIndices = Arrays.copyOf(dirtyIndices, dirtyCount * 2);
+        }
+        dirtyIndices[dirtyCount++] = index;
+    }
+}
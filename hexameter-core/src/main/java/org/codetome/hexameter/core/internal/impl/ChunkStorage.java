@@ -0,0 +1,372 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.ChunkGenerator;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.internal.GridData;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.internal.impl.HexagonImpl.newHexagon;
+
+/**
+ * <p>
+ * Satellite data storage of a chunked grid. Satellite data is kept in a dense array per chunk
+ * and chunks are kept in a map keyed by their packed chunk coordinate. Chunks are generated on
+ * demand by a {@link ChunkGenerator} and the least recently used chunk is evicted (and handed to
+ * {@link ChunkGenerator#evictChunk}) when more than <code>maxLoadedChunks</code> chunks are loaded.
+ * </p>
+ * <p>
+ * The generator is called without holding the lock of the storage so accessing loaded chunks is not blocked by it.
+ * The first thread accessing a chunk which is not loaded generates it, other threads accessing the same chunk wait
+ * for that generation and the chunk is published once it is complete. A chunk is only generated again once the
+ * generator was done with its eviction.
+ * </p>
+ */
+final class ChunkStorage extends AbstractMap<CubeCoordinate, Object> {
+
+    private final GridData gridData;
+    private final int chunkSize;
+    private final int maxLoadedChunks;
+    private final ChunkGenerator chunkGenerator;
+    private final LinkedHashMap<Long, Object[]> chunks = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, ChunkTask> generations = new HashMap<>();
+    private final Map<Long, ChunkTask> evictions = new HashMap<>();
+
+    ChunkStorage(final GridData gridData, final int chunkSize, final int maxLoadedChunks, final ChunkGenerator chunkGenerator) {
+        this.gridData = gridData;
+        this.chunkSize = chunkSize;
+        this.maxLoadedChunks = maxLoadedChunks;
+        this.chunkGenerator = chunkGenerator;
+    }
+
+    static int toChunkCoordinate(final int gridCoordinate, final int chunkSize) {
+        final int result = gridCoordinate / chunkSize;
+        return gridCoordinate % chunkSize < 0 ? result - 1 : result;
+    }
+
+    static long toChunkKey(final int chunkX, final int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        if (!(key instanceof CubeCoordinate)) {
+            return null;
+        }
+        final CubeCoordinate coordinate = (CubeCoordinate) key;
+        final Object[] chunk = fetchChunk(coordinate);
+        synchronized (this) {
+            return chunk[toLocalIndex(coordinate, chunkSize)];
+        }
+    }
+
+    /**
+     * Writes into the chunk of the given key. If the chunk was evicted between fetching and writing it, it is
+     * fetched again so the write is not lost.
+     */
+    @Override
+    public Object put(final CubeCoordinate key, final Object value) {
+        final Long chunkKey = toChunkKey(toChunkCoordinate(key.getGridX(), chunkSize), toChunkCoordinate(key.getGridZ(), chunkSize));
+        final int index = toLocalIndex(key, chunkSize);
+        while (true) {
+            final Object[] chunk = fetchChunk(key);
+            synchronized (this) {
+                if (isLoadedOrGeneratedByCurrentThread(chunkKey, chunk)) {
+                    final Object previous = chunk[index];
+                    chunk[index] = value;
+                    return previous;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        if (!(key instanceof CubeCoordinate)) {
+            return null;
+        }
+        return put((CubeCoordinate) key, null);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Clears the satellite data of the loaded chunks. The chunks themselves stay loaded
+     * so they are not generated again.
+     */
+    @Override
+    public synchronized void clear() {
+        for (final Object[] chunk : chunks.values()) {
+            Arrays.fill(chunk, null);
+        }
+    }
+
+    /**
+     * Returns the satellite data stored in the loaded chunks.
+     */
+    @Override
+    public synchronized Set<Entry<CubeCoordinate, Object>> entrySet() {
+        final Set<Entry<CubeCoordinate, Object>> result = new HashSet<>();
+        for (final Entry<Long, Object[]> chunk : chunks.entrySet()) {
+            final int chunkX = (int) (chunk.getKey() >> 32);
+            final int chunkZ = (int) (long) chunk.getKey();
+            final Object[] data = chunk.getValue();
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] != null) {
+                    result.add(new SimpleImmutableEntry<>(fromCoordinates(
+                            chunkX * chunkSize + i % chunkSize, chunkZ * chunkSize + i / chunkSize), data[i]));
+                }
+            }
+        }
+        return result;
+    }
+
+    GridData getGridData() {
+        return gridData;
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    synchronized List<Long> fetchLoadedChunkKeys() {
+        return new ArrayList<>(chunks.keySet());
+    }
+
+    synchronized int getLoadedChunkCount() {
+        return chunks.size();
+    }
+
+    List<Hexagon> fetchChunkHexagons(final int chunkX, final int chunkZ, final Map<CubeCoordinate, Object> hexagonStorage) {
+        final List<Hexagon> result = new ArrayList<>(chunkSize * chunkSize);
+        for (int z = 0; z < chunkSize; z++) {
+            for (int x = 0; x < chunkSize; x++) {
+                result.add(newHexagon(gridData, fromCoordinates(chunkX * chunkSize + x, chunkZ * chunkSize + z), hexagonStorage));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the chunk of the given coordinate, generating it if it is not loaded. A generator which reads the chunk
+     * it is generating gets the partially generated chunk.
+     */
+    private Object[] fetchChunk(final CubeCoordinate coordinate) {
+        final int chunkX = toChunkCoordinate(coordinate.getGridX(), chunkSize);
+        final int chunkZ = toChunkCoordinate(coordinate.getGridZ(), chunkSize);
+        final Long key = toChunkKey(chunkX, chunkZ);
+        final ChunkTask generation;
+        synchronized (this) {
+            final Object[] chunk = chunks.get(key);
+            if (chunk != null) {
+                return chunk;
+            }
+            final ChunkTask running = generations.get(key);
+            if (running != null) {
+                if (running.isRunByCurrentThread()) {
+                    return running.getData();
+                }
+                generation = running;
+            } else {
+                generation = new ChunkTask(new Object[chunkSize * chunkSize]);
+                generations.put(key, generation);
+            }
+        }
+        if (generation.isRunByCurrentThread()) {
+            generate(chunkX, chunkZ, key, generation);
+        } else {
+            generation.await();
+        }
+        return generation.getData();
+    }
+
+    private boolean isLoadedOrGeneratedByCurrentThread(final Long key, final Object[] chunk) {
+        if (chunks.get(key) == chunk) {
+            return true;
+        }
+        final ChunkTask generation = generations.get(key);
+        return generation != null && generation.getData() == chunk && generation.isRunByCurrentThread();
+    }
+
+    private void generate(final int chunkX, final int chunkZ, final Long key, final ChunkTask generation) {
+        boolean generated = false;
+        try {
+            final ChunkTask eviction;
+            synchronized (this) {
+                eviction = evictions.get(key);
+            }
+            if (eviction != null && !eviction.isRunByCurrentThread()) {
+                eviction.await();
+            }
+            chunkGenerator.generateChunk(chunkX, chunkZ, fetchChunkHexagons(chunkX, chunkZ, new ChunkView(generation.getData(), chunkSize, true)));
+            generated = true;
+        } finally {
+            final List<Entry<Long, ChunkTask>> evicted = new ArrayList<>();
+            synchronized (this) {
+                generations.remove(key);
+                if (generated) {
+                    chunks.put(key, generation.getData());
+                    removeEvictedChunks(evicted);
+                }
+            }
+            generation.finish(generated);
+            evictChunks(evicted);
+        }
+    }
+
+    /**
+     * Removes the least recently used chunks until at most <code>maxLoadedChunks</code> are loaded. A chunk is
+     * removed before it is handed to the generator so the generator can't load it again through its hexagons.
+     */
+    private void removeEvictedChunks(final List<Entry<Long, ChunkTask>> evicted) {
+        while (chunks.size() > maxLoadedChunks) {
+            final Iterator<Entry<Long, Object[]>> eldest = chunks.entrySet().iterator();
+            final Entry<Long, Object[]> chunk = eldest.next();
+            eldest.remove();
+            final ChunkTask eviction = new ChunkTask(chunk.getValue());
+            evictions.put(chunk.getKey(), eviction);
+            evicted.add(new SimpleImmutableEntry<>(chunk.getKey(), eviction));
+        }
+    }
+
+    /**
+     * Hands the removed chunks to the generator. Every eviction is finished even if the generator fails.
+     */
+    private void evictChunks(final List<Entry<Long, ChunkTask>> evicted) {
+        RuntimeException failure = null;
+        for (final Entry<Long, ChunkTask> chunk : evicted) {
+            final int chunkX = (int) (chunk.getKey() >> 32);
+            final int chunkZ = (int) (long) chunk.getKey();
+            final ChunkTask eviction = chunk.getValue();
+            try {
+                chunkGenerator.evictChunk(chunkX, chunkZ, fetchChunkHexagons(chunkX, chunkZ, new ChunkView(eviction.getData(), chunkSize, false)));
+            } catch (final RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                synchronized (this) {
+                    evictions.remove(chunk.getKey());
+                }
+                eviction.finish(true);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static int toLocalIndex(final CubeCoordinate coordinate, final int chunkSize) {
+        final int localX = coordinate.getGridX() - toChunkCoordinate(coordinate.getGridX(), chunkSize) * chunkSize;
+        final int localZ = coordinate.getGridZ() - toChunkCoordinate(coordinate.getGridZ(), chunkSize) * chunkSize;
+        return localZ * chunkSize + localX;
+    }
+
+    /**
+     * Generation or eviction of a chunk run by the thread which created it. Other threads can wait for it to finish.
+     */
+    private static final class ChunkTask {
+
+        private final Object[] data;
+        private final Thread thread = Thread.currentThread();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean succeeded;
+
+        ChunkTask(final Object[] data) {
+            this.data = data;
+        }
+
+        Object[] getData() {
+            return data;
+        }
+
+        boolean isRunByCurrentThread() {
+            return thread == Thread.currentThread();
+        }
+
+        void finish(final boolean success) {
+            succeeded = success;
+            done.countDown();
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while (done.getCount() > 0) {
+                try {
+                    done.await();
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (!succeeded) {
+                throw new IllegalStateException("Generating the chunk failed.");
+            }
+        }
+    }
+
+    /**
+     * View of the satellite data of a chunk which is being generated or was evicted. Views of evicted chunks are
+     * read-only.
+     */
+    private static final class ChunkView extends AbstractMap<CubeCoordinate, Object> {
+
+        private final Object[] data;
+        private final int chunkSize;
+        private final boolean writable;
+
+        ChunkView(final Object[] data, final int chunkSize, final boolean writable) {
+            this.data = data;
+            this.chunkSize = chunkSize;
+            this.writable = writable;
+        }
+
+        @Override
+        public Object get(final Object key) {
+            return key instanceof CubeCoordinate ? data[toLocalIndex((CubeCoordinate) key, chunkSize)] : null;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Object put(final CubeCoordinate key, final Object value) {
+            if (!writable) {
+                throw new UnsupportedOperationException("The satellite data of an evicted chunk can't be modified.");
+            }
+            final int index = toLocalIndex(key, chunkSize);
+            final Object previous = data[index];
+            data[index] = value;
+            return previous;
+        }
+
+        @Override
+        public Object remove(final Object key) {
+            return key instanceof CubeCoordinate ? put((CubeCoordinate) key, null) : null;
+        }
+
+        @Override
+        public Set<Entry<CubeCoordinate, Object>> entrySet() {
+            throw new UnsupportedOperationException("The satellite data of a chunk view can't be iterated.");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridMetrics;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
+import rx.Observable;
+import rx.Observable.OnSubscribe;
+import rx.Subscriber;
+
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRAPEZOID;
+
+/**
+ * Unbounded HexagonalGrid which contains every cube coordinate. Its satellite data is split into
+ * fixed-size chunks which are generated on demand by a
+ * {@link org.codetome.hexameter.core.api.ChunkGenerator} and evicted when they were not used recently.
+ * The {@link GridData} of this grid describes a single chunk (which has a TRAPEZOID layout).
+ * Since the grid has no bounds {@link #getHexagons()} only returns the {@link Hexagon}s of the loaded chunks.
+ */
+public final class ChunkedHexagonalGridImpl extends AbstractHexagonalGrid {
+
+    private final ChunkStorage chunkStorage;
+
+    /**
+     * Creates a new chunked HexagonalGrid based on the provided HexagonalGridBuilder.
+     *
+     * @param builder builder
+     */
+    public ChunkedHexagonalGridImpl(final HexagonalGridBuilder builder) {
+        this(new ChunkStorage(new GridData(builder.getOrientation(), TRAPEZOID, builder.getRadius(), builder.getChunkSize(), builder.getChunkSize()),
+                builder.getChunkSize(), builder.getMaxLoadedChunks(), builder.getChunkGenerator()), builder.getMetrics());
+    }
+
+    private ChunkedHexagonalGridImpl(final ChunkStorage chunkStorage, final GridMetrics metrics) {
+        super(chunkStorage.getGridData(), chunkStorage, metrics);
+        this.chunkStorage = chunkStorage;
+    }
+
+    @Override
+    public Observable<Hexagon> getHexagons() {
+        Observable<Hexagon> result = Observable.create(new OnSubscribe<Hexagon>() {
+            @Override
+            public void call(Subscriber<? super Hexagon> subscriber) {
+                for (final Long chunkKey : chunkStorage.fetchLoadedChunkKeys()) {
+                    for (final Hexagon hexagon : chunkStorage.fetchChunkHexagons((int) (chunkKey >> 32), (int) (long) chunkKey, getHexagonStorage())) {
+                        subscriber.onNext(hexagon);
+                    }
+                }
+                subscriber.onCompleted();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * A chunked grid is unbounded so it contains every coordinate.
+     */
+    @Override
+    public boolean containsCubeCoordinate(final CubeCoordinate coordinate) {
+        return true;
+    }
+
+    public int getChunkSize() {
+        return chunkStorage.getChunkSize();
+    }
+
+    /**
+     * Returns the number of chunks which are currently loaded.
+     *
+     * @return loaded chunk count
+     */
+    public int getLoadedChunkCount() {
+        return chunkStorage.getLoadedChunkCount();
+    }
+}
@@ -0,0 +1,66 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only {@link java.util.Set} of the coordinates of a bounded grid which answers everything from the
+ * layout math of its {@link GridLayoutStrategy} so it can be created in constant time without storing any coordinates.
+ * It iterates the coordinates in dense index order.
+ */
+final class DenseCoordinateSet extends AbstractSet<CubeCoordinate> {
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final int cellCount;
+
+    DenseCoordinateSet(final GridData gridData) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        this.cellCount = gridLayoutStrategy.getCellCount(gridData);
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        if (!(object instanceof CubeCoordinate)) {
+            return false;
+        }
+        final CubeCoordinate coordinate = (CubeCoordinate) object;
+        return gridLayoutStrategy.containsCoordinate(gridData, coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    @Override
+    public Iterator<CubeCoordinate> iterator() {
+        return new Iterator<CubeCoordinate>() {
+            private int nextIndex;
+
+            @Override
+            public boolean hasNext() {
+                return nextIndex < cellCount;
+            }
+
+            @Override
+            public CubeCoordinate next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return gridLayoutStrategy.coordinateAt(gridData, nextIndex++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("The coordinates of a grid can't be changed.");
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return cellCount;
+    }
+}
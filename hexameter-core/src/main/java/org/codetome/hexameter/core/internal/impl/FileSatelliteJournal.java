@@ -0,0 +1,474 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataCodec;
+import org.codetome.hexameter.core.api.SatelliteDataListener;
+import org.codetome.hexameter.core.api.SatelliteJournal;
+import org.codetome.hexameter.core.backport.Optional;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.internal.impl.BinaryHexagonalGridSerializer.readSatelliteData;
+import static org.codetome.hexameter.core.internal.impl.BinaryHexagonalGridSerializer.writeSatelliteData;
+
+/**
+ * <p>
+ * {@link SatelliteJournal} writing segment files named after their number. A segment starts with a magic number
+ * (<code>HXJR</code>) and a format version (int) followed by batches. A batch is its length and CRC32 (int) and the records
+ * committed together. A record is a type byte and the cube coordinate (zigzag varints) followed by the satellite data
+ * in the format of {@link BinaryHexagonalGridSerializer} for set records.
+ * </p>
+ * <p>
+ * Replaying stops at the first incomplete or corrupt batch of a segment since that is where a crash happened.
+ * Records only contain absolute values so replaying records which are already part of a snapshot is harmless.
+ * </p>
+ * <p>
+ * Records stay in memory until the batch holding them is on disk. If writing a batch fails the partially written
+ * batch is truncated away (or, if that fails too, the journal continues in a new segment so later batches are not
+ * hidden behind it) and the records are written again by the next commit. A record is encoded before it is added
+ * to the batch so if the codec fails the record is left out entirely. The change itself has already been applied to
+ * the grid by then and the exception reaches the writer.
+ * </p>
+ */
+public final class FileSatelliteJournal implements SatelliteJournal, SatelliteDataListener {
+
+    public static final int MAGIC = 0x48584A52;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String SEGMENT_FORMAT = "%020d" + SEGMENT_SUFFIX;
+    private static final int RECORD_SET = 1;
+    private static final int RECORD_CLEAR = 2;
+    private static final int RECORD_CLEAR_ALL = 3;
+    private static final int BATCH_HEADER_SIZE = 8;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int DECIMAL_RADIX = 10;
+    private static final int INITIAL_RECORD_SIZE = 256;
+    private static final ThreadLocal<RecordEncoder> RECORD_ENCODERS = new ThreadLocal<RecordEncoder>() {
+        @Override
+        protected RecordEncoder initialValue() {
+            return new RecordEncoder();
+        }
+    };
+    private static final Logger LOGGER = Logger.getLogger(FileSatelliteJournal.class.getName());
+
+    private final HexagonalGrid hexagonalGrid;
+    private final SatelliteDataCodec satelliteDataCodec;
+    private final Path directory;
+    private final ScheduledExecutorService committer;
+    private final Object commitLock = new Object();
+    private final PendingRecords pending = new PendingRecords(INITIAL_BUFFER_SIZE);
+    private FileChannel channel;
+    private long segment;
+
+    /**
+     * Starts journaling the given grid into a new segment in the given directory.
+     *
+     * @param hexagonalGrid grid
+     * @param directory journal directory (created if it does not exist)
+     * @param satelliteDataCodec codec of the custom data
+     * @param commitIntervalMillis time between two background commits
+     * @throws IOException if the journal can't be opened
+     */
+    public FileSatelliteJournal(final HexagonalGrid hexagonalGrid, final Path directory, final SatelliteDataCodec satelliteDataCodec,
+                                final long commitIntervalMillis) throws IOException {
+        this.hexagonalGrid = hexagonalGrid;
+        this.directory = Files.createDirectories(directory);
+        this.satelliteDataCodec = satelliteDataCodec;
+        final List<Long> segments = fetchSegments(directory);
+        this.segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1;
+        this.channel = openSegment(segment);
+        this.committer = Executors.newSingleThreadScheduledExecutor(new CommitterThreadFactory());
+        committer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    commit();
+                } catch (final IOException e) {
+                    LOGGER.log(Level.WARNING, "Committing the journal failed, the records are kept for the next commit.", e);
+                }
+            }
+        }, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+        hexagonalGrid.addSatelliteDataListener(this);
+    }
+
+    /**
+     * Applies every record of the journal in the given directory to the given grid.
+     *
+     * @param hexagonalGrid grid
+     * @param directory journal directory
+     * @param satelliteDataCodec codec of the custom data
+     * @return number of records applied
+     * @throws IOException if reading fails
+     */
+    public static int replay(final HexagonalGrid hexagonalGrid, final Path directory, final SatelliteDataCodec satelliteDataCodec) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int result = 0;
+        for (final Long segment : fetchSegments(directory)) {
+            try (InputStream stream = new BufferedInputStream(Files.newInputStream(directory.resolve(String.format(SEGMENT_FORMAT, segment))),
+                    READ_BUFFER_SIZE)) {
+                result += replaySegment(hexagonalGrid, new DataInputStream(stream), satelliteDataCodec);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void onSatelliteDataSet(final CubeCoordinate coordinate, final SatelliteData satelliteData) {
+        final RecordEncoder encoder = RECORD_ENCODERS.get();
+        try {
+            encoder.startRecord(RECORD_SET, coordinate);
+            writeSatelliteData(satelliteDataCodec, satelliteData, encoder.output);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not journal satellite data of " + coordinate, e);
+        }
+        append(encoder.records);
+    }
+
+    @Override
+    public void onSatelliteDataCleared(final CubeCoordinate coordinate) {
+        final RecordEncoder encoder = RECORD_ENCODERS.get();
+        try {
+            encoder.startRecord(RECORD_CLEAR, coordinate);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not journal clearing " + coordinate, e);
+        }
+        append(encoder.records);
+    }
+
+    @Override
+    public void onAllSatelliteDataCleared() {
+        synchronized (pending) {
+            pending.write(RECORD_CLEAR_ALL);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        commit();
+    }
+
+    @Override
+    public long rollOver() throws IOException {
+        synchronized (commitLock) {
+            commit();
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            return segment;
+        }
+    }
+
+    @Override
+    public void deleteSegmentsBefore(final long firstKeptSegment) throws IOException {
+        for (final Long current : fetchSegments(directory)) {
+            if (current < firstKeptSegment) {
+                Files.deleteIfExists(directory.resolve(String.format(SEGMENT_FORMAT, current)));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        hexagonalGrid.removeSatelliteDataListener(this);
+        committer.shutdown();
+        synchronized (commitLock) {
+            commit();
+            channel.close();
+        }
+    }
+
+    /**
+     * Replaces the channel of the current segment (closing the current one).
+     *
+     * @param newChannel channel positioned at the end of the current segment
+     * @throws IOException if closing the current channel fails
+     */
+    void replaceChannel(final FileChannel newChannel) throws IOException {
+        synchronized (commitLock) {
+            channel.close();
+            channel = newChannel;
+        }
+    }
+
+    private void commit() throws IOException {
+        synchronized (commitLock) {
+            final byte[] records;
+            synchronized (pending) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                records = pending.toByteArray();
+            }
+            final CRC32 checksum = new CRC32();
+            checksum.update(records);
+            final ByteBuffer batch = ByteBuffer.allocate(BATCH_HEADER_SIZE + records.length);
+            batch.putInt(records.length).putInt((int) checksum.getValue()).put(records);
+            batch.flip();
+            final long lastGoodPosition = channel.position();
+            try {
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (final IOException e) {
+                try {
+                    discardPartialBatch(lastGoodPosition);
+                } catch (final IOException discardFailure) {
+                    e.addSuppressed(discardFailure);
+                }
+                throw e;
+            }
+            synchronized (pending) {
+                pending.discardFirst(records.length);
+            }
+        }
+    }
+
+    /**
+     * Removes what was written of a failed batch. If the segment can't be truncated the journal continues in a new
+     * segment since replaying a segment stops at the partial batch and would skip the batches after it.
+     */
+    private void discardPartialBatch(final long lastGoodPosition) throws IOException {
+        try {
+            channel.truncate(lastGoodPosition);
+            channel.position(lastGoodPosition);
+        } catch (final IOException e) {
+            try {
+                channel.close();
+            } finally {
+                segment++;
+                channel = openSegment(segment);
+            }
+        }
+    }
+
+    /**
+     * Appends a complete record. Only copying it holds the lock of the pending records, encoding happens before.
+     */
+    private void append(final PendingRecords record) {
+        synchronized (pending) {
+            pending.write(record.buf, 0, record.count);
+        }
+    }
+
+    private FileChannel openSegment(final long number) throws IOException {
+        final FileChannel result = FileChannel.open(directory.resolve(String.format(SEGMENT_FORMAT, number)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        final ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION);
+        header.flip();
+        while (header.hasRemaining()) {
+            result.write(header);
+        }
+        return result;
+    }
+
+    private static List<Long> fetchSegments(final Path directory) throws IOException {
+        final List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (final Path file : files) {
+                final Path fileName = file.getFileName();
+                final long number = fileName == null ? -1 : toSegmentNumber(fileName.toString());
+                if (number >= 0) {
+                    result.add(number);
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the number of the segment with the given file name or -1 if the file is not a segment.
+     */
+    private static long toSegmentNumber(final String fileName) {
+        final int digits = fileName.length() - SEGMENT_SUFFIX.length();
+        if (digits <= 0) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = 0; i < digits; i++) {
+            final int digit = Character.digit(fileName.charAt(i), DECIMAL_RADIX);
+            if (digit < 0 || result > (Long.MAX_VALUE - digit) / DECIMAL_RADIX) {
+                return -1;
+            }
+            result = result * DECIMAL_RADIX + digit;
+        }
+        return result;
+    }
+
+    private static int replaySegment(final HexagonalGrid hexagonalGrid, final DataInputStream input, final SatelliteDataCodec satelliteDataCodec)
+            throws IOException {
+        try {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not a hexameter journal segment.");
+            }
+            final int version = input.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported format version: " + version);
+            }
+        } catch (final EOFException e) {
+            return 0;
+        }
+        int result = 0;
+        while (true) {
+            final byte[] records;
+            try {
+                final int length = input.readInt();
+                final int expectedChecksum = input.readInt();
+                if (length < 0) {
+                    return result;
+                }
+                records = new byte[length];
+                input.readFully(records);
+                final CRC32 checksum = new CRC32();
+                checksum.update(records);
+                if ((int) checksum.getValue() != expectedChecksum) {
+                    return result;
+                }
+            } catch (final EOFException e) {
+                return result;
+            }
+            result += applyRecords(hexagonalGrid, new DataInputStream(new ByteArrayInputStream(records)), satelliteDataCodec);
+        }
+    }
+
+    private static int applyRecords(final HexagonalGrid hexagonalGrid, final DataInputStream input, final SatelliteDataCodec satelliteDataCodec)
+            throws IOException {
+        int result = 0;
+        int type = input.read();
+        while (type >= 0) {
+            if (type == RECORD_CLEAR_ALL) {
+                hexagonalGrid.clearSatelliteData();
+            } else {
+                final CubeCoordinate coordinate = fromCoordinates(VarInts.readSignedVarInt(input), VarInts.readSignedVarInt(input));
+                final SatelliteData satelliteData = type == RECORD_SET ? readSatelliteData(satelliteDataCodec, input) : null;
+                final Optional<Hexagon> hexagon = hexagonalGrid.getByCubeCoordinate(coordinate);
+                if (hexagon.isPresent() && satelliteData != null) {
+                    hexagon.get().setSatelliteData(satelliteData);
+                } else if (hexagon.isPresent()) {
+                    hexagon.get().clearSatelliteData();
+                }
+            }
+            result++;
+            type = input.read();
+        }
+        return result;
+    }
+
+    /**
+     * Growable byte buffer holding the records which are not on disk yet or the record being encoded. Committed records
+     * are dropped from the front while new records may have been appended behind them. Unlike a
+     * {@link ByteArrayOutputStream} it doesn't lock for every byte: the pending records are guarded by their monitor and
+     * a record being encoded belongs to one thread.
+     */
+    private static final class PendingRecords extends OutputStream {
+
+        private byte[] buf;
+        private int count;
+
+        PendingRecords(final int size) {
+            buf = new byte[size];
+        }
+
+        @Override
+        public void write(final int value) {
+            ensureCapacity(count + 1);
+            buf[count++] = (byte) value;
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            ensureCapacity(count + length);
+            System.arraycopy(bytes, offset, buf, count, length);
+            count += length;
+        }
+
+        int size() {
+            return count;
+        }
+
+        void reset() {
+            count = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        void discardFirst(final int length) {
+            System.arraycopy(buf, length, buf, 0, count - length);
+            count -= length;
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, capacity));
+            }
+        }
+    }
+
+    /**
+     * Encodes the records of one thread. A record is only appended to the pending records once it is complete so a
+     * codec failing halfway through a record can't leave a part of it in the journal.
+     */
+    private static final class RecordEncoder {
+
+        private final PendingRecords records = new PendingRecords(INITIAL_RECORD_SIZE);
+        private final DataOutputStream output = new DataOutputStream(records);
+
+        void startRecord(final int type, final CubeCoordinate coordinate) throws IOException {
+            records.reset();
+            output.writeByte(type);
+            VarInts.writeSignedVarInt(output, coordinate.getGridX());
+            VarInts.writeSignedVarInt(output, coordinate.getGridZ());
+        }
+    }
+
+    /**
+     * Creates the daemon thread of the background commits.
+     */
+    private static final class CommitterThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "hexameter-journal-committer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.GridMetrics;
+import org.codetome.hexameter.core.api.GridOperation;
+import org.codetome.hexameter.core.api.HexagonalGridLayout;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.codetome.hexameter.core.api.GridOperation.BUILD;
+
+/**
+ * <p>
+ * {@link GridMetrics} which emits a Java Flight Recorder event for every build and for every other operation which
+ * visits at least a given number of cells, and passes every call on to another {@link GridMetrics}.
+ * </p>
+ * <p>
+ * The event type (<code>org.codetome.hexameter.GridOperation</code>) is defined at runtime through
+ * <code>jdk.jfr.EventFactory</code> using reflection so this class can be loaded on any JVM. If the JVM has no
+ * Flight Recorder {@link #wrap} returns the wrapped metrics unchanged. Events are only committed while a recording
+ * with the event enabled is running.
+ * </p>
+ */
+public final class FlightRecorderGridMetrics implements GridMetrics {
+
+    /**
+     * Rough heap usage of a visited cell (a coordinate, a hexagon and a collection entry) used for the allocation estimate.
+     */
+    static final long ESTIMATED_BYTES_PER_CELL = 64;
+
+    static final String EVENT_NAME = "org.codetome.hexameter.GridOperation";
+
+    private static final Logger LOGGER = Logger.getLogger(FlightRecorderGridMetrics.class.getName());
+
+    private static final int OPERATION_FIELD = 0;
+    private static final int LAYOUT_FIELD = 1;
+    private static final int WIDTH_FIELD = 2;
+    private static final int HEIGHT_FIELD = 3;
+    private static final int CELLS_VISITED_FIELD = 4;
+    private static final int ALLOCATION_FIELD = 5;
+    private static final int NANOS_FIELD = 6;
+
+    private final GridMetrics delegate;
+    private final boolean delegateEnabled;
+    private final String layout;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final long costThreshold;
+
+    private FlightRecorderGridMetrics(final GridMetrics delegate, final String layout, final int gridWidth, final int gridHeight,
+                                      final long costThreshold) {
+        this.delegate = delegate;
+        this.delegateEnabled = delegate.isEnabled();
+        this.layout = layout;
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.costThreshold = costThreshold;
+    }
+
+    /**
+     * Wraps the given metrics so that the operations of a grid with the given layout and dimensions are also
+     * emitted as Flight Recorder events.
+     *
+     * @param delegate metrics to pass every call on to
+     * @param gridLayout layout of the grid
+     * @param gridWidth width of the grid
+     * @param gridHeight height of the grid
+     * @param costThreshold operations (except builds) visiting fewer cells than this are not emitted
+     * @return wrapping metrics or the given one if Flight Recorder is not available
+     */
+    public static GridMetrics wrap(final GridMetrics delegate, final HexagonalGridLayout gridLayout, final int gridWidth, final int gridHeight,
+                                   final long costThreshold) {
+        if (!isAvailable()) {
+            return delegate;
+        }
+        return new FlightRecorderGridMetrics(delegate, gridLayout == null ? null : gridLayout.name(), gridWidth, gridHeight, costThreshold);
+    }
+
+    /**
+     * Tells whether the JVM has a Flight Recorder which supports custom events.
+     *
+     * @return is it available?
+     */
+    public static boolean isAvailable() {
+        return EventType.FACTORY != null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void record(final GridOperation operation, final long nanos, final long cellsVisited) {
+        if (delegateEnabled) {
+            delegate.record(operation, nanos, cellsVisited);
+        }
+        if (operation == BUILD || cellsVisited >= costThreshold) {
+            EventType.commit(operation.name(), layout, gridWidth, gridHeight, cellsVisited, cellsVisited * ESTIMATED_BYTES_PER_CELL, nanos);
+        }
+    }
+
+    GridMetrics getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Holds the reflectively created event type. Loading it is attempted only once.
+     */
+    private static final class EventType {
+
+        private static final Object FACTORY;
+        private static final Method NEW_EVENT;
+        private static final Method SHOULD_COMMIT;
+        private static final Method SET;
+        private static final Method COMMIT;
+
+        static {
+            Object factory = null;
+            Method newEvent = null;
+            Method shouldCommit = null;
+            Method set = null;
+            Method commit = null;
+            try {
+                final Class<?> eventClass = Class.forName("jdk.jfr.Event");
+                final Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+                final List<Object> annotations = Arrays.asList(
+                        annotation("jdk.jfr.Name", EVENT_NAME),
+                        annotation("jdk.jfr.Label", "Grid Operation"),
+                        annotation("jdk.jfr.Category", new String[]{"Hexameter"}),
+                        annotation("jdk.jfr.Description", "A grid build or an expensive grid query"));
+                final List<Object> fields = Arrays.asList(
+                        field(String.class, "operation", "Operation", null),
+                        field(String.class, "layout", "Layout", null),
+                        field(int.class, "gridWidth", "Grid Width", null),
+                        field(int.class, "gridHeight", "Grid Height", null),
+                        field(long.class, "cellsVisited", "Cells Visited", null),
+                        field(long.class, "allocationEstimate", "Allocation Estimate", annotation("jdk.jfr.DataAmount", "BYTES")),
+                        field(long.class, "operationDuration", "Operation Duration", annotation("jdk.jfr.Timespan", "NANOSECONDS")));
+                factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+                newEvent = factoryClass.getMethod("newEvent");
+                shouldCommit = eventClass.getMethod("shouldCommit");
+                set = eventClass.getMethod("set", int.class, Object.class);
+                commit = eventClass.getMethod("commit");
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                factory = null;
+            }
+            FACTORY = factory;
+            NEW_EVENT = newEvent;
+            SHOULD_COMMIT = shouldCommit;
+            SET = set;
+            COMMIT = commit;
+        }
+
+        private EventType() {
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Object annotation(final String type, final Object value) throws ReflectiveOperationException {
+            final Class<? extends Annotation> annotationType = (Class<? extends Annotation>) Class.forName(type);
+            final Constructor<?> constructor = Class.forName("jdk.jfr.AnnotationElement").getConstructor(Class.class, Object.class);
+            return constructor.newInstance(annotationType, value);
+        }
+
+        private static Object field(final Class<?> type, final String name, final String label, final Object extraAnnotation)
+                throws ReflectiveOperationException {
+            final List<Object> annotations = new ArrayList<>();
+            annotations.add(annotation("jdk.jfr.Label", label));
+            if (extraAnnotation != null) {
+                annotations.add(extraAnnotation);
+            }
+            final Constructor<?> constructor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+            return constructor.newInstance(type, name, Collections.unmodifiableList(annotations));
+        }
+
+        private static void commit(final String operation, final String layout, final int gridWidth, final int gridHeight,
+                                   final long cellsVisited, final long allocationEstimate, final long nanos) {
+            try {
+                final Object event = NEW_EVENT.invoke(FACTORY);
+                if (!(Boolean) SHOULD_COMMIT.invoke(event)) {
+                    return;
+                }
+                SET.invoke(event, OPERATION_FIELD, operation);
+                SET.invoke(event, LAYOUT_FIELD, layout);
+                SET.invoke(event, WIDTH_FIELD, gridWidth);
+                SET.invoke(event, HEIGHT_FIELD, gridHeight);
+                SET.invoke(event, CELLS_VISITED_FIELD, cellsVisited);
+                SET.invoke(event, ALLOCATION_FIELD, allocationEstimate);
+                SET.invoke(event, NANOS_FIELD, nanos);
+                COMMIT.invoke(event);
+            } catch (ReflectiveOperationException e) {
+                // the event type was created so this should not happen, and losing an event must not break the grid
+                LOGGER.log(Level.WARNING, "Committing a " + EVENT_NAME + " event failed.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridSnapshot;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.core.internal.GridData;
+import rx.Observable;
+import rx.functions.Func1;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.codetome.hexameter.core.internal.impl.HexagonImpl.newHexagon;
+
+/**
+ * {@link GridSnapshot} over a frozen satellite data map. The shape of the grid can't change
+ * so containment and the coordinates are answered by the grid itself (without materializing a lazy grid).
+ */
+final class GridSnapshotImpl implements GridSnapshot {
+
+    private final AbstractHexagonalGrid hexagonalGrid;
+    private volatile Map<CubeCoordinate, Object> frozenStorage;
+
+    GridSnapshotImpl(final AbstractHexagonalGrid hexagonalGrid, final Map<CubeCoordinate, Object> frozenStorage) {
+        this.hexagonalGrid = hexagonalGrid;
+        this.frozenStorage = Collections.unmodifiableMap(frozenStorage);
+    }
+
+    @Override
+    public GridData getGridData() {
+        return hexagonalGrid.getGridData();
+    }
+
+    @Override
+    public Observable<Hexagon> getHexagons() {
+        final Map<CubeCoordinate, Object> storage = fetchStorage();
+        return hexagonalGrid.fetchCoordinates().map(new Func1<CubeCoordinate, Hexagon>() {
+            @Override
+            public Hexagon call(final CubeCoordinate coordinate) {
+                return newHexagon(getGridData(), coordinate, storage);
+            }
+        });
+    }
+
+    @Override
+    public Observable<Hexagon> getHexagonsWithSatelliteData() {
+        final Map<CubeCoordinate, Object> storage = fetchStorage();
+        return Observable.from(storage.keySet()).filter(new Func1<CubeCoordinate, Boolean>() {
+            @Override
+            public Boolean call(final CubeCoordinate coordinate) {
+                return hexagonalGrid.containsCubeCoordinate(coordinate);
+            }
+        }).map(new Func1<CubeCoordinate, Hexagon>() {
+            @Override
+            public Hexagon call(final CubeCoordinate coordinate) {
+                return newHexagon(getGridData(), coordinate, storage);
+            }
+        });
+    }
+
+    @Override
+    public Optional<Hexagon> getByCubeCoordinate(final CubeCoordinate coordinate) {
+        final Map<CubeCoordinate, Object> storage = fetchStorage();
+        return hexagonalGrid.containsCubeCoordinate(coordinate)
+                ? Optional.of(newHexagon(getGridData(), coordinate, storage))
+                : Optional.<Hexagon>empty();
+    }
+
+    @Override
+    public void release() {
+        frozenStorage = null;
+    }
+
+    private Map<CubeCoordinate, Object> fetchStorage() {
+        final Map<CubeCoordinate, Object> storage = frozenStorage;
+        if (storage == null) {
+            throw new IllegalStateException("This snapshot has already been released.");
+        }
+        return storage;
+    }
+}
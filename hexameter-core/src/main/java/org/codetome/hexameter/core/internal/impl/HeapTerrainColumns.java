@@ -0,0 +1,130 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.TerrainColumns;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.Double.doubleToRawLongBits;
+import static java.lang.Double.longBitsToDouble;
+
+/**
+ * {@link TerrainColumns} implementation which keeps its columns on the heap.
+ * Cells are grouped into regions of 64 consecutive dense indices: a region owns exactly one word
+ * of the passability bit column and has its own version counter. Writers lock the region (locks are striped)
+ * and make its version odd while they write. Readers never lock: they read the version, the fields
+ * and the version again and retry if a write was in progress or happened in between.
+ */
+public final class HeapTerrainColumns implements TerrainColumns {
+
+    private static final int REGION_SHIFT = 6;
+    private static final int LOCK_STRIPES = 64;
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final int cellCount;
+    private final AtomicLongArray passableWords;
+    private final AtomicLongArray movementCosts;
+    private final AtomicLongArray regionVersions;
+    private final StripedLocks regionLocks = new StripedLocks(LOCK_STRIPES);
+
+    /**
+     * Creates empty terrain columns for a bounded grid with the given {@link GridData}.
+     *
+     * @param gridData grid data
+     */
+    public HeapTerrainColumns(final GridData gridData) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        this.cellCount = gridLayoutStrategy.getCellCount(gridData);
+        final int regionCount = (cellCount >>> REGION_SHIFT) + 1;
+        this.passableWords = new AtomicLongArray(regionCount);
+        this.movementCosts = new AtomicLongArray(cellCount);
+        this.regionVersions = new AtomicLongArray(regionCount);
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public int indexOf(final CubeCoordinate coordinate) {
+        return gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    @Override
+    public boolean isPassable(final int index) {
+        checkIndex(index);
+        return (passableWords.get(index >>> REGION_SHIFT) & (1L << index)) != 0;
+    }
+
+    @Override
+    public double getMovementCost(final int index) {
+        checkIndex(index);
+        return longBitsToDouble(movementCosts.get(index));
+    }
+
+    @Override
+    public void setPassable(final int index, final boolean passable) {
+        write(index, passable, 0, true, false);
+    }
+
+    @Override
+    public void setMovementCost(final int index, final double movementCost) {
+        write(index, false, movementCost, false, true);
+    }
+
+    @Override
+    public void setTerrain(final int index, final boolean passable, final double movementCost) {
+        write(index, passable, movementCost, true, true);
+    }
+
+    @Override
+    public void copyTerrainTo(final int index, final SatelliteData satelliteData) {
+        checkIndex(index);
+        final int region = index >>> REGION_SHIFT;
+        final long bit = 1L << index;
+        long version;
+        boolean passable;
+        double movementCost;
+        do {
+            version = regionVersions.get(region);
+            passable = (passableWords.get(region) & bit) != 0;
+            movementCost = longBitsToDouble(movementCosts.get(index));
+        } while ((version & 1) != 0 || version != regionVersions.get(region));
+        satelliteData.setPassable(passable);
+        satelliteData.setMovementCost(movementCost);
+    }
+
+    private void write(final int index, final boolean passable, final double movementCost, final boolean writePassable, final boolean writeMovementCost) {
+        checkIndex(index);
+        final int region = index >>> REGION_SHIFT;
+        final ReentrantLock lock = regionLocks.lockFor(region);
+        lock.lock();
+        try {
+            regionVersions.incrementAndGet(region);
+            if (writePassable) {
+                final long word = passableWords.get(region);
+                final long bit = 1L << index;
+                passableWords.set(region, passable ? word | bit : word & ~bit);
+            }
+            if (writeMovementCost) {
+                movementCosts.set(index, doubleToRawLongBits(movementCost));
+            }
+            regionVersions.incrementAndGet(region);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= cellCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", cell count: " + cellCount);
+        }
+    }
+}
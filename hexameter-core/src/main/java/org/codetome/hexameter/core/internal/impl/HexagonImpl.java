@@ -86,21 +86,45 @@ public class HexagonImpl implements Hexagon {
 
     @Override
     public final double getCenterX() {
-        if (FLAT_TOP.equals(sharedData.getOrientation())) {
-            return coordinate.getGridX() * sharedData.getHexagonWidth() + sharedData.getRadius();
-        } else {
-            return coordinate.getGridX() * sharedData.getHexagonWidth() + coordinate.getGridZ()
-                    * sharedData.getHexagonWidth() / 2 + sharedData.getHexagonWidth() / 2;
-        }
+        return calculateCenterX(sharedData, coordinate.getGridX(), coordinate.getGridZ());
     }
 
     @Override
     public final double getCenterY() {
-        if (FLAT_TOP.equals(sharedData.getOrientation())) {
-            return coordinate.getGridZ() * sharedData.getHexagonHeight() + coordinate.getGridX()
-                    * sharedData.getHexagonHeight() / 2 + sharedData.getHexagonHeight() / 2;
+        return calculateCenterY(sharedData, coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    /**
+     * Calculates the x pixel coordinate of the center of the cell with the given cube coordinate.
+     *
+     * @param gridData grid data
+     * @param gridX cube x
+     * @param gridZ cube z
+     * @return x of the center
+     */
+    static double calculateCenterX(final GridData gridData, final int gridX, final int gridZ) {
+        if (FLAT_TOP.equals(gridData.getOrientation())) {
+            return gridX * gridData.getHexagonWidth() + gridData.getRadius();
+        } else {
+            return gridX * gridData.getHexagonWidth() + gridZ
+                    * gridData.getHexagonWidth() / 2 + gridData.getHexagonWidth() / 2;
+        }
+    }
+
+    /**
+     * Calculates the y pixel coordinate of the center of the cell with the given cube coordinate.
+     *
+     * @param gridData grid data
+     * @param gridX cube x
+     * @param gridZ cube z
+     * @return y of the center
+     */
+    static double calculateCenterY(final GridData gridData, final int gridX, final int gridZ) {
+        if (FLAT_TOP.equals(gridData.getOrientation())) {
+            return gridZ * gridData.getHexagonHeight() + gridX
+                    * gridData.getHexagonHeight() / 2 + gridData.getHexagonHeight() / 2;
         } else {
-            return coordinate.getGridZ() * sharedData.getHexagonHeight() + sharedData.getRadius();
+            return gridZ * gridData.getHexagonHeight() + gridData.getRadius();
         }
     }
 
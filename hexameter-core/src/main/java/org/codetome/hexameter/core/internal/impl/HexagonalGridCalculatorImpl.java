@@ -1,6 +1,8 @@
 package org.codetome.hexameter.core.internal.impl;
 
 import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridMetrics;
+import org.codetome.hexameter.core.api.GridOperation;
 import org.codetome.hexameter.core.api.Hexagon;
 import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridCalculator;
@@ -20,9 +22,20 @@ import static java.lang.Math.round;
 public final class HexagonalGridCalculatorImpl implements HexagonalGridCalculator {
 
     private final HexagonalGrid hexagonalGrid;
-
+    private final GridMetrics metrics;
+    private final boolean metricsEnabled;
+
+    /**
+     * Creates a calculator for the given grid. It reports to the {@link GridMetrics} of the grid (if it has any).
+     *
+     * @param hexagonalGrid grid
+     */
     public HexagonalGridCalculatorImpl(final HexagonalGrid hexagonalGrid) {
         this.hexagonalGrid = hexagonalGrid;
+        this.metrics = hexagonalGrid instanceof AbstractHexagonalGrid
+                ? ((AbstractHexagonalGrid) hexagonalGrid).getMetrics()
+                : NoOpGridMetrics.INSTANCE;
+        this.metricsEnabled = metrics.isEnabled();
     }
 
     @Override
@@ -35,6 +48,17 @@ public final class HexagonalGridCalculatorImpl implements HexagonalGridCalculato
 
     @Override
     public Set<Hexagon> calculateMovementRangeFrom(final Hexagon hexagon, final int distance) {
+        if (!metricsEnabled) {
+            return findMovementRangeFrom(hexagon, distance);
+        }
+        final long start = System.nanoTime();
+        final Set<Hexagon> result = findMovementRangeFrom(hexagon, distance);
+        final long visited = distance < 0 ? 0 : 3L * distance * (distance + 1) + 1;
+        metrics.record(GridOperation.MOVEMENT_RANGE, System.nanoTime() - start, visited);
+        return result;
+    }
+
+    private Set<Hexagon> findMovementRangeFrom(final Hexagon hexagon, final int distance) {
         final Set<Hexagon> ret = new HashSet<>();
         for (int x = -distance; x <= distance; x++) {
             for (int y = max(-distance, -x - distance); y <= min(distance, -x + distance); y++) {
@@ -65,6 +89,16 @@ public final class HexagonalGridCalculatorImpl implements HexagonalGridCalculato
 
     @Override
     public Set<Hexagon> calculateRingFrom(Hexagon centerHexagon, int radius) {
+        if (!metricsEnabled) {
+            return findRingFrom(centerHexagon, radius);
+        }
+        final long start = System.nanoTime();
+        final Set<Hexagon> result = findRingFrom(centerHexagon, radius);
+        metrics.record(GridOperation.RING, System.nanoTime() - start, max(radius, 0));
+        return result;
+    }
+
+    private Set<Hexagon> findRingFrom(Hexagon centerHexagon, int radius) {
         final Set<Hexagon> result = new HashSet<>();
         final int neighborIndex = 0;
         Hexagon currentHexagon = centerHexagon;
@@ -81,6 +115,16 @@ public final class HexagonalGridCalculatorImpl implements HexagonalGridCalculato
 
     @Override
     public List<Hexagon> drawLine(Hexagon from, Hexagon to) {
+        if (!metricsEnabled) {
+            return findLine(from, to);
+        }
+        final long start = System.nanoTime();
+        final List<Hexagon> result = findLine(from, to);
+        metrics.record(GridOperation.LINE, System.nanoTime() - start, result.size());
+        return result;
+    }
+
+    private List<Hexagon> findLine(Hexagon from, Hexagon to) {
         int distance = calculateDistanceBetween(from, to);
         List<Hexagon> results = new LinkedList<>();
         for (int i = 0; i <= distance; i++) {
@@ -1,41 +1,28 @@
 package org.codetome.hexameter.core.internal.impl;
 
 import lombok.Getter;
-import org.codetome.hexameter.core.api.CoordinateConverter;
 import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridMetrics;
 import org.codetome.hexameter.core.api.Hexagon;
-import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
-import org.codetome.hexameter.core.api.Point;
-import org.codetome.hexameter.core.backport.Optional;
 import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
 import rx.Observable;
 import rx.Observable.OnSubscribe;
 import rx.Subscriber;
-import rx.functions.Action1;
 
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
-import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
-import static org.codetome.hexameter.core.api.Point.fromPosition;
 import static org.codetome.hexameter.core.internal.impl.HexagonImpl.newHexagon;
 
 @Getter
 @SuppressWarnings("PMD.UnusedPrivateField")
-public final class HexagonalGridImpl implements HexagonalGrid {
+public final class HexagonalGridImpl extends AbstractHexagonalGrid {
 
-    private static final int[][] NEIGHBORS = {{+1, 0}, {+1, -1}, {0, -1}, {-1, 0}, {-1, +1}, {0, +1}};
-    private static final int NEIGHBOR_X_INDEX = 0;
-    private static final int NEIGHBOR_Z_INDEX = 1;
-
-    private final GridData gridData;
-    private final Map<CubeCoordinate, Object> hexagonStorage;
     private final Set<CubeCoordinate> coordinates;
+    private final GridLayoutStrategy gridLayoutStrategy;
 
     /**
      * Creates a new HexagonalGrid based on the provided HexagonalGridBuilder.
@@ -43,15 +30,41 @@ public final class HexagonalGridImpl implements HexagonalGrid {
      * @param builder builder
      */
     public HexagonalGridImpl(final HexagonalGridBuilder builder) {
-        this.gridData = builder.getGridData();
-        this.hexagonStorage = builder.getCustomStorage();
-        this.coordinates = new LinkedHashSet<>();
-        builder.getGridLayoutStrategy().fetchGridCoordinates(builder).subscribe(new Action1<CubeCoordinate>() {
-            @Override
-            public void call(CubeCoordinate cubeCoordinate) {
-                HexagonalGridImpl.this.coordinates.add(cubeCoordinate);
-            }
-        });
+        this(builder.getGridData(), builder.getGridLayoutStrategy().createCoordinateSet(builder), new PagedSatelliteStorage(builder.getGridData()),
+                builder.getMetrics());
+    }
+
+    /**
+     * Creates a new HexagonalGrid based on the provided HexagonalGridBuilder which answers queries from the layout
+     * math and materializes (enumerates its coordinates and allocates its satellite data storage) only when it is
+     * traversed or its satellite data is written for the first time.
+     *
+     * @param builder builder
+     * @return grid
+     */
+    public static HexagonalGridImpl createLazy(final HexagonalGridBuilder builder) {
+        final GridData gridData = builder.getGridData();
+        final GridMetrics metrics = builder.getMetrics();
+        final MaterializingCoordinateSet coordinates = new MaterializingCoordinateSet(gridData, builder.getBuildParallelism(), metrics);
+        return new HexagonalGridImpl(gridData, coordinates, new LazySatelliteStorage(gridData, coordinates), metrics);
+    }
+
+    /**
+     * Creates a new HexagonalGrid with the given coordinates and satellite data storage.
+     *
+     * @param gridData grid data
+     * @param coordinates coordinates of the grid in dense index order
+     * @param hexagonStorage satellite data storage
+     */
+    HexagonalGridImpl(final GridData gridData, final Set<CubeCoordinate> coordinates, final Map<CubeCoordinate, Object> hexagonStorage) {
+        this(gridData, coordinates, hexagonStorage, NoOpGridMetrics.INSTANCE);
+    }
+
+    private HexagonalGridImpl(final GridData gridData, final Set<CubeCoordinate> coordinates, final Map<CubeCoordinate, Object> hexagonStorage,
+                              final GridMetrics metrics) {
+        super(gridData, hexagonStorage, metrics);
+        this.coordinates = coordinates;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
     }
 
     @Override
@@ -61,7 +74,7 @@ public final class HexagonalGridImpl implements HexagonalGrid {
             public void call(Subscriber<? super Hexagon> subscriber) {
                 final Iterator<CubeCoordinate> coordinateIterator = coordinates.iterator();
                 while (coordinateIterator.hasNext()) {
-                    subscriber.onNext(newHexagon(gridData, coordinateIterator.next(), hexagonStorage));
+                    subscriber.onNext(newHexagon(getGridData(), coordinateIterator.next(), getHexagonStorage()));
                 }
                 subscriber.onCompleted();
             }
@@ -70,123 +83,24 @@ public final class HexagonalGridImpl implements HexagonalGrid {
     }
 
     @Override
-    public Observable<Hexagon> getHexagonsByCubeRange(final CubeCoordinate from, final CubeCoordinate to) {
-        Observable<Hexagon> result = Observable.create(new OnSubscribe<Hexagon>() {
-            @Override
-            public void call(Subscriber<? super Hexagon> subscriber) {
-                for (int gridZ = from.getGridZ(); gridZ <= to.getGridZ(); gridZ++) {
-                    for (int gridX = from.getGridX(); gridX <= to.getGridX(); gridX++) {
-                        final CubeCoordinate currentCoordinate = fromCoordinates(gridX, gridZ);
-                        if (containsCubeCoordinate(currentCoordinate)) {
-                            subscriber.onNext(getByCubeCoordinate(currentCoordinate).get());
-                        }
-                    }
-                }
-                subscriber.onCompleted();
-            }
-        });
-        return result;
+    protected Observable<CubeCoordinate> fetchCoordinates() {
+        return Observable.from(coordinates instanceof MaterializingCoordinateSet
+                ? ((MaterializingCoordinateSet) coordinates).fetchIterableCoordinates()
+                : coordinates);
     }
 
-    @Override
-    public Observable<Hexagon> getHexagonsByOffsetRange(final int gridXFrom, final int gridXTo, final int gridYFrom, final int gridYTo) {
-        Observable<Hexagon> result = Observable.create(new OnSubscribe<Hexagon>() {
-            @Override
-            public void call(Subscriber<? super Hexagon> subscriber) {
-                for (int gridX = gridXFrom; gridX <= gridXTo; gridX++) {
-                    for (int gridY = gridYFrom; gridY <= gridYTo; gridY++) {
-                        final int cubeX = CoordinateConverter.convertOffsetCoordinatesToCubeX(gridX, gridY, gridData.getOrientation());
-                        final int cubeZ = CoordinateConverter.convertOffsetCoordinatesToCubeZ(gridX, gridY, gridData.getOrientation());
-                        final CubeCoordinate cubeCoordinate = fromCoordinates(cubeX, cubeZ);
-                        final Optional<Hexagon> hex = getByCubeCoordinate(cubeCoordinate);
-                        if (hex.isPresent()) {
-                            subscriber.onNext(hex.get());
-                        }
-                    }
-                }
-                subscriber.onCompleted();
-            }
-        });
-        return result;
+    /**
+     * Tells whether the coordinates and the satellite data storage of this grid are allocated. Only grids created
+     * with {@link #createLazy(HexagonalGridBuilder)} can be unmaterialized.
+     *
+     * @return is it materialized?
+     */
+    public boolean isMaterialized() {
+        return !(coordinates instanceof MaterializingCoordinateSet) || ((MaterializingCoordinateSet) coordinates).isMaterialized();
     }
 
     @Override
     public boolean containsCubeCoordinate(final CubeCoordinate coordinate) {
         return this.coordinates.contains(coordinate);
     }
-
-    @Override
-    public Optional<Hexagon> getByCubeCoordinate(final CubeCoordinate coordinate) {
-
-        return containsCubeCoordinate(coordinate)
-                ? Optional.of(newHexagon(gridData, coordinate, hexagonStorage))
-                : Optional.<Hexagon>empty();
-    }
-
-    @Override
-    public Optional<Hexagon> getByPixelCoordinate(final double coordinateX, final double coordinateY) {
-        int estimatedGridX = (int) (coordinateX / gridData.getHexagonWidth());
-        int estimatedGridZ = (int) (coordinateY / gridData.getHexagonHeight());
-        estimatedGridX = CoordinateConverter.convertOffsetCoordinatesToCubeX(estimatedGridX, estimatedGridZ, gridData.getOrientation());
-        estimatedGridZ = CoordinateConverter.convertOffsetCoordinatesToCubeZ(estimatedGridX, estimatedGridZ, gridData.getOrientation());
-        // it is possible that the estimated coordinates are off the grid so we
-        // create a virtual hexagon
-        final CubeCoordinate estimatedCoordinate = fromCoordinates(estimatedGridX, estimatedGridZ);
-        final Hexagon tempHex = newHexagon(gridData, estimatedCoordinate, hexagonStorage);
-
-        Hexagon trueHex = refineHexagonByPixel(tempHex, fromPosition(coordinateX, coordinateY));
-
-        if (hexagonsAreAtTheSamePosition(tempHex, trueHex)) {
-            return getByCubeCoordinate(estimatedCoordinate);
-        } else {
-            return containsCubeCoordinate(trueHex.getCubeCoordinate()) ? Optional.of(trueHex) : Optional.<Hexagon>empty();
-        }
-    }
-
-    @Override
-    public Optional<Hexagon> getNeighborByIndex(Hexagon hexagon, int index) {
-        final int neighborGridX = hexagon.getGridX() + NEIGHBORS[index][NEIGHBOR_X_INDEX];
-        final int neighborGridZ = hexagon.getGridZ() + NEIGHBORS[index][NEIGHBOR_Z_INDEX];
-        final CubeCoordinate neighborCoordinate = fromCoordinates(neighborGridX, neighborGridZ);
-        return getByCubeCoordinate(neighborCoordinate);
-    }
-
-    @Override
-    public Collection<Hexagon> getNeighborsOf(final Hexagon hexagon) {
-        final Set<Hexagon> neighbors = new HashSet<>();
-        for (int i = 0; i < NEIGHBORS.length; i++) {
-            Optional<Hexagon> retHex = getNeighborByIndex(hexagon, i);
-            if (retHex.isPresent()) {
-                neighbors.add(retHex.get());
-            }
-        }
-        return neighbors;
-    }
-
-    @Override
-    public void clearSatelliteData() {
-        hexagonStorage.clear();
-    }
-
-    @Override
-    public GridData getGridData() {
-        return gridData;
-    }
-
-    private static boolean hexagonsAreAtTheSamePosition(final Hexagon hex0, final Hexagon hex1) {
-        return hex0.getGridX() == hex1.getGridX() && hex0.getGridZ() == hex1.getGridZ();
-    }
-
-    private Hexagon refineHexagonByPixel(final Hexagon hexagon, final Point clickedPoint) {
-        Hexagon refined = hexagon;
-        double smallestDistance = clickedPoint.distanceFrom(fromPosition(refined.getCenterX(), refined.getCenterY()));
-        for (final Hexagon neighbor : getNeighborsOf(hexagon)) {
-            final double currentDistance = clickedPoint.distanceFrom(fromPosition(neighbor.getCenterX(), neighbor.getCenterY()));
-            if (currentDistance < smallestDistance) {
-                refined = neighbor;
-                smallestDistance = currentDistance;
-            }
-        }
-        return refined;
-    }
 }
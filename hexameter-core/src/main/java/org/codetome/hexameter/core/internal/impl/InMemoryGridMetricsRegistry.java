@@ -0,0 +1,113 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.GridMetricsRegistry;
+import org.codetome.hexameter.core.api.GridOperation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link GridMetricsRegistry} backed by atomic counters. Recording a call is a few atomic increments without locks
+ * and the histograms have a fixed size so the memory used does not grow with the number of calls.
+ */
+public final class InMemoryGridMetricsRegistry implements GridMetricsRegistry {
+
+    static final int BUCKET_COUNT = Long.SIZE;
+
+    private final OperationStats[] stats = new OperationStats[GridOperation.values().length];
+
+    /**
+     * Creates an empty registry.
+     */
+    public InMemoryGridMetricsRegistry() {
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new OperationStats();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void record(final GridOperation operation, final long nanos, final long cellsVisited) {
+        final OperationStats operationStats = stats[operation.ordinal()];
+        operationStats.calls.incrementAndGet();
+        operationStats.totalNanos.addAndGet(nanos);
+        operationStats.cellsVisited.addAndGet(cellsVisited);
+        operationStats.histogram.incrementAndGet(bucketOf(nanos));
+    }
+
+    @Override
+    public long getCallCount(final GridOperation operation) {
+        return stats[operation.ordinal()].calls.get();
+    }
+
+    @Override
+    public long getTotalNanos(final GridOperation operation) {
+        return stats[operation.ordinal()].totalNanos.get();
+    }
+
+    @Override
+    public long getCellsVisited(final GridOperation operation) {
+        return stats[operation.ordinal()].cellsVisited.get();
+    }
+
+    @Override
+    public long[] getLatencyHistogram(final GridOperation operation) {
+        final AtomicLongArray histogram = stats[operation.ordinal()].histogram;
+        final long[] result = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result[i] = histogram.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public long getLatencyPercentileNanos(final GridOperation operation, final double percentile) {
+        if (percentile < 0 || percentile > 1) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 1: " + percentile);
+        }
+        final long[] histogram = getLatencyHistogram(operation);
+        long total = 0;
+        for (final long count : histogram) {
+            total += count;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return i == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void reset() {
+        for (final OperationStats operationStats : stats) {
+            operationStats.calls.set(0);
+            operationStats.totalNanos.set(0);
+            operationStats.cellsVisited.set(0);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                operationStats.histogram.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the smallest power of two which is greater than the given duration.
+     */
+    static int bucketOf(final long nanos) {
+        return Math.min(BUCKET_COUNT - Long.numberOfLeadingZeros(Math.max(nanos, 0)), BUCKET_COUNT - 1);
+    }
+
+    private static final class OperationStats {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong cellsVisited = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_COUNT);
+    }
+}
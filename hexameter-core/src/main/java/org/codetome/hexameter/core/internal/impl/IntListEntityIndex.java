@@ -0,0 +1,268 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.EntityIndex;
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.util.Arrays;
+
+import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
+import static org.codetome.hexameter.core.internal.impl.HexagonImpl.calculateCenterX;
+import static org.codetome.hexameter.core.internal.impl.HexagonImpl.calculateCenterY;
+
+/**
+ * {@link EntityIndex} which keeps the entities of every cell in an intrusive doubly linked list made of primitive
+ * arrays: every cell (addressed by its dense index) has the first entity of its list and its entity count, every
+ * entity has its cell and its neighbors in the list. The arrays of the entities grow (doubling) to fit the biggest id,
+ * so ids must be at most <code>Integer.MAX_VALUE - 8</code>.
+ */
+public final class IntListEntityIndex implements EntityIndex {
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * Biggest supported entity id (some JVMs can't allocate arrays much longer than this).
+     */
+    static final int MAX_ENTITY = Integer.MAX_VALUE - 8;
+    /**
+     * Centers of cells which are <code>d</code> cells apart are at least <code>1.5 * radius * d</code> pixels apart.
+     */
+    private static final double MIN_CENTER_DISTANCE_PER_CELL = 1.5;
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final int[] heads;
+    private final int[] counts;
+    private int[] cells;
+    private int[] nexts;
+    private int[] previouses;
+    private int size;
+
+    /**
+     * Creates an empty index for a grid with the given {@link GridData}.
+     *
+     * @param gridData grid data of a bounded grid
+     */
+    public IntListEntityIndex(final GridData gridData) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        final int cellCount = gridLayoutStrategy.getCellCount(gridData);
+        this.heads = new int[cellCount];
+        this.counts = new int[cellCount];
+        Arrays.fill(heads, NONE);
+        this.cells = newFilledArray(INITIAL_CAPACITY);
+        this.nexts = new int[INITIAL_CAPACITY];
+        this.previouses = new int[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public void put(final int entity, final CubeCoordinate coordinate) {
+        if (entity < 0) {
+            throw new IllegalArgumentException("Entity id must not be negative: " + entity);
+        }
+        if (entity > MAX_ENTITY) {
+            throw new IllegalArgumentException("Entity id must be at most " + MAX_ENTITY + ": " + entity);
+        }
+        final int cell = gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+        if (cell < 0) {
+            throw new IllegalArgumentException("Coordinate is not on the grid: " + coordinate);
+        }
+        ensureCapacity(entity);
+        final int current = cells[entity];
+        if (current == cell) {
+            return;
+        }
+        if (current == NONE) {
+            size++;
+        } else {
+            unlink(entity, current);
+        }
+        link(entity, cell);
+    }
+
+    @Override
+    public boolean remove(final int entity) {
+        if (!contains(entity)) {
+            return false;
+        }
+        unlink(entity, cells[entity]);
+        cells[entity] = NONE;
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean contains(final int entity) {
+        return entity >= 0 && entity < cells.length && cells[entity] != NONE;
+    }
+
+    @Override
+    public Optional<CubeCoordinate> getCoordinateOf(final int entity) {
+        return contains(entity)
+                ? Optional.of(gridLayoutStrategy.coordinateAt(gridData, cells[entity]))
+                : Optional.<CubeCoordinate>empty();
+    }
+
+    @Override
+    public int countAt(final CubeCoordinate coordinate) {
+        final int cell = gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+        return cell < 0 ? 0 : counts[cell];
+    }
+
+    @Override
+    public int[] getEntitiesAt(final CubeCoordinate coordinate) {
+        final int cell = gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+        if (cell < 0) {
+            return new int[0];
+        }
+        final IntBuffer result = new IntBuffer(counts[cell]);
+        collect(cell, result);
+        return result.toArray();
+    }
+
+    @Override
+    public int[] getEntitiesInRange(final CubeCoordinate center, final int distance) {
+        final IntBuffer result = new IntBuffer(0);
+        for (int x = -distance; x <= distance; x++) {
+            for (int y = Math.max(-distance, -x - distance); y <= Math.min(distance, -x + distance); y++) {
+                final int cell = gridLayoutStrategy.indexOf(gridData, center.getGridX() + x, center.getGridZ() - x - y);
+                if (cell >= 0) {
+                    collect(cell, result);
+                }
+            }
+        }
+        return result.toArray();
+    }
+
+    @Override
+    public int[] getEntitiesInPixelCircle(final double centerX, final double centerY, final double radius) {
+        final IntBuffer result = new IntBuffer(0);
+        if (radius < 0) {
+            return result.toArray();
+        }
+        final int estimatedX;
+        final int estimatedZ;
+        if (FLAT_TOP.equals(gridData.getOrientation())) {
+            final double gridX = (centerX - gridData.getRadius()) / gridData.getHexagonWidth();
+            estimatedX = (int) Math.round(gridX);
+            estimatedZ = (int) Math.round((centerY - gridData.getHexagonHeight() / 2) / gridData.getHexagonHeight() - gridX / 2);
+        } else {
+            final double gridZ = (centerY - gridData.getRadius()) / gridData.getHexagonHeight();
+            estimatedZ = (int) Math.round(gridZ);
+            estimatedX = (int) Math.round((centerX - gridData.getHexagonWidth() / 2) / gridData.getHexagonWidth() - gridZ / 2);
+        }
+        // one more ring covers the rounding of the estimated center
+        final int distance = (int) Math.ceil(radius / (MIN_CENTER_DISTANCE_PER_CELL * gridData.getRadius())) + 1;
+        final double radiusSquared = radius * radius;
+        for (int x = -distance; x <= distance; x++) {
+            for (int y = Math.max(-distance, -x - distance); y <= Math.min(distance, -x + distance); y++) {
+                final int gridX = estimatedX + x;
+                final int gridZ = estimatedZ - x - y;
+                final int cell = gridLayoutStrategy.indexOf(gridData, gridX, gridZ);
+                if (cell >= 0 && counts[cell] > 0) {
+                    final double dx = calculateCenterX(gridData, gridX, gridZ) - centerX;
+                    final double dy = calculateCenterY(gridData, gridX, gridZ) - centerY;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        collect(cell, result);
+                    }
+                }
+            }
+        }
+        return result.toArray();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(heads, NONE);
+        Arrays.fill(counts, 0);
+        Arrays.fill(cells, NONE);
+        size = 0;
+    }
+
+    private void link(final int entity, final int cell) {
+        final int head = heads[cell];
+        nexts[entity] = head;
+        previouses[entity] = NONE;
+        if (head != NONE) {
+            previouses[head] = entity;
+        }
+        heads[cell] = entity;
+        counts[cell]++;
+        cells[entity] = cell;
+    }
+
+    private void unlink(final int entity, final int cell) {
+        final int next = nexts[entity];
+        final int previous = previouses[entity];
+        if (previous == NONE) {
+            heads[cell] = next;
+        } else {
+            nexts[previous] = next;
+        }
+        if (next != NONE) {
+            previouses[next] = previous;
+        }
+        counts[cell]--;
+    }
+
+    private void collect(final int cell, final IntBuffer result) {
+        for (int entity = heads[cell]; entity != NONE; entity = nexts[entity]) {
+            result.add(entity);
+        }
+    }
+
+    private void ensureCapacity(final int entity) {
+        if (entity < cells.length) {
+            return;
+        }
+        long doubled = cells.length;
+        while (doubled <= entity) {
+            doubled *= 2;
+        }
+        final int capacity = (int) Math.min(doubled, MAX_ENTITY + 1L);
+        final int previousLength = cells.length;
+        cells = Arrays.copyOf(cells, capacity);
+        Arrays.fill(cells, previousLength, capacity, NONE);
+        nexts = Arrays.copyOf(nexts, capacity);
+        previouses = Arrays.copyOf(previouses, capacity);
+    }
+
+    private static int[] newFilledArray(final int length) {
+        final int[] result = new int[length];
+        Arrays.fill(result, NONE);
+        return result;
+    }
+
+    /**
+     * Growable array of ints used to collect the results of the queries.
+     */
+    private static final class IntBuffer {
+
+        private static final int MIN_CAPACITY = 16;
+
+        private int[] values;
+        private int length;
+
+        IntBuffer(final int expectedLength) {
+            this.values = new int[Math.max(expectedLength, MIN_CAPACITY)];
+        }
+
+        void add(final int value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[length++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, length);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.internal.GridData;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Satellite data storage of a lazily built grid which allocates its {@link PagedSatelliteStorage} on the first
+ * write. The first write also materializes the coordinates of the grid. Until then the storage is empty and
+ * reading it costs nothing.
+ */
+final class LazySatelliteStorage extends AbstractMap<CubeCoordinate, Object> implements SnapshotableStorage {
+
+    private final GridData gridData;
+    private final MaterializingCoordinateSet coordinates;
+    private volatile PagedSatelliteStorage delegate;
+
+    LazySatelliteStorage(final GridData gridData, final MaterializingCoordinateSet coordinates) {
+        this.gridData = gridData;
+        this.coordinates = coordinates;
+    }
+
+    @Override
+    public Map<CubeCoordinate, Object> snapshot() {
+        final PagedSatelliteStorage current = delegate;
+        return current == null ? Collections.<CubeCoordinate, Object>emptyMap() : current.snapshot();
+    }
+
+    @Override
+    public Object get(final Object key) {
+        final PagedSatelliteStorage current = delegate;
+        return current == null ? null : current.get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Object put(final CubeCoordinate key, final Object value) {
+        return allocate().put(key, value);
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        final PagedSatelliteStorage current = delegate;
+        return current == null ? null : current.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        final PagedSatelliteStorage current = delegate;
+        if (current != null) {
+            current.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        final PagedSatelliteStorage current = delegate;
+        return current == null ? 0 : current.size();
+    }
+
+    @Override
+    public Set<Entry<CubeCoordinate, Object>> entrySet() {
+        final PagedSatelliteStorage current = delegate;
+        return current == null ? Collections.<Entry<CubeCoordinate, Object>>emptySet() : current.entrySet();
+    }
+
+    private PagedSatelliteStorage allocate() {
+        PagedSatelliteStorage result = delegate;
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            result = delegate;
+            if (result == null) {
+                coordinates.materialize();
+                result = new PagedSatelliteStorage(gridData);
+                delegate = result;
+            }
+        }
+        return result;
+    }
+}
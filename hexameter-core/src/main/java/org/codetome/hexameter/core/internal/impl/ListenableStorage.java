@@ -0,0 +1,168 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataListener;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+import rx.functions.Func1;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorates the satellite data storage of a grid and notifies {@link SatelliteDataListener}s of every change.
+ * Without listeners a change costs one extra check.
+ * Every write of the grid goes through this object and takes the lock of the region of its cell. Like in
+ * {@link HeapTerrainColumns} a region is a run of 64 consecutive dense indices and regions are mapped to a fixed set
+ * of striped locks. A {@link #compute} is therefore atomic with respect to every other write of the same cell while
+ * writers of cells on other locks don't wait for it, and listeners see the changes of a cell in the order they were
+ * applied. {@link #clear()} takes every lock. Reads are passed on to the storage without
+ * locking. The function of a {@link #compute} and the listeners run while the lock is held so they must not write
+ * other cells: two threads doing that to each other's cells on different locks would deadlock.
+ */
+final class ListenableStorage extends AbstractMap<CubeCoordinate, Object> implements SnapshotableStorage {
+
+    private static final int REGION_SHIFT = 6;
+    private static final int LOCK_STRIPES = 64;
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final Map<CubeCoordinate, Object> delegate;
+    private final StripedLocks cellLocks = new StripedLocks(LOCK_STRIPES);
+    private final CopyOnWriteArrayList<SatelliteDataListener> listeners = new CopyOnWriteArrayList<>();
+
+    ListenableStorage(final GridData gridData, final Map<CubeCoordinate, Object> delegate) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        this.delegate = delegate;
+    }
+
+    void addListener(final SatelliteDataListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(final SatelliteDataListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public Map<CubeCoordinate, Object> snapshot() {
+        if (delegate instanceof SnapshotableStorage) {
+            return ((SnapshotableStorage) delegate).snapshot();
+        }
+        return new HashMap<>(delegate);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return delegate.containsKey(key);
+    }
+
+    /**
+     * Replaces the value of the given key with the result of the given function while holding the lock of the key.
+     *
+     * @param key key
+     * @param function computes the new value (<code>null</code> removes it) from the current one
+     * @param <T> type of the value
+     * @return new value
+     */
+    @SuppressWarnings("unchecked")
+    <T> T compute(final CubeCoordinate key, final Func1<T, T> function) {
+        final ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            final T result = function.call((T) delegate.get(key));
+            if (result == null) {
+                remove(key);
+            } else {
+                put(key, result);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object put(final CubeCoordinate key, final Object value) {
+        final ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            final Object previous = delegate.put(key, value);
+            if (!listeners.isEmpty()) {
+                for (final SatelliteDataListener listener : listeners) {
+                    listener.onSatelliteDataSet(key, (SatelliteData) value);
+                }
+            }
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        final ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            final Object previous = delegate.remove(key);
+            if (previous != null && !listeners.isEmpty()) {
+                for (final SatelliteDataListener listener : listeners) {
+                    listener.onSatelliteDataCleared((CubeCoordinate) key);
+                }
+            }
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        cellLocks.lockAll();
+        try {
+            delegate.clear();
+            for (final SatelliteDataListener listener : listeners) {
+                listener.onAllSatelliteDataCleared();
+            }
+        } finally {
+            cellLocks.unlockAll();
+        }
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public Set<Entry<CubeCoordinate, Object>> entrySet() {
+        return delegate.entrySet();
+    }
+
+    /**
+     * Returns the lock of the region of the cell of the given key. Cells which are not on the grid are spread by their
+     * hash code.
+     *
+     * @param key key
+     * @return lock
+     */
+    private ReentrantLock lockFor(final Object key) {
+        if (!(key instanceof CubeCoordinate)) {
+            return cellLocks.lockFor(key == null ? 0 : key.hashCode());
+        }
+        final CubeCoordinate coordinate = (CubeCoordinate) key;
+        final int index = gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+        return cellLocks.lockFor(index < 0 ? coordinate.hashCode() : index >>> REGION_SHIFT);
+    }
+}
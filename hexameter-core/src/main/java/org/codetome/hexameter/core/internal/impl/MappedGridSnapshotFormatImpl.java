@@ -0,0 +1,137 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.MappedGridSnapshotFormat;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.codetome.hexameter.core.internal.impl.MappedTerrainColumns.MOVEMENT_COST_STRIDE;
+import static org.codetome.hexameter.core.internal.impl.MappedTerrainColumns.PASSABLE_FLAG;
+import static org.codetome.hexameter.core.internal.impl.MappedTerrainColumns.PRESENT_FLAG;
+
+/**
+ * <p>{@link MappedGridSnapshotFormat} with the following big endian layout.</p>
+ * <ul>
+ * <li>magic number (<code>HXMP</code>), format version, cell count and grid header length (int)</li>
+ * <li>offset of the flag column and offset of the movement cost column (long)</li>
+ * <li>the grid header in the format of {@link BinaryHexagonalGridSerializer}</li>
+ * <li>the flag column: one byte per cell in dense index order, aligned to 8 bytes</li>
+ * <li>the movement cost column: one double per cell in dense index order, aligned to 8 bytes</li>
+ * </ul>
+ * <p>Satellite data stored for coordinates which are not cells of the grid has no slot in the columns: it is
+ * skipped.</p>
+ */
+public final class MappedGridSnapshotFormatImpl implements MappedGridSnapshotFormat {
+
+    public static final int MAGIC = 0x48584D50;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int FIXED_HEADER_SIZE = 32;
+    private static final int ALIGNMENT = 8;
+
+    @Override
+    public void write(final HexagonalGrid hexagonalGrid, final Path file) throws IOException {
+        if (!(hexagonalGrid instanceof HexagonalGridImpl)) {
+            throw new IllegalArgumentException("Only bounded grids can be written to a snapshot file.");
+        }
+        final GridData gridData = hexagonalGrid.getGridData();
+        final GridLayoutStrategy gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        final int cellCount = gridLayoutStrategy.getCellCount(gridData);
+        if ((long) cellCount * MOVEMENT_COST_STRIDE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too big for a snapshot file: " + cellCount + " cells.");
+        }
+        final Map<CubeCoordinate, Object> satelliteData = ((HexagonalGridImpl) hexagonalGrid).snapshotStorage();
+        final ByteArrayOutputStream gridHeader = new ByteArrayOutputStream();
+        BinaryHexagonalGridSerializer.writeHeader(gridData, new DataOutputStream(gridHeader));
+        final long flagsOffset = align(FIXED_HEADER_SIZE + gridHeader.size());
+        final long movementCostsOffset = align(flagsOffset + cellCount);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_SIZE + gridHeader.size());
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(cellCount).putInt(gridHeader.size())
+                    .putLong(flagsOffset).putLong(movementCostsOffset).put(gridHeader.toByteArray());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            final MappedByteBuffer flags = channel.map(MapMode.READ_WRITE, flagsOffset, cellCount);
+            final MappedByteBuffer movementCosts = channel.map(MapMode.READ_WRITE, movementCostsOffset, (long) cellCount * MOVEMENT_COST_STRIDE);
+            for (final Map.Entry<CubeCoordinate, Object> entry : satelliteData.entrySet()) {
+                final CubeCoordinate coordinate = entry.getKey();
+                final SatelliteData data = (SatelliteData) entry.getValue();
+                final int index = gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+                if (index < 0) {
+                    continue;
+                }
+                flags.put(index, (byte) (PRESENT_FLAG | (data.isPassable() ? PASSABLE_FLAG : 0)));
+                movementCosts.putDouble(index * MOVEMENT_COST_STRIDE, data.getMovementCost());
+            }
+            flags.force();
+            movementCosts.force();
+        }
+    }
+
+    @Override
+    public HexagonalGrid open(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = readFully(channel, 0, FIXED_HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a hexameter snapshot file.");
+            }
+            final int version = header.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported format version: " + version);
+            }
+            final int cellCount = header.getInt();
+            final int gridHeaderSize = header.getInt();
+            final long flagsOffset = header.getLong();
+            final long movementCostsOffset = header.getLong();
+            final ByteBuffer gridHeader = readFully(channel, FIXED_HEADER_SIZE, gridHeaderSize);
+            final GridData gridData = BinaryHexagonalGridSerializer.readHeader(new DataInputStream(new ByteArrayInputStream(gridHeader.array())))
+                    .getGridData();
+            if (gridData.getGridLayout().getGridLayoutStrategy().getCellCount(gridData) != cellCount) {
+                throw new IOException("Cell count does not match the grid: " + cellCount);
+            }
+            final long movementCostsSize = (long) cellCount * MOVEMENT_COST_STRIDE;
+            if (flagsOffset + cellCount > channel.size() || movementCostsOffset + movementCostsSize > channel.size()) {
+                throw new EOFException("Snapshot file is truncated.");
+            }
+            final MappedTerrainColumns terrainColumns = new MappedTerrainColumns(gridData,
+                    channel.map(MapMode.READ_ONLY, flagsOffset, cellCount),
+                    channel.map(MapMode.READ_ONLY, movementCostsOffset, movementCostsSize));
+            return new HexagonalGridImpl(gridData, new DenseCoordinateSet(gridData), new MappedSatelliteStorage(gridData, terrainColumns));
+        }
+    }
+
+    private static long align(final long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static ByteBuffer readFully(final FileChannel channel, final long position, final int size) throws IOException {
+        final ByteBuffer result = ByteBuffer.allocate(size);
+        while (result.hasRemaining()) {
+            if (channel.read(result, position + result.position()) < 0) {
+                throw new EOFException("Snapshot file is truncated.");
+            }
+        }
+        result.flip();
+        return result;
+    }
+}
@@ -0,0 +1,263 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Satellite data storage of a grid opened from a mapped snapshot file. Cells which were not written since the grid
+ * was opened are answered by views reading the {@link MappedTerrainColumns} in place, written cells live in an overlay map.
+ * Setting a field of a view copies its terrain into a {@link DefaultSatelliteData} in the overlay first. Every view
+ * of a cell shares that copy so changes made through any of them are kept.
+ * </p>
+ * <p>
+ * Only passability and movement cost are kept in a snapshot file, custom data of the written grid is lost.
+ * </p>
+ */
+final class MappedSatelliteStorage extends AbstractMap<CubeCoordinate, Object> implements SnapshotableStorage {
+
+    private static final Object REMOVED = new Object();
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final MappedTerrainColumns terrainColumns;
+    private final ConcurrentMap<CubeCoordinate, Object> overlay;
+    private final boolean writable;
+    private volatile boolean terrainCleared;
+
+    MappedSatelliteStorage(final GridData gridData, final MappedTerrainColumns terrainColumns) {
+        this(gridData, terrainColumns, new ConcurrentHashMap<CubeCoordinate, Object>(), false, true);
+    }
+
+    private MappedSatelliteStorage(final GridData gridData, final MappedTerrainColumns terrainColumns,
+                                   final ConcurrentMap<CubeCoordinate, Object> overlay, final boolean terrainCleared, final boolean writable) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        this.terrainColumns = terrainColumns;
+        this.overlay = overlay;
+        this.terrainCleared = terrainCleared;
+        this.writable = writable;
+    }
+
+    /**
+     * The mapped columns never change so only the overlay has to be copied.
+     */
+    @Override
+    public Map<CubeCoordinate, Object> snapshot() {
+        return new MappedSatelliteStorage(gridData, terrainColumns, new ConcurrentHashMap<>(overlay), terrainCleared, false);
+    }
+
+    @Override
+    public Object get(final Object key) {
+        if (!(key instanceof CubeCoordinate)) {
+            return null;
+        }
+        final Object written = overlay.get(key);
+        if (written != null) {
+            return written == REMOVED ? null : written;
+        }
+        final CubeCoordinate coordinate = (CubeCoordinate) key;
+        return fetchMapped(coordinate, gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ()));
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Object put(final CubeCoordinate key, final Object value) {
+        checkWritable();
+        final Object previous = get(key);
+        overlay.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        checkWritable();
+        final Object previous = get(key);
+        if (previous != null) {
+            overlay.put((CubeCoordinate) key, REMOVED);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        checkWritable();
+        terrainCleared = true;
+        overlay.clear();
+    }
+
+    @Override
+    public Set<Entry<CubeCoordinate, Object>> entrySet() {
+        return new AbstractSet<Entry<CubeCoordinate, Object>>() {
+            @Override
+            public Iterator<Entry<CubeCoordinate, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                int result = 0;
+                final Iterator<Entry<CubeCoordinate, Object>> iterator = iterator();
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    result++;
+                }
+                return result;
+            }
+        };
+    }
+
+    private SatelliteData fetchMapped(final CubeCoordinate coordinate, final int index) {
+        if (terrainCleared || index < 0 || !terrainColumns.isPresent(index)) {
+            return null;
+        }
+        return new MappedSatelliteData(coordinate, index);
+    }
+
+    private void checkWritable() {
+        if (!writable) {
+            throw new UnsupportedOperationException("A snapshot can't be modified.");
+        }
+    }
+
+    /**
+     * Iterates the cells in dense index order.
+     */
+    private final class EntryIterator implements Iterator<Entry<CubeCoordinate, Object>> {
+
+        private final int cellCount = terrainColumns.getCellCount();
+        private int nextIndex = -1;
+        private Entry<CubeCoordinate, Object> nextEntry;
+
+        EntryIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextEntry != null;
+        }
+
+        @Override
+        public Entry<CubeCoordinate, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Entry<CubeCoordinate, Object> result = nextEntry;
+            advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Use Map#remove to remove satellite data.");
+        }
+
+        private void advance() {
+            nextEntry = null;
+            while (nextEntry == null && ++nextIndex < cellCount) {
+                final CubeCoordinate coordinate = gridLayoutStrategy.coordinateAt(gridData, nextIndex);
+                final Object value = get(coordinate);
+                if (value != null) {
+                    nextEntry = new SimpleImmutableEntry<>(coordinate, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link SatelliteData} reading the mapped columns until it is modified.
+     */
+    private final class MappedSatelliteData implements SatelliteData {
+
+        private final CubeCoordinate coordinate;
+        private final int index;
+        private volatile SatelliteData copy;
+
+        MappedSatelliteData(final CubeCoordinate coordinate, final int index) {
+            this.coordinate = coordinate;
+            this.index = index;
+        }
+
+        @Override
+        public boolean isPassable() {
+            final SatelliteData current = fetchWritten();
+            return current == null ? terrainColumns.isPassable(index) : current.isPassable();
+        }
+
+        @Override
+        public void setPassable(final boolean passable) {
+            fetchCopy().setPassable(passable);
+        }
+
+        @Override
+        public double getMovementCost() {
+            final SatelliteData current = fetchWritten();
+            return current == null ? terrainColumns.getMovementCost(index) : current.getMovementCost();
+        }
+
+        @Override
+        public void setMovementCost(final double movementCost) {
+            fetchCopy().setMovementCost(movementCost);
+        }
+
+        @Override
+        public <T> void addCustomData(final String key, final T data) {
+            fetchCopy().addCustomData(key, data);
+        }
+
+        @Override
+        public <T> Optional<T> getCustomData(final String key) {
+            final SatelliteData current = fetchWritten();
+            return current == null ? Optional.<T>empty() : current.<T>getCustomData(key);
+        }
+
+        /**
+         * Returns the copy of this view, or the copy made by another view of the same cell, or null.
+         */
+        private SatelliteData fetchWritten() {
+            final SatelliteData current = copy;
+            if (current != null) {
+                return current;
+            }
+            final Object written = overlay.get(coordinate);
+            return written instanceof SatelliteData ? (SatelliteData) written : null;
+        }
+
+        /**
+         * Adopts the copy another view of the same cell put into the overlay (if any) so no change is lost.
+         * If the cell was removed since this view was taken the copy replaces the removal, so writing through
+         * the view stores the cell again.
+         */
+        private synchronized SatelliteData fetchCopy() {
+            checkWritable();
+            if (copy == null) {
+                final SatelliteData result = new DefaultSatelliteData();
+                terrainColumns.copyTerrainTo(index, result);
+                Object written = overlay.putIfAbsent(coordinate, result);
+                while (written == REMOVED) {
+                    written = overlay.replace(coordinate, REMOVED, result) ? null : overlay.putIfAbsent(coordinate, result);
+                }
+                copy = written instanceof SatelliteData ? (SatelliteData) written : result;
+            }
+            return copy;
+        }
+    }
+}
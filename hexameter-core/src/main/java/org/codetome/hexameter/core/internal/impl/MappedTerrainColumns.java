@@ -0,0 +1,74 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.ReadableTerrainColumns;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ReadableTerrainColumns} which read the fixed-stride columns of a mapped snapshot file in place.
+ * The flag column has one byte per cell (see {@link #PRESENT_FLAG} and {@link #PASSABLE_FLAG}),
+ * the movement cost column has one double per cell.
+ */
+final class MappedTerrainColumns implements ReadableTerrainColumns {
+
+    static final int PRESENT_FLAG = 1;
+    static final int PASSABLE_FLAG = 2;
+    static final int MOVEMENT_COST_STRIDE = 8;
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final int cellCount;
+    private final ByteBuffer flags;
+    private final ByteBuffer movementCosts;
+
+    MappedTerrainColumns(final GridData gridData, final ByteBuffer flags, final ByteBuffer movementCosts) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        this.cellCount = gridLayoutStrategy.getCellCount(gridData);
+        this.flags = flags;
+        this.movementCosts = movementCosts;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public int indexOf(final CubeCoordinate coordinate) {
+        return gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    /**
+     * Tells whether the cell with the given dense index had satellite data when the snapshot was written.
+     *
+     * @param index dense index
+     * @return is present?
+     */
+    boolean isPresent(final int index) {
+        return (flags.get(index) & PRESENT_FLAG) != 0;
+    }
+
+    @Override
+    public boolean isPassable(final int index) {
+        return (flags.get(index) & PASSABLE_FLAG) != 0;
+    }
+
+    @Override
+    public double getMovementCost(final int index) {
+        return movementCosts.getDouble(index * MOVEMENT_COST_STRIDE);
+    }
+
+    /**
+     * The columns never change so any pair of reads is consistent.
+     */
+    @Override
+    public void copyTerrainTo(final int index, final SatelliteData satelliteData) {
+        satelliteData.setPassable(isPassable(index));
+        satelliteData.setMovementCost(getMovementCost(index));
+    }
+}
@@ -0,0 +1,87 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridMetrics;
+import org.codetome.hexameter.core.internal.GridData;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.codetome.hexameter.core.api.GridOperation.MATERIALIZATION;
+
+/**
+ * Read-only {@link java.util.Set} of the coordinates of a lazily built grid. Until it is materialized it answers
+ * everything from the layout math (like {@link DenseCoordinateSet}). The coordinates are enumerated into a
+ * {@link PartitionedCoordinateSet} when they are iterated for the first time or when {@link #materialize()} is
+ * called, and the materialization is reported to the {@link GridMetrics} of the grid.
+ */
+final class MaterializingCoordinateSet extends AbstractSet<CubeCoordinate> {
+
+    private final GridData gridData;
+    private final DenseCoordinateSet denseCoordinates;
+    private final int parallelism;
+    private final GridMetrics metrics;
+    private volatile Set<CubeCoordinate> materialized;
+
+    MaterializingCoordinateSet(final GridData gridData, final int parallelism, final GridMetrics metrics) {
+        this.gridData = gridData;
+        this.denseCoordinates = new DenseCoordinateSet(gridData);
+        this.parallelism = parallelism;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return denseCoordinates.contains(object);
+    }
+
+    @Override
+    public Iterator<CubeCoordinate> iterator() {
+        return materialize().iterator();
+    }
+
+    @Override
+    public int size() {
+        return denseCoordinates.size();
+    }
+
+    boolean isMaterialized() {
+        return materialized != null;
+    }
+
+    /**
+     * Returns the coordinates for an iteration which must not materialize this set: the materialized coordinates
+     * if there are any, otherwise a view which creates them from the layout math one by one.
+     *
+     * @return coordinates
+     */
+    Set<CubeCoordinate> fetchIterableCoordinates() {
+        final Set<CubeCoordinate> result = materialized;
+        return result == null ? denseCoordinates : result;
+    }
+
+    /**
+     * Enumerates the coordinates unless it was done already.
+     *
+     * @return materialized coordinates
+     */
+    Set<CubeCoordinate> materialize() {
+        Set<CubeCoordinate> result = materialized;
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            result = materialized;
+            if (result == null) {
+                final long start = System.nanoTime();
+                result = new PartitionedCoordinateSet(gridData, parallelism);
+                materialized = result;
+                if (metrics.isEnabled()) {
+                    metrics.record(MATERIALIZATION, System.nanoTime() - start, result.size());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.GridMetrics;
+import org.codetome.hexameter.core.api.GridOperation;
+
+/**
+ * The default {@link GridMetrics} which measures nothing.
+ */
+public final class NoOpGridMetrics implements GridMetrics {
+
+    public static final NoOpGridMetrics INSTANCE = new NoOpGridMetrics();
+
+    private NoOpGridMetrics() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void record(final GridOperation operation, final long nanos, final long cellsVisited) {
+    }
+}
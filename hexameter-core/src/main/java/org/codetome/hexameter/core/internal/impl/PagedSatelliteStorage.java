@@ -0,0 +1,315 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Satellite data storage of a bounded grid which keeps the data in fixed size pages addressed by the
+ * dense index of the cells. Pages are grouped into directories and the directories are held by a root
+ * so that the whole state can be shared by a snapshot in constant time.
+ * </p>
+ * <p>
+ * Every node remembers the epoch it was created in. Taking a snapshot starts a new epoch which makes every
+ * existing node read-only: the first write to a page after a snapshot copies the page (and the directory and root
+ * above it) so the cost of writes is proportional to the number of pages touched. Nodes which are no longer
+ * reachable from the live state or from a snapshot are simply garbage collected.
+ * </p>
+ * <p>
+ * Coordinates the layout can't index (cells which are not on the grid) are kept in an overflow map which is
+ * copied on every write to it, so snapshots can share it too. Such cells are rare so this stays cheap.
+ * Formats which address cells by their dense index ({@link BinaryHexagonalGridSerializer} and
+ * {@link MappedGridSnapshotFormatImpl}) can't represent overflow entries and skip them.
+ * </p>
+ * <p>
+ * Reads never lock. Writes are serialized on this object.
+ * </p>
+ */
+final class PagedSatelliteStorage extends AbstractMap<CubeCoordinate, Object> implements SnapshotableStorage {
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    private static final int DIRECTORY_SHIFT = 8;
+    private static final int DIRECTORY_MASK = (1 << DIRECTORY_SHIFT) - 1;
+    private static final int ROOT_SHIFT = PAGE_SHIFT + DIRECTORY_SHIFT;
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final int rootSize;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Node root;
+    private volatile Map<CubeCoordinate, Object> overflow = Collections.emptyMap();
+    private long epoch;
+
+    PagedSatelliteStorage(final GridData gridData) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        this.rootSize = (gridLayoutStrategy.getCellCount(gridData) >>> ROOT_SHIFT) + 1;
+        this.epoch = 0;
+        this.root = new Node(epoch, rootSize);
+    }
+
+    @Override
+    public synchronized Map<CubeCoordinate, Object> snapshot() {
+        final Map<CubeCoordinate, Object> result = new SnapshotView(root, overflow, size.get());
+        epoch++;
+        return result;
+    }
+
+    @Override
+    public Object get(final Object key) {
+        final int index = indexOf(key);
+        return index < 0 ? overflow.get(key) : read(root, index);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public synchronized Object put(final CubeCoordinate key, final Object value) {
+        if (value == null) {
+            throw new NullPointerException("Satellite data can't be null.");
+        }
+        final int index = indexOf(key);
+        if (index < 0) {
+            final Map<CubeCoordinate, Object> newOverflow = new HashMap<>(overflow);
+            final Object previous = newOverflow.put(key, value);
+            overflow = newOverflow;
+            return previous;
+        }
+        final Node writableRoot = root.epoch == epoch ? root : root.copy(epoch);
+        final Node page = writablePage(writableRoot, index);
+        final Object previous = page.slots.getAndSet(index & PAGE_MASK, value);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        root = writableRoot;
+        return previous;
+    }
+
+    @Override
+    public synchronized Object remove(final Object key) {
+        final int index = indexOf(key);
+        if (index < 0) {
+            if (!overflow.containsKey(key)) {
+                return null;
+            }
+            final Map<CubeCoordinate, Object> newOverflow = new HashMap<>(overflow);
+            final Object previous = newOverflow.remove(key);
+            overflow = newOverflow;
+            return previous;
+        }
+        if (read(root, index) == null) {
+            return null;
+        }
+        final Node writableRoot = root.epoch == epoch ? root : root.copy(epoch);
+        final Object previous = writablePage(writableRoot, index).slots.getAndSet(index & PAGE_MASK, null);
+        size.decrementAndGet();
+        root = writableRoot;
+        return previous;
+    }
+
+    /**
+     * Drops every page in constant time. Snapshots keep their own state.
+     */
+    @Override
+    public synchronized void clear() {
+        root = new Node(epoch, rootSize);
+        overflow = Collections.emptyMap();
+        size.set(0);
+    }
+
+    @Override
+    public int size() {
+        return size.get() + overflow.size();
+    }
+
+    @Override
+    public Set<Entry<CubeCoordinate, Object>> entrySet() {
+        return new EntrySet(root, overflow, size.get());
+    }
+
+    private int indexOf(final Object key) {
+        if (!(key instanceof CubeCoordinate)) {
+            return -1;
+        }
+        final CubeCoordinate coordinate = (CubeCoordinate) key;
+        return gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    private Node writablePage(final Node writableRoot, final int index) {
+        final Node directory = writableChild(writableRoot, index >>> ROOT_SHIFT, 1 << DIRECTORY_SHIFT);
+        return writableChild(directory, (index >>> PAGE_SHIFT) & DIRECTORY_MASK, 1 << PAGE_SHIFT);
+    }
+
+    private Node writableChild(final Node parent, final int slot, final int childSize) {
+        final Node child = (Node) parent.slots.get(slot);
+        if (child != null && child.epoch == epoch) {
+            return child;
+        }
+        final Node result = child == null ? new Node(epoch, childSize) : child.copy(epoch);
+        parent.slots.set(slot, result);
+        return result;
+    }
+
+    private static Object read(final Node root, final int index) {
+        final Node directory = (Node) root.slots.get(index >>> ROOT_SHIFT);
+        if (directory == null) {
+            return null;
+        }
+        final Node page = (Node) directory.slots.get((index >>> PAGE_SHIFT) & DIRECTORY_MASK);
+        return page == null ? null : page.slots.get(index & PAGE_MASK);
+    }
+
+    private static final class Node {
+
+        private final long epoch;
+        private final AtomicReferenceArray<Object> slots;
+
+        Node(final long epoch, final int size) {
+            this.epoch = epoch;
+            this.slots = new AtomicReferenceArray<>(size);
+        }
+
+        Node copy(final long newEpoch) {
+            final Node result = new Node(newEpoch, slots.length());
+            for (int i = 0; i < slots.length(); i++) {
+                result.slots.set(i, slots.get(i));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Read-only map over a frozen root and overflow map.
+     */
+    private final class SnapshotView extends AbstractMap<CubeCoordinate, Object> {
+
+        private final Node frozenRoot;
+        private final Map<CubeCoordinate, Object> frozenOverflow;
+        private final int frozenSize;
+
+        SnapshotView(final Node frozenRoot, final Map<CubeCoordinate, Object> frozenOverflow, final int frozenSize) {
+            this.frozenRoot = frozenRoot;
+            this.frozenOverflow = frozenOverflow;
+            this.frozenSize = frozenSize;
+        }
+
+        @Override
+        public Object get(final Object key) {
+            final int index = indexOf(key);
+            return index < 0 ? frozenOverflow.get(key) : read(frozenRoot, index);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return frozenSize + frozenOverflow.size();
+        }
+
+        @Override
+        public Set<Entry<CubeCoordinate, Object>> entrySet() {
+            return new EntrySet(frozenRoot, frozenOverflow, frozenSize);
+        }
+    }
+
+    /**
+     * Entries of a root in dense index order followed by the entries of an overflow map.
+     */
+    private final class EntrySet extends AbstractSet<Entry<CubeCoordinate, Object>> {
+
+        private final Node entryRoot;
+        private final Map<CubeCoordinate, Object> entryOverflow;
+        private final int entryCount;
+
+        EntrySet(final Node entryRoot, final Map<CubeCoordinate, Object> entryOverflow, final int entryCount) {
+            this.entryRoot = entryRoot;
+            this.entryOverflow = entryOverflow;
+            this.entryCount = entryCount;
+        }
+
+        @Override
+        public Iterator<Entry<CubeCoordinate, Object>> iterator() {
+            return new EntryIterator(entryRoot, entryOverflow.entrySet().iterator());
+        }
+
+        @Override
+        public int size() {
+            return entryCount + entryOverflow.size();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<CubeCoordinate, Object>> {
+
+        private final Node iteratedRoot;
+        private final Iterator<Entry<CubeCoordinate, Object>> overflowIterator;
+        private final int cellCount = gridLayoutStrategy.getCellCount(gridData);
+        private int nextIndex = -1;
+        private Object nextValue;
+
+        EntryIterator(final Node iteratedRoot, final Iterator<Entry<CubeCoordinate, Object>> overflowIterator) {
+            this.iteratedRoot = iteratedRoot;
+            this.overflowIterator = overflowIterator;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < cellCount || overflowIterator.hasNext();
+        }
+
+        @Override
+        public Entry<CubeCoordinate, Object> next() {
+            if (nextIndex >= cellCount) {
+                final Entry<CubeCoordinate, Object> overflowEntry = overflowIterator.next();
+                return new SimpleImmutableEntry<>(overflowEntry.getKey(), overflowEntry.getValue());
+            }
+            final Entry<CubeCoordinate, Object> result = new SimpleImmutableEntry<>(gridLayoutStrategy.coordinateAt(gridData, nextIndex), nextValue);
+            advance();
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Use Map#remove to remove satellite data.");
+        }
+
+        private void advance() {
+            nextIndex++;
+            while (nextIndex < cellCount) {
+                final Node directory = (Node) iteratedRoot.slots.get(nextIndex >>> ROOT_SHIFT);
+                if (directory == null) {
+                    nextIndex = ((nextIndex >>> ROOT_SHIFT) + 1) << ROOT_SHIFT;
+                    continue;
+                }
+                final Node page = (Node) directory.slots.get((nextIndex >>> PAGE_SHIFT) & DIRECTORY_MASK);
+                if (page == null) {
+                    nextIndex = ((nextIndex >>> PAGE_SHIFT) + 1) << PAGE_SHIFT;
+                    continue;
+                }
+                nextValue = page.slots.get(nextIndex & PAGE_MASK);
+                if (nextValue != null) {
+                    return;
+                }
+                nextIndex++;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.exception.HexagonalGridCreationException;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>
+ * Read-only {@link java.util.Set} of the coordinates of a bounded grid which stores them in preallocated arrays,
+ * one for every partition of the dense index range. Since dense indices follow the rows of the layout a partition
+ * is a run of rows. The partitions are filled in parallel so building a big grid scales with the number of cores.
+ * The helper threads come from a pool shared by every build, idle threads of the pool die after a minute.
+ * </p>
+ * <p>
+ * Membership is answered from the layout math of the {@link GridLayoutStrategy} (like {@link DenseCoordinateSet})
+ * and iteration walks the arrays in dense index order without creating any coordinates.
+ * </p>
+ */
+public final class PartitionedCoordinateSet extends AbstractSet<CubeCoordinate> {
+
+    /**
+     * Grids with fewer cells than this per available thread are built by fewer threads since starting a thread
+     * costs more than filling a small partition.
+     */
+    static final int MIN_PARTITION_SIZE = 1 << 16;
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final int cellCount;
+    private final CubeCoordinate[][] partitions;
+
+    /**
+     * Creates the set of the coordinates of a grid with the given {@link GridData} using at most the given number
+     * of threads (including the calling one).
+     *
+     * @param gridData grid data
+     * @param parallelism maximum number of threads
+     */
+    public PartitionedCoordinateSet(final GridData gridData, final int parallelism) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        this.cellCount = gridLayoutStrategy.getCellCount(gridData);
+        this.partitions = new CubeCoordinate[partitionCountOf(cellCount, parallelism)][];
+        fillPartitions();
+    }
+
+    static int partitionCountOf(final int cellCount, final int parallelism) {
+        final int bySize = (cellCount + MIN_PARTITION_SIZE - 1) / MIN_PARTITION_SIZE;
+        return Math.max(1, Math.min(parallelism, bySize));
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        if (!(object instanceof CubeCoordinate)) {
+            return false;
+        }
+        final CubeCoordinate coordinate = (CubeCoordinate) object;
+        return gridLayoutStrategy.containsCoordinate(gridData, coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    @Override
+    public Iterator<CubeCoordinate> iterator() {
+        return new Iterator<CubeCoordinate>() {
+            private int partition;
+            private int nextIndex;
+
+            @Override
+            public boolean hasNext() {
+                while (partition < partitions.length && nextIndex == partitions[partition].length) {
+                    partition++;
+                    nextIndex = 0;
+                }
+                return partition < partitions.length;
+            }
+
+            @Override
+            public CubeCoordinate next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return partitions[partition][nextIndex++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("The coordinates of a grid can't be changed.");
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return cellCount;
+    }
+
+    int getPartitionCount() {
+        return partitions.length;
+    }
+
+    private void fillPartitions() {
+        if (partitions.length == 1) {
+            fillPartition(0);
+            return;
+        }
+        final List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int i = 1; i < partitions.length; i++) {
+                final int partition = i;
+                futures.add(SharedExecutor.INSTANCE.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        fillPartition(partition);
+                        return null;
+                    }
+                }));
+            }
+            fillPartition(0);
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HexagonalGridCreationException("Building the grid was interrupted.");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Building the grid failed.", cause);
+        } finally {
+            for (final Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Fills the partition with the dense indices <code>[cellCount * partition / partitionCount,
+     * cellCount * (partition + 1) / partitionCount)</code>.
+     */
+    private void fillPartition(final int partition) {
+        final int from = (int) ((long) cellCount * partition / partitions.length);
+        final int to = (int) ((long) cellCount * (partition + 1) / partitions.length);
+        final CubeCoordinate[] coordinates = new CubeCoordinate[to - from];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = gridLayoutStrategy.coordinateAt(gridData, from + i);
+        }
+        partitions[partition] = coordinates;
+    }
+
+    /**
+     * Holds the shared pool so it is only created when the first grid is built in parallel.
+     */
+    private static final class SharedExecutor {
+
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new BuilderThreadFactory());
+
+        private SharedExecutor() {
+        }
+    }
+
+    private static final class BuilderThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "hexameter-grid-builder");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CompressedTerrainColumns;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.ReadableTerrainColumns;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.TerrainColumns;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.Double.doubleToLongBits;
+
+/**
+ * {@link CompressedTerrainColumns} which keep the start index and the dictionary entry of every run in two
+ * int arrays. The dictionary holds the distinct (passable, movement cost) pairs: the movement costs in a double array
+ * and the passability in a bit per entry.
+ */
+public final class RunLengthTerrainColumns implements CompressedTerrainColumns {
+
+    private static final int INITIAL_RUN_CAPACITY = 16;
+    private static final int WORD_SHIFT = 6;
+
+    private final GridData gridData;
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final int cellCount;
+    private final int[] runStarts;
+    private final int[] runValues;
+    private final double[] dictionaryCosts;
+    private final long[] dictionaryPassable;
+
+    private RunLengthTerrainColumns(final GridData gridData, final int cellCount, final int[] runStarts, final int[] runValues,
+                                    final double[] dictionaryCosts, final long[] dictionaryPassable) {
+        this.gridData = gridData;
+        this.gridLayoutStrategy = gridData.getGridLayout().getGridLayoutStrategy();
+        this.cellCount = cellCount;
+        this.runStarts = runStarts;
+        this.runValues = runValues;
+        this.dictionaryCosts = dictionaryCosts;
+        this.dictionaryPassable = dictionaryPassable;
+    }
+
+    /**
+     * Compresses the given {@link ReadableTerrainColumns} of a bounded grid with the given {@link GridData} in a single pass.
+     *
+     * @param gridData grid data
+     * @param source terrain columns of the grid
+     * @return compressed columns
+     */
+    public static RunLengthTerrainColumns compress(final GridData gridData, final ReadableTerrainColumns source) {
+        final int cellCount = source.getCellCount();
+        final SatelliteData terrain = new DefaultSatelliteData();
+        final Map<Long, Integer> passableEntries = new HashMap<>();
+        final Map<Long, Integer> impassableEntries = new HashMap<>();
+        double[] costs = new double[INITIAL_RUN_CAPACITY];
+        long[] passable = new long[1];
+        int[] starts = new int[INITIAL_RUN_CAPACITY];
+        int[] values = new int[INITIAL_RUN_CAPACITY];
+        int runCount = 0;
+        int entryCount = 0;
+        int previousValue = -1;
+        for (int index = 0; index < cellCount; index++) {
+            source.copyTerrainTo(index, terrain);
+            final Map<Long, Integer> entries = terrain.isPassable() ? passableEntries : impassableEntries;
+            final Long key = doubleToLongBits(terrain.getMovementCost());
+            Integer value = entries.get(key);
+            if (value == null) {
+                value = entryCount++;
+                entries.put(key, value);
+                if (value == costs.length) {
+                    costs = Arrays.copyOf(costs, value * 2);
+                }
+                if (value >>> WORD_SHIFT == passable.length) {
+                    passable = Arrays.copyOf(passable, passable.length * 2);
+                }
+                costs[value] = terrain.getMovementCost();
+                if (terrain.isPassable()) {
+                    passable[value >>> WORD_SHIFT] |= 1L << value;
+                }
+            }
+            if (value != previousValue) {
+                if (runCount == starts.length) {
+                    starts = Arrays.copyOf(starts, runCount * 2);
+                    values = Arrays.copyOf(values, runCount * 2);
+                }
+                starts[runCount] = index;
+                values[runCount] = value;
+                runCount++;
+                previousValue = value;
+            }
+        }
+        return new RunLengthTerrainColumns(gridData, cellCount, Arrays.copyOf(starts, runCount), Arrays.copyOf(values, runCount),
+                Arrays.copyOf(costs, entryCount), passable);
+    }
+
+    @Override
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public int indexOf(final CubeCoordinate coordinate) {
+        return gridLayoutStrategy.indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    @Override
+    public boolean isPassable(final int index) {
+        return isRunPassable(runOf(index));
+    }
+
+    @Override
+    public double getMovementCost(final int index) {
+        return getRunMovementCost(runOf(index));
+    }
+
+    @Override
+    public int getRunCount() {
+        return runStarts.length;
+    }
+
+    @Override
+    public int runOf(final int index) {
+        if (index < 0 || index >= cellCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", cell count: " + cellCount);
+        }
+        int low = 0;
+        int high = runStarts.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (runStarts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public int getRunStart(final int run) {
+        return runStarts[run];
+    }
+
+    @Override
+    public boolean isRunPassable(final int run) {
+        final int value = runValues[run];
+        return (dictionaryPassable[value >>> WORD_SHIFT] & (1L << value)) != 0;
+    }
+
+    @Override
+    public double getRunMovementCost(final int run) {
+        return dictionaryCosts[runValues[run]];
+    }
+
+    @Override
+    public void decompressTo(final TerrainColumns target) {
+        if (target.getCellCount() != cellCount) {
+            throw new IllegalArgumentException("Target has " + target.getCellCount() + " cells instead of " + cellCount + ".");
+        }
+        for (int run = 0; run < runStarts.length; run++) {
+            final int end = run + 1 < runStarts.length ? runStarts[run + 1] : cellCount;
+            final boolean passable = isRunPassable(run);
+            final double movementCost = getRunMovementCost(run);
+            for (int index = runStarts[run]; index < end; index++) {
+                target.setTerrain(index, passable, movementCost);
+            }
+        }
+    }
+
+    /**
+     * The columns never change so any pair of reads is consistent.
+     */
+    @Override
+    public void copyTerrainTo(final int index, final SatelliteData satelliteData) {
+        final int run = runOf(index);
+        satelliteData.setPassable(isRunPassable(run));
+        satelliteData.setMovementCost(getRunMovementCost(run));
+    }
+}
@@ -0,0 +1,107 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The satellite data the grids of a builder start with. Grids copy it when they are built so writing it afterwards
+ * would not reach them: once the storage is sealed every write throws an {@link IllegalStateException} instead of
+ * being silently lost.
+ */
+public final class SeedStorage extends AbstractMap<CubeCoordinate, Object> {
+
+    private final Map<CubeCoordinate, Object> storage = new ConcurrentHashMap<>();
+    private volatile boolean sealed;
+
+    /**
+     * Makes this storage read-only. Called when a grid is built from it.
+     */
+    public void seal() {
+        sealed = true;
+    }
+
+    @Override
+    public Object get(final Object key) {
+        return storage.get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return storage.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public Object put(final CubeCoordinate key, final Object value) {
+        checkNotSealed();
+        return storage.put(key, value);
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        checkNotSealed();
+        return storage.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        checkNotSealed();
+        storage.clear();
+    }
+
+    @Override
+    public Set<Entry<CubeCoordinate, Object>> entrySet() {
+        return new AbstractSet<Entry<CubeCoordinate, Object>>() {
+            @Override
+            public Iterator<Entry<CubeCoordinate, Object>> iterator() {
+                final Iterator<Entry<CubeCoordinate, Object>> entries = storage.entrySet().iterator();
+                return new Iterator<Entry<CubeCoordinate, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Entry<CubeCoordinate, Object> next() {
+                        final Entry<CubeCoordinate, Object> entry = entries.next();
+                        return new SimpleEntry<CubeCoordinate, Object>(entry) {
+                            @Override
+                            public Object setValue(final Object value) {
+                                put(entry.getKey(), value);
+                                return super.setValue(value);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        checkNotSealed();
+                        entries.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return storage.size();
+            }
+        };
+    }
+
+    private void checkNotSealed() {
+        if (sealed) {
+            throw new IllegalStateException("Satellite data can't be seeded after a grid was built: grids don't see "
+                    + "writes to the custom storage of their builder. Set it on the grid instead.");
+        }
+    }
+}
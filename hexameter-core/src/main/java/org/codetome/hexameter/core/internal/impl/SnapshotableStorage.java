@@ -0,0 +1,19 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+
+import java.util.Map;
+
+/**
+ * Satellite data storage which can take a frozen view of itself cheaper than copying every entry.
+ */
+interface SnapshotableStorage {
+
+    /**
+     * Returns an immutable view of the current state of this storage. Later writes to this storage
+     * are not visible in the view.
+     *
+     * @return snapshot view
+     */
+    Map<CubeCoordinate, Object> snapshot();
+}
@@ -0,0 +1,79 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.SparseHexagonalGrid;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrategy;
+import rx.Observable;
+import rx.Observable.OnSubscribe;
+import rx.Subscriber;
+
+import static org.codetome.hexameter.core.internal.impl.HexagonImpl.newHexagon;
+
+/**
+ * Default implementation of the {@link SparseHexagonalGrid} interface. It does not store the coordinates
+ * of the grid: containment is calculated by the {@link GridLayoutStrategy} and only occupied cells are
+ * stored in a {@link SparseStorage}.
+ */
+public final class SparseHexagonalGridImpl extends AbstractHexagonalGrid implements SparseHexagonalGrid {
+
+    private final GridLayoutStrategy gridLayoutStrategy;
+    private final SparseStorage sparseStorage;
+
+    /**
+     * Creates a new SparseHexagonalGrid based on the provided HexagonalGridBuilder.
+     *
+     * @param builder builder
+     */
+    public SparseHexagonalGridImpl(final HexagonalGridBuilder builder) {
+        this(builder, new SparseStorage());
+    }
+
+    private SparseHexagonalGridImpl(final HexagonalGridBuilder builder, final SparseStorage sparseStorage) {
+        super(builder.getGridData(), sparseStorage, builder.getMetrics());
+        this.gridLayoutStrategy = builder.getGridLayoutStrategy();
+        this.sparseStorage = sparseStorage;
+    }
+
+    @Override
+    public Observable<Hexagon> getHexagons() {
+        Observable<Hexagon> result = Observable.create(new OnSubscribe<Hexagon>() {
+            @Override
+            public void call(Subscriber<? super Hexagon> subscriber) {
+                for (final CubeCoordinate coordinate : sparseStorage.fetchOccupiedCoordinates()) {
+                    subscriber.onNext(newHexagon(getGridData(), coordinate, getHexagonStorage()));
+                }
+                subscriber.onCompleted();
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public boolean containsCubeCoordinate(final CubeCoordinate coordinate) {
+        return gridLayoutStrategy.containsCoordinate(getGridData(), coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    @Override
+    public void activate(final CubeCoordinate coordinate) {
+        if (containsCubeCoordinate(coordinate)) {
+            sparseStorage.activate(coordinate.getGridX(), coordinate.getGridZ());
+        }
+    }
+
+    @Override
+    public void deactivate(final CubeCoordinate coordinate) {
+        sparseStorage.deactivate(coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    @Override
+    public boolean isOccupied(final CubeCoordinate coordinate) {
+        return sparseStorage.isOccupied(coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    @Override
+    public int getOccupiedCellCount() {
+        return sparseStorage.getOccupiedCount();
+    }
+}
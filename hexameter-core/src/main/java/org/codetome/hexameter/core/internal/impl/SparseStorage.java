@@ -0,0 +1,230 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+
+/**
+ * Satellite data storage of a sparse grid. It is an open addressing hash table (with linear probing)
+ * keyed by the packed (x, z) coordinate which stores the keys in a primitive array so a cell costs
+ * nothing until it has satellite data or it is activated. The number of cells with satellite data is counted as
+ * they change so {@link #size()} doesn't have to walk the table.
+ */
+final class SparseStorage extends AbstractMap<CubeCoordinate, Object> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private boolean[] activated = new boolean[INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private int size;
+    private int valueCount;
+
+    static long toKey(final int gridX, final int gridZ) {
+        return ((long) gridX << 32) | (gridZ & 0xFFFFFFFFL);
+    }
+
+    static long toKey(final CubeCoordinate coordinate) {
+        return toKey(coordinate.getGridX(), coordinate.getGridZ());
+    }
+
+    static CubeCoordinate fromKey(final long key) {
+        return fromCoordinates((int) (key >> 32), (int) key);
+    }
+
+    @Override
+    public synchronized Object get(final Object key) {
+        if (!(key instanceof CubeCoordinate)) {
+            return null;
+        }
+        final int slot = findSlot(toKey((CubeCoordinate) key));
+        return used[slot] ? values[slot] : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public synchronized Object put(final CubeCoordinate key, final Object value) {
+        if (value == null) {
+            return remove(key);
+        }
+        final int slot = occupySlot(toKey(key));
+        final Object previous = values[slot];
+        values[slot] = value;
+        if (previous == null) {
+            valueCount++;
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized Object remove(final Object key) {
+        if (!(key instanceof CubeCoordinate)) {
+            return null;
+        }
+        final int slot = findSlot(toKey((CubeCoordinate) key));
+        if (!used[slot]) {
+            return null;
+        }
+        final Object previous = values[slot];
+        values[slot] = null;
+        if (previous != null) {
+            valueCount--;
+        }
+        if (!activated[slot]) {
+            removeSlot(slot);
+        }
+        return previous;
+    }
+
+    /**
+     * Clears all satellite data. Activated cells stay occupied.
+     */
+    @Override
+    public synchronized void clear() {
+        for (int slot = 0; slot < keys.length; slot++) {
+            values[slot] = null;
+        }
+        valueCount = 0;
+        // removal shifts entries back so we iterate until no more unactivated entries remain
+        int slot = 0;
+        while (slot < keys.length) {
+            if (used[slot] && !activated[slot]) {
+                removeSlot(slot);
+            } else {
+                slot++;
+            }
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return valueCount;
+    }
+
+    @Override
+    public synchronized Set<Entry<CubeCoordinate, Object>> entrySet() {
+        final Set<Entry<CubeCoordinate, Object>> result = new HashSet<>();
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != null) {
+                result.add(new SimpleImmutableEntry<>(fromKey(keys[slot]), values[slot]));
+            }
+        }
+        return result;
+    }
+
+    synchronized void activate(final int gridX, final int gridZ) {
+        activated[occupySlot(toKey(gridX, gridZ))] = true;
+    }
+
+    synchronized void deactivate(final int gridX, final int gridZ) {
+        final int slot = findSlot(toKey(gridX, gridZ));
+        if (used[slot]) {
+            activated[slot] = false;
+            if (values[slot] == null) {
+                removeSlot(slot);
+            }
+        }
+    }
+
+    synchronized boolean isOccupied(final int gridX, final int gridZ) {
+        return used[findSlot(toKey(gridX, gridZ))];
+    }
+
+    synchronized int getOccupiedCount() {
+        return size;
+    }
+
+    synchronized List<CubeCoordinate> fetchOccupiedCoordinates() {
+        final List<CubeCoordinate> result = new ArrayList<>(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                result.add(fromKey(keys[slot]));
+            }
+        }
+        return result;
+    }
+
+    private static int hash(final long key) {
+        final long mixed = key * GOLDEN_RATIO;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private int findSlot(final long key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int occupySlot(final long key) {
+        int slot = findSlot(key);
+        if (!used[slot]) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+                slot = findSlot(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        return slot;
+    }
+
+    /**
+     * Removes the entry at the slot and shifts back the following entries of the probe sequence
+     * so no tombstones are needed.
+     */
+    private void removeSlot(final int removedSlot) {
+        final int mask = keys.length - 1;
+        int hole = removedSlot;
+        int slot = (hole + 1) & mask;
+        while (used[slot]) {
+            final int home = hash(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                activated[hole] = activated[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[hole] = false;
+        values[hole] = null;
+        activated[hole] = false;
+        size--;
+    }
+
+    private void resize(final int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final boolean[] oldActivated = activated;
+        final boolean[] oldUsed = used;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        activated = new boolean[capacity];
+        used = new boolean[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                final int slot = findSlot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                activated[slot] = oldActivated[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks where a region of cells is mapped to one of the locks. Writers of
+ * different regions rarely contend while memory usage does not depend on the size of the grid.
+ */
+final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int stripeMask;
+
+    /**
+     * Creates a new {@link StripedLocks} object.
+     *
+     * @param stripes number of locks, rounded up to the next power of two
+     */
+    StripedLocks(final int stripes) {
+        final int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.stripeMask = size - 1;
+    }
+
+    /**
+     * Returns the lock which guards the given region.
+     *
+     * @param region region (any int)
+     * @return lock
+     */
+    ReentrantLock lockFor(final int region) {
+        final int spread = region ^ (region >>> 16);
+        return locks[spread & stripeMask];
+    }
+
+    /**
+     * Acquires every lock in a fixed order so that concurrent callers can't deadlock.
+     */
+    void lockAll() {
+        for (final ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Releases the locks acquired by {@link #lockAll()}.
+     */
+    void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Variable length encoding of non-negative ints (7 bits per byte, least significant group first)
+ * used by the binary formats. Small numbers like index deltas take a single byte.
+ */
+public final class VarInts {
+
+    private static final int PAYLOAD_BITS = 7;
+    private static final int PAYLOAD_MASK = 0x7F;
+    private static final int CONTINUATION_BIT = 0x80;
+    private static final int MAX_SHIFT = 28;
+
+    private VarInts() {
+    }
+
+    /**
+     * Writes a non-negative int.
+     *
+     * @param output output
+     * @param value value
+     * @throws IOException if writing fails
+     */
+    public static void writeVarInt(final DataOutput output, final int value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Only non-negative values can be written: " + value);
+        }
+        writeUnsigned(output, value);
+    }
+
+    /**
+     * Reads a non-negative int written by {@link #writeVarInt(DataOutput, int)}.
+     *
+     * @param input input
+     * @return value
+     * @throws IOException if reading fails or the value is malformed
+     */
+    public static int readVarInt(final DataInput input) throws IOException {
+        final int result = readUnsigned(input);
+        if (result < 0) {
+            throw new IOException("Malformed variable length int.");
+        }
+        return result;
+    }
+
+    /**
+     * Writes any int using zigzag encoding so that numbers close to zero take a single byte.
+     *
+     * @param output output
+     * @param value value
+     * @throws IOException if writing fails
+     */
+    public static void writeSignedVarInt(final DataOutput output, final int value) throws IOException {
+        writeUnsigned(output, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads an int written by {@link #writeSignedVarInt(DataOutput, int)}.
+     *
+     * @param input input
+     * @return value
+     * @throws IOException if reading fails or the value is malformed
+     */
+    public static int readSignedVarInt(final DataInput input) throws IOException {
+        final int zigzag = readUnsigned(input);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static void writeUnsigned(final DataOutput output, final int bits) throws IOException {
+        int remaining = bits;
+        while ((remaining & ~PAYLOAD_MASK) != 0) {
+            output.writeByte((remaining & PAYLOAD_MASK) | CONTINUATION_BIT);
+            remaining >>>= PAYLOAD_BITS;
+        }
+        output.writeByte(remaining);
+    }
+
+    private static int readUnsigned(final DataInput input) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift <= MAX_SHIFT; shift += PAYLOAD_BITS) {
+            final int current = input.readUnsignedByte();
+            result |= (current & PAYLOAD_MASK) << shift;
+            if ((current & CONTINUATION_BIT) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable length int.");
+    }
+}
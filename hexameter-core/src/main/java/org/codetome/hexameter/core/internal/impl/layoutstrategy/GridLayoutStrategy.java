@@ -1,13 +1,19 @@
 package org.codetome.hexameter.core.internal.impl.layoutstrategy;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.codetome.hexameter.core.api.CubeCoordinate;
 import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.PartitionedCoordinateSet;
 import rx.Observable;
 
+import java.util.Set;
+
 /**
  * Represents the method of creating a {@link HexagonalGrid} corresponding to a given shape.
  */
+@SuppressFBWarnings("SIC_INNER_SHOULD_BE_STATIC_ANON")
 public abstract class GridLayoutStrategy {
 
     /**
@@ -19,6 +25,61 @@ public abstract class GridLayoutStrategy {
      */
     public abstract Observable<CubeCoordinate> fetchGridCoordinates(HexagonalGridBuilder builder);
 
+    /**
+     * Creates the Set of coordinates which backs a {@link HexagonalGrid} using this strategy.
+     * The Set must iterate the coordinates in the order of {@link #fetchGridCoordinates(HexagonalGridBuilder)}.
+     * By default the coordinates are enumerated with {@link #coordinateAt(GridData, int)} by
+     * {@link HexagonalGridBuilder#getBuildParallelism()} threads into preallocated arrays.
+     *
+     * @param builder builder
+     * @return coordinates
+     */
+    public Set<CubeCoordinate> createCoordinateSet(final HexagonalGridBuilder builder) {
+        return new PartitionedCoordinateSet(builder.getGridData(), builder.getBuildParallelism());
+    }
+
+    /**
+     * Tells whether the given cube coordinate is part of a grid with the given {@link GridData}
+     * without enumerating the coordinates of the grid.
+     *
+     * @param gridData grid data
+     * @param gridX cube x
+     * @param gridZ cube z
+     * @return is it part of the grid?
+     */
+    public abstract boolean containsCoordinate(GridData gridData, int gridX, int gridZ);
+
+    /**
+     * Returns the dense index of the given cube coordinate in a grid with the given {@link GridData}
+     * or -1 if it is not part of the grid. Dense indices are in <code>[0, getCellCount(gridData))</code>
+     * and follow the order of {@link #fetchGridCoordinates(HexagonalGridBuilder)} so they can be used
+     * to keep per-cell data in flat arrays.
+     *
+     * @param gridData grid data
+     * @param gridX cube x
+     * @param gridZ cube z
+     * @return dense index or -1
+     */
+    public abstract int indexOf(GridData gridData, int gridX, int gridZ);
+
+    /**
+     * Returns the number of cells in a grid with the given {@link GridData}.
+     *
+     * @param gridData grid data
+     * @return number of cells
+     */
+    public abstract int getCellCount(GridData gridData);
+
+    /**
+     * Returns the cube coordinate of the cell with the given dense index in a grid with the given {@link GridData}.
+     * This is the inverse of {@link #indexOf(GridData, int, int)}.
+     *
+     * @param gridData grid data
+     * @param index dense index in <code>[0, getCellCount(gridData))</code>
+     * @return coordinate
+     */
+    public abstract CubeCoordinate coordinateAt(GridData gridData, int index);
+
     /**
      * Checks whether the supplied parameters are valid for the given strategy.
      * <i>For example a hexagonal grid layout only works if the width equals to the height</i>
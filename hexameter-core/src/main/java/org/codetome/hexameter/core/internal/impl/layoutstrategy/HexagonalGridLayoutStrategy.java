@@ -5,6 +5,7 @@ import org.codetome.hexameter.core.api.CubeCoordinate;
 import org.codetome.hexameter.core.api.HexagonOrientation;
 import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
 import rx.Observable;
 import rx.Observable.OnSubscribe;
 import rx.Subscriber;
@@ -52,4 +53,69 @@ public final class HexagonalGridLayoutStrategy extends GridLayoutStrategy {
         return result && superResult;
     }
 
+    @Override
+    public boolean containsCoordinate(final GridData gridData, final int gridX, final int gridZ) {
+        return indexOf(gridData, gridX, gridZ) >= 0;
+    }
+
+    /**
+     * Row <code>y</code> holds <code>2 * hexRadius + 1 - |hexRadius - y|</code> cells so the
+     * offset of a row is the sum of the lengths of the growing upper half and the shrinking lower half before it.
+     */
+    @Override
+    public int indexOf(final GridData gridData, final int gridX, final int gridZ) {
+        final double gridSize = gridData.getGridHeight();
+        final boolean flatTop = HexagonOrientation.FLAT_TOP.equals(gridData.getOrientation());
+        final int y = flatTop ? gridZ + (int) floor(gridSize / 4d) : gridZ;
+        if (y < 0 || y >= gridSize) {
+            return -1;
+        }
+        final int hexRadius = (int) floor(gridSize / 2d);
+        final int fromX = rowStartX(gridData, y);
+        if (gridX < fromX || gridX > fromX + hexRadius + hexRadius - abs(hexRadius - y)) {
+            return -1;
+        }
+        return rowOffset(hexRadius, y) + gridX - fromX;
+    }
+
+    @Override
+    public int getCellCount(final GridData gridData) {
+        final int hexRadius = gridData.getGridHeight() / 2;
+        return 3 * hexRadius * (hexRadius + 1) + 1;
+    }
+
+    @Override
+    public CubeCoordinate coordinateAt(final GridData gridData, final int index) {
+        final double gridSize = gridData.getGridHeight();
+        final int hexRadius = (int) floor(gridSize / 2d);
+        int low = 0;
+        int high = gridData.getGridHeight() - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (rowOffset(hexRadius, mid) <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        final int gridX = rowStartX(gridData, low) + index - rowOffset(hexRadius, low);
+        final int gridZ = HexagonOrientation.FLAT_TOP.equals(gridData.getOrientation()) ? low - (int) floor(gridSize / 4d) : low;
+        return CubeCoordinate.fromCoordinates(gridX, gridZ);
+    }
+
+    private static int rowStartX(final GridData gridData, final int row) {
+        final double gridSize = gridData.getGridHeight();
+        final int startX = HexagonOrientation.FLAT_TOP.equals(gridData.getOrientation()) ? (int) floor(gridSize / 2d) : (int) round(gridSize / 4d);
+        final int hexRadius = (int) floor(gridSize / 2d);
+        return max(startX - row, startX - hexRadius);
+    }
+
+    private static int rowOffset(final int hexRadius, final int row) {
+        if (row <= hexRadius) {
+            return row * (hexRadius + 1) + row * (row - 1) / 2;
+        }
+        final int lowerRows = row - 1 - hexRadius;
+        return (hexRadius + 1) * (hexRadius + 1) + hexRadius * (hexRadius + 1) / 2
+                + lowerRows * (3 * hexRadius + 1) - lowerRows * (hexRadius + row) / 2;
+    }
 }
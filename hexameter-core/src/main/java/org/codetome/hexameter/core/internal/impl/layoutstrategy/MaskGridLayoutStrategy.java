@@ -0,0 +1,63 @@
+package org.codetome.hexameter.core.internal.impl.layoutstrategy;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridMask;
+import org.codetome.hexameter.core.internal.GridData;
+import rx.Observable;
+import rx.Subscriber;
+
+import java.util.Set;
+
+/**
+ * This strategy is responsible for generating a {@link HexagonalGrid} which has an arbitrary
+ * shape described by the {@link HexagonalGridMask} of the builder.
+ */
+@SuppressFBWarnings("SIC_INNER_SHOULD_BE_STATIC_ANON")
+public final class MaskGridLayoutStrategy extends GridLayoutStrategy {
+
+    @Override
+    public Observable<CubeCoordinate> fetchGridCoordinates(final HexagonalGridBuilder builder) {
+        Observable<CubeCoordinate> result = Observable.create(new Observable.OnSubscribe<CubeCoordinate>() {
+            @Override
+            public void call(Subscriber<? super CubeCoordinate> subscriber) {
+                for (final CubeCoordinate coordinate : builder.getGridMask().asCoordinateSet()) {
+                    subscriber.onNext(coordinate);
+                }
+                subscriber.onCompleted();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * The mask already knows which coordinates are present so instead of storing them
+     * one by one we use a view of the mask itself.
+     */
+    @Override
+    public Set<CubeCoordinate> createCoordinateSet(final HexagonalGridBuilder builder) {
+        return builder.getGridMask().asCoordinateSet();
+    }
+
+    @Override
+    public boolean containsCoordinate(final GridData gridData, final int gridX, final int gridZ) {
+        return gridData.getGridMask().contains(gridX, gridZ);
+    }
+
+    @Override
+    public int indexOf(final GridData gridData, final int gridX, final int gridZ) {
+        return gridData.getGridMask().indexOf(gridX, gridZ);
+    }
+
+    @Override
+    public int getCellCount(final GridData gridData) {
+        return gridData.getGridMask().getCellCount();
+    }
+
+    @Override
+    public CubeCoordinate coordinateAt(final GridData gridData, final int index) {
+        return gridData.getGridMask().coordinateAt(index);
+    }
+}
@@ -3,8 +3,10 @@ package org.codetome.hexameter.core.internal.impl.layoutstrategy;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.codetome.hexameter.core.api.CubeCoordinate;
 import org.codetome.hexameter.core.api.CoordinateConverter;
+import org.codetome.hexameter.core.api.HexagonOrientation;
 import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
 import rx.Observable;
 import rx.Subscriber;
 
@@ -39,4 +41,46 @@ public final class RectangularGridLayoutStrategy extends GridLayoutStrategy {
     public boolean checkParameters(final int gridHeight, final int gridWidth) {
         return super.checkParameters(gridHeight, gridWidth);
     }
+
+    @Override
+    public boolean containsCoordinate(final GridData gridData, final int gridX, final int gridZ) {
+        final int offsetX = toOffsetX(gridData, gridX, gridZ);
+        final int offsetY = toOffsetY(gridData, gridX, gridZ);
+        return offsetX >= 0 && offsetX < gridData.getGridWidth() && offsetY >= 0 && offsetY < gridData.getGridHeight();
+    }
+
+    @Override
+    public int indexOf(final GridData gridData, final int gridX, final int gridZ) {
+        if (!containsCoordinate(gridData, gridX, gridZ)) {
+            return -1;
+        }
+        return toOffsetY(gridData, gridX, gridZ) * gridData.getGridWidth() + toOffsetX(gridData, gridX, gridZ);
+    }
+
+    @Override
+    public int getCellCount(final GridData gridData) {
+        return gridData.getGridWidth() * gridData.getGridHeight();
+    }
+
+    @Override
+    public CubeCoordinate coordinateAt(final GridData gridData, final int index) {
+        final int offsetX = index % gridData.getGridWidth();
+        final int offsetY = index / gridData.getGridWidth();
+        return fromCoordinates(CoordinateConverter.convertOffsetCoordinatesToCubeX(offsetX, offsetY, gridData.getOrientation()),
+                CoordinateConverter.convertOffsetCoordinatesToCubeZ(offsetX, offsetY, gridData.getOrientation()));
+    }
+
+    private static int toOffsetX(final GridData gridData, final int gridX, final int gridZ) {
+        if (HexagonOrientation.FLAT_TOP.equals(gridData.getOrientation())) {
+            return gridX;
+        }
+        return gridZ < 0 ? -1 : gridX + gridZ / 2;
+    }
+
+    private static int toOffsetY(final GridData gridData, final int gridX, final int gridZ) {
+        if (HexagonOrientation.FLAT_TOP.equals(gridData.getOrientation())) {
+            return gridX < 0 ? -1 : gridZ + gridX / 2;
+        }
+        return gridZ;
+    }
 }
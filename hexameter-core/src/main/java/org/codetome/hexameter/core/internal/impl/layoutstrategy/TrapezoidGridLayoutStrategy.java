@@ -3,6 +3,7 @@ package org.codetome.hexameter.core.internal.impl.layoutstrategy;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.codetome.hexameter.core.api.CubeCoordinate;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
 import rx.Observable;
 import rx.Subscriber;
 
@@ -32,4 +33,23 @@ public final class TrapezoidGridLayoutStrategy extends GridLayoutStrategy {
         return super.checkParameters(gridHeight, gridWidth);
     }
 
+    @Override
+    public boolean containsCoordinate(final GridData gridData, final int gridX, final int gridZ) {
+        return gridX >= 0 && gridX < gridData.getGridWidth() && gridZ >= 0 && gridZ < gridData.getGridHeight();
+    }
+
+    @Override
+    public int indexOf(final GridData gridData, final int gridX, final int gridZ) {
+        return containsCoordinate(gridData, gridX, gridZ) ? gridZ * gridData.getGridWidth() + gridX : -1;
+    }
+
+    @Override
+    public int getCellCount(final GridData gridData) {
+        return gridData.getGridWidth() * gridData.getGridHeight();
+    }
+
+    @Override
+    public CubeCoordinate coordinateAt(final GridData gridData, final int index) {
+        return fromCoordinates(index % gridData.getGridWidth(), index / gridData.getGridWidth());
+    }
 }
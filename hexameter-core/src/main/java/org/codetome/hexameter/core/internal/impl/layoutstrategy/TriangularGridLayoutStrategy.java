@@ -4,6 +4,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.codetome.hexameter.core.api.CubeCoordinate;
 import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
 import rx.Observable;
 import rx.Subscriber;
 
@@ -40,4 +41,48 @@ public final class TriangularGridLayoutStrategy extends GridLayoutStrategy {
         final boolean result = gridHeight == gridWidth;
         return superResult && result;
     }
+
+    @Override
+    public boolean containsCoordinate(final GridData gridData, final int gridX, final int gridZ) {
+        final int gridSize = gridData.getGridHeight();
+        return gridZ >= 0 && gridZ < gridSize && gridX >= 0 && gridX < gridSize - gridZ;
+    }
+
+    /**
+     * Row <code>gridZ</code> holds <code>gridSize - gridZ</code> cells so the rows before it
+     * hold <code>gridZ * gridSize - gridZ * (gridZ - 1) / 2</code> cells.
+     */
+    @Override
+    public int indexOf(final GridData gridData, final int gridX, final int gridZ) {
+        if (!containsCoordinate(gridData, gridX, gridZ)) {
+            return -1;
+        }
+        return rowOffset(gridData.getGridHeight(), gridZ) + gridX;
+    }
+
+    @Override
+    public int getCellCount(final GridData gridData) {
+        final int gridSize = gridData.getGridHeight();
+        return gridSize * (gridSize + 1) / 2;
+    }
+
+    @Override
+    public CubeCoordinate coordinateAt(final GridData gridData, final int index) {
+        final int gridSize = gridData.getGridHeight();
+        int low = 0;
+        int high = gridSize - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (rowOffset(gridSize, mid) <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return fromCoordinates(index - rowOffset(gridSize, low), low);
+    }
+
+    private static int rowOffset(final int gridSize, final int gridZ) {
+        return gridZ * gridSize - gridZ * (gridZ - 1) / 2;
+    }
 }
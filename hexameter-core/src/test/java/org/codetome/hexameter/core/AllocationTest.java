@@ -0,0 +1,118 @@
+package org.codetome.hexameter.core;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.testutils.AllocationMeter;
+import org.junit.Before;
+import org.junit.Test;
+import rx.functions.Action0;
+import rx.functions.Action1;
+
+import static java.lang.String.format;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Guards the number of bytes the hot paths allocate so that a regression can't slip in unnoticed. The limits
+ * are upper bounds with some headroom over the measured values (which depend on the JIT).
+ */
+public class AllocationTest {
+
+    private static final int BIG_GRID_HEIGHT = 1000;
+    private static final int BIG_GRID_WIDTH = 1000;
+    private static final double BIG_GRID_RADIUS = 50;
+    private static final int ITERATIONS = 100000;
+    private static final int TRAVERSAL_WARM_UP_ITERATIONS = 3;
+    private static final int TRAVERSAL_ITERATIONS = 2;
+    /**
+     * The coordinate and the hexagon (the optional is usually scalar replaced).
+     */
+    private static final double MAX_BYTES_PER_CUBE_COORDINATE_LOOKUP = 64;
+    private static final double MAX_BYTES_PER_NEIGHBOR_LOOKUP = 96;
+    /**
+     * The estimated hexagon, its neighbors in a set and the points used to compare the distances.
+     */
+    private static final double MAX_BYTES_PER_PIXEL_LOOKUP = 1536;
+    private static final double MAX_BYTES_PER_TRAVERSED_CELL = 48;
+
+    private AllocationMeter meter;
+    private HexagonalGrid grid;
+    private Hexagon hexagon;
+    private long sink;
+
+    @Before
+    public void setUp() {
+        assumeTrue(AllocationMeter.isSupported());
+        meter = AllocationMeter.create();
+        grid = new HexagonalGridBuilder()
+                .setGridHeight(BIG_GRID_HEIGHT)
+                .setGridWidth(BIG_GRID_WIDTH)
+                .setRadius(BIG_GRID_RADIUS)
+                .build();
+        hexagon = grid.getByCubeCoordinate(fromCoordinates(100, 500)).get();
+    }
+
+    @Test
+    public void shouldNotAllocateMoreThanLimitWhenGettingByCubeCoordinate() {
+        final CubeCoordinate coordinate = hexagon.getCubeCoordinate();
+        final double bytes = meter.bytesPerOperation(new Action0() {
+            @Override
+            public void call() {
+                sink += grid.getByCubeCoordinate(coordinate).get().getGridX();
+            }
+        }, ITERATIONS);
+        report("getByCubeCoordinate", bytes);
+        assertThat(bytes).isLessThanOrEqualTo(MAX_BYTES_PER_CUBE_COORDINATE_LOOKUP);
+    }
+
+    @Test
+    public void shouldNotAllocateMoreThanLimitWhenGettingNeighborByIndex() {
+        final double bytes = meter.bytesPerOperation(new Action0() {
+            @Override
+            public void call() {
+                sink += grid.getNeighborByIndex(hexagon, (int) (sink & 3)).get().getGridX();
+            }
+        }, ITERATIONS);
+        report("getNeighborByIndex", bytes);
+        assertThat(bytes).isLessThanOrEqualTo(MAX_BYTES_PER_NEIGHBOR_LOOKUP);
+    }
+
+    @Test
+    public void shouldNotAllocateMoreThanLimitWhenGettingByPixelCoordinate() {
+        final double x = hexagon.getCenterX();
+        final double y = hexagon.getCenterY();
+        final double bytes = meter.bytesPerOperation(new Action0() {
+            @Override
+            public void call() {
+                sink += grid.getByPixelCoordinate(x, y).get().getGridX();
+            }
+        }, ITERATIONS);
+        report("getByPixelCoordinate", bytes);
+        assertThat(bytes).isLessThanOrEqualTo(MAX_BYTES_PER_PIXEL_LOOKUP);
+    }
+
+    @Test
+    public void shouldNotAllocateMoreThanLimitWhenTraversingBigGrid() {
+        final Action1<Hexagon> counter = new Action1<Hexagon>() {
+            @Override
+            public void call(Hexagon cell) {
+                sink += cell.getGridX();
+            }
+        };
+        final double bytes = meter.bytesPerOperation(new Action0() {
+            @Override
+            public void call() {
+                grid.getHexagons().forEach(counter);
+            }
+        }, TRAVERSAL_WARM_UP_ITERATIONS, TRAVERSAL_ITERATIONS) / (BIG_GRID_WIDTH * BIG_GRID_HEIGHT);
+        report("traversal (per cell)", bytes);
+        assertThat(bytes).isLessThanOrEqualTo(MAX_BYTES_PER_TRAVERSED_CELL);
+    }
+
+    private static void report(final String operation, final double bytes) {
+        System.out.println(format("%s allocated %.1f bytes per operation.", operation, bytes));
+    }
+}
@@ -1,12 +1,24 @@
 package org.codetome.hexameter.core;
 
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.DefaultSatelliteDataCodec;
 import org.codetome.hexameter.core.api.Hexagon;
 import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteJournal;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import rx.functions.Action1;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.String.format;
@@ -22,6 +34,12 @@ public class StressTest {
     private static final double BIG_GRID_RADIUS = 50;
     private static final long EXPECTED_MAXIMUM_GENERATION_TIME = 2000;
     private static final long EXPECTED_MAXIMUM_FETCH_TIME = 2000;
+    private static final int WRITE_WARMUP_ROUNDS = 3;
+    private static final int WRITE_MEASURED_ROUNDS = 5;
+    private static final int WRITER_THREADS = 4;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     private HexagonalGridBuilder hexagonalGridBuilder;
 
@@ -58,7 +76,92 @@ public class StressTest {
         assertThat(nanoToMs(end - start)).isLessThan(EXPECTED_MAXIMUM_FETCH_TIME);
     }
 
-    private long nanoToMs(long nanoTime) {
+    /**
+     * Compares setting the satellite data of every cell of a big grid with and without a journal. The rounds alternate
+     * between the two grids and the best round of each is compared so a GC pause or a slow fsync doesn't decide it.
+     * The overhead is only printed.
+     */
+    @Test
+    public void shouldJournalSatelliteDataOfBigGrids() throws Exception {
+        final Hexagon[] plainHexagons = toArray(hexagonalGridBuilder.build());
+        final HexagonalGrid journaledGrid = hexagonalGridBuilder.build();
+        final Hexagon[] journaledHexagons = toArray(journaledGrid);
+        final SatelliteData data = new DefaultSatelliteData();
+        final ExecutorService writers = Executors.newFixedThreadPool(WRITER_THREADS);
+        try (SatelliteJournal journal = hexagonalGridBuilder.buildJournalFor(journaledGrid,
+                temporaryFolder.getRoot().toPath(), new DefaultSatelliteDataCodec())) {
+            for (int i = 0; i < WRITE_WARMUP_ROUNDS; i++) {
+                setSatelliteData(plainHexagons, data, null);
+                setSatelliteData(journaledHexagons, data, null);
+                journal.flush();
+            }
+            long plain = Long.MAX_VALUE;
+            long journaled = Long.MAX_VALUE;
+            long concurrentPlain = Long.MAX_VALUE;
+            long concurrentJournaled = Long.MAX_VALUE;
+            for (int i = 0; i < WRITE_MEASURED_ROUNDS; i++) {
+                plain = Math.min(plain, setSatelliteData(plainHexagons, data, null));
+                journaled = Math.min(journaled, setSatelliteData(journaledHexagons, data, null));
+                journal.flush();
+                concurrentPlain = Math.min(concurrentPlain, setSatelliteData(plainHexagons, data, writers));
+                concurrentJournaled = Math.min(concurrentJournaled, setSatelliteData(journaledHexagons, data, writers));
+                journal.flush();
+            }
+            System.out.println(format("setSatelliteData of %d cells: %dms without journal, %dms with journal (%+.1f%%); "
+                            + "with %d threads: %dms without journal, %dms with journal (%+.1f%%).",
+                    plainHexagons.length, nanoToMs(plain), nanoToMs(journaled), overhead(plain, journaled) * 100,
+                    WRITER_THREADS, nanoToMs(concurrentPlain), nanoToMs(concurrentJournaled), overhead(concurrentPlain, concurrentJournaled) * 100));
+        } finally {
+            writers.shutdown();
+        }
+    }
+
+    private static Hexagon[] toArray(final HexagonalGrid grid) {
+        final List<Hexagon> result = new ArrayList<>();
+        for (final Hexagon hexagon : grid.getHexagons().toBlocking().toIterable()) {
+            result.add(hexagon);
+        }
+        return result.toArray(new Hexagon[result.size()]);
+    }
+
+    /**
+     * Sets the satellite data of every given cell on this thread or split between the threads of the given executor.
+     *
+     * @return elapsed nanoseconds
+     */
+    private static long setSatelliteData(final Hexagon[] hexagons, final SatelliteData data, final ExecutorService writers)
+            throws Exception {
+        final long start = System.nanoTime();
+        if (writers == null) {
+            for (final Hexagon hexagon : hexagons) {
+                hexagon.setSatelliteData(data);
+            }
+            return System.nanoTime() - start;
+        }
+        final List<Future<Void>> results = new ArrayList<>();
+        for (int i = 0; i < WRITER_THREADS; i++) {
+            final int first = i;
+            results.add(writers.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int j = first; j < hexagons.length; j += WRITER_THREADS) {
+                        hexagons[j].setSatelliteData(data);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (final Future<Void> result : results) {
+            result.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static double overhead(final long plain, final long journaled) {
+        return (double) (journaled - plain) / plain;
+    }
+
+    private static long nanoToMs(long nanoTime) {
         return nanoTime / 1000 / 1000;
     }
 }
@@ -6,9 +6,15 @@ import org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayoutStrate
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.BitSet;
+
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
 import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.MASK;
 import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
 import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRIANGULAR;
 
@@ -75,6 +81,27 @@ public class HexagonalGridBuilderTest {
         target.build();
     }
 
+    @Test(expected = HexagonalGridCreationException.class)
+    public void shouldFailBuildWhenGridMaskIsMissingForMaskLayout() {
+        target.setGridLayout(MASK);
+        target.build();
+    }
+
+    @Test(expected = HexagonalGridCreationException.class)
+    public void shouldFailBuildWhenGridMaskIsSetToNull() {
+        target.setGridLayout(MASK);
+        target.setGridMask(null);
+        target.build();
+    }
+
+    @Test(expected = HexagonalGridCreationException.class)
+    public void shouldFailBuildWhenSizeDoesNotMatchGridMask() {
+        target.setGridLayout(MASK);
+        target.setGridMask(HexagonalGridMask.fromBitSet(GRID_WIDTH, GRID_HEIGHT, new BitSet()));
+        target.setGridWidth(GRID_WIDTH + 1);
+        target.build();
+    }
+
     @Test
     public void shouldBuildCalculatorWhenBuildCalculatorIsCalled() {
         final HexagonalGridCalculator calc = target.buildCalculatorFor(null);
@@ -92,4 +119,38 @@ public class HexagonalGridBuilderTest {
         assertNotNull(grid);
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    public void shouldStartGridsWithCustomStorageWhenItIsFilledBeforeBuild() {
+        final CubeCoordinate coordinate = CubeCoordinate.fromCoordinates(1, 1);
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        target.getCustomStorage().put(coordinate, data);
+
+        final HexagonalGrid first = target.build();
+        final HexagonalGrid second = target.build();
+
+        assertSame(data, first.getByCubeCoordinate(coordinate).get().getSatelliteData().get());
+        assertSame(data, second.getByCubeCoordinate(coordinate).get().getSatelliteData().get());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void shouldNotShareStorageOfBuiltGridWhenGetCustomStorageIsCalled() {
+        final HexagonalGrid grid = target.build();
+        final CubeCoordinate coordinate = CubeCoordinate.fromCoordinates(1, 1);
+
+        grid.getByCubeCoordinate(coordinate).get().setSatelliteData(new DefaultSatelliteData());
+
+        assertTrue(target.getCustomStorage().isEmpty());
+        assertFalse(target.build().getByCubeCoordinate(coordinate).get().getSatelliteData().isPresent());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    @SuppressWarnings("deprecation")
+    public void shouldFailToWriteCustomStorageAfterAGridWasBuilt() {
+        target.build();
+
+        target.getCustomStorage().put(CubeCoordinate.fromCoordinates(1, 1), new DefaultSatelliteData());
+    }
+
 }
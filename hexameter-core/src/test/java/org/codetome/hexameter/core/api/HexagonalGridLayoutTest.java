@@ -1,6 +1,7 @@
 package org.codetome.hexameter.core.api;
 
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.HexagonalGridLayoutStrategy;
+import org.codetome.hexameter.core.internal.impl.layoutstrategy.MaskGridLayoutStrategy;
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.RectangularGridLayoutStrategy;
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.TrapezoidGridLayoutStrategy;
 import org.codetome.hexameter.core.internal.impl.layoutstrategy.TriangularGridLayoutStrategy;
@@ -10,6 +11,7 @@ import org.junit.Test;
 
 import static junit.framework.Assert.assertTrue;
 import static org.codetome.hexameter.core.api.HexagonalGridLayout.HEXAGONAL;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.MASK;
 import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
 import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRAPEZOID;
 import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRIANGULAR;
@@ -42,4 +44,9 @@ public class HexagonalGridLayoutTest extends EnumTest {
         assertTrue(TRIANGULAR.getGridLayoutStrategy() instanceof TriangularGridLayoutStrategy);
     }
 
+    @Test
+    public void shouldBeMaskGridLayoutWhenGetGridLayoutStrategyFromMaskIsCalled() {
+        assertTrue(MASK.getGridLayoutStrategy() instanceof MaskGridLayoutStrategy);
+    }
+
 }
@@ -0,0 +1,95 @@
+package org.codetome.hexameter.core.api;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+
+public class HexagonalGridMaskTest {
+
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 20;
+
+    private HexagonalGridMask target;
+
+    @Before
+    public void setUp() {
+        final BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(63);
+        bits.set(64);
+        bits.set(WIDTH * 15 + 3);
+        bits.set(WIDTH * HEIGHT - 1);
+        bits.set(WIDTH * HEIGHT + 5);
+        target = HexagonalGridMask.fromBitSet(WIDTH, HEIGHT, bits);
+    }
+
+    @Test
+    public void shouldIgnoreBitsOutsideOfTheParallelogramWhenCreated() {
+        assertEquals(5, target.getCellCount());
+    }
+
+    @Test
+    public void shouldContainPresentCellsWhenContainsIsCalled() {
+        assertTrue(target.contains(fromCoordinates(0, 0)));
+        assertTrue(target.contains(fromCoordinates(3, 6)));
+        assertTrue(target.contains(fromCoordinates(4, 6)));
+        assertTrue(target.contains(fromCoordinates(3, 15)));
+        assertTrue(target.contains(fromCoordinates(WIDTH - 1, HEIGHT - 1)));
+    }
+
+    @Test
+    public void shouldNotContainMissingCellsWhenContainsIsCalled() {
+        assertFalse(target.contains(fromCoordinates(1, 0)));
+        assertFalse(target.contains(fromCoordinates(-1, 0)));
+        assertFalse(target.contains(fromCoordinates(0, HEIGHT)));
+        assertFalse(target.contains(fromCoordinates(WIDTH, 0)));
+    }
+
+    @Test
+    public void shouldReturnDenseIndexWhenIndexOfIsCalled() {
+        assertEquals(0, target.indexOf(fromCoordinates(0, 0)));
+        assertEquals(1, target.indexOf(fromCoordinates(3, 6)));
+        assertEquals(2, target.indexOf(fromCoordinates(4, 6)));
+        assertEquals(3, target.indexOf(fromCoordinates(3, 15)));
+        assertEquals(4, target.indexOf(fromCoordinates(WIDTH - 1, HEIGHT - 1)));
+        assertEquals(-1, target.indexOf(fromCoordinates(1, 0)));
+    }
+
+    @Test
+    public void shouldBeInverseOfIndexOfWhenCoordinateAtIsCalled() {
+        for (int i = 0; i < target.getCellCount(); i++) {
+            assertEquals(i, target.indexOf(target.coordinateAt(i)));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailWhenCoordinateAtIsCalledWithTooBigIndex() {
+        target.coordinateAt(target.getCellCount());
+    }
+
+    @Test
+    public void shouldIterateInDenseIndexOrderWhenCoordinateSetIsIterated() {
+        final Set<CubeCoordinate> coordinates = target.asCoordinateSet();
+        final List<CubeCoordinate> actual = new ArrayList<>(coordinates);
+        assertEquals(target.getCellCount(), coordinates.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertEquals(target.coordinateAt(i), actual.get(i));
+        }
+        assertTrue(coordinates.contains(fromCoordinates(3, 15)));
+        assertFalse(coordinates.contains(fromCoordinates(2, 15)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenCreatedWithZeroWidth() {
+        HexagonalGridMask.fromBitSet(0, HEIGHT, new BitSet());
+    }
+}
@@ -0,0 +1,146 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.DefaultSatelliteDataCodec;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridMask;
+import org.codetome.hexameter.core.api.HexagonalGridSerializer;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.BitSet;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.MASK;
+
+public class BinaryHexagonalGridSerializerTest {
+
+    private static final int RADIUS = 30;
+    private static final int GRID_WIDTH = 100;
+    private static final int GRID_HEIGHT = 100;
+    private static final double COST = 2.5;
+    private static final String NAME_KEY = "name";
+
+    private HexagonalGridBuilder builder;
+    private HexagonalGridSerializer target;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_WIDTH).setGridHeight(GRID_HEIGHT).setRadius(RADIUS).setOrientation(FLAT_TOP);
+        target = builder.buildSerializer(new DefaultSatelliteDataCodec() {
+            @Override
+            public void encodeCustomData(final SatelliteData satelliteData, final DataOutput output) throws IOException {
+                output.writeUTF(satelliteData.<String>getCustomData(NAME_KEY).orElse(""));
+            }
+
+            @Override
+            public void decodeCustomData(final DataInput input, final SatelliteData satelliteData) throws IOException {
+                satelliteData.addCustomData(NAME_KEY, input.readUTF());
+            }
+        });
+    }
+
+    @Test
+    public void shouldRestoreGridAndSatelliteDataWhenWrittenGridIsRead() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        data.setPassable(true);
+        data.setMovementCost(COST);
+        data.addCustomData(NAME_KEY, "forest");
+        grid.getByCubeCoordinate(fromCoordinates(7, 3)).get().setSatelliteData(data);
+        grid.getByCubeCoordinate(fromCoordinates(0, 0)).get().setSatelliteData(new DefaultSatelliteData());
+
+        final HexagonalGrid result = target.read(Channels.newChannel(new ByteArrayInputStream(write(grid))));
+
+        assertEquals(grid.getGridData().getOrientation(), result.getGridData().getOrientation());
+        assertEquals(grid.getGridData().getGridLayout(), result.getGridData().getGridLayout());
+        assertEquals(GRID_WIDTH, result.getGridData().getGridWidth());
+        final SatelliteData restored = result.getByCubeCoordinate(fromCoordinates(7, 3)).get().getSatelliteData().get();
+        assertTrue(restored.isPassable());
+        assertEquals(COST, restored.getMovementCost());
+        assertEquals("forest", restored.<String>getCustomData(NAME_KEY).get());
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(0, 0)).get().getSatelliteData().get().isPassable());
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(1, 0)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldSkipOffGridSatelliteDataWhenWrittenGridIsRead() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        data.setMovementCost(COST);
+        grid.getByCubeCoordinate(fromCoordinates(7, 3)).get().setSatelliteData(data);
+        grid.getByCubeCoordinate(fromCoordinates(2, 1)).get().setSatelliteData(data);
+        ((HexagonalGridImpl) grid).getHexagonStorage().put(fromCoordinates(GRID_WIDTH * 2, GRID_HEIGHT * 2), data);
+
+        final HexagonalGrid result = target.read(Channels.newChannel(new ByteArrayInputStream(write(grid))));
+
+        assertEquals(COST, result.getByCubeCoordinate(fromCoordinates(7, 3)).get().getSatelliteData().get().getMovementCost());
+        assertEquals(COST, result.getByCubeCoordinate(fromCoordinates(2, 1)).get().getSatelliteData().get().getMovementCost());
+        assertEquals(2, ((HexagonalGridImpl) result).getHexagonStorage().size());
+    }
+
+    @Test
+    public void shouldReadNoCellsWhenOnlyOffGridSatelliteDataIsWritten() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        ((HexagonalGridImpl) grid).getHexagonStorage().put(fromCoordinates(-1, -1), new DefaultSatelliteData());
+        final ByteArrayInputStream bytes = new ByteArrayInputStream(write(grid));
+
+        final HexagonalGrid result = target.read(Channels.newChannel(bytes));
+
+        assertTrue(((HexagonalGridImpl) result).getHexagonStorage().isEmpty());
+        assertEquals(0, bytes.available());
+    }
+
+    @Test
+    public void shouldRestoreMaskWhenWrittenMaskGridIsRead() throws IOException {
+        final BitSet bits = new BitSet();
+        bits.set(3);
+        bits.set(GRID_WIDTH * GRID_HEIGHT - 1);
+        final HexagonalGrid grid = builder.setGridLayout(MASK).setGridMask(HexagonalGridMask.fromBitSet(GRID_WIDTH, GRID_HEIGHT, bits)).build();
+
+        final HexagonalGrid result = target.read(Channels.newChannel(new ByteArrayInputStream(write(grid))));
+
+        assertEquals(2, result.getHexagons().count().toBlocking().single().intValue());
+        assertTrue(result.containsCubeCoordinate(fromCoordinates(3, 0)));
+    }
+
+    @Test
+    public void shouldWriteFewBytesPerCellWhenSatelliteDataIsSimple() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        for (final Hexagon hexagon : grid.getHexagons().toBlocking().toIterable()) {
+            hexagon.setSatelliteData(new DefaultSatelliteData());
+        }
+        target = builder.buildSerializer(new DefaultSatelliteDataCodec());
+        // one byte for the index distance and one for the flags
+        assertTrue(write(grid).length < GRID_WIDTH * GRID_HEIGHT * 2 + 64);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailWhenReadDataIsNotAGrid() throws IOException {
+        target.read(Channels.newChannel(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenWrittenGridIsNotBounded() throws IOException {
+        write(builder.buildSparse());
+    }
+
+    private byte[] write(final HexagonalGrid grid) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        target.write(grid, Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,177 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.DefaultSatelliteDataCodec;
+import org.codetome.hexameter.core.api.GridChangeTracker;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataCodec;
+import org.codetome.hexameter.core.api.exception.HexagonalGridCreationException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+
+public class BitSetGridChangeTrackerTest {
+
+    private static final int RADIUS = 30;
+    private static final int GRID_SIZE = 100;
+    private static final double COST = 3.5;
+
+    private HexagonalGridBuilder builder;
+    private SatelliteDataCodec codec;
+    private HexagonalGrid grid;
+    private GridChangeTracker target;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE).setRadius(RADIUS).setGridLayout(RECTANGULAR);
+        codec = new DefaultSatelliteDataCodec();
+        grid = builder.build();
+        target = builder.buildChangeTrackerFor(grid);
+    }
+
+    @Test
+    public void shouldTrackChangedCellsWhenSatelliteDataIsSetOrCleared() {
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(createData());
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().clearSatelliteData();
+
+        assertEquals(2, target.getDirtyCellCount());
+        assertTrue(target.isDirty(fromCoordinates(1, 1)));
+        assertTrue(target.isDirty(fromCoordinates(2, 2)));
+        assertFalse(target.isDirty(fromCoordinates(3, 3)));
+    }
+
+    @Test
+    public void shouldForgetChangesWhenMarked() {
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        target.mark();
+
+        assertEquals(0, target.getDirtyCellCount());
+        assertFalse(target.isDirty(fromCoordinates(1, 1)));
+    }
+
+    @Test
+    public void shouldApplyChangesWhenDeltaIsExported() throws IOException {
+        final HexagonalGrid replica = builder.build();
+        replica.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(createData());
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(createData());
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().clearSatelliteData();
+
+        final int changed = builder.applyDelta(replica, Channels.newChannel(new ByteArrayInputStream(exportDelta())), codec);
+
+        assertEquals(2, changed);
+        assertEquals(0, target.getDirtyCellCount());
+        final SatelliteData restored = replica.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().get();
+        assertTrue(restored.isPassable());
+        assertEquals(COST, restored.getMovementCost());
+        assertFalse(replica.getByCubeCoordinate(fromCoordinates(2, 2)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldClearReplicaWhenGridWasCleared() throws IOException {
+        final HexagonalGrid replica = builder.build();
+        replica.getByCubeCoordinate(fromCoordinates(3, 3)).get().setSatelliteData(createData());
+        grid.clearSatelliteData();
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+
+        builder.applyDelta(replica, Channels.newChannel(new ByteArrayInputStream(exportDelta())), codec);
+
+        assertFalse(replica.getByCubeCoordinate(fromCoordinates(3, 3)).get().getSatelliteData().isPresent());
+        assertTrue(replica.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldKeepChangesWhenExportingDeltaFails() throws IOException {
+        final HexagonalGrid replica = builder.build();
+        replica.getByCubeCoordinate(fromCoordinates(3, 3)).get().setSatelliteData(createData());
+        grid.clearSatelliteData();
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        try {
+            target.exportDelta(Channels.newChannel(new FailingOutputStream()), codec);
+            fail("Export should fail.");
+        } catch (final IOException e) {
+            assertEquals(FailingOutputStream.FAILURE, e.getMessage());
+        }
+
+        assertTrue(target.isDirty(fromCoordinates(1, 1)));
+        builder.applyDelta(replica, Channels.newChannel(new ByteArrayInputStream(exportDelta())), codec);
+
+        assertFalse(replica.getByCubeCoordinate(fromCoordinates(3, 3)).get().getSatelliteData().isPresent());
+        assertTrue(replica.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldExportSmallDeltaWhenFewCellsChanged() throws IOException {
+        grid.getByCubeCoordinate(fromCoordinates(50, 50)).get().setSatelliteData(createData());
+
+        assertTrue(exportDelta().length < 32);
+    }
+
+    @Test
+    public void shouldStopTrackingWhenReleased() {
+        target.release();
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+
+        assertEquals(0, target.getDirtyCellCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailWhenDeltaDoesNotFitGrid() throws IOException {
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        final HexagonalGrid other = new HexagonalGridBuilder().setGridWidth(2).setGridHeight(2).setRadius(RADIUS).build();
+
+        builder.applyDelta(other, Channels.newChannel(new ByteArrayInputStream(exportDelta())), codec);
+    }
+
+    @Test(expected = HexagonalGridCreationException.class)
+    public void shouldFailWhenGridIsUnbounded() {
+        builder.buildChangeTrackerFor(builder.buildSparse());
+    }
+
+    private byte[] exportDelta() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        target.exportDelta(Channels.newChannel(bytes), codec);
+        return bytes.toByteArray();
+    }
+
+    private static SatelliteData createData() {
+        final DefaultSatelliteData result = new DefaultSatelliteData();
+        result.setPassable(true);
+        result.setMovementCost(COST);
+        return result;
+    }
+
+    /**
+     * Stream which fails on the first write.
+     */
+    private static final class FailingOutputStream extends OutputStream {
+
+        static final String FAILURE = "Connection reset.";
+
+        @Override
+        public void write(final int b) throws IOException {
+            throw new IOException(FAILURE);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            throw new IOException(FAILURE);
+        }
+    }
+}
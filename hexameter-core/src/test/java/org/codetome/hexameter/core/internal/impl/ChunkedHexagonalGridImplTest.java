@@ -0,0 +1,225 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.ChunkGenerator;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridCalculator;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.exception.HexagonalGridCreationException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+
+public class ChunkedHexagonalGridImplTest {
+
+    private static final int CHUNK_SIZE = 4;
+    private static final int MAX_LOADED_CHUNKS = 2;
+
+    private final AtomicInteger generatedChunks = new AtomicInteger();
+    private final Map<CubeCoordinate, SatelliteData> savedData = new HashMap<>();
+    private HexagonalGridBuilder builder;
+    private ChunkedHexagonalGridImpl target;
+
+    @Before
+    public void setUp() {
+        builder = new HexagonalGridBuilder()
+                .setRadius(30)
+                .setChunkSize(CHUNK_SIZE)
+                .setMaxLoadedChunks(MAX_LOADED_CHUNKS)
+                .setChunkGenerator(new ChunkGenerator() {
+                    @Override
+                    public void generateChunk(int chunkX, int chunkZ, Collection<Hexagon> hexagons) {
+                        generatedChunks.incrementAndGet();
+                        for (final Hexagon hexagon : hexagons) {
+                            final DefaultSatelliteData data = new DefaultSatelliteData();
+                            data.setPassable(true);
+                            data.setMovementCost(chunkX * 100 + chunkZ);
+                            hexagon.setSatelliteData(data);
+                        }
+                        for (final Hexagon hexagon : hexagons) {
+                            if (savedData.containsKey(hexagon.getCubeCoordinate())) {
+                                hexagon.setSatelliteData(savedData.get(hexagon.getCubeCoordinate()));
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void evictChunk(int chunkX, int chunkZ, Collection<Hexagon> hexagons) {
+                        for (final Hexagon hexagon : hexagons) {
+                            final SatelliteData data = hexagon.<SatelliteData>getSatelliteData().get();
+                            if (data.getMovementCost() != chunkX * 100 + chunkZ) {
+                                savedData.put(hexagon.getCubeCoordinate(), data);
+                            }
+                        }
+                    }
+                });
+        target = (ChunkedHexagonalGridImpl) builder.buildChunked();
+    }
+
+    @Test
+    public void shouldContainAnyCoordinateWhenContainsCubeCoordinateIsCalled() {
+        assertTrue(target.containsCubeCoordinate(fromCoordinates(-1000000, 1000000)));
+        assertEquals(0, target.getLoadedChunkCount());
+    }
+
+    @Test
+    public void shouldGenerateChunkOnDemandWhenSatelliteDataIsAccessed() {
+        final Hexagon hexagon = target.getByCubeCoordinate(fromCoordinates(-1, 5)).get();
+        final SatelliteData data = hexagon.getSatelliteData().get();
+        assertEquals(-100 + 1, data.getMovementCost(), 0);
+        assertEquals(1, generatedChunks.get());
+        assertEquals(1, target.getLoadedChunkCount());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedChunkWhenTooManyChunksAreLoaded() {
+        final Hexagon first = target.getByCubeCoordinate(fromCoordinates(0, 0)).get();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        data.setMovementCost(42);
+        first.setSatelliteData(data);
+        target.getByCubeCoordinate(fromCoordinates(CHUNK_SIZE, 0)).get().getSatelliteData();
+        first.getSatelliteData();
+        target.getByCubeCoordinate(fromCoordinates(0, CHUNK_SIZE)).get().getSatelliteData();
+
+        assertEquals(MAX_LOADED_CHUNKS, target.getLoadedChunkCount());
+        assertEquals(42, first.<SatelliteData>getSatelliteData().get().getMovementCost(), 0);
+        assertEquals(3, generatedChunks.get());
+    }
+
+    @Test
+    public void shouldHandChangedDataToGeneratorWhenChunkIsEvicted() {
+        final Hexagon first = target.getByCubeCoordinate(fromCoordinates(1, 2)).get();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        data.setMovementCost(42);
+        first.setSatelliteData(data);
+        target.getByCubeCoordinate(fromCoordinates(CHUNK_SIZE, 0)).get().getSatelliteData();
+        target.getByCubeCoordinate(fromCoordinates(0, CHUNK_SIZE)).get().getSatelliteData();
+
+        assertEquals(1, savedData.size());
+        assertEquals(42, first.<SatelliteData>getSatelliteData().get().getMovementCost(), 0);
+        assertEquals(4, generatedChunks.get());
+        assertEquals(MAX_LOADED_CHUNKS, target.getLoadedChunkCount());
+    }
+
+    @Test(timeout = 10000)
+    public void shouldReadLoadedChunkWhileAnotherChunkIsGenerated() throws InterruptedException {
+        final CountDownLatch generating = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final HexagonalGrid grid = builder.setChunkGenerator(new ChunkGenerator() {
+            @Override
+            public void generateChunk(int chunkX, int chunkZ, Collection<Hexagon> hexagons) {
+                if (chunkX == 1) {
+                    generating.countDown();
+                    awaitQuietly(proceed);
+                }
+                for (final Hexagon hexagon : hexagons) {
+                    hexagon.setSatelliteData(new DefaultSatelliteData());
+                }
+            }
+
+            @Override
+            public void evictChunk(int chunkX, int chunkZ, Collection<Hexagon> hexagons) {
+            }
+        }).buildChunked();
+        final Hexagon loaded = grid.getByCubeCoordinate(fromCoordinates(0, 0)).get();
+        loaded.getSatelliteData();
+        final Hexagon generated = grid.getByCubeCoordinate(fromCoordinates(CHUNK_SIZE, 0)).get();
+        final Thread generator = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                generated.getSatelliteData();
+            }
+        });
+        generator.start();
+        generating.await();
+
+        final boolean loadedPresent = loaded.getSatelliteData().isPresent();
+        proceed.countDown();
+        generator.join();
+
+        assertTrue(loadedPresent);
+        assertTrue(generated.getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldGenerateChunkOnceWhenItIsAccessedConcurrently() throws InterruptedException {
+        final Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            final int offset = i;
+            readers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    target.getByCubeCoordinate(fromCoordinates(offset, offset)).get().getSatelliteData();
+                }
+            });
+            readers[i].start();
+        }
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(1, generatedChunks.get());
+        assertEquals(1, target.getLoadedChunkCount());
+    }
+
+    @Test
+    public void shouldReturnHexagonsOfLoadedChunksWhenGetHexagonsIsCalled() {
+        target.getByCubeCoordinate(fromCoordinates(0, 0)).get().getSatelliteData();
+        target.getByCubeCoordinate(fromCoordinates(-1, -1)).get().getSatelliteData();
+        final List<Hexagon> hexagons = target.getHexagons().toList().toBlocking().single();
+        assertEquals(2 * CHUNK_SIZE * CHUNK_SIZE, hexagons.size());
+    }
+
+    @Test
+    public void shouldWorkAcrossChunkBoundariesWhenCalculatorIsUsed() {
+        final HexagonalGridCalculator calculator = builder.buildCalculatorFor(target);
+        final Hexagon from = target.getByCubeCoordinate(fromCoordinates(-2, -2)).get();
+        final Hexagon to = target.getByCubeCoordinate(fromCoordinates(CHUNK_SIZE + 2, CHUNK_SIZE + 2)).get();
+        assertEquals(2 * (CHUNK_SIZE + 4) + 1, calculator.drawLine(from, to).size());
+        assertEquals(7, calculator.calculateMovementRangeFrom(target.getByCubeCoordinate(fromCoordinates(0, 0)).get(), 1).size());
+        assertEquals(6, target.getNeighborsOf(from).size());
+    }
+
+    @Test
+    public void shouldClearLoadedChunksWhenClearSatelliteDataIsCalled() {
+        final Hexagon hexagon = target.getByCubeCoordinate(fromCoordinates(1, 1)).get();
+        hexagon.getSatelliteData();
+        target.clearSatelliteData();
+        assertFalse(hexagon.getSatelliteData().isPresent());
+        assertEquals(1, generatedChunks.get());
+    }
+
+    @Test(expected = HexagonalGridCreationException.class)
+    public void shouldFailBuildChunkedWhenChunkGeneratorIsMissing() {
+        builder.setChunkGenerator(null);
+        builder.buildChunked();
+    }
+
+    @Test
+    public void shouldFindHexagonWhenGetByPixelCoordinateIsCalled() {
+        final HexagonalGrid grid = target;
+        assertTrue(grid.getByPixelCoordinate(-1000, -1000).isPresent());
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
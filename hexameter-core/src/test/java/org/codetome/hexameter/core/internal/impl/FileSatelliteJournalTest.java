@@ -0,0 +1,392 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.DefaultSatelliteDataCodec;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataCodec;
+import org.codetome.hexameter.core.api.SatelliteJournal;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+
+public class FileSatelliteJournalTest {
+
+    private static final int RADIUS = 30;
+    private static final int GRID_SIZE = 20;
+    private static final double COST = 2.5;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HexagonalGridBuilder builder;
+    private SatelliteDataCodec codec;
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE).setRadius(RADIUS).setGridLayout(RECTANGULAR);
+        codec = new DefaultSatelliteDataCodec();
+        directory = temporaryFolder.getRoot().toPath().resolve("journal");
+    }
+
+    @Test
+    public void shouldRestoreChangesWhenJournalIsReplayed() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final SatelliteJournal target = builder.buildJournalFor(grid, directory, codec);
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(createData());
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().clearSatelliteData();
+        target.close();
+
+        final HexagonalGrid result = builder.build();
+        final int replayed = builder.replayJournal(result, directory, codec);
+
+        assertEquals(3, replayed);
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().isPresent());
+        final SatelliteData restored = result.getByCubeCoordinate(fromCoordinates(2, 2)).get().getSatelliteData().get();
+        assertTrue(restored.isPassable());
+        assertEquals(COST, restored.getMovementCost());
+    }
+
+    @Test
+    public void shouldReplayClearingAllDataWhenGridWasCleared() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final SatelliteJournal target = builder.buildJournalFor(grid, directory, codec);
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        target.flush();
+        grid.clearSatelliteData();
+        target.close();
+
+        final HexagonalGrid result = builder.build();
+        result.getByCubeCoordinate(fromCoordinates(3, 3)).get().setSatelliteData(createData());
+        builder.replayJournal(result, directory, codec);
+
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().isPresent());
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(3, 3)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldSkipTornBatchWhenJournalEndsAbruptly() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final SatelliteJournal target = builder.buildJournalFor(grid, directory, codec);
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        target.flush();
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(createData());
+        target.close();
+        final Path segment = fetchSegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 1);
+        }
+
+        final HexagonalGrid result = builder.build();
+        final int replayed = builder.replayJournal(result, directory, codec);
+
+        assertEquals(1, replayed);
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().isPresent());
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(2, 2)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldOnlyReplayNewSegmentsWhenOldSegmentsAreDeleted() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final SatelliteJournal target = builder.buildJournalFor(grid, directory, codec);
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        final long segment = target.rollOver();
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(createData());
+        target.deleteSegmentsBefore(segment);
+        target.close();
+
+        final HexagonalGrid result = builder.build();
+        final int replayed = builder.replayJournal(result, directory, codec);
+
+        assertEquals(1, replayed);
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().isPresent());
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(2, 2)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldStopJournalingWhenJournalIsClosed() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        builder.buildJournalFor(grid, directory, codec).close();
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+
+        assertEquals(0, builder.replayJournal(builder.build(), directory, codec));
+    }
+
+    @Test
+    public void shouldWriteRecordsAgainWhenCommitFailed() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final FileSatelliteJournal target = (FileSatelliteJournal) builder.buildJournalFor(grid, directory, codec);
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        target.flush();
+        final FailingFileChannel failingChannel = openFailingChannel(false);
+        target.replaceChannel(failingChannel);
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(createData());
+        assertFlushFails(target);
+        grid.getByCubeCoordinate(fromCoordinates(3, 3)).get().setSatelliteData(createData());
+        target.close();
+
+        final HexagonalGrid result = builder.build();
+        final int replayed = builder.replayJournal(result, directory, codec);
+
+        assertEquals(3, replayed);
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(2, 2)).get().getSatelliteData().isPresent());
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(3, 3)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldContinueInNewSegmentWhenFailedBatchCantBeTruncated() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final FileSatelliteJournal target = (FileSatelliteJournal) builder.buildJournalFor(grid, directory, codec);
+        target.replaceChannel(openFailingChannel(true));
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        assertFlushFails(target);
+        grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(createData());
+        target.close();
+
+        final HexagonalGrid result = builder.build();
+        final int replayed = builder.replayJournal(result, directory, codec);
+
+        assertEquals(2, replayed);
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().isPresent());
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(2, 2)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldReplayLastValueWhenCellIsWrittenConcurrently() throws Exception {
+        final HexagonalGrid grid = builder.build();
+        final SatelliteJournal target = builder.buildJournalFor(grid, directory, codec);
+        final Hexagon hexagon = grid.getByCubeCoordinate(fromCoordinates(1, 1)).get();
+        final Thread[] writers = new Thread[4];
+        for (int i = 0; i < writers.length; i++) {
+            final int writer = i;
+            writers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        final DefaultSatelliteData data = new DefaultSatelliteData();
+                        data.setMovementCost(writer * 1000 + j);
+                        hexagon.setSatelliteData(data);
+                    }
+                }
+            });
+            writers[i].start();
+        }
+        for (final Thread writer : writers) {
+            writer.join();
+        }
+        target.close();
+
+        final HexagonalGrid result = builder.build();
+        builder.replayJournal(result, directory, codec);
+
+        assertEquals(hexagon.getSatelliteData().get().getMovementCost(),
+                result.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().get().getMovementCost());
+    }
+
+    @Test
+    public void shouldLeaveOutRecordWhenCodecFails() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final SatelliteJournal target = builder.buildJournalFor(grid, directory, new FailingSatelliteDataCodec());
+        grid.getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(createData());
+        try {
+            grid.getByCubeCoordinate(fromCoordinates(2, 2)).get().setSatelliteData(new DefaultSatelliteData());
+            fail("Journaling should fail.");
+        } catch (final IllegalStateException e) {
+            assertEquals(FailingSatelliteDataCodec.FAILURE, e.getCause().getMessage());
+        }
+        grid.getByCubeCoordinate(fromCoordinates(3, 3)).get().setSatelliteData(createData());
+        target.close();
+
+        final HexagonalGrid result = builder.build();
+        final int replayed = builder.replayJournal(result, directory, codec);
+
+        assertEquals(2, replayed);
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(1, 1)).get().getSatelliteData().isPresent());
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(2, 2)).get().getSatelliteData().isPresent());
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(3, 3)).get().getSatelliteData().isPresent());
+    }
+
+    private static void assertFlushFails(final SatelliteJournal journal) {
+        try {
+            journal.flush();
+            fail("Flush should fail.");
+        } catch (final IOException e) {
+            assertEquals(FailingFileChannel.FAILURE, e.getMessage());
+        }
+    }
+
+    private FailingFileChannel openFailingChannel(final boolean failTruncate) throws IOException {
+        final FileChannel channel = FileChannel.open(fetchSegment(), StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return new FailingFileChannel(channel, failTruncate);
+    }
+
+    private Path fetchSegment() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            return files.iterator().next();
+        }
+    }
+
+    private static SatelliteData createData() {
+        final DefaultSatelliteData result = new DefaultSatelliteData();
+        result.setPassable(true);
+        result.setMovementCost(COST);
+        return result;
+    }
+
+    /**
+     * Codec which fails after writing a part of the custom data of impassable cells.
+     */
+    private static final class FailingSatelliteDataCodec extends DefaultSatelliteDataCodec {
+
+        static final String FAILURE = "Can't encode.";
+
+        @Override
+        public void encodeCustomData(final SatelliteData satelliteData, final DataOutput output) throws IOException {
+            if (!satelliteData.isPassable()) {
+                output.writeInt(0);
+                throw new IOException(FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Channel which writes only a part of the first batch and then fails.
+     */
+    private static final class FailingFileChannel extends FileChannel {
+
+        static final String FAILURE = "Disk is full.";
+
+        private final FileChannel delegate;
+        private final boolean failTruncate;
+        private boolean failed;
+
+        FailingFileChannel(final FileChannel delegate, final boolean failTruncate) {
+            this.delegate = delegate;
+            this.failTruncate = failTruncate;
+        }
+
+        @Override
+        public int write(final ByteBuffer source) throws IOException {
+            if (failed) {
+                return delegate.write(source);
+            }
+            failed = true;
+            final ByteBuffer part = source.duplicate();
+            part.limit(part.position() + part.remaining() / 2);
+            source.position(part.limit());
+            delegate.write(part);
+            throw new IOException(FAILURE);
+        }
+
+        @Override
+        public FileChannel truncate(final long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("Can't truncate.");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(final long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public void force(final boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public int read(final ByteBuffer destination) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long read(final ByteBuffer[] destinations, final int offset, final int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long write(final ByteBuffer[] sources, final int offset, final int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferTo(final long position, final long count, final WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(final ReadableByteChannel source, final long position, final long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(final ByteBuffer destination, final long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(final ByteBuffer source, final long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(final MapMode mode, final long position, final long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(final long position, final long size, final boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(final long position, final long size, final boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.GridMetrics;
+import org.codetome.hexameter.core.api.GridMetricsRegistry;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridCalculator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.GridOperation.BUILD;
+import static org.codetome.hexameter.core.api.GridOperation.LINE;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+import static org.junit.Assume.assumeTrue;
+
+public class FlightRecorderGridMetricsTest {
+
+    private GridMetricsRegistry registry;
+    private HexagonalGridBuilder builder;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new HexagonalGridBuilder().setGridHeight(10).setGridWidth(10).setRadius(10);
+        registry = builder.buildMetricsRegistry();
+        builder.setMetrics(registry);
+    }
+
+    @Test
+    public void shouldNotWrapMetricsWhenEventsAreDisabled() {
+        assertSame(registry, builder.getMetrics());
+    }
+
+    @Test
+    public void shouldReturnDelegateWhenFlightRecorderIsNotAvailable() {
+        assumeTrue(!FlightRecorderGridMetrics.isAvailable());
+
+        assertSame(registry, FlightRecorderGridMetrics.wrap(registry, RECTANGULAR, 10, 10, 1));
+    }
+
+    @Test
+    public void shouldReuseWrapperUntilItsParametersChange() {
+        assumeTrue(FlightRecorderGridMetrics.isAvailable());
+        builder.setFlightRecorderEvents(true);
+        final GridMetrics first = builder.getMetrics();
+
+        assertSame(first, builder.getMetrics());
+        builder.setGridWidth(20);
+        assertNotSame(first, builder.getMetrics());
+    }
+
+    @Test
+    public void shouldPassCallsToDelegateWhenWrapped() {
+        final GridMetrics target = FlightRecorderGridMetrics.wrap(registry, RECTANGULAR, 10, 10, 1);
+
+        target.record(LINE, 100, 3);
+
+        assertTrue(target.isEnabled());
+        assertEquals(1, registry.getCallCount(LINE));
+        assertEquals(3, registry.getCellsVisited(LINE));
+    }
+
+    @Test
+    public void shouldEmitEventsForBuildsAndExpensiveOperationsWhenRecording() throws Exception {
+        assumeTrue(FlightRecorderGridMetrics.isAvailable());
+        builder.setFlightRecorderEvents(true).setFlightRecorderCostThreshold(5);
+
+        final Object recording = Class.forName("jdk.jfr.Recording").newInstance();
+        recording.getClass().getMethod("enable", String.class).invoke(recording, FlightRecorderGridMetrics.EVENT_NAME);
+        recording.getClass().getMethod("start").invoke(recording);
+        final HexagonalGrid grid = builder.build();
+        final HexagonalGridCalculator calculator = builder.buildCalculatorFor(grid);
+        final Hexagon from = grid.getByCubeCoordinate(fromCoordinates(0, 5)).get();
+        calculator.drawLine(from, grid.getByCubeCoordinate(fromCoordinates(1, 5)).get());
+        calculator.drawLine(from, grid.getByCubeCoordinate(fromCoordinates(6, 5)).get());
+        recording.getClass().getMethod("stop").invoke(recording);
+        final Path file = File.createTempFile("hexameter", ".jfr").toPath();
+        try {
+            recording.getClass().getMethod("dump", Path.class).invoke(recording, file);
+            final List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class).invoke(null, file);
+            final List<String> operations = new ArrayList<>();
+            for (final Object event : events) {
+                operations.add((String) event.getClass().getMethod("getString", String.class).invoke(event, "operation"));
+            }
+
+            assertEquals(2, operations.size());
+            assertEquals(BUILD.name(), operations.get(0));
+            assertEquals(LINE.name(), operations.get(1));
+            assertEquals(2, registry.getCallCount(LINE));
+        } finally {
+            recording.getClass().getMethod("close").invoke(recording);
+            Files.deleteIfExists(file);
+        }
+    }
+}
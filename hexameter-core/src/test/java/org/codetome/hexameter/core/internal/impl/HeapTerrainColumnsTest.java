@@ -0,0 +1,94 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.TerrainColumns;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.HEXAGONAL;
+
+public class HeapTerrainColumnsTest {
+
+    private static final int RADIUS = 30;
+    private static final int GRID_SIZE = 9;
+    private static final double COST = 3.5;
+
+    private TerrainColumns target;
+
+    @Before
+    public void setUp() throws Exception {
+        final HexagonalGridBuilder builder = new HexagonalGridBuilder().setGridHeight(GRID_SIZE).setGridWidth(GRID_SIZE).setRadius(RADIUS).setGridLayout(HEXAGONAL);
+        final HexagonalGrid grid = builder.build();
+        target = builder.buildTerrainColumnsFor(grid);
+    }
+
+    @Test
+    public void shouldHaveASlotForEachCellWhenCreated() {
+        assertEquals(61, target.getCellCount());
+        assertEquals(-1, target.indexOf(fromCoordinates(-GRID_SIZE, -GRID_SIZE)));
+    }
+
+    @Test
+    public void shouldReturnWrittenValuesWhenTerrainIsSet() {
+        final int index = target.indexOf(fromCoordinates(4, 4));
+        target.setPassable(index, true);
+        target.setMovementCost(index, COST);
+        assertTrue(target.isPassable(index));
+        assertEquals(COST, target.getMovementCost(index));
+        assertFalse(target.isPassable(index + 1));
+        target.setPassable(index, false);
+        assertFalse(target.isPassable(index));
+        assertEquals(COST, target.getMovementCost(index));
+    }
+
+    @Test
+    public void shouldCopyTerrainWhenCopyTerrainToIsCalled() {
+        final int index = target.getCellCount() - 1;
+        target.setTerrain(index, true, COST);
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        target.copyTerrainTo(index, data);
+        assertTrue(data.isPassable());
+        assertEquals(COST, data.getMovementCost());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailWhenIndexIsOutOfBounds() {
+        target.isPassable(target.getCellCount());
+    }
+
+    @Test
+    public void shouldAlwaysReadConsistentPairsWhenWrittenConcurrently() throws InterruptedException {
+        final int index = 0;
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int i = 0;
+                while (running.get()) {
+                    // passable cells always have an odd cost, just like the initial impassable cell with 0 cost
+                    target.setTerrain(index, i % 2 == 1, i);
+                    i++;
+                }
+            }
+        });
+        writer.start();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        try {
+            for (int i = 0; i < 100000; i++) {
+                target.copyTerrainTo(index, data);
+                assertEquals(data.isPassable(), data.getMovementCost() % 2 == 1);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
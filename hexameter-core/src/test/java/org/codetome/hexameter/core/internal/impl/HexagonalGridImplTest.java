@@ -3,6 +3,8 @@ package org.codetome.hexameter.core.internal.impl;
 import org.codetome.hexameter.core.api.CubeCoordinate;
 import org.codetome.hexameter.core.api.CoordinateConverter;
 import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.GridMetricsRegistry;
+import org.codetome.hexameter.core.api.GridSnapshot;
 import org.codetome.hexameter.core.api.Hexagon;
 import org.codetome.hexameter.core.api.HexagonOrientation;
 import org.codetome.hexameter.core.api.HexagonalGrid;
@@ -14,6 +16,7 @@ import org.junit.Before;
 import org.junit.Test;
 import rx.Observable;
 import rx.functions.Action1;
+import rx.functions.Func1;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -22,8 +25,11 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.GridOperation.MATERIALIZATION;
 import static org.codetome.hexameter.core.api.HexagonOrientation.POINTY_TOP;
 import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
 import static org.junit.Assert.assertArrayEquals;
@@ -265,4 +271,207 @@ public class HexagonalGridImplTest {
     public void shouldProperlyReturnGridHeightWhenGetGridHeightIsCalled() {
         Assert.assertEquals(GRID_HEIGHT, target.getGridData().getGridHeight());
     }
+
+    @Test
+    public void shouldNotLoseUpdatesWhenComputeSatelliteDataIsCalledConcurrently() throws InterruptedException {
+        final int threadCount = 4;
+        final int increments = 1000;
+        final CubeCoordinate coordinate = fromCoordinates(GRID_X_FROM, GRID_Z_FROM);
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < increments; j++) {
+                        target.computeSatelliteData(coordinate, new Func1<DefaultSatelliteData, DefaultSatelliteData>() {
+                            @Override
+                            public DefaultSatelliteData call(DefaultSatelliteData current) {
+                                final DefaultSatelliteData result = new DefaultSatelliteData();
+                                result.setMovementCost(current == null ? 1 : current.getMovementCost() + 1);
+                                return result;
+                            }
+                        });
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(threadCount * increments, target.getByCubeCoordinate(coordinate).get().getSatelliteData().get().getMovementCost(), 0);
+    }
+
+    @Test
+    public void shouldBlockSetSatelliteDataWhileComputeSatelliteDataIsRunning() throws InterruptedException {
+        final Hexagon hexagon = target.getByCubeCoordinate(fromCoordinates(GRID_X_FROM, GRID_Z_FROM)).get();
+        final DefaultSatelliteData written = new DefaultSatelliteData();
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                hexagon.setSatelliteData(written);
+            }
+        });
+        target.computeSatelliteData(hexagon.getCubeCoordinate(), new Func1<DefaultSatelliteData, DefaultSatelliteData>() {
+            @Override
+            public DefaultSatelliteData call(DefaultSatelliteData current) {
+                writer.start();
+                final long deadline = System.currentTimeMillis() + 10000;
+                while (writer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                    Thread.yield();
+                }
+                assertEquals(Thread.State.WAITING, writer.getState());
+                return new DefaultSatelliteData();
+            }
+        });
+        writer.join();
+        assertSame(written, hexagon.getSatelliteData().get());
+    }
+
+    @Test
+    public void shouldNotBlockSetSatelliteDataOfCellInAnotherRegionWhileComputeSatelliteDataIsRunning() throws InterruptedException {
+        final Hexagon first = target.getHexagons().first().toBlocking().single();
+        final Hexagon last = target.getHexagons().last().toBlocking().single();
+        final DefaultSatelliteData written = new DefaultSatelliteData();
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                last.setSatelliteData(written);
+            }
+        });
+        target.computeSatelliteData(first.getCubeCoordinate(), new Func1<DefaultSatelliteData, DefaultSatelliteData>() {
+            @Override
+            public DefaultSatelliteData call(DefaultSatelliteData current) {
+                writer.start();
+                try {
+                    writer.join(10000);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                assertFalse(writer.isAlive());
+                return new DefaultSatelliteData();
+            }
+        });
+        assertSame(written, last.getSatelliteData().get());
+    }
+
+    @Test
+    public void shouldClearSatelliteDataWhenComputeSatelliteDataReturnsNull() {
+        final Hexagon hexagon = target.getByCubeCoordinate(fromCoordinates(GRID_X_FROM, GRID_Z_FROM)).get();
+        hexagon.setSatelliteData(new DefaultSatelliteData());
+        final Optional<SatelliteData> result = target.computeSatelliteData(hexagon.getCubeCoordinate(), new Func1<SatelliteData, SatelliteData>() {
+            @Override
+            public SatelliteData call(SatelliteData current) {
+                return null;
+            }
+        });
+        assertFalse(result.isPresent());
+        assertFalse(hexagon.getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldNotCallFunctionWhenComputeSatelliteDataIsCalledWithCoordinateOffTheGrid() {
+        final AtomicInteger calls = new AtomicInteger();
+        final Optional<SatelliteData> result = target.computeSatelliteData(fromCoordinates(-GRID_WIDTH, -GRID_HEIGHT), new Func1<SatelliteData, SatelliteData>() {
+            @Override
+            public SatelliteData call(SatelliteData current) {
+                calls.incrementAndGet();
+                return new DefaultSatelliteData();
+            }
+        });
+        assertFalse(result.isPresent());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void shouldKeepSatelliteDataOfTheSnapshotWhenGridIsModified() {
+        final Hexagon hexagon = target.getByCubeCoordinate(fromCoordinates(GRID_X_FROM, GRID_Z_FROM)).get();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        hexagon.setSatelliteData(data);
+        final GridSnapshot snapshot = target.snapshot();
+        hexagon.setSatelliteData(new DefaultSatelliteData());
+        target.clearSatelliteData();
+
+        assertSame(data, snapshot.getByCubeCoordinate(hexagon.getCubeCoordinate()).get().getSatelliteData().get());
+        assertEquals(GRID_WIDTH * GRID_HEIGHT, snapshot.getHexagons().count().toBlocking().single().intValue());
+        assertFalse(snapshot.getByCubeCoordinate(fromCoordinates(-GRID_WIDTH, -GRID_HEIGHT)).isPresent());
+    }
+
+    @Test
+    public void shouldOnlyReturnCellsWithSatelliteDataOfTheGridWhenSnapshotIsAskedForThem() {
+        final Hexagon hexagon = target.getByCubeCoordinate(fromCoordinates(GRID_X_FROM, GRID_Z_FROM)).get();
+        hexagon.setSatelliteData(new DefaultSatelliteData());
+        ((HexagonalGridImpl) target).getHexagonStorage().put(fromCoordinates(-GRID_WIDTH, -GRID_HEIGHT), new DefaultSatelliteData());
+        final GridSnapshot snapshot = target.snapshot();
+        target.getByCubeCoordinate(fromCoordinates(GRID_X_TO, GRID_Z_TO)).get().setSatelliteData(new DefaultSatelliteData());
+
+        final Hexagon result = snapshot.getHexagonsWithSatelliteData().toBlocking().single();
+
+        assertEquals(hexagon.getCubeCoordinate(), result.getCubeCoordinate());
+        assertTrue(result.getSatelliteData().isPresent());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailWhenReleasedSnapshotIsRead() {
+        final GridSnapshot snapshot = target.snapshot();
+        snapshot.release();
+        snapshot.getHexagons();
+    }
+
+    @Test
+    public void shouldAnswerQueriesWithoutMaterializingWhenGridIsLazy() {
+        final GridMetricsRegistry registry = builder.buildMetricsRegistry();
+        final HexagonalGridImpl lazy = (HexagonalGridImpl) builder.setMetrics(registry).buildLazy();
+        final Hexagon hexagon = lazy.getByCubeCoordinate(fromCoordinates(GRID_X_FROM, GRID_Z_FROM)).get();
+
+        assertFalse(hexagon.getSatelliteData().isPresent());
+        assertEquals(6, lazy.getNeighborsOf(hexagon).size());
+        assertEquals(9, lazy.getHexagonsByCubeRange(fromCoordinates(GRID_X_FROM, GRID_Z_FROM), fromCoordinates(GRID_X_TO, GRID_Z_TO))
+                .count().toBlocking().single().intValue());
+        assertTrue(lazy.getByPixelCoordinate(hexagon.getCenterX(), hexagon.getCenterY()).isPresent());
+        assertFalse(lazy.containsCubeCoordinate(fromCoordinates(-1, 0)));
+        lazy.clearSatelliteData();
+        lazy.snapshot().release();
+
+        assertFalse(lazy.isMaterialized());
+        assertEquals(0, registry.getCallCount(MATERIALIZATION));
+    }
+
+    @Test
+    public void shouldMaterializeWhenSatelliteDataOfLazyGridIsWritten() {
+        final GridMetricsRegistry registry = builder.buildMetricsRegistry();
+        final HexagonalGridImpl lazy = (HexagonalGridImpl) builder.setMetrics(registry).buildLazy();
+        final Hexagon hexagon = lazy.getByCubeCoordinate(fromCoordinates(GRID_X_FROM, GRID_Z_FROM)).get();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+
+        hexagon.setSatelliteData(data);
+        hexagon.setSatelliteData(new DefaultSatelliteData());
+
+        assertTrue(lazy.isMaterialized());
+        assertEquals(1, registry.getCallCount(MATERIALIZATION));
+        assertEquals(GRID_WIDTH * GRID_HEIGHT, registry.getCellsVisited(MATERIALIZATION));
+        assertTrue(lazy.getByCubeCoordinate(fromCoordinates(GRID_X_FROM, GRID_Z_FROM)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldMaterializeWhenLazyGridIsTraversed() {
+        final HexagonalGridImpl lazy = (HexagonalGridImpl) builder.buildLazy();
+
+        final int count = lazy.getHexagons().count().toBlocking().single();
+
+        assertEquals(GRID_WIDTH * GRID_HEIGHT, count);
+        assertTrue(lazy.isMaterialized());
+        assertTrue(((HexagonalGridImpl) target).isMaterialized());
+    }
+
+    @Test
+    public void shouldNotMaterializeWhenSnapshotOfLazyGridIsTraversed() {
+        final HexagonalGridImpl lazy = (HexagonalGridImpl) builder.buildLazy();
+        final GridSnapshot snapshot = lazy.snapshot();
+
+        final int count = snapshot.getHexagons().count().toBlocking().single();
+
+        assertEquals(GRID_WIDTH * GRID_HEIGHT, count);
+        assertFalse(lazy.isMaterialized());
+    }
 }
@@ -0,0 +1,117 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.GridMetricsRegistry;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridCalculator;
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.GridOperation.BUILD;
+import static org.codetome.hexameter.core.api.GridOperation.LINE;
+import static org.codetome.hexameter.core.api.GridOperation.MOVEMENT_RANGE;
+import static org.codetome.hexameter.core.api.GridOperation.NEIGHBORS;
+import static org.codetome.hexameter.core.api.GridOperation.PIXEL_LOOKUP;
+
+public class InMemoryGridMetricsRegistryTest {
+
+    private GridMetricsRegistry target;
+    private HexagonalGridBuilder builder;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new HexagonalGridBuilder().setGridHeight(10).setGridWidth(10).setRadius(10);
+        target = builder.buildMetricsRegistry();
+        builder.setMetrics(target);
+    }
+
+    @Test
+    public void shouldRecordCallsWhenRecordIsCalled() {
+        target.record(LINE, 100, 3);
+        target.record(LINE, 300, 5);
+
+        assertEquals(2, target.getCallCount(LINE));
+        assertEquals(400, target.getTotalNanos(LINE));
+        assertEquals(8, target.getCellsVisited(LINE));
+        assertEquals(0, target.getCallCount(BUILD));
+    }
+
+    @Test
+    public void shouldPutDurationsIntoPowerOfTwoBucketsWhenRecordIsCalled() {
+        target.record(LINE, 0, 1);
+        target.record(LINE, 1, 1);
+        target.record(LINE, 1023, 1);
+        target.record(LINE, 1024, 1);
+
+        final long[] histogram = target.getLatencyHistogram(LINE);
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[1]);
+        assertEquals(1, histogram[10]);
+        assertEquals(1, histogram[11]);
+    }
+
+    @Test
+    public void shouldReturnUpperBoundOfBucketWhenPercentileIsRequested() {
+        for (int i = 0; i < 99; i++) {
+            target.record(LINE, 100, 1);
+        }
+        target.record(LINE, 5000, 1);
+
+        assertEquals(128, target.getLatencyPercentileNanos(LINE, 0.5));
+        assertEquals(128, target.getLatencyPercentileNanos(LINE, 0.99));
+        assertEquals(8192, target.getLatencyPercentileNanos(LINE, 1));
+        assertEquals(0, target.getLatencyPercentileNanos(BUILD, 0.5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenPercentileIsOutOfRange() {
+        target.getLatencyPercentileNanos(LINE, 1.5);
+    }
+
+    @Test
+    public void shouldForgetEverythingWhenReset() {
+        target.record(LINE, 100, 3);
+
+        target.reset();
+
+        assertEquals(0, target.getCallCount(LINE));
+        assertEquals(0, target.getCellsVisited(LINE));
+        assertEquals(0, target.getLatencyHistogram(LINE)[7]);
+    }
+
+    @Test
+    public void shouldRecordGridOperationsWhenGridHasMetrics() {
+        final HexagonalGrid grid = builder.build();
+        final HexagonalGridCalculator calculator = builder.buildCalculatorFor(grid);
+        final Hexagon hexagon = grid.getByCubeCoordinate(fromCoordinates(3, 5)).get();
+
+        grid.getNeighborsOf(hexagon);
+        grid.getByPixelCoordinate(hexagon.getCenterX(), hexagon.getCenterY());
+        calculator.calculateMovementRangeFrom(hexagon, 2);
+        calculator.drawLine(hexagon, grid.getByCubeCoordinate(fromCoordinates(5, 5)).get());
+
+        assertEquals(1, target.getCallCount(BUILD));
+        assertEquals(100, target.getCellsVisited(BUILD));
+        assertEquals(1, target.getCallCount(NEIGHBORS));
+        assertEquals(1, target.getCallCount(PIXEL_LOOKUP));
+        assertEquals(1, target.getCallCount(MOVEMENT_RANGE));
+        assertEquals(19, target.getCellsVisited(MOVEMENT_RANGE));
+        assertEquals(1, target.getCallCount(LINE));
+        assertEquals(3, target.getCellsVisited(LINE));
+    }
+
+    @Test
+    public void shouldUseNoOpMetricsWhenNoneIsSet() {
+        final HexagonalGrid grid = new HexagonalGridBuilder().setGridHeight(10).setGridWidth(10).setRadius(10).build();
+
+        assertSame(NoOpGridMetrics.INSTANCE, ((AbstractHexagonalGrid) grid).getMetrics());
+        assertFalse(NoOpGridMetrics.INSTANCE.isEnabled());
+        assertTrue(target.isEnabled());
+    }
+}
@@ -0,0 +1,206 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.ChunkGenerator;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.EntityIndex;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridCalculator;
+import org.codetome.hexameter.core.api.exception.HexagonalGridCreationException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import rx.functions.Func1;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.HEXAGONAL;
+import static org.junit.Assert.assertArrayEquals;
+
+public class IntListEntityIndexTest {
+
+    private static final int GRID_WIDTH = 20;
+    private static final int GRID_HEIGHT = 20;
+    private static final int RADIUS = 10;
+    private static final int ENTITY_COUNT = 3000;
+
+    private HexagonalGridBuilder builder;
+    private HexagonalGrid grid;
+    private EntityIndex target;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_WIDTH).setGridHeight(GRID_HEIGHT).setRadius(RADIUS);
+        grid = builder.build();
+        target = builder.buildEntityIndexFor(grid);
+    }
+
+    @Test
+    public void shouldFindEntityWhenPut() {
+        final CubeCoordinate coordinate = fromCoordinates(3, 4);
+
+        target.put(7, coordinate);
+        target.put(8, coordinate);
+
+        assertTrue(target.contains(7));
+        assertEquals(coordinate, target.getCoordinateOf(7).get());
+        assertEquals(2, target.countAt(coordinate));
+        assertArrayEquals(new int[]{8, 7}, target.getEntitiesAt(coordinate));
+        assertEquals(2, target.size());
+    }
+
+    @Test
+    public void shouldMoveEntityWhenPutOnAnotherCell() {
+        final CubeCoordinate from = fromCoordinates(3, 4);
+        final CubeCoordinate to = fromCoordinates(5, 4);
+        target.put(1, from);
+        target.put(2, from);
+        target.put(3, from);
+
+        target.put(2, to);
+
+        assertArrayEquals(new int[]{3, 1}, target.getEntitiesAt(from));
+        assertArrayEquals(new int[]{2}, target.getEntitiesAt(to));
+        assertEquals(to, target.getCoordinateOf(2).get());
+        assertEquals(3, target.size());
+    }
+
+    @Test
+    public void shouldForgetEntityWhenRemoved() {
+        final CubeCoordinate coordinate = fromCoordinates(3, 4);
+        target.put(1, coordinate);
+
+        assertTrue(target.remove(1));
+        assertFalse(target.remove(1));
+        assertFalse(target.remove(123456));
+
+        assertFalse(target.contains(1));
+        assertFalse(target.getCoordinateOf(1).isPresent());
+        assertEquals(0, target.countAt(coordinate));
+        assertEquals(0, target.size());
+    }
+
+    @Test
+    public void shouldGrowWhenEntityIdIsBig() {
+        target.put(1000000, fromCoordinates(3, 4));
+
+        assertTrue(target.contains(1000000));
+        assertFalse(target.contains(999999));
+    }
+
+    @Test
+    public void shouldForgetEverythingWhenCleared() {
+        target.put(1, fromCoordinates(3, 4));
+
+        target.clear();
+
+        assertEquals(0, target.size());
+        assertFalse(target.contains(1));
+        assertEquals(0, target.getEntitiesInRange(fromCoordinates(3, 4), 2).length);
+    }
+
+    @Test
+    public void shouldAnswerNothingWhenCoordinateIsNotOnTheGrid() {
+        assertEquals(0, target.countAt(fromCoordinates(-5, -5)));
+        assertEquals(0, target.getEntitiesAt(fromCoordinates(-5, -5)).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenPutOffTheGrid() {
+        target.put(1, fromCoordinates(-5, -5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenEntityIdIsNegative() {
+        target.put(-1, fromCoordinates(3, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenEntityIdIsTooBig() {
+        target.put(Integer.MAX_VALUE, fromCoordinates(3, 4));
+    }
+
+    @Test(expected = HexagonalGridCreationException.class)
+    public void shouldFailWhenGridIsChunked() {
+        final HexagonalGrid chunked = builder.setChunkGenerator(Mockito.mock(ChunkGenerator.class)).buildChunked();
+        builder.buildEntityIndexFor(chunked);
+    }
+
+    @Test
+    public void shouldFindEntitiesOfMovementRangeWhenRangeIsQueried() {
+        final CubeCoordinate[] positions = placeRandomly(grid, target);
+        final HexagonalGridCalculator calculator = builder.buildCalculatorFor(grid);
+        final Hexagon center = grid.getByCubeCoordinate(fromCoordinates(2, 5)).get();
+
+        for (int distance = 0; distance <= 4; distance++) {
+            final int[] expected = new int[ENTITY_COUNT];
+            int length = 0;
+            for (int entity = 0; entity < ENTITY_COUNT; entity++) {
+                final Hexagon hexagon = grid.getByCubeCoordinate(positions[entity]).get();
+                if (calculator.calculateDistanceBetween(center, hexagon) <= distance) {
+                    expected[length++] = entity;
+                }
+            }
+            assertSameEntities(Arrays.copyOf(expected, length), target.getEntitiesInRange(center.getCubeCoordinate(), distance));
+        }
+    }
+
+    @Test
+    public void shouldFindEntitiesOfCellsInsideCircleWhenPixelCircleIsQueried() {
+        assertPixelCircleMatchesBruteForce(builder);
+        assertPixelCircleMatchesBruteForce(new HexagonalGridBuilder().setGridWidth(21).setGridHeight(21).setRadius(RADIUS)
+                .setOrientation(FLAT_TOP).setGridLayout(HEXAGONAL));
+    }
+
+    private static void assertPixelCircleMatchesBruteForce(final HexagonalGridBuilder gridBuilder) {
+        final HexagonalGrid hexagonalGrid = gridBuilder.build();
+        final EntityIndex index = gridBuilder.buildEntityIndexFor(hexagonalGrid);
+        final CubeCoordinate[] positions = placeRandomly(hexagonalGrid, index);
+        final Random random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            final double x = random.nextDouble() * GRID_WIDTH * RADIUS * 2;
+            final double y = random.nextDouble() * GRID_HEIGHT * RADIUS * 2;
+            final double radius = random.nextDouble() * RADIUS * 8;
+            final int[] expected = new int[ENTITY_COUNT];
+            int length = 0;
+            for (int entity = 0; entity < ENTITY_COUNT; entity++) {
+                final Hexagon hexagon = hexagonalGrid.getByCubeCoordinate(positions[entity]).get();
+                final double dx = hexagon.getCenterX() - x;
+                final double dy = hexagon.getCenterY() - y;
+                if (dx * dx + dy * dy <= radius * radius) {
+                    expected[length++] = entity;
+                }
+            }
+            assertSameEntities(Arrays.copyOf(expected, length), index.getEntitiesInPixelCircle(x, y, radius));
+        }
+    }
+
+    private static CubeCoordinate[] placeRandomly(final HexagonalGrid hexagonalGrid, final EntityIndex index) {
+        final CubeCoordinate[] cells = hexagonalGrid.getHexagons().map(new Func1<Hexagon, CubeCoordinate>() {
+            @Override
+            public CubeCoordinate call(Hexagon hexagon) {
+                return hexagon.getCubeCoordinate();
+            }
+        }).toList().toBlocking().single().toArray(new CubeCoordinate[0]);
+        final Random random = new Random(0);
+        final CubeCoordinate[] positions = new CubeCoordinate[ENTITY_COUNT];
+        for (int entity = 0; entity < ENTITY_COUNT; entity++) {
+            positions[entity] = cells[random.nextInt(cells.length)];
+            index.put(entity, positions[entity]);
+        }
+        return positions;
+    }
+
+    private static void assertSameEntities(final int[] expected, final int[] actual) {
+        final int[] sorted = actual.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(expected, sorted);
+    }
+}
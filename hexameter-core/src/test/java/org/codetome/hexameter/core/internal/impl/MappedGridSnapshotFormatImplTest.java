@@ -0,0 +1,146 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.GridSnapshot;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.MappedGridSnapshotFormat;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.HEXAGONAL;
+
+public class MappedGridSnapshotFormatImplTest {
+
+    private static final int RADIUS = 30;
+    private static final int GRID_SIZE = 21;
+    private static final double COST = 4.25;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HexagonalGridBuilder builder;
+    private MappedGridSnapshotFormat target;
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE).setRadius(RADIUS).setGridLayout(HEXAGONAL);
+        target = builder.buildMappedGridSnapshotFormat();
+        file = temporaryFolder.newFile("grid.snapshot").toPath();
+    }
+
+    @Test
+    public void shouldReadTerrainInPlaceWhenSnapshotIsOpened() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        data.setPassable(true);
+        data.setMovementCost(COST);
+        grid.getByCubeCoordinate(fromCoordinates(10, 10)).get().setSatelliteData(data);
+        target.write(grid, file);
+
+        final HexagonalGrid result = target.open(file);
+
+        assertEquals(grid.getHexagons().count().toBlocking().single(), result.getHexagons().count().toBlocking().single());
+        assertEquals(grid.getGridData().getGridLayout(), result.getGridData().getGridLayout());
+        final SatelliteData restored = result.getByCubeCoordinate(fromCoordinates(10, 10)).get().getSatelliteData().get();
+        assertTrue(restored.isPassable());
+        assertEquals(COST, restored.getMovementCost());
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(10, 9)).get().getSatelliteData().isPresent());
+    }
+
+    @Test
+    public void shouldKeepChangesOfEveryViewWhenCellIsModifiedThroughSeveralViews() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        grid.getByCubeCoordinate(fromCoordinates(10, 10)).get().setSatelliteData(new DefaultSatelliteData());
+        target.write(grid, file);
+        final HexagonalGrid result = target.open(file);
+        final Hexagon hexagon = result.getByCubeCoordinate(fromCoordinates(10, 10)).get();
+        final SatelliteData first = hexagon.getSatelliteData().get();
+        final SatelliteData second = hexagon.getSatelliteData().get();
+
+        first.setMovementCost(COST);
+        second.setPassable(true);
+
+        final SatelliteData current = hexagon.getSatelliteData().get();
+        assertEquals(COST, current.getMovementCost());
+        assertTrue(current.isPassable());
+        assertTrue(first.isPassable());
+        assertEquals(COST, second.getMovementCost());
+    }
+
+    @Test
+    public void shouldSkipOffGridSatelliteDataWhenSnapshotIsWritten() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        data.setMovementCost(COST);
+        grid.getByCubeCoordinate(fromCoordinates(10, 10)).get().setSatelliteData(data);
+        ((HexagonalGridImpl) grid).getHexagonStorage().put(fromCoordinates(GRID_SIZE * 5, GRID_SIZE * 5), data);
+        target.write(grid, file);
+
+        final HexagonalGrid result = target.open(file);
+
+        assertEquals(COST, result.getByCubeCoordinate(fromCoordinates(10, 10)).get().getSatelliteData().get().getMovementCost());
+        assertEquals(1, ((HexagonalGridImpl) result).getHexagonStorage().size());
+    }
+
+    @Test
+    public void shouldStoreCellAgainWhenRemovedCellIsModifiedThroughAnOldView() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        grid.getByCubeCoordinate(fromCoordinates(10, 10)).get().setSatelliteData(new DefaultSatelliteData());
+        target.write(grid, file);
+        final HexagonalGrid result = target.open(file);
+        final Hexagon hexagon = result.getByCubeCoordinate(fromCoordinates(10, 10)).get();
+        final SatelliteData view = hexagon.getSatelliteData().get();
+
+        hexagon.clearSatelliteData();
+        view.setMovementCost(COST);
+        view.setPassable(true);
+
+        final SatelliteData current = hexagon.getSatelliteData().get();
+        assertEquals(COST, current.getMovementCost());
+        assertTrue(current.isPassable());
+        assertEquals(COST, view.getMovementCost());
+        assertTrue(view.isPassable());
+    }
+
+    @Test
+    public void shouldKeepModificationsOnTheHeapWhenOpenedGridIsModified() throws IOException {
+        final HexagonalGrid grid = builder.build();
+        grid.getByCubeCoordinate(fromCoordinates(10, 10)).get().setSatelliteData(new DefaultSatelliteData());
+        target.write(grid, file);
+        final HexagonalGrid result = target.open(file);
+        final Hexagon hexagon = result.getByCubeCoordinate(fromCoordinates(10, 10)).get();
+        final GridSnapshot snapshot = result.snapshot();
+
+        hexagon.getSatelliteData().get().setMovementCost(COST);
+        result.getByCubeCoordinate(fromCoordinates(10, 9)).get().setSatelliteData(new DefaultSatelliteData());
+
+        assertEquals(COST, hexagon.getSatelliteData().get().getMovementCost());
+        assertTrue(result.getByCubeCoordinate(fromCoordinates(10, 9)).get().getSatelliteData().isPresent());
+        assertEquals(0d, snapshot.getByCubeCoordinate(fromCoordinates(10, 10)).get().getSatelliteData().get().getMovementCost());
+        assertFalse(snapshot.getByCubeCoordinate(fromCoordinates(10, 9)).get().getSatelliteData().isPresent());
+        hexagon.clearSatelliteData();
+        assertFalse(hexagon.getSatelliteData().isPresent());
+        result.clearSatelliteData();
+        assertFalse(result.getByCubeCoordinate(fromCoordinates(10, 9)).get().getSatelliteData().isPresent());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailWhenOpenedFileIsNotASnapshot() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3});
+        target.open(file);
+    }
+}
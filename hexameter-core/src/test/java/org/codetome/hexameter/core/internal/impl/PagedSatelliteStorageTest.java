@@ -0,0 +1,108 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRAPEZOID;
+
+public class PagedSatelliteStorageTest {
+
+    private static final int RADIUS = 30;
+    private static final int GRID_WIDTH = 700;
+    private static final int GRID_HEIGHT = 200;
+    private static final CubeCoordinate FIRST = fromCoordinates(0, 0);
+    private static final CubeCoordinate LAST = fromCoordinates(GRID_WIDTH - 1, GRID_HEIGHT - 1);
+
+    private PagedSatelliteStorage target;
+
+    @Before
+    public void setUp() throws Exception {
+        target = new PagedSatelliteStorage(new HexagonalGridBuilder().setGridWidth(GRID_WIDTH).setGridHeight(GRID_HEIGHT)
+                .setRadius(RADIUS).setGridLayout(TRAPEZOID).getGridData());
+    }
+
+    @Test
+    public void shouldReturnStoredDataWhenPutIsCalled() {
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        assertNull(target.put(LAST, data));
+        assertSame(data, target.get(LAST));
+        assertNull(target.get(FIRST));
+        assertEquals(1, target.size());
+        assertSame(data, target.remove(LAST));
+        assertNull(target.get(LAST));
+        assertEquals(0, target.size());
+    }
+
+    @Test
+    public void shouldKeepDataOfCoordinateOffTheGridWhenPutIsCalled() {
+        final CubeCoordinate offGrid = fromCoordinates(-1, 0);
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        target.put(FIRST, data);
+        assertNull(target.put(offGrid, data));
+        final Map<CubeCoordinate, Object> snapshot = target.snapshot();
+        final List<CubeCoordinate> keys = new ArrayList<>();
+        for (final Map.Entry<CubeCoordinate, Object> entry : target.entrySet()) {
+            keys.add(entry.getKey());
+        }
+        assertSame(data, target.remove(offGrid));
+
+        assertEquals(2, keys.size());
+        assertEquals(FIRST, keys.get(0));
+        assertEquals(offGrid, keys.get(1));
+        assertNull(target.get(offGrid));
+        assertEquals(1, target.size());
+        assertSame(data, snapshot.get(offGrid));
+        assertEquals(2, snapshot.size());
+    }
+
+    @Test
+    public void shouldIterateEntriesInDenseIndexOrderWhenEntrySetIsCalled() {
+        final DefaultSatelliteData data = new DefaultSatelliteData();
+        target.put(LAST, data);
+        target.put(FIRST, data);
+        final List<CubeCoordinate> keys = new ArrayList<>();
+        for (final Map.Entry<CubeCoordinate, Object> entry : target.entrySet()) {
+            keys.add(entry.getKey());
+        }
+        assertEquals(2, keys.size());
+        assertEquals(FIRST, keys.get(0));
+        assertEquals(LAST, keys.get(1));
+    }
+
+    @Test
+    public void shouldNotSeeLaterWritesWhenSnapshotIsTaken() {
+        final DefaultSatelliteData oldData = new DefaultSatelliteData();
+        final DefaultSatelliteData newData = new DefaultSatelliteData();
+        target.put(FIRST, oldData);
+        final Map<CubeCoordinate, Object> snapshot = target.snapshot();
+        target.put(FIRST, newData);
+        target.put(LAST, newData);
+        target.remove(FIRST);
+        final Map<CubeCoordinate, Object> secondSnapshot = target.snapshot();
+        target.clear();
+
+        assertSame(oldData, snapshot.get(FIRST));
+        assertNull(snapshot.get(LAST));
+        assertEquals(1, snapshot.size());
+        assertNull(secondSnapshot.get(FIRST));
+        assertSame(newData, secondSnapshot.get(LAST));
+        assertEquals(0, target.size());
+        assertNull(target.get(LAST));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldFailWhenSnapshotIsModified() {
+        target.snapshot().put(FIRST, new DefaultSatelliteData());
+    }
+}
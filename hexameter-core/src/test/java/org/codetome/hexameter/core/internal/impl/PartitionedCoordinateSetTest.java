@@ -0,0 +1,100 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.HexagonOrientation;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridLayout;
+import org.codetome.hexameter.core.api.exception.HexagonalGridCreationException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
+import static org.codetome.hexameter.core.api.HexagonOrientation.POINTY_TOP;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.HEXAGONAL;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRAPEZOID;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRIANGULAR;
+import static org.codetome.hexameter.core.internal.impl.PartitionedCoordinateSet.MIN_PARTITION_SIZE;
+
+public class PartitionedCoordinateSetTest {
+
+    private static final int PARALLELISM = 4;
+
+    @Test
+    public void shouldUseOnePartitionWhenGridIsSmall() {
+        assertEquals(1, PartitionedCoordinateSet.partitionCountOf(MIN_PARTITION_SIZE, PARALLELISM));
+        assertEquals(1, PartitionedCoordinateSet.partitionCountOf(1, PARALLELISM));
+    }
+
+    @Test
+    public void shouldNotUseMoreThreadsThanParallelismWhenGridIsBig() {
+        assertEquals(2, PartitionedCoordinateSet.partitionCountOf(MIN_PARTITION_SIZE + 1, PARALLELISM));
+        assertEquals(PARALLELISM, PartitionedCoordinateSet.partitionCountOf(100 * MIN_PARTITION_SIZE, PARALLELISM));
+        assertEquals(1, PartitionedCoordinateSet.partitionCountOf(100 * MIN_PARTITION_SIZE, 1));
+    }
+
+    @Test
+    public void shouldIterateInLayoutOrderWhenRectangularGridIsPartitioned() {
+        assertMatchesLayout(RECTANGULAR, POINTY_TOP, 300, 300);
+        assertMatchesLayout(RECTANGULAR, FLAT_TOP, 300, 300);
+    }
+
+    @Test
+    public void shouldIterateInLayoutOrderWhenTrapezoidGridIsPartitioned() {
+        assertMatchesLayout(TRAPEZOID, POINTY_TOP, 300, 300);
+    }
+
+    @Test
+    public void shouldIterateInLayoutOrderWhenTriangularGridIsPartitioned() {
+        assertMatchesLayout(TRIANGULAR, POINTY_TOP, 400, 400);
+    }
+
+    @Test
+    public void shouldIterateInLayoutOrderWhenHexagonalGridIsPartitioned() {
+        assertMatchesLayout(HEXAGONAL, FLAT_TOP, 301, 301);
+    }
+
+    @Test
+    public void shouldAnswerContainsFromLayoutWhenBuilt() {
+        final PartitionedCoordinateSet target = new PartitionedCoordinateSet(builderFor(RECTANGULAR, POINTY_TOP, 10, 10).getGridData(), PARALLELISM);
+
+        assertTrue(target.contains(fromCoordinates(0, 0)));
+        assertTrue(target.contains(fromCoordinates(4, 9)));
+        assertFalse(target.contains(fromCoordinates(-1, 0)));
+        assertFalse(target.contains(fromCoordinates(0, 10)));
+        assertFalse(target.contains("not a coordinate"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldFailWhenRemovingThroughIterator() {
+        final Iterator<CubeCoordinate> iterator = new PartitionedCoordinateSet(builderFor(RECTANGULAR, POINTY_TOP, 2, 2).getGridData(), 1).iterator();
+        iterator.next();
+        iterator.remove();
+    }
+
+    @Test(expected = HexagonalGridCreationException.class)
+    public void shouldFailWhenBuildParallelismIsNotPositive() {
+        builderFor(RECTANGULAR, POINTY_TOP, 2, 2).setBuildParallelism(0).build();
+    }
+
+    private static void assertMatchesLayout(final HexagonalGridLayout layout, final HexagonOrientation orientation, final int width, final int height) {
+        final HexagonalGridBuilder builder = builderFor(layout, orientation, width, height);
+        final PartitionedCoordinateSet target = new PartitionedCoordinateSet(builder.getGridData(), PARALLELISM);
+        final List<CubeCoordinate> expected = layout.getGridLayoutStrategy().fetchGridCoordinates(builder).toList().toBlocking().single();
+
+        assertTrue(target.getPartitionCount() > 1);
+        assertEquals(expected.size(), target.size());
+        assertEquals(expected, new ArrayList<>(target));
+    }
+
+    private static HexagonalGridBuilder builderFor(final HexagonalGridLayout layout, final HexagonOrientation orientation, final int width, final int height) {
+        return new HexagonalGridBuilder().setGridLayout(layout).setOrientation(orientation).setGridWidth(width).setGridHeight(height).setRadius(1);
+    }
+}
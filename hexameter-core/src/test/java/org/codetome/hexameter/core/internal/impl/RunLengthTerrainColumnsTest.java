@@ -0,0 +1,102 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CompressedTerrainColumns;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.TerrainColumns;
+import org.codetome.hexameter.core.api.exception.HexagonalGridCreationException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+
+public class RunLengthTerrainColumnsTest {
+
+    private static final int RADIUS = 30;
+    private static final int GRID_SIZE = 200;
+    private static final double WATER_COST = 0;
+    private static final double PLAINS_COST = 1.5;
+    private static final double HILLS_COST = 3;
+
+    private HexagonalGridBuilder builder;
+    private HexagonalGrid grid;
+    private TerrainColumns source;
+    private CompressedTerrainColumns target;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE).setRadius(RADIUS).setGridLayout(RECTANGULAR);
+        grid = builder.build();
+        source = builder.buildTerrainColumnsFor(grid);
+        for (int index = 0; index < source.getCellCount(); index++) {
+            final int row = index / GRID_SIZE;
+            if (row >= GRID_SIZE / 2) {
+                source.setTerrain(index, true, PLAINS_COST);
+            }
+            if (row == GRID_SIZE - 1 && index % 2 == 0) {
+                source.setTerrain(index, true, HILLS_COST);
+            }
+        }
+        target = builder.buildCompressedTerrainColumnsFor(grid, source);
+    }
+
+    @Test
+    public void shouldReturnSourceValuesWhenCompressed() {
+        assertEquals(source.getCellCount(), target.getCellCount());
+        for (int index = 0; index < source.getCellCount(); index++) {
+            assertEquals(source.isPassable(index), target.isPassable(index));
+            assertEquals(source.getMovementCost(index), target.getMovementCost(index));
+        }
+    }
+
+    @Test
+    public void shouldKeepOneRunPerUniformRegionWhenCompressed() {
+        assertEquals(2 + GRID_SIZE, target.getRunCount());
+        assertEquals(0, target.getRunStart(0));
+        assertFalse(target.isRunPassable(0));
+        assertEquals(WATER_COST, target.getRunMovementCost(0));
+        assertEquals(GRID_SIZE * GRID_SIZE / 2, target.getRunStart(1));
+        assertEquals(1, target.runOf(GRID_SIZE * GRID_SIZE - GRID_SIZE - 1));
+    }
+
+    @Test
+    public void shouldRestoreEveryCellWhenDecompressed() {
+        final TerrainColumns result = builder.buildTerrainColumnsFor(grid);
+        target.decompressTo(result);
+        final DefaultSatelliteData expected = new DefaultSatelliteData();
+        final DefaultSatelliteData actual = new DefaultSatelliteData();
+        for (int index = 0; index < source.getCellCount(); index++) {
+            source.copyTerrainTo(index, expected);
+            result.copyTerrainTo(index, actual);
+            assertEquals(expected.isPassable(), actual.isPassable());
+            assertEquals(expected.getMovementCost(), actual.getMovementCost());
+        }
+    }
+
+    @Test
+    public void shouldCompressToASingleRunWhenTerrainIsUniform() {
+        final CompressedTerrainColumns result = builder.buildCompressedTerrainColumnsFor(grid, builder.buildTerrainColumnsFor(grid));
+        assertEquals(1, result.getRunCount());
+        assertFalse(result.isPassable(source.getCellCount() - 1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailWhenIndexIsOutOfBounds() {
+        target.isPassable(target.getCellCount());
+    }
+
+    @Test(expected = HexagonalGridCreationException.class)
+    public void shouldFailWhenColumnsDoNotBelongToGrid() {
+        final HexagonalGrid other = new HexagonalGridBuilder().setGridWidth(2).setGridHeight(2).setRadius(RADIUS).build();
+        builder.buildCompressedTerrainColumnsFor(other, source);
+    }
+
+    @Test
+    public void shouldBePassableWhenRunIsPassable() {
+        assertTrue(target.isPassable(target.getCellCount() - 1));
+    }
+}
@@ -0,0 +1,130 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.SparseHexagonalGrid;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+
+public class SparseHexagonalGridImplTest {
+
+    private static final int GRID_SIZE = 100000;
+    private static final int RADIUS = 30;
+
+    private HexagonalGridBuilder builder;
+    private SparseHexagonalGrid target;
+
+    @Before
+    public void setUp() {
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE).setRadius(RADIUS);
+        target = builder.buildSparse();
+    }
+
+    @Test
+    public void shouldNotBeOccupiedWhenCreated() {
+        assertEquals(0, target.getOccupiedCellCount());
+        assertEquals(0, target.getHexagons().count().toBlocking().single().intValue());
+    }
+
+    @Test
+    public void shouldContainCoordinatesLikeAFullGridWhenContainsCubeCoordinateIsCalled() {
+        assertTrue(target.containsCubeCoordinate(fromCoordinates(0, 0)));
+        assertTrue(target.containsCubeCoordinate(fromCoordinates(-GRID_SIZE / 2 + 1, GRID_SIZE - 1)));
+        assertFalse(target.containsCubeCoordinate(fromCoordinates(-1, 0)));
+        assertFalse(target.containsCubeCoordinate(fromCoordinates(0, GRID_SIZE)));
+    }
+
+    @Test
+    public void shouldOccupyCellWhenSatelliteDataIsSet() {
+        final Hexagon hexagon = target.getByCubeCoordinate(fromCoordinates(5000, 70000)).get();
+        hexagon.setSatelliteData(new DefaultSatelliteData());
+        assertTrue(target.isOccupied(hexagon.getCubeCoordinate()));
+        assertTrue(hexagon.getSatelliteData().isPresent());
+        assertEquals(1, target.getOccupiedCellCount());
+        hexagon.clearSatelliteData();
+        assertFalse(target.isOccupied(hexagon.getCubeCoordinate()));
+        assertEquals(0, target.getOccupiedCellCount());
+    }
+
+    @Test
+    public void shouldCountOnlyCellsWithSatelliteDataWhenSizeOfStorageIsAsked() {
+        final SparseStorage storage = new SparseStorage();
+        storage.activate(1, 1);
+        storage.put(fromCoordinates(1, 1), new DefaultSatelliteData());
+        storage.put(fromCoordinates(2, 2), new DefaultSatelliteData());
+        storage.put(fromCoordinates(2, 2), new DefaultSatelliteData());
+        storage.put(fromCoordinates(3, 3), new DefaultSatelliteData());
+        storage.remove(fromCoordinates(3, 3));
+        storage.remove(fromCoordinates(4, 4));
+
+        assertEquals(2, storage.size());
+        assertEquals(storage.entrySet().size(), storage.size());
+        storage.remove(fromCoordinates(1, 1));
+        assertEquals(1, storage.size());
+        storage.clear();
+        assertEquals(0, storage.size());
+        assertTrue(storage.isEmpty());
+    }
+
+    @Test
+    public void shouldKeepActivatedCellsWhenSatelliteDataIsCleared() {
+        final CubeCoordinate activated = fromCoordinates(10, 10);
+        target.activate(activated);
+        target.activate(fromCoordinates(-1, 0));
+        target.getByCubeCoordinate(activated).get().setSatelliteData(new DefaultSatelliteData());
+        target.getByCubeCoordinate(fromCoordinates(11, 10)).get().setSatelliteData(new DefaultSatelliteData());
+        target.clearSatelliteData();
+        assertEquals(1, target.getOccupiedCellCount());
+        assertTrue(target.isOccupied(activated));
+        assertFalse(target.getByCubeCoordinate(activated).get().getSatelliteData().isPresent());
+        target.deactivate(activated);
+        assertEquals(0, target.getOccupiedCellCount());
+    }
+
+    @Test
+    public void shouldIterateOnlyOccupiedCellsWhenGetHexagonsIsCalled() {
+        final Set<CubeCoordinate> expected = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            final CubeCoordinate coordinate = fromCoordinates(i * 37 % 5000, i * 91);
+            expected.add(coordinate);
+            target.getByCubeCoordinate(coordinate).get().setSatelliteData(new DefaultSatelliteData());
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            final CubeCoordinate coordinate = fromCoordinates(i * 37 % 5000, i * 91);
+            expected.remove(coordinate);
+            target.getByCubeCoordinate(coordinate).get().clearSatelliteData();
+        }
+        final List<Hexagon> hexagons = target.getHexagons().toList().toBlocking().single();
+        final Set<CubeCoordinate> actual = new HashSet<>();
+        for (final Hexagon hexagon : hexagons) {
+            actual.add(hexagon.getCubeCoordinate());
+            assertTrue(hexagon.getSatelliteData().isPresent());
+        }
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), target.getOccupiedCellCount());
+    }
+
+    @Test
+    public void shouldAnswerQueriesLikeAFullGridWhenNothingIsOccupied() {
+        final HexagonalGrid fullGrid = new HexagonalGridBuilder().setGridWidth(10).setGridHeight(10).setRadius(RADIUS).build();
+        final Hexagon corner = target.getByCubeCoordinate(fromCoordinates(0, 0)).get();
+        final Hexagon fullGridCorner = fullGrid.getByCubeCoordinate(fromCoordinates(0, 0)).get();
+        assertEquals(fullGrid.getNeighborsOf(fullGridCorner), target.getNeighborsOf(corner));
+        assertEquals(builder.buildCalculatorFor(fullGrid).calculateMovementRangeFrom(fullGridCorner, 3),
+                builder.buildCalculatorFor(target).calculateMovementRangeFrom(corner, 3));
+        assertEquals(fromCoordinates(0, 0), target.getByPixelCoordinate(RADIUS, RADIUS).get().getCubeCoordinate());
+        assertEquals(0, target.getOccupiedCellCount());
+    }
+}
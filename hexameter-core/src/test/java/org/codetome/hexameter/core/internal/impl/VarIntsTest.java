@@ -0,0 +1,49 @@
+package org.codetome.hexameter.core.internal.impl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static junit.framework.Assert.assertEquals;
+
+public class VarIntsTest {
+
+    @Test
+    public void shouldReadWrittenValuesWhenWriteVarIntIsCalled() throws IOException {
+        final int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE};
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        for (final int value : values) {
+            VarInts.writeVarInt(output, value);
+        }
+        assertEquals(1 + 1 + 1 + 2 + 2 + 3 + 5, bytes.size());
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (final int value : values) {
+            assertEquals(value, VarInts.readVarInt(input));
+        }
+    }
+
+    @Test
+    public void shouldReadWrittenValuesWhenWriteSignedVarIntIsCalled() throws IOException {
+        final int[] values = {0, -1, 1, -64, 64, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        for (final int value : values) {
+            VarInts.writeSignedVarInt(output, value);
+        }
+        assertEquals(1 + 1 + 1 + 1 + 2 + 5 + 5, bytes.size());
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (final int value : values) {
+            assertEquals(value, VarInts.readSignedVarInt(input));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenNegativeValueIsWritten() throws IOException {
+        VarInts.writeVarInt(new DataOutputStream(new ByteArrayOutputStream()), -1);
+    }
+}
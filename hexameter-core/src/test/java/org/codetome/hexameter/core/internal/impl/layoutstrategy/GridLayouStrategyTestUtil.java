@@ -1,7 +1,16 @@
 package org.codetome.hexameter.core.internal.impl.layoutstrategy;
 
+import org.codetome.hexameter.core.api.CubeCoordinate;
 import org.codetome.hexameter.core.api.HexagonOrientation;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
 
 public class GridLayouStrategyTestUtil {
 
@@ -13,4 +22,28 @@ public class GridLayouStrategyTestUtil {
     public static HexagonalGridBuilder fetchDefaultBuilder() {
         return new HexagonalGridBuilder().setGridHeight(GRID_HEIGHT).setGridWidth(GRID_WIDTH).setRadius(RADIUS).setOrientation(ORIENTATION);
     }
+
+    /**
+     * Checks that containsCoordinate accepts exactly the coordinates fetchGridCoordinates creates
+     * and that indexOf and coordinateAt number them in the order they are fetched.
+     */
+    public static void assertContainsExactlyFetchedCoordinates(final GridLayoutStrategy strategy, final HexagonalGridBuilder builder) {
+        final List<CubeCoordinate> fetched = strategy.fetchGridCoordinates(builder).toList().toBlocking().single();
+        final Set<CubeCoordinate> expected = new HashSet<>(fetched);
+        final GridData gridData = builder.getGridData();
+        assertEquals(fetched.size(), strategy.getCellCount(gridData));
+        for (int i = 0; i < fetched.size(); i++) {
+            assertEquals(fetched.get(i).toString(), i, strategy.indexOf(gridData, fetched.get(i).getGridX(), fetched.get(i).getGridZ()));
+            assertEquals(fetched.get(i), strategy.coordinateAt(gridData, i));
+        }
+        final int extent = builder.getGridWidth() + builder.getGridHeight();
+        for (int gridX = -extent; gridX <= extent; gridX++) {
+            for (int gridZ = -extent; gridZ <= extent; gridZ++) {
+                assertEquals(gridX + "," + gridZ, expected.contains(fromCoordinates(gridX, gridZ)), strategy.containsCoordinate(gridData, gridX, gridZ));
+                if (!expected.contains(fromCoordinates(gridX, gridZ))) {
+                    assertEquals(gridX + "," + gridZ, -1, strategy.indexOf(gridData, gridX, gridZ));
+                }
+            }
+        }
+    }
 }
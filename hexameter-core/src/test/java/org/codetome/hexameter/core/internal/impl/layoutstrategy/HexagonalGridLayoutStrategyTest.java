@@ -184,4 +184,14 @@ public class HexagonalGridLayoutStrategyTest {
         assertFalse(result);
     }
 
+    @Test
+    public void shouldContainExactlyTheCreatedCoordinatesWhenContainsCoordinateIsCalled() {
+        final int[][] sizes = {{1, 1}, {3, 3}, {5, 5}, {7, 7}, {9, 9}, {11, 11}};
+        for (final HexagonOrientation orientation : HexagonOrientation.values()) {
+            for (final int[] size : sizes) {
+                GridLayouStrategyTestUtil.assertContainsExactlyFetchedCoordinates(target,
+                        GridLayouStrategyTestUtil.fetchDefaultBuilder().setOrientation(orientation).setGridWidth(size[0]).setGridHeight(size[1]));
+            }
+        }
+    }
 }
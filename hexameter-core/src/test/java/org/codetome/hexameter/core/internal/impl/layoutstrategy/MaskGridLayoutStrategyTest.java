@@ -0,0 +1,60 @@
+package org.codetome.hexameter.core.internal.impl.layoutstrategy;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridMask;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.MASK;
+
+public class MaskGridLayoutStrategyTest {
+
+    private HexagonalGridBuilder builder;
+    private MaskGridLayoutStrategy target;
+
+    @Before
+    public void setUp() throws Exception {
+        final BitSet bits = new BitSet();
+        bits.set(1);
+        bits.set(3);
+        bits.set(4);
+        bits.set(8);
+        builder = GridLayouStrategyTestUtil.fetchDefaultBuilder()
+                .setGridLayout(MASK)
+                .setGridMask(HexagonalGridMask.fromBitSet(3, 3, bits));
+        target = new MaskGridLayoutStrategy();
+    }
+
+    @Test
+    public void shouldProperlyCreateHexagonsWhenCreateHexagonsIsCalled() {
+        final List<CubeCoordinate> coords = target.fetchGridCoordinates(builder).toList().toBlocking().single();
+        assertEquals(4, coords.size());
+        assertEquals(fromCoordinates(1, 0), coords.get(0));
+        assertEquals(fromCoordinates(0, 1), coords.get(1));
+        assertEquals(fromCoordinates(1, 1), coords.get(2));
+        assertEquals(fromCoordinates(2, 2), coords.get(3));
+    }
+
+    @Test
+    public void shouldOnlyContainMaskedCellsWhenGridIsBuilt() {
+        final HexagonalGrid grid = builder.build();
+        assertTrue(grid.containsCubeCoordinate(fromCoordinates(1, 1)));
+        assertFalse(grid.containsCubeCoordinate(fromCoordinates(0, 0)));
+        assertEquals(2, grid.getNeighborsOf(grid.getByCubeCoordinate(fromCoordinates(1, 1)).get()).size());
+        assertEquals(4, grid.getHexagons().count().toBlocking().single().intValue());
+    }
+
+    @Test
+    public void shouldContainExactlyTheCreatedCoordinatesWhenContainsCoordinateIsCalled() {
+        GridLayouStrategyTestUtil.assertContainsExactlyFetchedCoordinates(target, builder);
+    }
+}
@@ -8,6 +8,7 @@ import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
 import java.util.Collection;
 
 import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.HexagonOrientation;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
 import org.junit.Before;
 import org.junit.Test;
@@ -110,4 +111,14 @@ public class RectangularGridLayoutStrategyTest {
         assertTrue(result);
     }
 
+    @Test
+    public void shouldContainExactlyTheCreatedCoordinatesWhenContainsCoordinateIsCalled() {
+        final int[][] sizes = {{1, 1}, {1, 5}, {1, 8}, {4, 1}, {4, 5}, {4, 8}, {7, 1}, {7, 5}, {7, 8}};
+        for (final HexagonOrientation orientation : HexagonOrientation.values()) {
+            for (final int[] size : sizes) {
+                GridLayouStrategyTestUtil.assertContainsExactlyFetchedCoordinates(target,
+                        GridLayouStrategyTestUtil.fetchDefaultBuilder().setOrientation(orientation).setGridWidth(size[0]).setGridHeight(size[1]));
+            }
+        }
+    }
 }
@@ -9,6 +9,7 @@ import static org.codetome.hexameter.core.internal.impl.layoutstrategy.GridLayou
 import java.util.Collection;
 
 import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.HexagonOrientation;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
 import org.junit.Before;
 import org.junit.Test;
@@ -81,4 +82,15 @@ public class TriangularGridLayoutStrategyTest {
         final boolean result = target.checkParameters(-1, -1); // super: false, derived: true;
         assertFalse(result);
     }
+
+    @Test
+    public void shouldContainExactlyTheCreatedCoordinatesWhenContainsCoordinateIsCalled() {
+        final int[][] sizes = {{1, 1}, {2, 2}, {5, 5}, {8, 8}};
+        for (final HexagonOrientation orientation : HexagonOrientation.values()) {
+            for (final int[] size : sizes) {
+                GridLayouStrategyTestUtil.assertContainsExactlyFetchedCoordinates(target,
+                        GridLayouStrategyTestUtil.fetchDefaultBuilder().setOrientation(orientation).setGridWidth(size[0]).setGridHeight(size[1]));
+            }
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package org.codetome.hexameter.core.testutils;
+
+import rx.functions.Action0;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the bytes allocated on the heap by the current thread using the allocation counter of the HotSpot
+ * {@link ThreadMXBean}. The measured action is run a number of times first so that the measurement is taken
+ * with the compiled (and escape analysed) code which runs in production.
+ */
+public final class AllocationMeter {
+
+    private static final int DEFAULT_WARM_UP_ITERATIONS = 20000;
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    private AllocationMeter(final com.sun.management.ThreadMXBean threadMXBean) {
+        this.threadMXBean = threadMXBean;
+    }
+
+    /**
+     * Tells whether the JVM can count the bytes allocated by a thread.
+     */
+    public static boolean isSupported() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported();
+    }
+
+    /**
+     * Creates a meter. Check {@link #isSupported()} first.
+     */
+    public static AllocationMeter create() {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        bean.setThreadAllocatedMemoryEnabled(true);
+        return new AllocationMeter(bean);
+    }
+
+    /**
+     * Returns the average number of bytes one run of the action allocates.
+     */
+    public double bytesPerOperation(final Action0 action, final int iterations) {
+        return bytesPerOperation(action, DEFAULT_WARM_UP_ITERATIONS, iterations);
+    }
+
+    /**
+     * Returns the average number of bytes one run of the action allocates after the given number of warm up runs.
+     */
+    public double bytesPerOperation(final Action0 action, final int warmUpIterations, final int iterations) {
+        for (int i = 0; i < warmUpIterations; i++) {
+            action.call();
+        }
+        final long threadId = Thread.currentThread().getId();
+        final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            action.call();
+        }
+        return (double) (threadMXBean.getThreadAllocatedBytes(threadId) - start) / iterations;
+    }
+}
@@ -4,9 +4,37 @@ import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javassist.NotFoundException;
-import org.codetome.hexameter.restexample.dto.GridDto;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridMetricsRegistry;
+import org.codetome.hexameter.core.api.GridOperation;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.codetome.hexameter.restexample.binary.GridBinaryWriter;
+import org.codetome.hexameter.restexample.calculator.CalculationService;
+import org.codetome.hexameter.restexample.compute.ComputePool;
+import org.codetome.hexameter.restexample.dto.GridBuildDto;
+import org.codetome.hexameter.restexample.dto.GridOperationStatsDto;
+import org.codetome.hexameter.restexample.dto.GridStatusDto;
+import org.codetome.hexameter.restexample.http.CacheHeaders;
+import org.codetome.hexameter.restexample.http.RequestBodies;
+import org.codetome.hexameter.restexample.http.RouteLatency;
+import org.codetome.hexameter.restexample.http.ResponseCompression;
+import org.codetome.hexameter.restexample.json.GridDataMixIn;
+import org.codetome.hexameter.restexample.json.GridJsonWriter;
+import org.codetome.hexameter.restexample.json.SatelliteDataBatch;
+import org.codetome.hexameter.restexample.model.GridBuilds;
+import org.codetome.hexameter.restexample.model.GridEntry;
+import org.codetome.hexameter.restexample.model.GridRegistry;
 import org.codetome.hexameter.restexample.model.Model;
 import org.codetome.hexameter.restexample.payload.HexagonBuilderPayload;
+import org.codetome.hexameter.restexample.push.GridUpdatePublisher;
+import org.codetome.hexameter.restexample.push.GridUpdateSocket;
+import org.codetome.hexameter.restexample.tile.TileCache;
+import org.codetome.hexameter.restexample.tile.TileRenderer;
+import org.codetome.hexameter.restexample.tile.TileService;
+import org.codetome.hexameter.restexample.viewport.OffsetRange;
+import org.codetome.hexameter.restexample.viewport.Viewport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.ExceptionHandler;
@@ -19,10 +47,20 @@ import spark.TemplateViewRoute;
 import spark.template.thymeleaf.ThymeleafTemplateEngine;
 
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import static java.lang.Double.parseDouble;
 import static java.lang.Integer.parseInt;
 import static spark.Spark.before;
 import static spark.Spark.exception;
@@ -32,23 +70,49 @@ import static spark.Spark.port;
 import static spark.Spark.post;
 import static spark.Spark.put;
 import static spark.Spark.staticFileLocation;
+import static spark.Spark.webSocket;
 
 public class Main {
 
     private static final String BAD_REQUEST = "Bad request";
     private static final String APPLICATION_JSON = "application/json";
     private static final int DEFAULT_PORT = 4567;
+    private static final long MAX_GRID_MEMORY_USAGE = 256L * 1024 * 1024;
+    private static final long MAX_GRID_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final String SPILL_DIRECTORY_VARIABLE = "GRID_SPILL_DIRECTORY";
+    private static final long MAX_TILE_CACHE_SIZE = 64L * 1024 * 1024;
+    private static final long MAX_CALCULATION_CACHE_SIZE = 16L * 1024 * 1024;
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+    private static final long MAX_SYNCHRONOUS_BUILD_CELLS = 250000;
+    private static final long MAX_VIEWPORT_CELLS = 100000;
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final ComputePool BUILD_POOL = new ComputePool("grid-build", Math.max(1, PROCESSORS / 2), 16, TimeUnit.SECONDS.toMillis(30));
+    private static final ComputePool QUERY_POOL = new ComputePool("grid-query", PROCESSORS, 256, TimeUnit.SECONDS.toMillis(10));
+    private static final RouteLatency ROUTE_LATENCY = new RouteLatency();
+    private static final GridMetricsRegistry GRID_METRICS = new HexagonalGridBuilder().buildMetricsRegistry();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().addMixIn(GridData.class, GridDataMixIn.class);
+    private static final GridJsonWriter GRID_JSON_WRITER = new GridJsonWriter(OBJECT_MAPPER);
+    private static final GridBinaryWriter GRID_BINARY_WRITER = new GridBinaryWriter();
+    private static final SatelliteDataBatch SATELLITE_DATA_BATCH = new SatelliteDataBatch(OBJECT_MAPPER);
+    private static final CalculationService CALCULATION_SERVICE = new CalculationService(OBJECT_MAPPER.getFactory(), MAX_CALCULATION_CACHE_SIZE);
 
     private Main() {}
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
         final Logger logger = LoggerFactory.getLogger(Main.class);
-        final Model model = new Model();
+        final String spillDirectory = new ProcessBuilder().environment().get(SPILL_DIRECTORY_VARIABLE);
+        final Model model = new Model(new GridRegistry(MAX_GRID_MEMORY_USAGE, MAX_GRID_IDLE_MILLIS,
+                spillDirectory == null ? null : Paths.get(spillDirectory)), GRID_METRICS);
+        System.setProperty("java.awt.headless", "true");
+        final TileService tileService = new TileService(new TileCache(MAX_TILE_CACHE_SIZE), QUERY_POOL.getTimeoutMillis());
+        final GridBuilds gridBuilds = new GridBuilds(model, BUILD_POOL);
         final Map<String, Object> map = new HashMap<>();
 
         port(getHerokuAssignedPort());
         staticFileLocation("/templates");
+        GridUpdateSocket.setPublisher(new GridUpdatePublisher(model, OBJECT_MAPPER));
+        webSocket("/grids/updates", GridUpdateSocket.class);
 
         if(isRunningOnHeroku()) {
             map.put("appURL", "http://hexameter-rest-example.herokuapp.com");
@@ -64,34 +128,270 @@ public class Main {
             }
         }, new ThymeleafTemplateEngine());
 
-        post("/grids", new Route() {
+        post("/grids", ROUTE_LATENCY.timed("POST /grids", new Route() {
             @Override
             public Object handle(Request request, Response response) throws Exception {
-                HexagonBuilderPayload payload = new ObjectMapper().readValue(request.body(), HexagonBuilderPayload.class);
-                int id = model.createGrid(payload);
-                response.status(201);
+                final HexagonBuilderPayload payload = OBJECT_MAPPER.readValue(request.body(), HexagonBuilderPayload.class);
+                final int id = model.reserveId();
+                return buildGrid(model, gridBuilds, id, payload, response);
+            }
+        }));
+
+        put("/grids", ROUTE_LATENCY.timed("PUT /grids", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final HexagonBuilderPayload payload = OBJECT_MAPPER.readValue(request.body(), HexagonBuilderPayload.class);
+                if (payload.getId() == null) {
+                    throw new IllegalArgumentException("Id of the grid to replace is missing.");
+                }
+                return buildGrid(model, gridBuilds, payload.getId(), payload, response);
+            }
+        }));
+
+        get("/grids/builds/:id", ROUTE_LATENCY.timed("GET /grids/builds/:id", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridBuildDto status = gridBuilds.getStatus(parseInt(request.params(":id")));
+                if (status == null) {
+                    throw new NotFoundException("Build not found: " + request.params(":id"));
+                }
+                if (status.getStatus() == GridBuildDto.GridBuildStatus.PENDING) {
+                    response.status(202);
+                    response.header("Location", request.uri());
+                } else {
+                    response.status(200);
+                }
+                response.type(APPLICATION_JSON);
+                return OBJECT_MAPPER.writeValueAsString(status);
+            }
+        }));
+
+        get("/metrics", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final Map<String, GridOperationStatsDto> result = new LinkedHashMap<>();
+                for (final GridOperation operation : GridOperation.values()) {
+                    result.put(operation.name(), GridOperationStatsDto.fromRegistry(GRID_METRICS, operation));
+                }
+                response.status(200);
                 response.type(APPLICATION_JSON);
-                return id;
+                return OBJECT_MAPPER.writeValueAsString(result);
             }
         });
 
-        put("/grids", new Route() {
+        get("/metrics/grids", new Route() {
             @Override
             public Object handle(Request request, Response response) throws Exception {
-                HexagonBuilderPayload payload = new ObjectMapper().readValue(request.body(), HexagonBuilderPayload.class);
-                int id = model.replaceGrid(payload);
-                response.status(201);
+                final List<GridStatusDto> grids = new ArrayList<>();
+                int materialized = 0;
+                for (final GridEntry entry : model.getGrids().getEntries()) {
+                    final GridStatusDto status = GridStatusDto.fromEntry(entry);
+                    grids.add(status);
+                    materialized += status.isMaterialized() ? 1 : 0;
+                }
+                final Map<String, Object> result = new TreeMap<>();
+                result.put("count", grids.size());
+                result.put("materialized", materialized);
+                result.put("memoryUsage", model.getGrids().getMemoryUsage());
+                result.put("grids", grids);
+                response.status(200);
                 response.type(APPLICATION_JSON);
-                return id;
+                return OBJECT_MAPPER.writeValueAsString(result);
             }
         });
 
-        get("/grids/getGridForDrawing/:id", new Route() {
+        get("/metrics/routes", new Route() {
             @Override
             public Object handle(Request request, Response response) throws Exception {
+                final Map<String, Object> pools = new TreeMap<>();
+                for (final ComputePool pool : new ComputePool[]{BUILD_POOL, QUERY_POOL}) {
+                    final Map<String, Object> poolStats = new TreeMap<>();
+                    poolStats.put("active", pool.getActiveCount());
+                    poolStats.put("queued", pool.getQueueSize());
+                    pools.put(pool.getName(), poolStats);
+                }
+                final Map<String, Object> result = new TreeMap<>();
+                result.put("routes", ROUTE_LATENCY.getStats());
+                result.put("pools", pools);
                 response.status(200);
                 response.type(APPLICATION_JSON);
-                return dataToJson(GridDto.fromGrid(model.getGridById(parseInt(request.params(":id")))));
+                return OBJECT_MAPPER.writeValueAsString(result);
+            }
+        });
+
+        get("/grids/getGridForDrawing/:id", ROUTE_LATENCY.timed("GET /grids/getGridForDrawing/:id", QUERY_POOL.offload(new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final HexagonalGridImpl grid = getEntry(model, request).getGrid();
+                final GridData gridData = grid.getGridData();
+                response.status(200);
+                if (GridBinaryWriter.isAccepted(request.headers("Accept"))) {
+                    final boolean withVertices = Boolean.parseBoolean(request.queryParams("vertices"));
+                    response.type(GridBinaryWriter.CONTENT_TYPE);
+                    GRID_BINARY_WRITER.write(grid, withVertices,
+                            ResponseCompression.open(request, response, GridBinaryWriter.calculateSize(gridData, withVertices)));
+                } else {
+                    response.type(APPLICATION_JSON);
+                    final long cellCount = gridData.getGridLayout().getGridLayoutStrategy().getCellCount(gridData);
+                    GRID_JSON_WRITER.write(grid, ResponseCompression.open(request, response, cellCount * GridJsonWriter.ESTIMATED_CELL_SIZE));
+                }
+                return "";
+            }
+        })));
+
+        get("/grids/:id/viewport", ROUTE_LATENCY.timed("GET /grids/:id/viewport", QUERY_POOL.offload(new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridEntry entry = getEntry(model, request);
+                final Viewport viewport = new Viewport(
+                        parseDouble(request.queryParams("x")),
+                        parseDouble(request.queryParams("y")),
+                        parseDouble(request.queryParams("width")),
+                        parseDouble(request.queryParams("height")));
+                return writeViewport(entry, viewport, request, response);
+            }
+        })));
+
+        get("/grids/:id/tiles/:z/:x/:y", ROUTE_LATENCY.timed("GET /grids/:id/tiles/:z/:x/:y", QUERY_POOL.offload(new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridEntry entry = getEntry(model, request);
+                final Viewport viewport = Viewport.fromTile(entry.getGrid().getGridData(),
+                        parseInt(request.params(":z")), parseInt(request.params(":x")), parseInt(request.params(":y")));
+                return writeViewport(entry, viewport, request, response);
+            }
+        })));
+
+        get("/grids/:id/raster/:z/:x/:y", ROUTE_LATENCY.timed("GET /grids/:id/raster/:z/:x/:y", QUERY_POOL.offload(new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridEntry entry = getEntry(model, request);
+                if (CacheHeaders.isNotModified(entry, request, response)) {
+                    return "";
+                }
+                final byte[] tile = tileService.getTile(entry,
+                        parseInt(request.params(":z")), parseInt(request.params(":x")), parseInt(request.params(":y")));
+                response.status(200);
+                response.type(TileRenderer.CONTENT_TYPE);
+                try (OutputStream output = response.raw().getOutputStream()) {
+                    output.write(tile);
+                }
+                return "";
+            }
+        })));
+
+        post("/grids/:id/satelliteData", ROUTE_LATENCY.timed("POST /grids/:id/satelliteData", QUERY_POOL.offload(new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridEntry entry = getEntry(model, request);
+                final HexagonalGridImpl grid = entry.acquire();
+                final Object result;
+                try {
+                    result = SATELLITE_DATA_BATCH.applyUpdates(grid, RequestBodies.open(request));
+                } finally {
+                    entry.release();
+                }
+                response.status(200);
+                response.type(APPLICATION_JSON);
+                return OBJECT_MAPPER.writeValueAsString(result);
+            }
+        })));
+
+        post("/grids/:id/satelliteData/query", ROUTE_LATENCY.timed("POST /grids/:id/satelliteData/query", QUERY_POOL.offload(new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final HexagonalGridImpl grid = getEntry(model, request).getGrid();
+                response.status(200);
+                response.type(APPLICATION_JSON);
+                // the size of the answer is about the size of the request
+                SATELLITE_DATA_BATCH.query(grid, RequestBodies.open(request),
+                        ResponseCompression.open(request, response, request.raw().getContentLength()));
+                return "";
+            }
+        })));
+
+        get("/grids/:id/satelliteData", ROUTE_LATENCY.timed("GET /grids/:id/satelliteData", QUERY_POOL.offload(new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridEntry entry = getEntry(model, request);
+                final HexagonalGridImpl grid = entry.getGrid();
+                final OffsetRange range = OffsetRange.clampedTo(grid.getGridData(),
+                        parseInt(request.queryParams("gridXFrom")), parseInt(request.queryParams("gridXTo")),
+                        parseInt(request.queryParams("gridYFrom")), parseInt(request.queryParams("gridYTo")));
+                range.checkCellCount(MAX_VIEWPORT_CELLS);
+                if (CacheHeaders.isNotModified(entry, request, response)) {
+                    return "";
+                }
+                response.status(200);
+                response.type(APPLICATION_JSON);
+                final long expectedSize = range.getCellCount() * SatelliteDataBatch.ESTIMATED_CELL_SIZE;
+                SATELLITE_DATA_BATCH.write(range.getHexagons(grid), ResponseCompression.open(request, response, expectedSize));
+                return "";
+            }
+        })));
+
+        get("/grids/:id/distance", ROUTE_LATENCY.timed("GET /grids/:id/distance", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridEntry entry = getEntry(model, request);
+                final String result = CALCULATION_SERVICE.calculateDistance(entry,
+                        CubeCoordinate.fromAxialKey(request.queryParams("from")), CubeCoordinate.fromAxialKey(request.queryParams("to")));
+                response.status(200);
+                response.type(APPLICATION_JSON);
+                return result;
+            }
+        }));
+
+        get("/grids/:id/range", ROUTE_LATENCY.timed("GET /grids/:id/range", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridEntry entry = getEntry(model, request);
+                final CubeCoordinate from = CubeCoordinate.fromAxialKey(request.queryParams("from"));
+                final int distance = parseInt(request.queryParams("distance"));
+                final String result = QUERY_POOL.call(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return CALCULATION_SERVICE.calculateMovementRange(entry, from, distance);
+                    }
+                });
+                response.status(200);
+                response.type(APPLICATION_JSON);
+                return result;
+            }
+        }));
+
+        get("/grids/:id/line", ROUTE_LATENCY.timed("GET /grids/:id/line", new Route() {
+            @Override
+            public Object handle(Request request, Response response) throws Exception {
+                final GridEntry entry = getEntry(model, request);
+                final CubeCoordinate from = CubeCoordinate.fromAxialKey(request.queryParams("from"));
+                final CubeCoordinate to = CubeCoordinate.fromAxialKey(request.queryParams("to"));
+                final String result = QUERY_POOL.call(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return CALCULATION_SERVICE.drawLine(entry, from, to);
+                    }
+                });
+                response.status(200);
+                response.type(APPLICATION_JSON);
+                return result;
+            }
+        }));
+
+        exception(RejectedExecutionException.class, new ExceptionHandler() {
+            @Override
+            public void handle(Exception e, Request request, Response response) {
+                response.status(503);
+                response.header("Retry-After", RETRY_AFTER_SECONDS);
+                response.body("Server is busy");
+            }
+        });
+
+        exception(TimeoutException.class, new ExceptionHandler() {
+            @Override
+            public void handle(Exception e, Request request, Response response) {
+                response.status(503);
+                response.body("Request timed out");
             }
         });
 
@@ -103,6 +403,14 @@ public class Main {
             }
         });
 
+        exception(IllegalArgumentException.class, new ExceptionHandler() {
+            @Override
+            public void handle(Exception e, Request request, Response response) {
+                response.status(400);
+                response.body(BAD_REQUEST);
+            }
+        });
+
         exception(IOException.class, new ExceptionHandler() {
             @Override
             public void handle(Exception e, Request request, Response response) {
@@ -163,15 +471,48 @@ public class Main {
     }
 
 
-    private static String dataToJson(Object data) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            StringWriter sw = new StringWriter();
-            mapper.writeValue(sw, data);
-            return sw.toString();
-        } catch (IOException e) {
-            throw new RuntimeException("IOException from a StringWriter?");
+    private static GridEntry getEntry(Model model, Request request) throws NotFoundException {
+        final GridEntry entry = model.getEntryById(parseInt(request.params(":id")));
+        if (entry == null) {
+            throw new NotFoundException("Grid not found: " + request.params(":id"));
+        }
+        return entry;
+    }
+
+    private static Object writeViewport(GridEntry entry, Viewport viewport, Request request, Response response) throws IOException {
+        viewport.checkCellCount(entry.getGrid().getGridData(), MAX_VIEWPORT_CELLS);
+        if (CacheHeaders.isNotModified(entry, request, response)) {
+            return "";
+        }
+        response.status(200);
+        response.type(APPLICATION_JSON);
+        final long expectedSize = viewport.estimateCellCount(entry.getGrid().getGridData()) * GridJsonWriter.ESTIMATED_CELL_SIZE;
+        GRID_JSON_WRITER.write(entry.getGrid(), viewport.getCoveredHexagons(entry.getGrid()), ResponseCompression.open(request, response, expectedSize));
+        return "";
+    }
+
+    /**
+     * Builds small grids right away (on the build pool) and answers 201 with the id. Big ones are built in the
+     * background and the answer is 202 with the location of the status of the build.
+     */
+    private static Object buildGrid(final Model model, final GridBuilds gridBuilds, final int id,
+                                    final HexagonBuilderPayload payload, final Response response) throws Exception {
+        response.type(APPLICATION_JSON);
+        if (Model.estimateCellCount(payload) > MAX_SYNCHRONOUS_BUILD_CELLS) {
+            gridBuilds.submit(id, payload);
+            response.status(202);
+            response.header("Location", "/grids/builds/" + id);
+            return id;
         }
+        BUILD_POOL.await(new Callable<Void>() {
+            @Override
+            public Void call() {
+                model.createGrid(id, payload);
+                return null;
+            }
+        });
+        response.status(201);
+        return id;
     }
 
     private static boolean isRunningOnHeroku() {
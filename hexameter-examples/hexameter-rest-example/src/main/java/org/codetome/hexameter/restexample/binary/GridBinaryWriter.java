@@ -0,0 +1,162 @@
+package org.codetome.hexameter.restexample.binary;
+
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.restexample.geometry.VertexOffsets;
+import rx.Subscriber;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>
+ * Writes the geometry of a HexagonalGrid in a packed little-endian layout which can be loaded into typed arrays
+ * by a browser without any parsing. Every field is 4 bytes long so a single Int32Array and a Float32Array over
+ * the same buffer can read everything.
+ * </p>
+ * <p>
+ * The header is 8 fields: the magic bytes <code>HXGB</code>, format version, flags ({@link #VERTICES_FLAG}),
+ * number of cells, size of a cell record in bytes, orientation and layout ordinals (int32) and the radius (float32).
+ * Then comes a record for every cell: the cube coordinate (int32 x and z) and the center point (float32 x and y)
+ * followed by the 6 vertices (float32 x and y each) if they were requested.
+ * </p>
+ * <p>
+ * Cells are written as they are iterated through a fixed size buffer so the memory needed does not depend on the
+ * size of the grid. Instances are thread safe.
+ * </p>
+ */
+public class GridBinaryWriter {
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+    public static final int MAGIC = 0x42475848;
+    public static final int FORMAT_VERSION = 1;
+    public static final int VERTICES_FLAG = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int CELL_SIZE = 16;
+    public static final int VERTICES_SIZE = VertexOffsets.VERTEX_COUNT * 8;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Tells whether the given Accept header asks for this format.
+     *
+     * @param accept Accept header (can be null)
+     * @return is binary accepted?
+     */
+    public static boolean isAccepted(final String accept) {
+        return accept != null && accept.contains(CONTENT_TYPE);
+    }
+
+    /**
+     * Returns the number of bytes {@link #write(HexagonalGrid, boolean, OutputStream)} writes for the given grid.
+     *
+     * @param gridData grid data of the grid
+     * @param withVertices are vertices written?
+     * @return size in bytes
+     */
+    public static long calculateSize(final GridData gridData, final boolean withVertices) {
+        return HEADER_SIZE + (long) getCellCount(gridData) * getRecordSize(withVertices);
+    }
+
+    /**
+     * Writes the geometry of the given grid to the given stream and closes it.
+     *
+     * @param grid grid
+     * @param withVertices should the vertices be written?
+     * @param outputStream stream
+     * @throws IOException if writing fails
+     */
+    public void write(final HexagonalGrid grid, final boolean withVertices, final OutputStream outputStream) throws IOException {
+        try (OutputStream output = outputStream) {
+            final GridData gridData = grid.getGridData();
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putInt(withVertices ? VERTICES_FLAG : 0)
+                    .putInt(getCellCount(gridData))
+                    .putInt(getRecordSize(withVertices))
+                    .putInt(gridData.getOrientation().ordinal())
+                    .putInt(gridData.getGridLayout().ordinal())
+                    .putFloat((float) gridData.getRadius());
+            final CellWriter cellWriter = new CellWriter(buffer, output, withVertices ? new VertexOffsets(gridData) : null);
+            grid.getHexagons().subscribe(cellWriter);
+            cellWriter.rethrowFailure();
+            drain(buffer, output);
+        }
+    }
+
+    private static int getCellCount(final GridData gridData) {
+        return gridData.getGridLayout().getGridLayoutStrategy().getCellCount(gridData);
+    }
+
+    private static int getRecordSize(final boolean withVertices) {
+        return withVertices ? CELL_SIZE + VERTICES_SIZE : CELL_SIZE;
+    }
+
+    private static void drain(final ByteBuffer buffer, final OutputStream output) throws IOException {
+        output.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    /**
+     * Writes the cells as they are emitted and keeps the first failure so the caller can rethrow it.
+     */
+    private static class CellWriter extends Subscriber<Hexagon> {
+
+        private final ByteBuffer buffer;
+        private final OutputStream output;
+        private final VertexOffsets vertexOffsets;
+        private IOException failure;
+
+        CellWriter(final ByteBuffer buffer, final OutputStream output, final VertexOffsets vertexOffsets) {
+            this.buffer = buffer;
+            this.output = output;
+            this.vertexOffsets = vertexOffsets;
+        }
+
+        @Override
+        public void onNext(final Hexagon hexagon) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                if (buffer.remaining() < CELL_SIZE + VERTICES_SIZE) {
+                    drain(buffer, output);
+                }
+                final double centerX = hexagon.getCenterX();
+                final double centerY = hexagon.getCenterY();
+                buffer.putInt(hexagon.getGridX())
+                        .putInt(hexagon.getGridZ())
+                        .putFloat((float) centerX)
+                        .putFloat((float) centerY);
+                if (vertexOffsets != null) {
+                    for (int i = 0; i < VertexOffsets.VERTEX_COUNT; i++) {
+                        buffer.putFloat((float) (centerX + vertexOffsets.getOffsetX(i)))
+                                .putFloat((float) (centerY + vertexOffsets.getOffsetY(i)));
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+                unsubscribe();
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            failure = new IOException(throwable);
+        }
+
+        void rethrowFailure() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
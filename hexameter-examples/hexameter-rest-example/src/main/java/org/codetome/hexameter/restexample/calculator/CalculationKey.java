@@ -0,0 +1,16 @@
+package org.codetome.hexameter.restexample.calculator;
+
+import lombok.Data;
+import org.codetome.hexameter.restexample.model.GridEntry;
+
+/**
+ * Identifies the result of a calculation. Entries are compared by identity so results for a replaced grid
+ * never match.
+ */
+@Data
+final class CalculationKey {
+    private final GridEntry entry;
+    private final long version;
+    private final String operation;
+    private final String arguments;
+}
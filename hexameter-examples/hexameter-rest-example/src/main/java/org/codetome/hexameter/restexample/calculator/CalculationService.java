@@ -0,0 +1,220 @@
+package org.codetome.hexameter.restexample.calculator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridCalculator;
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.restexample.model.GridEntry;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * <p>
+ * Answers {@link HexagonalGridCalculator} operations on the grids as JSON. Concurrent requests for the same
+ * operation with the same arguments on the same grid version are coalesced: the first one computes the result
+ * and the others wait for it. Results are cached up to a total size and the least recently used ones are evicted.
+ * </p>
+ * <p>
+ * Distance, movement range and line only depend on the layout of the grid, not on its satellite data, so their
+ * results are valid for every version of a grid ({@link #ANY_VERSION}). Operations which read satellite data
+ * (like pathfinding with obstacles) have to use the version of the grid in their key.
+ * </p>
+ */
+public class CalculationService {
+
+    /**
+     * Movement ranges are limited to this distance (about 30 thousand cells).
+     */
+    public static final int MAX_RANGE_DISTANCE = 100;
+
+    static final long ANY_VERSION = -1;
+
+    private static final String DISTANCE = "distance";
+    private static final String RANGE = "range";
+    private static final String LINE = "line";
+    private static final long ENTRY_OVERHEAD = 64;
+
+    private final JsonFactory jsonFactory;
+    private final long maxCacheSize;
+    private final LinkedHashMap<CalculationKey, String> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<CalculationKey, FutureTask<String>> calculations = new ConcurrentHashMap<>();
+    private long cacheSize;
+
+    /**
+     * Creates a service.
+     *
+     * @param jsonFactory factory of the generators of the results
+     * @param maxCacheSize maximum total size of the cached results in bytes
+     */
+    public CalculationService(final JsonFactory jsonFactory, final long maxCacheSize) {
+        this.jsonFactory = jsonFactory;
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    /**
+     * Returns <code>{"distance": n}</code> where n is the distance between the given cells in cells.
+     *
+     * @param entry grid
+     * @param from first cell
+     * @param to second cell
+     * @return JSON
+     */
+    public String calculateDistance(final GridEntry entry, final CubeCoordinate from, final CubeCoordinate to) {
+        final CalculationKey key = new CalculationKey(entry, ANY_VERSION, DISTANCE, from.toAxialKey() + ";" + to.toAxialKey());
+        return calculate(key, new Calculation() {
+            @Override
+            void write(final HexagonalGrid grid, final HexagonalGridCalculator calculator, final JsonGenerator generator) throws IOException {
+                generator.writeStartObject();
+                generator.writeNumberField("distance", calculator.calculateDistanceBetween(getHexagon(grid, from), getHexagon(grid, to)));
+                generator.writeEndObject();
+            }
+        });
+    }
+
+    /**
+     * Returns the grid coordinates (<code>[[x, z], ...]</code>) of the cells within the given distance of a cell.
+     *
+     * @param entry grid
+     * @param from center cell
+     * @param distance distance (at most {@link #MAX_RANGE_DISTANCE})
+     * @return JSON
+     */
+    public String calculateMovementRange(final GridEntry entry, final CubeCoordinate from, final int distance) {
+        if (distance < 0 || distance > MAX_RANGE_DISTANCE) {
+            throw new IllegalArgumentException("Distance must be between 0 and " + MAX_RANGE_DISTANCE + ": " + distance);
+        }
+        final CalculationKey key = new CalculationKey(entry, ANY_VERSION, RANGE, from.toAxialKey() + ";" + distance);
+        return calculate(key, new Calculation() {
+            @Override
+            void write(final HexagonalGrid grid, final HexagonalGridCalculator calculator, final JsonGenerator generator) throws IOException {
+                writeCoordinates(generator, calculator.calculateMovementRangeFrom(getHexagon(grid, from), distance));
+            }
+        });
+    }
+
+    /**
+     * Returns the grid coordinates (<code>[[x, z], ...]</code>) of the cells of the line between two cells in order.
+     *
+     * @param entry grid
+     * @param from first cell
+     * @param to last cell
+     * @return JSON
+     */
+    public String drawLine(final GridEntry entry, final CubeCoordinate from, final CubeCoordinate to) {
+        final CalculationKey key = new CalculationKey(entry, ANY_VERSION, LINE, from.toAxialKey() + ";" + to.toAxialKey());
+        return calculate(key, new Calculation() {
+            @Override
+            void write(final HexagonalGrid grid, final HexagonalGridCalculator calculator, final JsonGenerator generator) throws IOException {
+                writeCoordinates(generator, calculator.drawLine(getHexagon(grid, from), getHexagon(grid, to)));
+            }
+        });
+    }
+
+    public synchronized long getCacheSize() {
+        return cacheSize;
+    }
+
+    private String calculate(final CalculationKey key, final Calculation calculation) {
+        final String cached = getCached(key);
+        if (cached != null) {
+            return cached;
+        }
+        final FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                final HexagonalGrid grid = key.getEntry().getGrid();
+                final StringWriter writer = new StringWriter();
+                try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+                    calculation.write(grid, new HexagonalGridBuilder().buildCalculatorFor(grid), generator);
+                }
+                final String result = writer.toString();
+                putCached(key, result);
+                return result;
+            }
+        });
+        FutureTask<String> calculating = calculations.putIfAbsent(key, task);
+        if (calculating == null) {
+            calculating = task;
+            task.run();
+        }
+        try {
+            return calculating.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key.getOperation(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not calculate " + key.getOperation(), e.getCause());
+        } finally {
+            calculations.remove(key, calculating);
+        }
+    }
+
+    private synchronized String getCached(final CalculationKey key) {
+        return results.get(key);
+    }
+
+    private synchronized void putCached(final CalculationKey key, final String result) {
+        final long size = sizeOf(key, result);
+        if (size > maxCacheSize) {
+            return;
+        }
+        final String previous = results.put(key, result);
+        if (previous != null) {
+            cacheSize -= sizeOf(key, previous);
+        }
+        cacheSize += size;
+        final Iterator<Map.Entry<CalculationKey, String>> iterator = results.entrySet().iterator();
+        while (cacheSize > maxCacheSize) {
+            final Map.Entry<CalculationKey, String> eldest = iterator.next();
+            iterator.remove();
+            cacheSize -= sizeOf(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private static long sizeOf(final CalculationKey key, final String result) {
+        return ENTRY_OVERHEAD + 2L * (key.getArguments().length() + result.length());
+    }
+
+    private static Hexagon getHexagon(final HexagonalGrid grid, final CubeCoordinate coordinate) {
+        final Optional<Hexagon> hexagon = grid.getByCubeCoordinate(coordinate);
+        if (!hexagon.isPresent()) {
+            throw new IllegalArgumentException("Cell is not on the grid: " + coordinate.toAxialKey());
+        }
+        return hexagon.get();
+    }
+
+    private static void writeCoordinates(final JsonGenerator generator, final Collection<Hexagon> hexagons) throws IOException {
+        generator.writeStartArray();
+        for (final Hexagon hexagon : hexagons) {
+            generator.writeStartArray();
+            generator.writeNumber(hexagon.getGridX());
+            generator.writeNumber(hexagon.getGridZ());
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes the result of an operation.
+     */
+    private abstract static class Calculation {
+        abstract void write(HexagonalGrid grid, HexagonalGridCalculator calculator, JsonGenerator generator) throws IOException;
+    }
+}
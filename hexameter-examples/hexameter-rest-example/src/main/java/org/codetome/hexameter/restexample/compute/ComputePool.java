@@ -0,0 +1,172 @@
+package org.codetome.hexameter.restexample.compute;
+
+import lombok.Getter;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A fixed number of threads with a bounded queue for work which is too heavy for the request threads of the
+ * server. When the queue is full new tasks are rejected with a {@link RejectedExecutionException} right away
+ * instead of piling up, and a caller waiting for a task with {@link #call(Callable)} gives up after a timeout (the
+ * task is interrupted).
+ * </p>
+ * <p>
+ * Tasks which write to the response or change a grid must not be abandoned halfway: the response would be
+ * written after the request was answered and a batch of changes would be partially applied. Those tasks are run
+ * with {@link #await(Callable)} (or {@link #offload(Route)}) which waits for them without a timeout.
+ * </p>
+ * <p>
+ * The request threads still wait for the result (the routes are synchronous) but only as many heavy requests are
+ * processed at once as there are threads, so a few big ones can't starve the light ones of CPU.
+ * </p>
+ */
+public class ComputePool {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates a pool.
+     *
+     * @param name name of the pool (used for the threads)
+     * @param threads number of threads
+     * @param queueLimit maximum number of waiting tasks
+     * @param timeoutMillis how long {@link #call(Callable)} waits for a task
+     */
+    public ComputePool(final String name, final int threads, final int queueLimit, final long timeoutMillis) {
+        this.name = name;
+        this.timeoutMillis = timeoutMillis;
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueLimit), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Submits a task without waiting for it.
+     *
+     * @param task task
+     * @param <T> type of the result
+     * @return future of the result
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public <T> Future<T> submit(final Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Runs a task on the pool and waits for its result. Exceptions thrown by the task are rethrown as they are.
+     * The task is interrupted after the timeout so it must only compute its result: it must not touch the
+     * response or change anything.
+     *
+     * @param task task
+     * @param <T> type of the result
+     * @return result
+     * @throws RejectedExecutionException if the queue is full
+     * @throws TimeoutException if the task did not finish in time
+     * @throws Exception thrown by the task
+     */
+    public <T> T call(final Callable<T> task) throws Exception {
+        return get(submit(task), true);
+    }
+
+    /**
+     * Runs a task on the pool and waits for it as long as it takes (even if the waiting thread is interrupted).
+     * Exceptions thrown by the task are rethrown as they are.
+     *
+     * @param task task
+     * @param <T> type of the result
+     * @return result
+     * @throws RejectedExecutionException if the queue is full
+     * @throws Exception thrown by the task
+     */
+    public <T> T await(final Callable<T> task) throws Exception {
+        return get(submit(task), false);
+    }
+
+    /**
+     * Wraps a route so that it is handled on this pool. The route may stream to the response so it is waited for
+     * without a timeout (see {@link #await(Callable)}).
+     *
+     * @param route route
+     * @return route which waits for the given one
+     */
+    public Route offload(final Route route) {
+        return new Route() {
+            @Override
+            public Object handle(final Request request, final Response response) throws Exception {
+                return await(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        return route.handle(request, response);
+                    }
+                });
+            }
+        };
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    private <T> T get(final Future<T> future, final boolean timed) throws Exception {
+        try {
+            return timed ? future.get(timeoutMillis, TimeUnit.MILLISECONDS) : getUninterruptibly(future);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static <T> T getUninterruptibly(final Future<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
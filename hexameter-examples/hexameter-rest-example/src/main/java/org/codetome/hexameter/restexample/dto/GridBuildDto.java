@@ -0,0 +1,20 @@
+package org.codetome.hexameter.restexample.dto;
+
+import lombok.Data;
+
+@Data
+public class GridBuildDto {
+    /**
+     * Id of the grid being built.
+     */
+    private int id;
+    private GridBuildStatus status;
+    /**
+     * Reason of the failure if the build failed.
+     */
+    private String message;
+
+    public enum GridBuildStatus {
+        PENDING, DONE, FAILED
+    }
+}
@@ -0,0 +1,35 @@
+package org.codetome.hexameter.restexample.dto;
+
+import lombok.Data;
+import org.codetome.hexameter.core.api.GridMetricsRegistry;
+import org.codetome.hexameter.core.api.GridOperation;
+
+/**
+ * Metrics of a grid operation. Percentiles are upper bounds which are at most twice the real value.
+ */
+@Data
+public class GridOperationStatsDto {
+
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final double P50 = 0.5;
+    private static final double P90 = 0.9;
+    private static final double P99 = 0.99;
+
+    private long count;
+    private long cellsVisited;
+    private double meanMicros;
+    private double p50Micros;
+    private double p90Micros;
+    private double p99Micros;
+
+    public static GridOperationStatsDto fromRegistry(GridMetricsRegistry registry, GridOperation operation) {
+        final GridOperationStatsDto result = new GridOperationStatsDto();
+        result.setCount(registry.getCallCount(operation));
+        result.setCellsVisited(registry.getCellsVisited(operation));
+        result.setMeanMicros(result.getCount() == 0 ? 0 : registry.getTotalNanos(operation) / NANOS_PER_MICRO / result.getCount());
+        result.setP50Micros(registry.getLatencyPercentileNanos(operation, P50) / NANOS_PER_MICRO);
+        result.setP90Micros(registry.getLatencyPercentileNanos(operation, P90) / NANOS_PER_MICRO);
+        result.setP99Micros(registry.getLatencyPercentileNanos(operation, P99) / NANOS_PER_MICRO);
+        return result;
+    }
+}
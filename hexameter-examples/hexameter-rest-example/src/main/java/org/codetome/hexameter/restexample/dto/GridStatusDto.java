@@ -0,0 +1,30 @@
+package org.codetome.hexameter.restexample.dto;
+
+import lombok.Data;
+import org.codetome.hexameter.restexample.model.GridEntry;
+
+@Data
+public class GridStatusDto {
+
+    private int id;
+    private long version;
+    /**
+     * Is the grid on the heap (not spilled)?
+     */
+    private boolean loaded;
+    /**
+     * Was the grid ever materialized (traversed or written)?
+     */
+    private boolean materialized;
+    private long estimatedMemoryUsage;
+
+    public static GridStatusDto fromEntry(GridEntry entry) {
+        final GridStatusDto result = new GridStatusDto();
+        result.setId(entry.getId());
+        result.setVersion(entry.getVersion());
+        result.setLoaded(entry.isLoaded());
+        result.setMaterialized(entry.isMaterialized());
+        result.setEstimatedMemoryUsage(entry.getEstimatedMemoryUsage());
+        return result;
+    }
+}
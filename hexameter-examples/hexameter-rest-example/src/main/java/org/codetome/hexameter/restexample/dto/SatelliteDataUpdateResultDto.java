@@ -0,0 +1,19 @@
+package org.codetome.hexameter.restexample.dto;
+
+import lombok.Data;
+
+@Data
+public class SatelliteDataUpdateResultDto {
+    /**
+     * Number of cells whose satellite data was set.
+     */
+    private int updated;
+    /**
+     * Number of cells whose satellite data was cleared.
+     */
+    private int cleared;
+    /**
+     * Number of updates for coordinates which are not on the grid.
+     */
+    private int skipped;
+}
@@ -0,0 +1,36 @@
+package org.codetome.hexameter.restexample.geometry;
+
+import org.codetome.hexameter.core.internal.GridData;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+/**
+ * The offsets of the 6 vertices of a Hexagon from its center. Every Hexagon of a grid has the same offsets
+ * so they can be calculated once from the GridData instead of calling Hexagon#getPoints for every cell.
+ * The order of the vertices is the same as the one of Hexagon#getPoints.
+ */
+public final class VertexOffsets {
+
+    public static final int VERTEX_COUNT = 6;
+
+    private final double[] offsetsX = new double[VERTEX_COUNT];
+    private final double[] offsetsY = new double[VERTEX_COUNT];
+
+    public VertexOffsets(final GridData gridData) {
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            final double angle = 2 * PI / VERTEX_COUNT * (i + gridData.getOrientation().getCoordinateOffset());
+            offsetsX[i] = gridData.getRadius() * cos(angle);
+            offsetsY[i] = gridData.getRadius() * sin(angle);
+        }
+    }
+
+    public double getOffsetX(final int vertex) {
+        return offsetsX[vertex];
+    }
+
+    public double getOffsetY(final int vertex) {
+        return offsetsY[vertex];
+    }
+}
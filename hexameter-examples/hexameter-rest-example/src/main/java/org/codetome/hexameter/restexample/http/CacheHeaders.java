@@ -0,0 +1,48 @@
+package org.codetome.hexameter.restexample.http;
+
+import org.codetome.hexameter.restexample.model.GridEntry;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Conditional request support for responses which only depend on the version of a grid.
+ * Clients (and proxies) have to revalidate every time but get a 304 without a body while the grid is unchanged.
+ */
+public final class CacheHeaders {
+
+    public static final int NOT_MODIFIED = 304;
+
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    private CacheHeaders() {
+    }
+
+    /**
+     * Sets the ETag, Last-Modified and Cache-Control headers for the given grid and tells whether the
+     * client already has this version. In that case the status is set to 304 and no body should be sent.
+     *
+     * @param entry grid
+     * @param request request
+     * @param response response
+     * @return is the copy of the client up to date?
+     */
+    public static boolean isNotModified(final GridEntry entry, final Request request, final Response response) {
+        final String etag = "\"" + entry.getVersion() + "\"";
+        final long lastModified = entry.getLastModified() / MILLIS_PER_SECOND * MILLIS_PER_SECOND;
+        response.header("ETag", etag);
+        response.header("Cache-Control", "no-cache");
+        response.raw().setDateHeader("Last-Modified", lastModified);
+        final String ifNoneMatch = request.headers("If-None-Match");
+        final boolean notModified;
+        if (ifNoneMatch != null) {
+            notModified = ifNoneMatch.contains(etag) || "*".equals(ifNoneMatch.trim());
+        } else {
+            final long ifModifiedSince = request.raw().getDateHeader("If-Modified-Since");
+            notModified = ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+        }
+        if (notModified) {
+            response.status(NOT_MODIFIED);
+        }
+        return notModified;
+    }
+}
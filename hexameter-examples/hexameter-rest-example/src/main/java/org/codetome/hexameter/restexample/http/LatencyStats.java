@@ -0,0 +1,76 @@
+package org.codetome.hexameter.restexample.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency statistics of a route. Durations are counted in buckets of powers of two microseconds so the percentiles
+ * are upper bounds which are at most twice the real value. Updates are lock free.
+ */
+public class LatencyStats {
+
+    private static final int BUCKET_COUNT = 40;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final long NANOS_PER_MICRO = 1000;
+    private static final double P50 = 0.5;
+    private static final double P90 = 0.9;
+    private static final double P99 = 0.99;
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    void record(final long nanos) {
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+        final int bucket = Math.min(64 - Long.numberOfLeadingZeros(nanos / NANOS_PER_MICRO), BUCKET_COUNT - 1);
+        buckets.incrementAndGet(bucket);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getMeanMillis() {
+        final long currentCount = count.get();
+        return currentCount == 0 ? 0 : totalNanos.get() / NANOS_PER_MILLI / currentCount;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / NANOS_PER_MILLI;
+    }
+
+    public double getP50Millis() {
+        return getPercentileMillis(P50);
+    }
+
+    public double getP90Millis() {
+        return getPercentileMillis(P90);
+    }
+
+    public double getP99Millis() {
+        return getPercentileMillis(P99);
+    }
+
+    private double getPercentileMillis(final double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += buckets.get(i);
+        }
+        final long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return (1L << i) / MICROS_PER_MILLI;
+            }
+        }
+        return 0;
+    }
+}
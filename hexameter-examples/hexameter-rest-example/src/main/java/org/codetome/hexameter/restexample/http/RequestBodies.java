@@ -0,0 +1,34 @@
+package org.codetome.hexameter.restexample.http;
+
+import spark.Request;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Access to request bodies which are too big to be read into memory at once.
+ */
+public final class RequestBodies {
+
+    private RequestBodies() {
+    }
+
+    /**
+     * Returns the body of the request as a stream. Spark wraps the request of the container in a wrapper which
+     * reads the whole body into memory the first time it is accessed so the stream of the original request is
+     * returned instead. The body can't be read with {@link Request#body()} afterwards.
+     *
+     * @param request request
+     * @return body
+     * @throws IOException if the body can't be opened
+     */
+    public static InputStream open(final Request request) throws IOException {
+        ServletRequest servletRequest = request.raw();
+        while (servletRequest instanceof ServletRequestWrapper) {
+            servletRequest = ((ServletRequestWrapper) servletRequest).getRequest();
+        }
+        return servletRequest.getInputStream();
+    }
+}
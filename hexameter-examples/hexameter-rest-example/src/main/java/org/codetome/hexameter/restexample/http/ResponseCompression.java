@@ -0,0 +1,62 @@
+package org.codetome.hexameter.restexample.http;
+
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opens the output stream of a response which compresses the body with gzip or deflate if the client accepts it
+ * and the body is expected to be bigger than {@link #THRESHOLD}. Small bodies are not worth the CPU time.
+ */
+public final class ResponseCompression {
+
+    public static final long THRESHOLD = 8 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    private ResponseCompression() {
+    }
+
+    /**
+     * Returns the output stream of the response, compressed if it is worth it. Set every other header before calling this.
+     *
+     * @param request request
+     * @param response response
+     * @param expectedSize expected size of the body in bytes
+     * @return stream to write the body to (closing it finishes the compression)
+     * @throws IOException if the stream can't be opened
+     */
+    public static OutputStream open(final Request request, final Response response, final long expectedSize) throws IOException {
+        response.header("Vary", "Accept, Accept-Encoding");
+        final String acceptEncoding = request.headers("Accept-Encoding");
+        final OutputStream output = response.raw().getOutputStream();
+        if (acceptEncoding == null || expectedSize < THRESHOLD) {
+            return output;
+        }
+        if (acceptEncoding.contains(GZIP)) {
+            response.header("Content-Encoding", GZIP);
+            return new GZIPOutputStream(output, BUFFER_SIZE);
+        }
+        if (acceptEncoding.contains(DEFLATE)) {
+            response.header("Content-Encoding", DEFLATE);
+            return new DeflaterOutputStream(output, new Deflater(Deflater.DEFAULT_COMPRESSION), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+        return output;
+    }
+}
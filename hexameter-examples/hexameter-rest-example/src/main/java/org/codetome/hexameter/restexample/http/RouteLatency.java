@@ -0,0 +1,51 @@
+package org.codetome.hexameter.restexample.http;
+
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Measures how long the routes take (including the time spent waiting for a compute pool and failed requests).
+ */
+public class RouteLatency {
+
+    private final ConcurrentMap<String, LatencyStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Wraps a route so that its latency is recorded under the given name.
+     *
+     * @param name name of the route, like <code>GET /grids/:id</code>
+     * @param route route
+     * @return measured route
+     */
+    public Route timed(final String name, final Route route) {
+        final LatencyStats routeStats = new LatencyStats();
+        final LatencyStats previous = stats.putIfAbsent(name, routeStats);
+        final LatencyStats recorder = previous == null ? routeStats : previous;
+        return new Route() {
+            @Override
+            public Object handle(final Request request, final Response response) throws Exception {
+                final long start = System.nanoTime();
+                try {
+                    return route.handle(request, response);
+                } finally {
+                    recorder.record(System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the statistics of the routes by name.
+     *
+     * @return statistics
+     */
+    public Map<String, LatencyStats> getStats() {
+        return new TreeMap<>(stats);
+    }
+}
@@ -0,0 +1,15 @@
+package org.codetome.hexameter.restexample.json;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.codetome.hexameter.core.api.HexagonalGridMask;
+import org.codetome.hexameter.core.internal.GridData;
+
+/**
+ * Jackson mix-in for {@link GridData} which keeps the grid mask of masked grids out of the JSON so the
+ * <code>gridData</code> of every grid has the same shape.
+ */
+public abstract class GridDataMixIn {
+
+    @JsonIgnore
+    abstract HexagonalGridMask getGridMask();
+}
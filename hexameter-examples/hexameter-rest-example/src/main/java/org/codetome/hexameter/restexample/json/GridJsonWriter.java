@@ -0,0 +1,160 @@
+package org.codetome.hexameter.restexample.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.Point;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.backport.Optional;
+import rx.Observable;
+import rx.Subscriber;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a HexagonalGrid as <code>{"gridData": {...}, "cellData": [...]}</code> straight to an output
+ * stream where each cell is written as <code>{"gridCoordinate": [x, z], "centerPoint": [x, y],
+ * "points": [[x, y], ...], "satelliteData": {...}}</code> (<code>satelliteData</code> is <code>null</code>
+ * for cells without data). Cells are written one by one while they are iterated so the memory needed does not
+ * depend on the size of the grid. Instances are thread safe and should be shared.
+ */
+public class GridJsonWriter {
+
+    /**
+     * Rough size of a cell in JSON which can be used to estimate the size of the output.
+     */
+    public static final int ESTIMATED_CELL_SIZE = 256;
+
+    private final ObjectMapper objectMapper;
+
+    public GridJsonWriter(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the whole grid to the given stream and closes it.
+     *
+     * @param grid grid
+     * @param outputStream stream
+     * @throws IOException if writing fails
+     */
+    public void write(final HexagonalGrid grid, final OutputStream outputStream) throws IOException {
+        write(grid, grid.getHexagons(), outputStream);
+    }
+
+    /**
+     * Writes the grid data of the given grid and the given cells of it to the given stream and closes it.
+     *
+     * @param grid grid
+     * @param hexagons cells to write
+     * @param outputStream stream
+     * @throws IOException if writing fails
+     */
+    public void write(final HexagonalGrid grid, final Observable<Hexagon> hexagons, final OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeObjectField("gridData", grid.getGridData());
+            generator.writeArrayFieldStart("cellData");
+            final CellWriter cellWriter = new CellWriter(generator);
+            hexagons.subscribe(cellWriter);
+            cellWriter.rethrowFailure();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes a single cell as a JSON object.
+     *
+     * @param generator generator
+     * @param hexagon cell
+     * @throws IOException if writing fails
+     */
+    public static void writeHexagon(final JsonGenerator generator, final Hexagon hexagon) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("gridCoordinate");
+        generator.writeNumber(hexagon.getGridX());
+        generator.writeNumber(hexagon.getGridZ());
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("centerPoint");
+        generator.writeNumber(hexagon.getCenterX());
+        generator.writeNumber(hexagon.getCenterY());
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("points");
+        for (final Point point : hexagon.getPoints()) {
+            generator.writeStartArray();
+            generator.writeNumber(point.getCoordinateX());
+            generator.writeNumber(point.getCoordinateY());
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        final Optional<SatelliteData> satelliteData = hexagon.getSatelliteData();
+        generator.writeObjectField("satelliteData", satelliteData.isPresent() ? satelliteData.get() : null);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the satellite data of a single cell as <code>{"gridCoordinate": [x, z], "satelliteData": {...}}</code>
+     * with <code>null</code> satellite data if the cell has none.
+     *
+     * @param generator generator
+     * @param gridX x coordinate of the cell
+     * @param gridZ z coordinate of the cell
+     * @param satelliteData satellite data of the cell
+     * @throws IOException if writing fails
+     */
+    public static void writeSatelliteData(final JsonGenerator generator, final int gridX, final int gridZ,
+                                          final Optional<SatelliteData> satelliteData) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("gridCoordinate");
+        generator.writeNumber(gridX);
+        generator.writeNumber(gridZ);
+        generator.writeEndArray();
+        generator.writeObjectField("satelliteData", satelliteData.isPresent() ? satelliteData.get() : null);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the cells as they are emitted. Since the cells are emitted synchronously the first failure
+     * is kept and rethrown by the caller once the iteration is done.
+     */
+    private static class CellWriter extends Subscriber<Hexagon> {
+
+        private final JsonGenerator generator;
+        private IOException failure;
+
+        CellWriter(final JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void onNext(final Hexagon hexagon) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                writeHexagon(generator, hexagon);
+            } catch (IOException e) {
+                failure = e;
+                unsubscribe();
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            failure = new IOException(throwable);
+        }
+
+        void rethrowFailure() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.codetome.hexameter.restexample.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.restexample.dto.SatelliteDataUpdateResultDto;
+import org.codetome.hexameter.restexample.payload.SatelliteDataUpdatePayload;
+import rx.Observable;
+import rx.Subscriber;
+import rx.functions.Func1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.restexample.json.GridJsonWriter.writeSatelliteData;
+
+/**
+ * <p>
+ * Reads and writes the satellite data of many cells at once. Requests are parsed element by element and every
+ * element is applied (or answered) before the next one is read so the memory needed does not depend on the size
+ * of the batch. The flip side is that a malformed element is only noticed when it is reached: the updates before
+ * it are already applied and the answers before it are already written.
+ * </p>
+ * <p>
+ * Cells are written as described in {@link GridJsonWriter#writeSatelliteData}. Instances are thread safe.
+ * </p>
+ */
+public class SatelliteDataBatch {
+
+    /**
+     * Rough size of the satellite data of a cell in JSON which can be used to estimate the size of the output.
+     */
+    public static final int ESTIMATED_CELL_SIZE = 96;
+
+    private final ObjectMapper objectMapper;
+
+    public SatelliteDataBatch(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Applies an array of updates (see {@link SatelliteDataUpdatePayload}) to the given grid. Every update merges
+     * the given fields into the current satellite data of the cell atomically.
+     *
+     * @param grid grid
+     * @param inputStream JSON array of updates
+     * @return number of updated, cleared and skipped cells
+     * @throws IOException if reading fails
+     */
+    public SatelliteDataUpdateResultDto applyUpdates(final HexagonalGrid grid, final InputStream inputStream) throws IOException {
+        final SatelliteDataUpdateResultDto result = new SatelliteDataUpdateResultDto();
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                applyUpdate(grid, objectMapper.readValue(parser, SatelliteDataUpdatePayload.class), result);
+            }
+            expect(parser.getCurrentToken(), JsonToken.END_ARRAY);
+        }
+        return result;
+    }
+
+    /**
+     * Answers an array of grid coordinates (<code>[[x, z], ...]</code>) with the satellite data of those cells in
+     * the same order. Coordinates which are not on the grid are left out.
+     *
+     * @param grid grid
+     * @param inputStream JSON array of coordinates
+     * @param outputStream stream to write the answer to (it is closed)
+     * @throws IOException if reading or writing fails
+     */
+    public void query(final HexagonalGrid grid, final InputStream inputStream, final OutputStream outputStream) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            generator.writeStartArray();
+            while (parser.nextToken() == JsonToken.START_ARRAY) {
+                final int gridX = nextInt(parser);
+                final int gridZ = nextInt(parser);
+                expect(parser.nextToken(), JsonToken.END_ARRAY);
+                final Optional<Hexagon> hexagon = grid.getByCubeCoordinate(fromCoordinates(gridX, gridZ));
+                if (hexagon.isPresent()) {
+                    writeSatelliteData(generator, gridX, gridZ, hexagon.get().<SatelliteData>getSatelliteData());
+                }
+            }
+            expect(parser.getCurrentToken(), JsonToken.END_ARRAY);
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes the satellite data of the given cells which have any as a JSON array.
+     *
+     * @param hexagons cells
+     * @param outputStream stream to write to (it is closed)
+     * @throws IOException if writing fails
+     */
+    public void write(final Observable<Hexagon> hexagons, final OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartArray();
+            final CellWriter cellWriter = new CellWriter(generator);
+            hexagons.subscribe(cellWriter);
+            cellWriter.rethrowFailure();
+            generator.writeEndArray();
+        }
+    }
+
+    private static void applyUpdate(final HexagonalGrid grid, final SatelliteDataUpdatePayload update, final SatelliteDataUpdateResultDto result) {
+        final int[] gridCoordinate = update.getGridCoordinate();
+        if (gridCoordinate == null || gridCoordinate.length != 2) {
+            throw new IllegalArgumentException("Grid coordinate must be [x, z].");
+        }
+        final CubeCoordinate coordinate = fromCoordinates(gridCoordinate[0], gridCoordinate[1]);
+        if (!grid.containsCubeCoordinate(coordinate)) {
+            result.setSkipped(result.getSkipped() + 1);
+            return;
+        }
+        if (update.isClear()) {
+            grid.computeSatelliteData(coordinate, new Func1<SatelliteData, SatelliteData>() {
+                @Override
+                public SatelliteData call(final SatelliteData current) {
+                    return null;
+                }
+            });
+            result.setCleared(result.getCleared() + 1);
+            return;
+        }
+        grid.computeSatelliteData(coordinate, new Func1<SatelliteData, SatelliteData>() {
+            @Override
+            public SatelliteData call(final SatelliteData current) {
+                return merge(current, update);
+            }
+        });
+        result.setUpdated(result.getUpdated() + 1);
+    }
+
+    /**
+     * Creates new satellite data instead of changing the current one so readers never see a half applied update.
+     */
+    private static SatelliteData merge(final SatelliteData current, final SatelliteDataUpdatePayload update) {
+        final DefaultSatelliteData result = new DefaultSatelliteData();
+        if (current != null) {
+            result.setPassable(current.isPassable());
+            result.setMovementCost(current.getMovementCost());
+            if (current instanceof DefaultSatelliteData) {
+                result.getCustomData().putAll(((DefaultSatelliteData) current).getCustomData());
+            }
+        }
+        if (update.getPassable() != null) {
+            result.setPassable(update.getPassable());
+        }
+        if (update.getMovementCost() != null) {
+            result.setMovementCost(update.getMovementCost());
+        }
+        if (update.getCustomData() != null) {
+            result.getCustomData().putAll(update.getCustomData());
+        }
+        return result;
+    }
+
+    private static int nextInt(final JsonParser parser) throws IOException {
+        expect(parser.nextToken(), JsonToken.VALUE_NUMBER_INT);
+        return parser.getIntValue();
+    }
+
+    private static void expect(final JsonToken actual, final JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " but found " + actual + ".");
+        }
+    }
+
+    /**
+     * Writes the cells which have satellite data and keeps the first failure so the caller can rethrow it.
+     */
+    private static class CellWriter extends Subscriber<Hexagon> {
+
+        private final JsonGenerator generator;
+        private IOException failure;
+
+        CellWriter(final JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void onNext(final Hexagon hexagon) {
+            if (failure != null) {
+                return;
+            }
+            final Optional<SatelliteData> satelliteData = hexagon.getSatelliteData();
+            if (!satelliteData.isPresent()) {
+                return;
+            }
+            try {
+                writeSatelliteData(generator, hexagon.getGridX(), hexagon.getGridZ(), satelliteData);
+            } catch (IOException e) {
+                failure = e;
+                unsubscribe();
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            failure = new IOException(throwable);
+        }
+
+        void rethrowFailure() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
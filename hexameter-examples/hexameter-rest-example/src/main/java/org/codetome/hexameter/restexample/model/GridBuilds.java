@@ -0,0 +1,102 @@
+package org.codetome.hexameter.restexample.model;
+
+import org.codetome.hexameter.restexample.compute.ComputePool;
+import org.codetome.hexameter.restexample.dto.GridBuildDto;
+import org.codetome.hexameter.restexample.dto.GridBuildDto.GridBuildStatus;
+import org.codetome.hexameter.restexample.payload.HexagonBuilderPayload;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Builds grids in the background so the client can poll the status instead of keeping a request open.
+ * Builds are identified by the id of the grid and they are forgotten {@link #RETENTION_MILLIS} after they finished.
+ */
+public class GridBuilds {
+
+    public static final long RETENTION_MILLIS = 10 * 60 * 1000;
+
+    private final Model model;
+    private final ComputePool pool;
+    private final ConcurrentMap<Integer, GridBuild> builds = new ConcurrentHashMap<>();
+
+    public GridBuilds(final Model model, final ComputePool pool) {
+        this.model = model;
+        this.pool = pool;
+    }
+
+    /**
+     * Starts building a grid with the given id (a new one or one to replace).
+     *
+     * @param id id of the grid
+     * @param payload grid to build
+     * @throws RejectedExecutionException if too many grids are being built
+     */
+    public void submit(final int id, final HexagonBuilderPayload payload) {
+        forgetFinished();
+        final GridBuild build = new GridBuild();
+        build.future = pool.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    model.createGrid(id, payload);
+                } finally {
+                    build.finishedAt = System.currentTimeMillis();
+                }
+                return null;
+            }
+        });
+        builds.put(id, build);
+    }
+
+    /**
+     * Returns the status of the build of the grid with the given id or null if there is no such build.
+     *
+     * @param id id of the grid
+     * @return status or null
+     */
+    public GridBuildDto getStatus(final int id) {
+        final GridBuild build = builds.get(id);
+        if (build == null) {
+            return null;
+        }
+        final GridBuildDto result = new GridBuildDto();
+        result.setId(id);
+        if (!build.future.isDone()) {
+            result.setStatus(GridBuildStatus.PENDING);
+            return result;
+        }
+        try {
+            build.future.get();
+            result.setStatus(GridBuildStatus.DONE);
+        } catch (ExecutionException e) {
+            result.setStatus(GridBuildStatus.FAILED);
+            result.setMessage(String.valueOf(e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    private void forgetFinished() {
+        final long expired = System.currentTimeMillis() - RETENTION_MILLIS;
+        final Iterator<GridBuild> iterator = builds.values().iterator();
+        while (iterator.hasNext()) {
+            final GridBuild build = iterator.next();
+            if (build.finishedAt != 0 && build.finishedAt < expired) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class GridBuild {
+        private volatile Future<Void> future;
+        private volatile long finishedAt;
+    }
+}
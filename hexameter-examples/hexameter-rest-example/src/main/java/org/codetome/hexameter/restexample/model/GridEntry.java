@@ -0,0 +1,334 @@
+package org.codetome.hexameter.restexample.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.MappedGridSnapshotFormat;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataListener;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.lang.Math.min;
+
+/**
+ * A grid stored in the {@link GridRegistry} together with its version. The version changes whenever the satellite
+ * data of the grid changes and it is unique among all grids (even replaced ones) so it can be used as an ETag.
+ * The grid itself can be spilled to a snapshot file by the registry in which case {@link #getGrid()} reloads it.
+ * Listeners added to the entry (instead of the grid) keep receiving the changes across spills. Requests which
+ * write to the grid must {@link #acquire()} it so it is not spilled (and their writes lost) while they run.
+ * Snapshot files only keep passability and movement cost of the cells of the grid so grids holding custom data
+ * or satellite data of coordinates which are not on the grid are never spilled: the registry drops them instead.
+ */
+@Getter
+public class GridEntry implements SatelliteDataListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GridEntry.class);
+
+    /**
+     * Estimated heap usage of a cell of a materialized grid (its coordinate in the coordinate set and its storage slot).
+     */
+    static final long BUILT_CELL_BYTES = 40;
+    /**
+     * Estimated memory usage of a cell of a grid reloaded from a snapshot file (its terrain columns).
+     */
+    static final long MAPPED_CELL_BYTES = 9;
+    /**
+     * Estimated heap usage of the satellite data of a cell.
+     */
+    static final long SATELLITE_DATA_BYTES = 40;
+
+    private final int id;
+    @Getter(AccessLevel.NONE)
+    private final GridRegistry registry;
+    private final long cellCount;
+    @Getter(AccessLevel.NONE)
+    private final GridData gridData;
+    @Getter(AccessLevel.NONE)
+    private HexagonalGridImpl grid;
+    @Getter(AccessLevel.NONE)
+    private Path spillFile;
+    @Getter(AccessLevel.NONE)
+    private boolean mapped;
+    @Getter(AccessLevel.NONE)
+    private long writtenCells;
+    @Getter(AccessLevel.NONE)
+    private boolean materialized;
+    @Getter(AccessLevel.NONE)
+    private int pins;
+    @Getter(AccessLevel.NONE)
+    private boolean customData;
+    @Getter(AccessLevel.NONE)
+    private boolean offGridData;
+    @Getter(AccessLevel.NONE)
+    private final List<SatelliteDataListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long version;
+    private volatile long lastModified;
+    private volatile long lastAccess;
+
+    GridEntry(final int id, final HexagonalGridImpl grid, final GridRegistry registry) {
+        this.id = id;
+        this.grid = grid;
+        this.registry = registry;
+        this.gridData = grid.getGridData();
+        this.cellCount = gridData.getGridLayout().getGridLayoutStrategy().getCellCount(gridData);
+        this.lastAccess = System.currentTimeMillis();
+        touch();
+        grid.addSatelliteDataListener(this);
+    }
+
+    /**
+     * Returns the grid, reloading it from its snapshot file if it was spilled.
+     *
+     * @return grid
+     */
+    public HexagonalGridImpl getGrid() {
+        final HexagonalGridImpl result;
+        final boolean reloaded;
+        synchronized (this) {
+            lastAccess = System.currentTimeMillis();
+            reloaded = grid == null;
+            if (reloaded) {
+                try {
+                    grid = (HexagonalGridImpl) registry.getSnapshotFormat().open(spillFile);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not reload grid " + id + " from " + spillFile, e);
+                }
+                grid.addSatelliteDataListener(this);
+                mapped = true;
+                writtenCells = 0;
+            }
+            result = grid;
+        }
+        if (reloaded) {
+            registry.onReloaded(this);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the grid like {@link #getGrid()} and pins it: it is not spilled or evicted until {@link #release()}
+     * is called. Every acquire must be followed by a release (in a finally block).
+     *
+     * @return grid
+     */
+    public HexagonalGridImpl acquire() {
+        synchronized (this) {
+            pins++;
+        }
+        try {
+            return getGrid();
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Unpins the grid pinned by {@link #acquire()}.
+     */
+    public synchronized void release() {
+        pins--;
+    }
+
+    /**
+     * Tells whether the grid is pinned by a running request.
+     *
+     * @return is pinned?
+     */
+    public synchronized boolean isPinned() {
+        return pins > 0;
+    }
+
+    /**
+     * Tells whether the grid can be spilled without losing anything: it is not pinned, none of its cells
+     * were given custom data and no satellite data was stored for coordinates which are not on the grid
+     * (the snapshot files can't store either).
+     *
+     * @return is spillable?
+     */
+    public synchronized boolean isSpillable() {
+        return pins == 0 && !customData && !offGridData;
+    }
+
+    /**
+     * Tells whether the grid is on the heap (not spilled).
+     *
+     * @return is loaded?
+     */
+    public synchronized boolean isLoaded() {
+        return grid != null;
+    }
+
+    /**
+     * Tells whether the grid was ever materialized on the heap (see {@link HexagonalGridImpl#isMaterialized()}).
+     * Grids reloaded from a snapshot file are mapped, they only count if they were materialized before the spill.
+     *
+     * @return was it materialized?
+     */
+    public synchronized boolean isMaterialized() {
+        if (grid != null && !mapped && grid.isMaterialized()) {
+            materialized = true;
+        }
+        return materialized;
+    }
+
+    /**
+     * Adds a listener which is notified about the changes of the satellite data of the grid, whether it was
+     * reloaded in the meantime or not. The listener is notified after the version changed.
+     *
+     * @param listener listener
+     */
+    public void addListener(final SatelliteDataListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added by {@link #addListener(SatelliteDataListener)}.
+     *
+     * @param listener listener
+     */
+    public void removeListener(final SatelliteDataListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the estimated memory used by the grid. It is an upper bound: every write is counted as a new cell
+     * with satellite data. Grids which are not materialized yet only use memory for their satellite data.
+     *
+     * @return bytes
+     */
+    public synchronized long getEstimatedMemoryUsage() {
+        if (grid == null) {
+            return 0;
+        }
+        final long cellBytes;
+        if (mapped) {
+            cellBytes = MAPPED_CELL_BYTES;
+        } else {
+            cellBytes = grid.isMaterialized() ? BUILT_CELL_BYTES : 0;
+        }
+        return cellCount * cellBytes + min(writtenCells, cellCount) * SATELLITE_DATA_BYTES;
+    }
+
+    /**
+     * Writes the grid to a new snapshot file and drops it from the heap unless it is not spillable (see
+     * {@link #isSpillable()}). Requests which write to the grid pin it (see {@link #acquire()}) so no write can
+     * happen while the file is written.
+     *
+     * @param directory directory of the snapshot files
+     * @param format snapshot format
+     * @return true if the grid was spilled (or it was not loaded), false if it is not spillable
+     * @throws IOException if writing fails (the grid is kept in that case)
+     */
+    synchronized boolean spill(final Path directory, final MappedGridSnapshotFormat format) throws IOException {
+        if (grid == null) {
+            return true;
+        }
+        if (!isSpillable()) {
+            return false;
+        }
+        final Path file = directory.resolve("grid-" + id + "-" + version + ".snapshot");
+        format.write(grid, file);
+        isMaterialized();
+        grid.removeSatelliteDataListener(this);
+        grid = null;
+        deleteSpillFile();
+        spillFile = file;
+        return true;
+    }
+
+    /**
+     * Like {@link #discard()} but does nothing if the grid is pinned.
+     *
+     * @return true if the entry was discarded
+     */
+    synchronized boolean discardUnlessPinned() {
+        if (pins > 0) {
+            return false;
+        }
+        discard();
+        return true;
+    }
+
+    /**
+     * Detaches this entry from its grid and deletes its snapshot file.
+     */
+    synchronized void discard() {
+        if (grid != null) {
+            grid.removeSatelliteDataListener(this);
+            grid = null;
+        }
+        deleteSpillFile();
+        spillFile = null;
+    }
+
+    @Override
+    public void onSatelliteDataSet(final CubeCoordinate coordinate, final SatelliteData satelliteData) {
+        synchronized (this) {
+            writtenCells++;
+            customData |= hasCustomData(satelliteData);
+            offGridData |= isOffGrid(coordinate);
+        }
+        touch();
+        for (final SatelliteDataListener listener : listeners) {
+            listener.onSatelliteDataSet(coordinate, satelliteData);
+        }
+    }
+
+    @Override
+    public void onSatelliteDataCleared(final CubeCoordinate coordinate) {
+        touch();
+        for (final SatelliteDataListener listener : listeners) {
+            listener.onSatelliteDataCleared(coordinate);
+        }
+    }
+
+    @Override
+    public void onAllSatelliteDataCleared() {
+        synchronized (this) {
+            writtenCells = 0;
+            customData = false;
+            offGridData = false;
+        }
+        touch();
+        for (final SatelliteDataListener listener : listeners) {
+            listener.onAllSatelliteDataCleared();
+        }
+    }
+
+    private void touch() {
+        version = registry.nextVersion();
+        lastModified = System.currentTimeMillis();
+    }
+
+    private static boolean hasCustomData(final SatelliteData satelliteData) {
+        return !(satelliteData instanceof DefaultSatelliteData)
+                || !((DefaultSatelliteData) satelliteData).getCustomData().isEmpty();
+    }
+
+    private boolean isOffGrid(final CubeCoordinate coordinate) {
+        return gridData.getGridLayout().getGridLayoutStrategy().indexOf(gridData, coordinate.getGridX(), coordinate.getGridZ()) < 0;
+    }
+
+    private void deleteSpillFile() {
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            // the file might still be mapped by a grid someone holds, it is only garbage
+            LOGGER.warn("Could not delete spill file " + spillFile, e);
+        }
+    }
+}
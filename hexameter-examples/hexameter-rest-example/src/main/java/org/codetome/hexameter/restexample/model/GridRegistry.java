@@ -0,0 +1,202 @@
+package org.codetome.hexameter.restexample.model;
+
+import lombok.Getter;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.MappedGridSnapshotFormat;
+import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Thread safe store of the grids of the example service with a memory budget. Every grid has an estimated memory
+ * usage (see {@link GridEntry#getEstimatedMemoryUsage()}) and when the sum goes over the budget the least recently
+ * used grids are evicted. Grids which were not used for a while are evicted too.
+ * </p>
+ * <p>
+ * If a spill directory is given evicted grids are written to snapshot files there and they are reloaded
+ * transparently (in constant time since the files are memory mapped) when they are used again.
+ * Otherwise evicted grids are dropped. Grids pinned by a running request (see {@link GridEntry#acquire()}) are
+ * never evicted. Grids which can't be spilled without losing data (see {@link GridEntry#isSpillable()}) are dropped
+ * as well so they can't grow the registry past its budget.
+ * </p>
+ */
+public class GridRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GridRegistry.class);
+
+    private final ConcurrentMap<Integer, GridEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    @Getter
+    private final MappedGridSnapshotFormat snapshotFormat = new HexagonalGridBuilder().buildMappedGridSnapshotFormat();
+    @Getter
+    private final long maxMemoryUsage;
+    @Getter
+    private final long maxIdleMillis;
+    private final Path spillDirectory;
+
+    /**
+     * Creates a registry.
+     *
+     * @param maxMemoryUsage memory budget in bytes
+     * @param maxIdleMillis grids not used for this long are evicted
+     * @param spillDirectory directory for the snapshot files of evicted grids (null to drop them)
+     * @throws IOException if the spill directory can't be created
+     */
+    public GridRegistry(final long maxMemoryUsage, final long maxIdleMillis, final Path spillDirectory) throws IOException {
+        this.maxMemoryUsage = maxMemoryUsage;
+        this.maxIdleMillis = maxIdleMillis;
+        this.spillDirectory = spillDirectory == null ? null : Files.createDirectories(spillDirectory);
+        final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "grid-registry-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final long sweepInterval = Math.max(maxIdleMillis / 2, 1);
+        sweeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evictIdle();
+            }
+        }, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stores a grid under the given id replacing the previous one.
+     *
+     * @param id id
+     * @param grid grid
+     * @return entry of the grid
+     */
+    public GridEntry put(int id, HexagonalGridImpl grid) {
+        final GridEntry entry = new GridEntry(id, grid, this);
+        final GridEntry previous = entries.put(id, entry);
+        if (previous != null) {
+            previous.discard();
+        }
+        evictOverBudget(entry);
+        return entry;
+    }
+
+    /**
+     * Returns the entry of the grid with the given id or null if there is no such grid.
+     *
+     * @param id id
+     * @return entry or null
+     */
+    public GridEntry get(int id) {
+        return entries.get(id);
+    }
+
+    /**
+     * Removes the grid with the given id.
+     *
+     * @param id id
+     */
+    public void remove(int id) {
+        final GridEntry entry = entries.remove(id);
+        if (entry != null) {
+            entry.discard();
+        }
+    }
+
+    /**
+     * Returns the sum of the estimated memory usage of the grids which are loaded.
+     *
+     * @return bytes
+     */
+    public long getMemoryUsage() {
+        long result = 0;
+        for (final GridEntry entry : entries.values()) {
+            result += entry.getEstimatedMemoryUsage();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the entries of the grids.
+     *
+     * @return view of the entries
+     */
+    public Collection<GridEntry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    long nextVersion() {
+        return versions.incrementAndGet();
+    }
+
+    void onReloaded(GridEntry entry) {
+        evictOverBudget(entry);
+    }
+
+    private synchronized void evictOverBudget(GridEntry keep) {
+        long memoryUsage = getMemoryUsage();
+        while (memoryUsage > maxMemoryUsage) {
+            GridEntry leastRecentlyUsed = null;
+            for (final GridEntry entry : entries.values()) {
+                if (entry != keep && entry.isLoaded() && !entry.isPinned() && (leastRecentlyUsed == null || entry.getLastAccess() < leastRecentlyUsed.getLastAccess())) {
+                    leastRecentlyUsed = entry;
+                }
+            }
+            if (leastRecentlyUsed == null) {
+                return;
+            }
+            final long evictedUsage = leastRecentlyUsed.getEstimatedMemoryUsage();
+            if (!evict(leastRecentlyUsed)) {
+                return;
+            }
+            memoryUsage -= evictedUsage;
+        }
+    }
+
+    private synchronized void evictIdle() {
+        final long idleSince = System.currentTimeMillis() - maxIdleMillis;
+        for (final GridEntry entry : entries.values()) {
+            if (entry.isLoaded() && entry.getLastAccess() < idleSince) {
+                evict(entry);
+            }
+        }
+    }
+
+    private boolean evict(GridEntry entry) {
+        if (spillDirectory != null) {
+            try {
+                if (entry.spill(spillDirectory, snapshotFormat)) {
+                    return true;
+                }
+            } catch (IOException e) {
+                LOGGER.error("Could not spill grid " + entry.getId(), e);
+                return false;
+            }
+        }
+        if (!entry.discardUnlessPinned()) {
+            return false;
+        }
+        entries.remove(entry.getId(), entry);
+        if (spillDirectory != null) {
+            LOGGER.warn("Dropped grid " + entry.getId() + " since its satellite data can't be spilled");
+        }
+        return true;
+    }
+}
@@ -1,42 +1,73 @@
 package org.codetome.hexameter.restexample.model;
 
+import org.codetome.hexameter.core.api.GridMetrics;
 import org.codetome.hexameter.core.api.HexagonalGrid;
 import org.codetome.hexameter.core.api.HexagonalGridBuilder;
 import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
 import org.codetome.hexameter.restexample.payload.HexagonBuilderPayload;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class Model {
 
-    private AtomicInteger nextId = new AtomicInteger(1);
+    private final AtomicInteger nextId = new AtomicInteger(1);
 
-    private Map<Integer, HexagonalGridImpl> grids = new HashMap<>();
+    private final GridRegistry grids;
+    private final GridMetrics metrics;
 
-    public int createGrid(HexagonBuilderPayload payload) {
-        int id = nextId.incrementAndGet();
+    /**
+     * Creates a model.
+     *
+     * @param grids store of the grids
+     * @param metrics metrics the grids built by the model report to (grids reloaded after a spill don't)
+     */
+    public Model(GridRegistry grids, GridMetrics metrics) {
+        this.grids = grids;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the id of a grid which is created later with {@link #createGrid(int, HexagonBuilderPayload)}.
+     *
+     * @return id
+     */
+    public int reserveId() {
+        return nextId.incrementAndGet();
+    }
+
+    public void createGrid(int id, HexagonBuilderPayload payload) {
         grids.put(id, buildGrid(payload));
-        return id;
     }
 
-    public int replaceGrid(HexagonBuilderPayload payload) {
-        grids.put(payload.getId(), buildGrid(payload));
-        return payload.getId();
+    /**
+     * Returns an upper bound of the number of cells of the grid the payload describes.
+     *
+     * @param payload payload
+     * @return number of cells
+     */
+    public static long estimateCellCount(HexagonBuilderPayload payload) {
+        return (long) payload.getGridWidth() * payload.getGridHeight();
     }
 
+    /**
+     * Grids are built lazily since many clients only look at a few cells of a grid before abandoning it.
+     */
     private HexagonalGridImpl buildGrid(HexagonBuilderPayload payload) {
         HexagonalGrid grid = new HexagonalGridBuilder()
                 .setGridHeight(payload.getGridHeight())
                 .setGridWidth(payload.getGridWidth())
                 .setGridLayout(payload.getGridLayout())
                 .setOrientation(payload.getOrientation())
-                .setRadius(payload.getRadius()).build();
+                .setRadius(payload.getRadius())
+                .setMetrics(metrics).buildLazy();
         return (HexagonalGridImpl) grid;
     }
 
-    public HexagonalGridImpl getGridById(Integer id) {
+    public GridEntry getEntryById(Integer id) {
         return grids.get(id);
     }
+
+    public GridRegistry getGrids() {
+        return grids;
+    }
 }
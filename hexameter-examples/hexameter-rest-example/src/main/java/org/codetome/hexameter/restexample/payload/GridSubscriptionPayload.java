@@ -0,0 +1,12 @@
+package org.codetome.hexameter.restexample.payload;
+
+import lombok.Data;
+
+@Data
+public class GridSubscriptionPayload {
+    private Integer id;
+    /**
+     * Version of the grid the client already has (if any).
+     */
+    private Long version;
+}
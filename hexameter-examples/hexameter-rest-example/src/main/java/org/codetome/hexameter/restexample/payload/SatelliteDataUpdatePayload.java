@@ -0,0 +1,26 @@
+package org.codetome.hexameter.restexample.payload;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class SatelliteDataUpdatePayload {
+    /**
+     * Grid coordinate (x,z) of the cell to update.
+     */
+    private int[] gridCoordinate;
+    /**
+     * Clears the satellite data of the cell, the other fields are ignored.
+     */
+    private boolean clear;
+    /**
+     * Fields which are missing (null) keep their current value.
+     */
+    private Boolean passable;
+    private Double movementCost;
+    /**
+     * Added to the current custom data of the cell.
+     */
+    private Map<String, Object> customData;
+}
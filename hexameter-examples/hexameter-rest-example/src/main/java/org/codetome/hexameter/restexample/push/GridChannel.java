@@ -0,0 +1,110 @@
+package org.codetome.hexameter.restexample.push;
+
+import lombok.Getter;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataListener;
+import org.codetome.hexameter.restexample.model.GridEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the cells of a grid which changed since the last tick and keeps the subscriptions to the grid together
+ * with the last snapshot message sent to them.
+ * Changes arrive on the threads writing the grid, everything else is only used by the publisher thread.
+ */
+final class GridChannel implements SatelliteDataListener {
+
+    @Getter
+    private final GridEntry entry;
+    @Getter
+    private final List<GridSubscription> subscriptions = new ArrayList<>();
+    private final int maxDeltaCells;
+    private Set<CubeCoordinate> changes = new HashSet<>();
+    private boolean resyncNeeded;
+    private String snapshot;
+    private long snapshotVersion;
+
+    GridChannel(final GridEntry entry, final int maxDeltaCells) {
+        this.entry = entry;
+        this.maxDeltaCells = maxDeltaCells;
+        entry.addListener(this);
+    }
+
+    /**
+     * Returns the cells which changed since the previous call or null if there were too many changes
+     * (or all cells were cleared) and the subscribers should get a snapshot instead.
+     *
+     * @return changed cells or null
+     */
+    synchronized Set<CubeCoordinate> drainChanges() {
+        if (resyncNeeded) {
+            resyncNeeded = false;
+            changes.clear();
+            return null;
+        }
+        if (changes.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Set<CubeCoordinate> result = changes;
+        changes = new HashSet<>();
+        return result;
+    }
+
+    /**
+     * Returns the snapshot message encoded for the given version of the grid (if any). Only used by the publisher thread.
+     *
+     * @param version current version of the grid
+     * @return message or null
+     */
+    String fetchSnapshot(final long version) {
+        return snapshot != null && snapshotVersion == version ? snapshot : null;
+    }
+
+    /**
+     * Keeps the snapshot message of the given version so the other subscribers get the same one. Only used by the
+     * publisher thread.
+     *
+     * @param version version of the grid the message was encoded for
+     * @param message message
+     */
+    void storeSnapshot(final long version, final String message) {
+        snapshotVersion = version;
+        snapshot = message;
+    }
+
+    void close() {
+        entry.removeListener(this);
+    }
+
+    @Override
+    public void onSatelliteDataSet(final CubeCoordinate coordinate, final SatelliteData satelliteData) {
+        onChanged(coordinate);
+    }
+
+    @Override
+    public void onSatelliteDataCleared(final CubeCoordinate coordinate) {
+        onChanged(coordinate);
+    }
+
+    @Override
+    public synchronized void onAllSatelliteDataCleared() {
+        resyncNeeded = true;
+        changes.clear();
+    }
+
+    private synchronized void onChanged(final CubeCoordinate coordinate) {
+        if (resyncNeeded) {
+            return;
+        }
+        changes.add(coordinate);
+        if (changes.size() > maxDeltaCells) {
+            resyncNeeded = true;
+            changes.clear();
+        }
+    }
+}
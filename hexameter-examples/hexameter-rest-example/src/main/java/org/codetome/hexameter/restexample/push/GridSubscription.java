@@ -0,0 +1,33 @@
+package org.codetome.hexameter.restexample.push;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.eclipse.jetty.websocket.api.Session;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * State of a client subscribed to a grid. While a message is being sent to the client the changes are only
+ * accumulated in {@link #pendingChanges} so a slow client gets the latest state of the changed cells in one
+ * message instead of every intermediate state.
+ */
+@Getter
+@Setter
+final class GridSubscription {
+
+    private final Session session;
+    private GridChannel channel;
+    private final Set<CubeCoordinate> pendingChanges = new HashSet<>();
+    private boolean snapshotNeeded;
+    private boolean sending;
+
+    GridSubscription(final Session session) {
+        this.session = session;
+    }
+
+    boolean isIdle() {
+        return !sending && !snapshotNeeded && pendingChanges.isEmpty();
+    }
+}
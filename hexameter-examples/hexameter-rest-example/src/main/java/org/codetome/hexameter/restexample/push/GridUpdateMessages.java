@@ -0,0 +1,153 @@
+package org.codetome.hexameter.restexample.push;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.GridSnapshot;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.restexample.model.GridEntry;
+import rx.Subscriber;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collection;
+
+import static org.codetome.hexameter.restexample.json.GridJsonWriter.writeSatelliteData;
+
+/**
+ * <p>
+ * Encodes the messages sent to the clients subscribed to grid updates. Every message is a JSON object with a
+ * <code>type</code>, the <code>id</code> of the grid and its <code>version</code>:
+ * </p>
+ * <ul>
+ * <li><code>snapshot</code>: <code>cells</code> contains every cell which has satellite data, the others have none</li>
+ * <li><code>delta</code>: <code>cells</code> contains the cells which changed, with <code>null</code> satellite data
+ * if it was cleared</li>
+ * <li><code>missing</code>: the grid does not exist (anymore), there are no cells</li>
+ * </ul>
+ * <p>
+ * A cell is written as <code>{"gridCoordinate": [x, z], "satelliteData": {...}}</code>.
+ * </p>
+ */
+final class GridUpdateMessages {
+
+    static final String SNAPSHOT = "snapshot";
+    static final String DELTA = "delta";
+    static final String MISSING = "missing";
+
+    private final ObjectMapper objectMapper;
+
+    GridUpdateMessages(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Encodes a snapshot of the given grid. Only the cells which have satellite data are visited so a big grid
+     * is not materialized for it. The grid may be written while this runs, the cells are at least as new as the
+     * given version.
+     *
+     * @param entry grid
+     * @param version version of the grid read before this call
+     * @return message
+     * @throws IOException if encoding fails
+     */
+    String snapshot(final GridEntry entry, final long version) throws IOException {
+        final StringWriter writer = new StringWriter();
+        final GridSnapshot snapshot = entry.getGrid().snapshot();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            writeStart(generator, SNAPSHOT, entry.getId(), version);
+            final CellWriter cellWriter = new CellWriter(generator);
+            snapshot.getHexagonsWithSatelliteData().subscribe(cellWriter);
+            cellWriter.rethrowFailure();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } finally {
+            snapshot.release();
+        }
+        return writer.toString();
+    }
+
+    String delta(final GridEntry entry, final Collection<CubeCoordinate> changes) throws IOException {
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            final HexagonalGrid grid = entry.getGrid();
+            writeStart(generator, DELTA, entry.getId(), entry.getVersion());
+            for (final CubeCoordinate coordinate : changes) {
+                final Optional<Hexagon> hexagon = grid.getByCubeCoordinate(coordinate);
+                final Optional<SatelliteData> satelliteData = hexagon.isPresent()
+                        ? hexagon.get().<SatelliteData>getSatelliteData() : Optional.<SatelliteData>empty();
+                writeSatelliteData(generator, coordinate.getGridX(), coordinate.getGridZ(), satelliteData);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    String missing(final int id) throws IOException {
+        final StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField("type", MISSING);
+            generator.writeNumberField("id", id);
+            generator.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    private static void writeStart(final JsonGenerator generator, final String type, final int id, final long version) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", type);
+        generator.writeNumberField("id", id);
+        generator.writeNumberField("version", version);
+        generator.writeArrayFieldStart("cells");
+    }
+
+    /**
+     * Writes the cells which have satellite data and keeps the first failure so the caller can rethrow it.
+     */
+    private static class CellWriter extends Subscriber<Hexagon> {
+
+        private final JsonGenerator generator;
+        private IOException failure;
+
+        CellWriter(final JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void onNext(final Hexagon hexagon) {
+            if (failure != null) {
+                return;
+            }
+            final Optional<SatelliteData> satelliteData = hexagon.getSatelliteData();
+            if (!satelliteData.isPresent()) {
+                return;
+            }
+            try {
+                writeSatelliteData(generator, hexagon.getGridX(), hexagon.getGridZ(), satelliteData);
+            } catch (IOException e) {
+                failure = e;
+                unsubscribe();
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            failure = new IOException(throwable);
+        }
+
+        void rethrowFailure() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.codetome.hexameter.restexample.push;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.restexample.model.GridEntry;
+import org.codetome.hexameter.restexample.model.Model;
+import org.codetome.hexameter.restexample.payload.GridSubscriptionPayload;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Pushes the changes of the grids to the clients subscribed to them (see {@link GridUpdateMessages} for the format).
+ * A client subscribes by sending <code>{"id": 1, "version": 42}</code> where the version is the last one it has
+ * (if any). Unless it is the current version the client first gets a snapshot, so a client which reconnects
+ * simply sends its last version.
+ * </p>
+ * <p>
+ * Changes are coalesced: every {@link #TICK_MILLIS} the cells which changed are sent in one delta message which is
+ * encoded once for every client which is up to date. A client is sent only one message at a time. The changes which
+ * happen in the meantime are merged and the client gets the latest state of those cells once the previous message
+ * was sent, so slow clients skip the intermediate states. If too many cells changed a snapshot is sent instead.
+ * A snapshot is encoded once for every version of the grid and shared by the clients which need it.
+ * </p>
+ * <p>
+ * Everything except the collection of the changes happens on a single thread of the publisher so the
+ * subscriptions need no locking.
+ * </p>
+ */
+public class GridUpdatePublisher {
+
+    public static final long TICK_MILLIS = 100;
+    /**
+     * Above this number of changed cells a snapshot is sent instead of a delta.
+     */
+    public static final int MAX_DELTA_CELLS = 4096;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GridUpdatePublisher.class);
+
+    private final Model model;
+    private final ObjectMapper objectMapper;
+    private final GridUpdateMessages messages;
+    private final ScheduledExecutorService executor;
+    private final Map<Integer, GridChannel> channels = new HashMap<>();
+    private final Map<Session, GridSubscription> subscriptions = new HashMap<>();
+
+    public GridUpdatePublisher(final Model model, final ObjectMapper objectMapper) {
+        this.model = model;
+        this.objectMapper = objectMapper;
+        this.messages = new GridUpdateMessages(objectMapper);
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "grid-update-publisher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tick();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Could not publish grid updates", e);
+                }
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Handles a subscription message of a client. A client is subscribed to at most one grid at a time.
+     *
+     * @param session session of the client
+     * @param message subscription message
+     */
+    public void onMessage(final Session session, final String message) {
+        final GridSubscriptionPayload payload;
+        try {
+            payload = objectMapper.readValue(message, GridSubscriptionPayload.class);
+        } catch (IOException e) {
+            session.close(StatusCode.BAD_PAYLOAD, "Invalid subscription");
+            return;
+        }
+        if (payload.getId() == null) {
+            session.close(StatusCode.BAD_PAYLOAD, "Id of the grid is missing");
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                subscribe(session, payload.getId(), payload.getVersion());
+            }
+        });
+    }
+
+    /**
+     * Removes the subscription of a client which disconnected.
+     *
+     * @param session session of the client
+     */
+    public void onClose(final Session session) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                unsubscribe(session);
+            }
+        });
+    }
+
+    private void subscribe(final Session session, final int id, final Long version) {
+        unsubscribe(session);
+        final GridSubscription subscription = new GridSubscription(session);
+        final GridEntry entry = model.getEntryById(id);
+        if (entry == null) {
+            send(subscription, missingMessage(id));
+            return;
+        }
+        GridChannel channel = channels.get(id);
+        if (channel == null) {
+            channel = new GridChannel(entry, MAX_DELTA_CELLS);
+            channels.put(id, channel);
+        } else if (channel.getEntry() != entry) {
+            channel.close();
+            channel = moveSubscriptions(channel, entry);
+        }
+        subscription.setChannel(channel);
+        subscription.setSnapshotNeeded(version == null || version != entry.getVersion());
+        channel.getSubscriptions().add(subscription);
+        subscriptions.put(session, subscription);
+        flush(subscription);
+    }
+
+    private void unsubscribe(final Session session) {
+        final GridSubscription subscription = subscriptions.remove(session);
+        if (subscription == null) {
+            return;
+        }
+        final GridChannel channel = subscription.getChannel();
+        channel.getSubscriptions().remove(subscription);
+        if (channel.getSubscriptions().isEmpty()) {
+            channel.close();
+            channels.remove(channel.getEntry().getId());
+        }
+    }
+
+    private void tick() {
+        for (final GridChannel channel : new ArrayList<>(channels.values())) {
+            final int id = channel.getEntry().getId();
+            final GridEntry current = model.getEntryById(id);
+            if (current != channel.getEntry()) {
+                channel.close();
+                channels.remove(id);
+                if (current == null) {
+                    dropSubscriptions(channel);
+                } else {
+                    moveSubscriptions(channel, current);
+                }
+                continue;
+            }
+            publishChanges(channel);
+        }
+    }
+
+    private void publishChanges(final GridChannel channel) {
+        final Set<CubeCoordinate> changes = channel.drainChanges();
+        final boolean changed = changes == null || !changes.isEmpty();
+        String sharedDelta = null;
+        for (final GridSubscription subscription : new ArrayList<>(channel.getSubscriptions())) {
+            if (changes == null) {
+                subscription.setSnapshotNeeded(true);
+                subscription.getPendingChanges().clear();
+            } else if (changed && subscription.isIdle()) {
+                if (sharedDelta == null) {
+                    sharedDelta = encode(subscription, changes, false);
+                }
+                send(subscription, sharedDelta);
+                continue;
+            } else if (!subscription.isSnapshotNeeded()) {
+                subscription.getPendingChanges().addAll(changes);
+                if (subscription.getPendingChanges().size() > MAX_DELTA_CELLS) {
+                    subscription.setSnapshotNeeded(true);
+                    subscription.getPendingChanges().clear();
+                }
+            }
+            if (!subscription.isSending()) {
+                flush(subscription);
+            }
+        }
+    }
+
+    private GridChannel moveSubscriptions(final GridChannel from, final GridEntry entry) {
+        final GridChannel to = new GridChannel(entry, MAX_DELTA_CELLS);
+        channels.put(entry.getId(), to);
+        for (final GridSubscription subscription : new ArrayList<>(from.getSubscriptions())) {
+            subscription.setChannel(to);
+            subscription.setSnapshotNeeded(true);
+            subscription.getPendingChanges().clear();
+            to.getSubscriptions().add(subscription);
+            if (!subscription.isSending()) {
+                flush(subscription);
+            }
+        }
+        return to;
+    }
+
+    private void dropSubscriptions(final GridChannel channel) {
+        final String message = missingMessage(channel.getEntry().getId());
+        for (final GridSubscription subscription : channel.getSubscriptions()) {
+            subscriptions.remove(subscription.getSession());
+            subscription.getPendingChanges().clear();
+            subscription.setSnapshotNeeded(false);
+            if (!subscription.isSending()) {
+                send(subscription, message);
+            }
+        }
+    }
+
+    /**
+     * Sends the snapshot or the pending changes to an idle client (if it needs any).
+     */
+    private void flush(final GridSubscription subscription) {
+        if (subscription.isSnapshotNeeded()) {
+            subscription.setSnapshotNeeded(false);
+            subscription.getPendingChanges().clear();
+            send(subscription, encode(subscription, null, true));
+        } else if (!subscription.getPendingChanges().isEmpty()) {
+            final String message = encode(subscription, subscription.getPendingChanges(), false);
+            subscription.getPendingChanges().clear();
+            send(subscription, message);
+        }
+    }
+
+    private String encode(final GridSubscription subscription, final Set<CubeCoordinate> changes, final boolean snapshot) {
+        final GridChannel channel = subscription.getChannel();
+        final GridEntry entry = channel.getEntry();
+        try {
+            if (!snapshot) {
+                return messages.delta(entry, changes);
+            }
+            final long version = entry.getVersion();
+            String result = channel.fetchSnapshot(version);
+            if (result == null) {
+                result = messages.snapshot(entry, version);
+                channel.storeSnapshot(version, result);
+            }
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode the update of grid " + entry.getId(), e);
+        }
+    }
+
+    private String missingMessage(final int id) {
+        try {
+            return messages.missing(id);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode the update of grid " + id, e);
+        }
+    }
+
+    private void send(final GridSubscription subscription, final String message) {
+        final Session session = subscription.getSession();
+        if (!session.isOpen()) {
+            unsubscribe(session);
+            return;
+        }
+        subscription.setSending(true);
+        session.getRemote().sendString(message, new WriteCallback() {
+            @Override
+            public void writeFailed(final Throwable throwable) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        subscription.setSending(false);
+                        unsubscribe(session);
+                    }
+                });
+            }
+
+            @Override
+            public void writeSuccess() {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        subscription.setSending(false);
+                        if (subscriptions.get(session) == subscription) {
+                            flush(subscription);
+                        }
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package org.codetome.hexameter.restexample.push;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
+import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+
+/**
+ * WebSocket endpoint of the grid updates. Spark creates it from its class so the {@link GridUpdatePublisher}
+ * it delegates to has to be set with {@link #setPublisher(GridUpdatePublisher)} before the server starts.
+ */
+@WebSocket
+public class GridUpdateSocket {
+
+    private static volatile GridUpdatePublisher publisher;
+
+    public static void setPublisher(final GridUpdatePublisher publisher) {
+        GridUpdateSocket.publisher = publisher;
+    }
+
+    @OnWebSocketMessage
+    public void onMessage(final Session session, final String message) {
+        publisher.onMessage(session, message);
+    }
+
+    @OnWebSocketClose
+    public void onClose(final Session session, final int statusCode, final String reason) {
+        publisher.onClose(session);
+    }
+}
@@ -0,0 +1,219 @@
+package org.codetome.hexameter.restexample.tile;
+
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.api.SatelliteDataListener;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.HexagonImpl;
+import org.codetome.hexameter.restexample.model.GridEntry;
+import org.codetome.hexameter.restexample.viewport.Viewport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.Math.floor;
+
+/**
+ * <p>
+ * Keeps rendered tiles up to a total size in bytes and evicts the least recently used ones above that.
+ * </p>
+ * <p>
+ * A listener is added to every grid which has cached tiles. When the satellite data of a cell changes only the
+ * tiles which the cell overlaps are dropped (one or a few per zoom level which has cached tiles), the rest of the tiles of the grid stay
+ * valid. A tile is only stored if the grid did not change since its rendering started so a change which happens
+ * during the rendering can't leave a stale tile behind.
+ * </p>
+ */
+public class TileCache {
+
+    private final long maxSize;
+    private final LinkedHashMap<TileKey, byte[]> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<GridEntry, TileInvalidator> invalidators = new HashMap<>();
+    private long size;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize maximum total size of the tiles in bytes
+     */
+    public TileCache(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached tile or null.
+     *
+     * @param key tile
+     * @return PNG image or null
+     */
+    synchronized byte[] get(final TileKey key) {
+        return tiles.get(key);
+    }
+
+    /**
+     * Stores a tile unless its grid changed since the rendering started.
+     *
+     * @param key tile
+     * @param gridData grid data of the grid
+     * @param tile PNG image
+     * @param version version of the grid when the rendering started
+     */
+    synchronized void put(final TileKey key, final GridData gridData, final byte[] tile, final long version) {
+        final GridEntry entry = key.getEntry();
+        if (tile.length > maxSize) {
+            return;
+        }
+        TileInvalidator invalidator = invalidators.get(entry);
+        if (invalidator == null) {
+            invalidator = new TileInvalidator(entry, gridData);
+            invalidators.put(entry, invalidator);
+            entry.addListener(invalidator);
+        }
+        // the listener is in place so a change from now on drops the tile, one before is seen here
+        if (entry.getVersion() != version) {
+            releaseIfUnused(invalidator);
+            return;
+        }
+        final byte[] previous = tiles.put(key, tile);
+        if (previous == null) {
+            invalidator.keysByZoom.get(key.getZoom()).add(key);
+        } else {
+            size -= previous.length;
+        }
+        size += tile.length;
+        final Iterator<Map.Entry<TileKey, byte[]>> iterator = tiles.entrySet().iterator();
+        while (size > maxSize) {
+            final Map.Entry<TileKey, byte[]> eldest = iterator.next();
+            iterator.remove();
+            onRemoved(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * Returns the total size of the cached tiles in bytes.
+     *
+     * @return size
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized int getTileCount() {
+        return tiles.size();
+    }
+
+    private synchronized void invalidate(final TileInvalidator invalidator, final double minX, final double minY,
+                                         final double maxX, final double maxY) {
+        for (int zoom = 0; zoom <= Viewport.MAX_ZOOM; zoom++) {
+            final Set<TileKey> keys = invalidator.keysByZoom.get(zoom);
+            if (keys.isEmpty()) {
+                continue;
+            }
+            final double tileSpan = invalidator.worldSize / (1 << zoom);
+            final int tileXFrom = (int) floor(minX / tileSpan);
+            final int tileXTo = (int) floor(maxX / tileSpan);
+            final int tileYFrom = (int) floor(minY / tileSpan);
+            final int tileYTo = (int) floor(maxY / tileSpan);
+            final long coveredTiles = (long) (tileXTo - tileXFrom + 1) * (tileYTo - tileYFrom + 1);
+            if (coveredTiles <= keys.size()) {
+                for (int tileX = tileXFrom; tileX <= tileXTo; tileX++) {
+                    for (int tileY = tileYFrom; tileY <= tileYTo; tileY++) {
+                        remove(new TileKey(invalidator.entry, zoom, tileX, tileY));
+                    }
+                }
+            } else {
+                // at high zoom levels a cell covers more tiles than there are cached
+                for (final TileKey key : new ArrayList<>(keys)) {
+                    if (key.getTileX() >= tileXFrom && key.getTileX() <= tileXTo && key.getTileY() >= tileYFrom && key.getTileY() <= tileYTo) {
+                        remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private void remove(final TileKey key) {
+        final byte[] tile = tiles.remove(key);
+        if (tile != null) {
+            onRemoved(key, tile);
+        }
+    }
+
+    private synchronized void invalidateAll(final TileInvalidator invalidator) {
+        final Iterator<Map.Entry<TileKey, byte[]>> iterator = tiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<TileKey, byte[]> tile = iterator.next();
+            if (tile.getKey().getEntry() == invalidator.entry) {
+                iterator.remove();
+                onRemoved(tile.getKey(), tile.getValue());
+            }
+        }
+    }
+
+    private void onRemoved(final TileKey key, final byte[] tile) {
+        size -= tile.length;
+        final TileInvalidator invalidator = invalidators.get(key.getEntry());
+        invalidator.keysByZoom.get(key.getZoom()).remove(key);
+        releaseIfUnused(invalidator);
+    }
+
+    private void releaseIfUnused(final TileInvalidator invalidator) {
+        for (final Set<TileKey> keys : invalidator.keysByZoom) {
+            if (!keys.isEmpty()) {
+                return;
+            }
+        }
+        invalidators.remove(invalidator.entry);
+        invalidator.entry.removeListener(invalidator);
+    }
+
+    /**
+     * Keeps the cached tiles of a grid by zoom level and drops the ones a changed cell overlaps.
+     */
+    private final class TileInvalidator implements SatelliteDataListener {
+
+        private final GridEntry entry;
+        private final GridData gridData;
+        private final double worldSize;
+        private final List<Set<TileKey>> keysByZoom = new ArrayList<>(Viewport.MAX_ZOOM + 1);
+
+        TileInvalidator(final GridEntry entry, final GridData gridData) {
+            this.entry = entry;
+            this.gridData = gridData;
+            this.worldSize = Viewport.getWorldSize(gridData);
+            for (int zoom = 0; zoom <= Viewport.MAX_ZOOM; zoom++) {
+                keysByZoom.add(new HashSet<TileKey>());
+            }
+        }
+
+        @Override
+        public void onSatelliteDataSet(final CubeCoordinate coordinate, final SatelliteData satelliteData) {
+            onChanged(coordinate);
+        }
+
+        @Override
+        public void onSatelliteDataCleared(final CubeCoordinate coordinate) {
+            onChanged(coordinate);
+        }
+
+        @Override
+        public void onAllSatelliteDataCleared() {
+            invalidateAll(this);
+        }
+
+        private void onChanged(final CubeCoordinate coordinate) {
+            final Hexagon hexagon = HexagonImpl.newHexagon(gridData, coordinate, Collections.<CubeCoordinate, Object>emptyMap());
+            final double radius = gridData.getRadius();
+            invalidate(this, hexagon.getCenterX() - radius, hexagon.getCenterY() - radius,
+                    hexagon.getCenterX() + radius, hexagon.getCenterY() + radius);
+        }
+    }
+}
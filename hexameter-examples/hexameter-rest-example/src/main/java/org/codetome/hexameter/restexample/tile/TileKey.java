@@ -0,0 +1,15 @@
+package org.codetome.hexameter.restexample.tile;
+
+import lombok.Data;
+import org.codetome.hexameter.restexample.model.GridEntry;
+
+/**
+ * Identifies a tile of a grid. Entries are compared by identity so the tiles of a replaced grid never match.
+ */
+@Data
+final class TileKey {
+    private final GridEntry entry;
+    private final int zoom;
+    private final int tileX;
+    private final int tileY;
+}
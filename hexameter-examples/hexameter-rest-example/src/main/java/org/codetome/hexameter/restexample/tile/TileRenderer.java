@@ -0,0 +1,113 @@
+package org.codetome.hexameter.restexample.tile;
+
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.backport.Optional;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.restexample.geometry.VertexOffsets;
+import org.codetome.hexameter.restexample.viewport.Viewport;
+import rx.functions.Action1;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.codetome.hexameter.restexample.viewport.Viewport.TILE_SIZE;
+
+/**
+ * <p>
+ * Rasterizes the cells of a grid which overlap with a tile into a PNG image of {@link Viewport#TILE_SIZE} pixels.
+ * Cells without satellite data are white, impassable cells are grey and passable cells are green, the darker
+ * the higher their movement cost is. Outlines are only drawn while the cells are big enough to see them.
+ * </p>
+ * <p>
+ * The vertex offsets are scaled once per tile so drawing a cell only needs its center. Needs no display
+ * (the server runs with <code>java.awt.headless</code>) and instances are thread safe.
+ * </p>
+ */
+public class TileRenderer {
+
+    public static final String CONTENT_TYPE = "image/png";
+
+    static final Color EMPTY = Color.WHITE;
+    static final Color IMPASSABLE = new Color(0x888888);
+    static final Color OUTLINE = Color.BLACK;
+    static final double MAX_MOVEMENT_COST = 10;
+
+    private static final double MIN_OUTLINED_RADIUS = 3;
+    private static final int PASSABLE_RED = 0xC8;
+    private static final int PASSABLE_GREEN = 0xE6;
+    private static final int PASSABLE_BLUE = 0xC9;
+    private static final double COST_DARKENING = 0.6;
+
+    /**
+     * Renders the given tile of the given grid.
+     *
+     * @param grid grid
+     * @param viewport area of the tile
+     * @return PNG image
+     * @throws IOException if the image can't be encoded
+     */
+    public byte[] render(final HexagonalGrid grid, final Viewport viewport) throws IOException {
+        final GridData gridData = grid.getGridData();
+        final double scale = TILE_SIZE / viewport.getWidth();
+        final VertexOffsets vertexOffsets = new VertexOffsets(gridData);
+        final double[] offsetsX = new double[VertexOffsets.VERTEX_COUNT];
+        final double[] offsetsY = new double[VertexOffsets.VERTEX_COUNT];
+        for (int i = 0; i < VertexOffsets.VERTEX_COUNT; i++) {
+            offsetsX[i] = vertexOffsets.getOffsetX(i) * scale;
+            offsetsY[i] = vertexOffsets.getOffsetY(i) * scale;
+        }
+        final boolean outlined = gridData.getRadius() * scale >= MIN_OUTLINED_RADIUS;
+
+        final BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            final Path2D.Double path = new Path2D.Double();
+            viewport.getCoveredHexagons(grid).subscribe(new Action1<Hexagon>() {
+                @Override
+                public void call(final Hexagon hexagon) {
+                    final double centerX = (hexagon.getCenterX() - viewport.getX()) * scale;
+                    final double centerY = (hexagon.getCenterY() - viewport.getY()) * scale;
+                    path.reset();
+                    path.moveTo(centerX + offsetsX[0], centerY + offsetsY[0]);
+                    for (int i = 1; i < VertexOffsets.VERTEX_COUNT; i++) {
+                        path.lineTo(centerX + offsetsX[i], centerY + offsetsY[i]);
+                    }
+                    path.closePath();
+                    graphics.setColor(colorOf(hexagon.<SatelliteData>getSatelliteData()));
+                    graphics.fill(path);
+                    if (outlined) {
+                        graphics.setColor(OUTLINE);
+                        graphics.draw(path);
+                    }
+                }
+            });
+        } finally {
+            graphics.dispose();
+        }
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+
+    static Color colorOf(final Optional<SatelliteData> satelliteData) {
+        if (!satelliteData.isPresent()) {
+            return EMPTY;
+        }
+        if (!satelliteData.get().isPassable()) {
+            return IMPASSABLE;
+        }
+        final double darkening = 1 - COST_DARKENING * min(max(satelliteData.get().getMovementCost(), 0), MAX_MOVEMENT_COST) / MAX_MOVEMENT_COST;
+        return new Color((int) (PASSABLE_RED * darkening), (int) (PASSABLE_GREEN * darkening), (int) (PASSABLE_BLUE * darkening));
+    }
+}
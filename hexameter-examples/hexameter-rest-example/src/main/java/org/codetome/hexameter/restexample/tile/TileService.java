@@ -0,0 +1,109 @@
+package org.codetome.hexameter.restexample.tile;
+
+import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.codetome.hexameter.restexample.model.GridEntry;
+import org.codetome.hexameter.restexample.viewport.Viewport;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the PNG tiles of the grids from a {@link TileCache}. Missing tiles are rendered on a pool with a thread
+ * for every processor so the tiles a map client requests at once are rendered in parallel, while concurrent
+ * requests for the same tile wait for the same rendering. Callers give up waiting after a timeout, the rendering
+ * goes on and its tile is cached for the next request.
+ */
+public class TileService {
+
+    private final TileRenderer renderer = new TileRenderer();
+    private final TileCache cache;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+    private final ConcurrentMap<TileKey, Future<byte[]>> renderings = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a service.
+     *
+     * @param cache cache of the rendered tiles
+     * @param timeoutMillis how long {@link #getTile(GridEntry, int, int, int)} waits for a rendering
+     */
+    public TileService(final TileCache cache, final long timeoutMillis) {
+        this.cache = cache;
+        this.timeoutMillis = timeoutMillis;
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "tile-renderer-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the given tile of the given grid as a PNG image.
+     *
+     * @param entry grid
+     * @param zoom zoom level (0 to {@link Viewport#MAX_ZOOM})
+     * @param tileX column of the tile
+     * @param tileY row of the tile
+     * @return PNG image
+     * @throws IOException if the tile can't be rendered
+     * @throws TimeoutException if the tile was not rendered in time
+     */
+    public byte[] getTile(final GridEntry entry, final int zoom, final int tileX, final int tileY) throws IOException, TimeoutException {
+        final TileKey key = new TileKey(entry, zoom, tileX, tileY);
+        final byte[] cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final HexagonalGridImpl grid = entry.getGrid();
+        final Viewport viewport = Viewport.fromTile(grid.getGridData(), zoom, tileX, tileY);
+        final FutureTask<byte[]> rendering = new FutureTask<>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                try {
+                    final long version = entry.getVersion();
+                    final byte[] tile = renderer.render(grid, viewport);
+                    cache.put(key, grid.getGridData(), tile, version);
+                    return tile;
+                } finally {
+                    // a caller which timed out does not wait for the rendering so it removes itself
+                    renderings.remove(key);
+                }
+            }
+        });
+        Future<byte[]> result = renderings.putIfAbsent(key, rendering);
+        if (result == null) {
+            result = rendering;
+            executor.execute(rendering);
+        }
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering tile " + key, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Could not render tile " + key, e.getCause());
+        }
+    }
+
+    public TileCache getCache() {
+        return cache;
+    }
+}
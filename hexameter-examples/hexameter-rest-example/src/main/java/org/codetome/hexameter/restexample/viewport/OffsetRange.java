@@ -0,0 +1,82 @@
+package org.codetome.hexameter.restexample.viewport;
+
+import lombok.Data;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.internal.GridData;
+import rx.Observable;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
+
+/**
+ * A rectangle of offset coordinates (bounds included) clamped to the offset coordinates the cells of a grid can have,
+ * so walking it never visits more coordinates than the grid has rows and columns whatever bounds a client asked for.
+ */
+@Data
+public class OffsetRange {
+
+    private final int gridXFrom;
+    private final int gridXTo;
+    private final int gridYFrom;
+    private final int gridYTo;
+
+    /**
+     * Creates the part of the given range which can contain cells of a grid with the given GridData. Every layout puts
+     * its cells at non-negative offset coordinates. Trapezoid and mask layouts shift every second row (or column
+     * for flat top grids) so their offset coordinates reach half a grid further than the width (or height).
+     *
+     * @param gridData grid data
+     * @param gridXFrom first column
+     * @param gridXTo last column
+     * @param gridYFrom first row
+     * @param gridYTo last row
+     * @return clamped range (empty if the given range does not overlap with the grid)
+     */
+    public static OffsetRange clampedTo(final GridData gridData, final int gridXFrom, final int gridXTo,
+                                        final int gridYFrom, final int gridYTo) {
+        final long width = gridData.getGridWidth();
+        final long height = gridData.getGridHeight();
+        final boolean flatTop = FLAT_TOP.equals(gridData.getOrientation());
+        final long maxGridX = flatTop ? width - 1 : width - 1 + (height - 1) / 2;
+        final long maxGridY = flatTop ? height - 1 + (width - 1) / 2 : height - 1;
+        return new OffsetRange(max(gridXFrom, 0), (int) min(gridXTo, min(maxGridX, Integer.MAX_VALUE - 1)),
+                max(gridYFrom, 0), (int) min(gridYTo, min(maxGridY, Integer.MAX_VALUE - 1)));
+    }
+
+    /**
+     * Returns the number of offset coordinates in this range.
+     *
+     * @return number of coordinates
+     */
+    public long getCellCount() {
+        final long columns = max(0, (long) gridXTo - gridXFrom + 1);
+        final long rows = max(0, (long) gridYTo - gridYFrom + 1);
+        return columns * rows;
+    }
+
+    /**
+     * Checks that this range doesn't cover more cells than allowed, so a single request can't walk an arbitrarily
+     * large part of a grid.
+     *
+     * @param maxCellCount maximum number of cells
+     * @throws IllegalArgumentException if the range is too big
+     */
+    public void checkCellCount(final long maxCellCount) {
+        final long cellCount = getCellCount();
+        if (cellCount > maxCellCount) {
+            throw new IllegalArgumentException("Range covers " + cellCount + " cells, at most " + maxCellCount + " are allowed.");
+        }
+    }
+
+    /**
+     * Returns the cells of the given grid in this range.
+     *
+     * @param grid grid
+     * @return cells
+     */
+    public Observable<Hexagon> getHexagons(final HexagonalGrid grid) {
+        return grid.getHexagonsByOffsetRange(gridXFrom, gridXTo, gridYFrom, gridYTo);
+    }
+}
@@ -0,0 +1,110 @@
+package org.codetome.hexameter.restexample.viewport;
+
+import lombok.Data;
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.internal.GridData;
+import rx.Observable;
+import rx.functions.Func1;
+
+import static java.lang.Math.floor;
+import static java.lang.Math.max;
+
+/**
+ * A rectangle in the pixel space of a grid. A viewport can also be created for a tile: at zoom level 0 a single
+ * tile of {@link #TILE_SIZE} pixels covers the whole grid and every further zoom level halves the area a tile covers.
+ */
+@Data
+public class Viewport {
+
+    public static final int TILE_SIZE = 256;
+    public static final int MAX_ZOOM = 20;
+
+    private final double x;
+    private final double y;
+    private final double width;
+    private final double height;
+
+    /**
+     * Creates the viewport of the tile with the given coordinates.
+     *
+     * @param gridData grid data of the grid
+     * @param zoom zoom level (0 to {@link #MAX_ZOOM})
+     * @param tileX column of the tile
+     * @param tileY row of the tile
+     * @return viewport
+     */
+    public static Viewport fromTile(final GridData gridData, final int zoom, final int tileX, final int tileY) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom level must be between 0 and " + MAX_ZOOM + ": " + zoom);
+        }
+        final double tileSpan = getWorldSize(gridData) / (1 << zoom);
+        return new Viewport(tileX * tileSpan, tileY * tileSpan, tileSpan, tileSpan);
+    }
+
+    /**
+     * Returns the size of the square which contains every cell of a grid in pixels.
+     *
+     * @param gridData grid data of the grid
+     * @return size
+     */
+    public static double getWorldSize(final GridData gridData) {
+        final double width = (gridData.getGridWidth() + 1) * gridData.getHexagonWidth() + gridData.getRadius();
+        final double height = (gridData.getGridHeight() + 1) * gridData.getHexagonHeight() + gridData.getRadius();
+        return max(width, height);
+    }
+
+    /**
+     * Returns the maximum number of cells of a grid with the given GridData which can overlap with this viewport.
+     *
+     * @param gridData grid data
+     * @return number of cells
+     */
+    public long estimateCellCount(final GridData gridData) {
+        final long columns = (long) (width / gridData.getHexagonWidth()) + 3;
+        final long rows = (long) (height / gridData.getHexagonHeight()) + 3;
+        return columns * rows;
+    }
+
+    /**
+     * Checks that this viewport is not negative and that it doesn't cover more cells of a grid with the given
+     * GridData than allowed, so a single request can't walk an arbitrarily large part of a grid.
+     *
+     * @param gridData grid data
+     * @param maxCellCount maximum number of cells (see {@link #estimateCellCount(GridData)})
+     * @throws IllegalArgumentException if the viewport is too big or negative
+     */
+    public void checkCellCount(final GridData gridData, final long maxCellCount) {
+        if (!(width >= 0 && height >= 0)) {
+            throw new IllegalArgumentException("Viewport size must not be negative: " + width + "x" + height);
+        }
+        final long cellCount = estimateCellCount(gridData);
+        if (cellCount > maxCellCount) {
+            throw new IllegalArgumentException("Viewport covers " + cellCount + " cells, at most " + maxCellCount + " are allowed.");
+        }
+    }
+
+    /**
+     * Returns the cells of the given grid which overlap with this viewport. The offset coordinates of the cells
+     * which can overlap are calculated from the pixel coordinates (extended by one cell in each direction since
+     * cells are bigger than the distance between them) and only the cells whose bounding box intersects this viewport are kept.
+     *
+     * @param grid grid
+     * @return cells
+     */
+    public Observable<Hexagon> getCoveredHexagons(final HexagonalGrid grid) {
+        final GridData gridData = grid.getGridData();
+        final int gridXFrom = (int) floor(x / gridData.getHexagonWidth()) - 1;
+        final int gridXTo = (int) floor((x + width) / gridData.getHexagonWidth()) + 1;
+        final int gridYFrom = (int) floor(y / gridData.getHexagonHeight()) - 1;
+        final int gridYTo = (int) floor((y + height) / gridData.getHexagonHeight()) + 1;
+        final double radius = gridData.getRadius();
+        return grid.getHexagonsByOffsetRange(gridXFrom, gridXTo, gridYFrom, gridYTo).filter(new Func1<Hexagon, Boolean>() {
+            @Override
+            public Boolean call(final Hexagon hexagon) {
+                return hexagon.getCenterX() + radius >= x && hexagon.getCenterX() - radius <= x + width
+                        && hexagon.getCenterY() + radius >= y && hexagon.getCenterY() - radius <= y + height;
+            }
+        });
+    }
+}
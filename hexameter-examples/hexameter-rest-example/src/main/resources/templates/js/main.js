@@ -49,16 +49,94 @@ document.querySelector("#redraw").addEventListener("click", function (event) {
 }, false);
 
 
+// Layout of the binary grid format (see GridBinaryWriter): every field is 4 bytes long.
+var HEADER_FIELDS = 8;
+var MAGIC = 0x42475848;
+var CELL_COUNT_FIELD = 3;
+var RECORD_SIZE_FIELD = 4;
+var VERTICES_FIELD = 4;
+
 function fetchGrid(gridId) {
-    $.ajax({
-        url: appURL + '/grids/getGridForDrawing/' + gridId,
-        type: 'GET',
-        success: function (result) {
-            hexagonData = result.cellData;
-            console.log("Successfully fetched grid. Number of cells: " + hexagonData.length);
-            drawHexagons();
+    var request = new XMLHttpRequest();
+    request.open('GET', appURL + '/grids/getGridForDrawing/' + gridId + '?vertices=true');
+    request.setRequestHeader('Accept', 'application/octet-stream');
+    request.responseType = 'arraybuffer';
+    request.onload = function () {
+        if (request.status !== 200) {
+            console.log("Failed to fetch grid: " + request.status);
+            return;
+        }
+        hexagonData = parseGrid(request.response);
+        console.log("Successfully fetched grid. Number of cells: " + hexagonData.cellCount);
+        drawHexagons();
+        subscribeToUpdates(gridId);
+    };
+    request.send();
+}
+
+function parseGrid(buffer) {
+    var ints = new Int32Array(buffer);
+    if (ints[0] !== MAGIC) {
+        throw new Error("Not a hexameter grid");
+    }
+    return {
+        cellCount: ints[CELL_COUNT_FIELD],
+        recordFields: ints[RECORD_SIZE_FIELD] / 4,
+        ints: ints,
+        floats: new Float32Array(buffer)
+    };
+}
+
+// Updates of the satellite data are pushed over a WebSocket (see GridUpdatePublisher).
+var RECONNECT_DELAY_MILLIS = 1000;
+var updateSocket = null;
+var satelliteData = {};
+var gridVersion = null;
+
+function subscribeToUpdates(gridId) {
+    if (updateSocket !== null && updateSocket.readyState === WebSocket.OPEN) {
+        updateSocket.send(JSON.stringify({"id": gridId, "version": gridVersion}));
+        return;
+    }
+    if (updateSocket !== null) {
+        return;
+    }
+    updateSocket = new WebSocket(appURL.replace(/^http/, 'ws') + '/grids/updates');
+    updateSocket.onopen = function () {
+        // a reconnecting client sends its last version and gets a snapshot if it missed anything
+        updateSocket.send(JSON.stringify({"id": gridId, "version": gridVersion}));
+    };
+    updateSocket.onmessage = function (event) {
+        applyUpdate(JSON.parse(event.data));
+    };
+    updateSocket.onclose = function () {
+        updateSocket = null;
+        setTimeout(function () {
+            subscribeToUpdates(gridId);
+        }, RECONNECT_DELAY_MILLIS);
+    };
+}
+
+function applyUpdate(update) {
+    if (update.type === 'missing') {
+        console.log("Grid does not exist anymore: " + update.id);
+        return;
+    }
+    if (update.type === 'snapshot') {
+        satelliteData = {};
+    }
+    update.cells.forEach(function (cell) {
+        var key = cell.gridCoordinate[0] + ',' + cell.gridCoordinate[1];
+        if (cell.satelliteData === null) {
+            delete satelliteData[key];
+        } else {
+            satelliteData[key] = cell.satelliteData;
         }
     });
+    gridVersion = update.version;
+    if (hexagonData !== null) {
+        drawHexagons();
+    }
 }
 
 var renderer = null;
@@ -81,18 +159,21 @@ function initPixi() {
 
 function drawHexagons() {
     graphics.clear();
-    graphics.beginFill(0xffffff);
     graphics.lineStyle(1, 0x000000, 1);
 
-    hexagonData.forEach(function (hex) {
-        var lastPoint = hex.points[5];
-        graphics.moveTo(lastPoint[0], lastPoint[1]);
-        hex.points.forEach(function (point) {
-            graphics.lineTo(point[0], point[1]);
-        });
-    });
-
-    graphics.endFill();
+    var ints = hexagonData.ints;
+    var floats = hexagonData.floats;
+    for (var cell = 0; cell < hexagonData.cellCount; cell++) {
+        var record = HEADER_FIELDS + cell * hexagonData.recordFields;
+        var data = satelliteData[ints[record] + ',' + ints[record + 1]];
+        graphics.beginFill(data !== undefined && !data.passable ? 0x888888 : 0xffffff);
+        var vertices = record + VERTICES_FIELD;
+        graphics.moveTo(floats[vertices + 10], floats[vertices + 11]);
+        for (var vertex = 0; vertex < 12; vertex += 2) {
+            graphics.lineTo(floats[vertices + vertex], floats[vertices + vertex + 1]);
+        }
+        graphics.endFill();
+    }
 }
 
 function animate() {
@@ -0,0 +1,119 @@
+package org.codetome.hexameter.restexample.binary;
+
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.Point;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRAPEZOID;
+
+public class GridBinaryWriterTest {
+
+    private static final int GRID_WIDTH = 60;
+    private static final int GRID_HEIGHT = 50;
+    private static final double RADIUS = 30;
+    private static final float DELTA = 0.001f;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private HexagonalGrid grid;
+    private GridBinaryWriter target;
+
+    @Before
+    public void setUp() throws Exception {
+        grid = new HexagonalGridBuilder().setGridWidth(GRID_WIDTH).setGridHeight(GRID_HEIGHT).setRadius(RADIUS)
+                .setGridLayout(TRAPEZOID).setOrientation(FLAT_TOP).build();
+        target = new GridBinaryWriter();
+    }
+
+    @Test
+    public void shouldWriteHeaderWhenGridIsWritten() throws IOException {
+        final ByteBuffer result = write(true);
+
+        assertEquals(GridBinaryWriter.MAGIC, result.getInt());
+        assertEquals(GridBinaryWriter.FORMAT_VERSION, result.getInt());
+        assertEquals(GridBinaryWriter.VERTICES_FLAG, result.getInt());
+        assertEquals(GRID_WIDTH * GRID_HEIGHT, result.getInt());
+        assertEquals(GridBinaryWriter.CELL_SIZE + GridBinaryWriter.VERTICES_SIZE, result.getInt());
+        assertEquals(FLAT_TOP.ordinal(), result.getInt());
+        assertEquals(TRAPEZOID.ordinal(), result.getInt());
+        assertEquals((float) RADIUS, result.getFloat());
+        assertEquals(GridBinaryWriter.HEADER_SIZE, result.position());
+    }
+
+    @Test
+    public void shouldStartWithMagicBytesWhenGridIsWritten() throws IOException {
+        final ByteBuffer result = write(false);
+
+        assertEquals("HXGB", new String(result.array(), 0, 4, "US-ASCII"));
+    }
+
+    @Test
+    public void shouldWriteEveryCellInIterationOrderWhenVerticesAreNotRequested() throws IOException {
+        final ByteBuffer result = write(false);
+
+        assertEquals(0, result.getInt(8));
+        assertEquals(GridBinaryWriter.CELL_SIZE, result.getInt(16));
+        result.position(GridBinaryWriter.HEADER_SIZE);
+        for (final Hexagon hexagon : grid.getHexagons().toBlocking().toIterable()) {
+            assertCellEquals(hexagon, result);
+        }
+        assertFalse(result.hasRemaining());
+    }
+
+    @Test
+    public void shouldWriteVerticesAfterCenterWhenVerticesAreRequested() throws IOException {
+        final ByteBuffer result = write(true);
+
+        result.position(GridBinaryWriter.HEADER_SIZE);
+        for (final Hexagon hexagon : grid.getHexagons().toBlocking().toIterable()) {
+            assertCellEquals(hexagon, result);
+            for (final Point point : hexagon.getPoints()) {
+                assertEquals((float) point.getCoordinateX(), result.getFloat(), DELTA);
+                assertEquals((float) point.getCoordinateY(), result.getFloat(), DELTA);
+            }
+        }
+        assertFalse(result.hasRemaining());
+    }
+
+    @Test
+    public void shouldWriteAsManyBytesAsCalculatedWhenGridIsBiggerThanTheBuffer() throws IOException {
+        final long withVertices = GridBinaryWriter.calculateSize(grid.getGridData(), true);
+        final long withoutVertices = GridBinaryWriter.calculateSize(grid.getGridData(), false);
+
+        assertTrue(withVertices > BUFFER_SIZE);
+        assertEquals(withVertices, write(true).limit());
+        assertEquals(withoutVertices, write(false).limit());
+        assertEquals(GridBinaryWriter.HEADER_SIZE + (long) GRID_WIDTH * GRID_HEIGHT * GridBinaryWriter.CELL_SIZE, withoutVertices);
+    }
+
+    @Test
+    public void shouldAcceptBinaryWhenAcceptHeaderContainsContentType() {
+        assertTrue(GridBinaryWriter.isAccepted("application/json, application/octet-stream;q=0.9"));
+        assertFalse(GridBinaryWriter.isAccepted("application/json"));
+        assertFalse(GridBinaryWriter.isAccepted(null));
+    }
+
+    private ByteBuffer write(final boolean withVertices) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        target.write(grid, withVertices, output);
+        return ByteBuffer.wrap(output.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void assertCellEquals(final Hexagon hexagon, final ByteBuffer buffer) {
+        assertEquals(hexagon.getGridX(), buffer.getInt());
+        assertEquals(hexagon.getGridZ(), buffer.getInt());
+        assertEquals((float) hexagon.getCenterX(), buffer.getFloat());
+        assertEquals((float) hexagon.getCenterY(), buffer.getFloat());
+    }
+}
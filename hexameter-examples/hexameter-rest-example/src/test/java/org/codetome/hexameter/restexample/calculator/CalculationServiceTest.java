@@ -0,0 +1,185 @@
+package org.codetome.hexameter.restexample.calculator;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.codetome.hexameter.core.api.CubeCoordinate;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.codetome.hexameter.restexample.model.GridEntry;
+import org.codetome.hexameter.restexample.model.GridRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+
+public class CalculationServiceTest {
+
+    private static final int GRID_ID = 1;
+    private static final int GRID_SIZE = 20;
+    private static final int RADIUS = 30;
+    private static final long ENTRY_OVERHEAD = 64;
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final CubeCoordinate FROM = fromCoordinates(1, 1);
+    private static final CubeCoordinate TO = fromCoordinates(4, 3);
+    private static final CubeCoordinate OTHER_TO = fromCoordinates(5, 3);
+    private static final CubeCoordinate THIRD_TO = fromCoordinates(6, 3);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private CountingJsonFactory jsonFactory;
+    private GridEntry entry;
+
+    @Before
+    public void setUp() throws Exception {
+        jsonFactory = new CountingJsonFactory();
+        final GridRegistry registry = new GridRegistry(Long.MAX_VALUE, Long.MAX_VALUE / 2, temporaryFolder.getRoot().toPath());
+        final HexagonalGridBuilder builder = new HexagonalGridBuilder().setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE)
+                .setRadius(RADIUS).setGridLayout(RECTANGULAR);
+        entry = registry.put(GRID_ID, (HexagonalGridImpl) builder.build());
+    }
+
+    @Test
+    public void shouldCalculateOnceWhenSameCalculationIsRequestedConcurrently() throws Exception {
+        final CalculationService target = new CalculationService(jsonFactory, Long.MAX_VALUE);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch resumed = new CountDownLatch(1);
+        jsonFactory.block(started, resumed);
+        final AtomicReference<String> firstResult = new AtomicReference<>();
+        final AtomicReference<String> secondResult = new AtomicReference<>();
+        final Thread first = calculateDistanceIn(target, firstResult);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        final Thread second = calculateDistanceIn(target, secondResult);
+        awaitWaiting(second);
+        resumed.countDown();
+        first.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        second.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+
+        assertEquals(1, jsonFactory.getGeneratorCount());
+        assertEquals("{\"distance\":5}", firstResult.get());
+        assertEquals(firstResult.get(), secondResult.get());
+    }
+
+    @Test
+    public void shouldReturnCachedResultWhenSameCalculationIsRequestedAgain() {
+        final CalculationService target = new CalculationService(jsonFactory, Long.MAX_VALUE);
+
+        final String first = target.calculateDistance(entry, FROM, TO);
+        final String second = target.calculateDistance(entry, FROM, TO);
+
+        assertEquals(first, second);
+        assertEquals(1, jsonFactory.getGeneratorCount());
+    }
+
+    @Test
+    public void shouldCountArgumentsAndResultWhenCacheSizeIsAsked() {
+        final CalculationService target = new CalculationService(jsonFactory, Long.MAX_VALUE);
+
+        final String first = target.calculateDistance(entry, FROM, TO);
+        final String second = target.drawLine(entry, FROM, TO);
+
+        assertEquals(sizeOf(first) + sizeOf(second), target.getCacheSize());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedResultWhenCacheIsFull() {
+        final String result = new CalculationService(new JsonFactory(), Long.MAX_VALUE).calculateDistance(entry, FROM, TO);
+        final CalculationService target = new CalculationService(jsonFactory, 2 * sizeOf(result));
+        target.calculateDistance(entry, FROM, TO);
+        target.calculateDistance(entry, FROM, OTHER_TO);
+        target.calculateDistance(entry, FROM, TO);
+
+        target.calculateDistance(entry, FROM, THIRD_TO);
+
+        assertEquals(3, jsonFactory.getGeneratorCount());
+        assertEquals(2 * sizeOf(result), target.getCacheSize());
+        target.calculateDistance(entry, FROM, TO);
+        assertEquals(3, jsonFactory.getGeneratorCount());
+        target.calculateDistance(entry, FROM, OTHER_TO);
+        assertEquals(4, jsonFactory.getGeneratorCount());
+    }
+
+    @Test
+    public void shouldNotCacheResultWhenItIsBiggerThanTheCache() {
+        final CalculationService target = new CalculationService(jsonFactory, ENTRY_OVERHEAD);
+
+        target.calculateDistance(entry, FROM, TO);
+        target.calculateDistance(entry, FROM, TO);
+
+        assertEquals(0, target.getCacheSize());
+        assertEquals(2, jsonFactory.getGeneratorCount());
+    }
+
+    private Thread calculateDistanceIn(final CalculationService target, final AtomicReference<String> result) {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.set(target.calculateDistance(entry, FROM, TO));
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Every calculation of the tests has arguments as long as the ones of a distance from {@link #FROM} to {@link #TO}.
+     */
+    private static long sizeOf(final String result) {
+        final String arguments = FROM.toAxialKey() + ";" + TO.toAxialKey();
+        return ENTRY_OVERHEAD + 2L * (arguments.length() + result.length());
+    }
+
+    private static void awaitWaiting(final Thread thread) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+
+    /**
+     * Counts the generators it creates (one per calculation) and can hold the first one until it is resumed.
+     */
+    private static class CountingJsonFactory extends JsonFactory {
+
+        private final AtomicInteger generatorCount = new AtomicInteger();
+        private volatile CountDownLatch started;
+        private volatile CountDownLatch resumed;
+
+        void block(final CountDownLatch startedLatch, final CountDownLatch resumedLatch) {
+            this.started = startedLatch;
+            this.resumed = resumedLatch;
+        }
+
+        int getGeneratorCount() {
+            return generatorCount.get();
+        }
+
+        @Override
+        public JsonGenerator createGenerator(final Writer writer) throws IOException {
+            generatorCount.incrementAndGet();
+            if (started != null) {
+                started.countDown();
+                try {
+                    resumed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.createGenerator(writer);
+        }
+    }
+}
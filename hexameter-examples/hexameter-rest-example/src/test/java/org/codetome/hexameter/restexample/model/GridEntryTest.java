@@ -0,0 +1,135 @@
+package org.codetome.hexameter.restexample.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.SatelliteData;
+import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.codetome.hexameter.restexample.json.SatelliteDataBatch;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+
+public class GridEntryTest {
+
+    private static final int GRID_ID = 1;
+    private static final int GRID_SIZE = 20;
+    private static final int RADIUS = 30;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private GridRegistry registry;
+    private SatelliteDataBatch batch;
+    private Path directory;
+    private GridEntry target;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = temporaryFolder.getRoot().toPath();
+        registry = new GridRegistry(Long.MAX_VALUE, Long.MAX_VALUE / 2, directory);
+        batch = new SatelliteDataBatch(new ObjectMapper());
+        target = registry.put(GRID_ID, createGrid());
+    }
+
+    @Test
+    public void shouldKeepCustomDataWhenSpillIsForced() throws IOException {
+        applyUpdates("[{\"gridCoordinate\": [1, 1], \"movementCost\": 3, \"customData\": {\"owner\": \"red\"}}]");
+
+        final boolean spilled = target.spill(directory, registry.getSnapshotFormat());
+        final SatelliteData result = target.getGrid().getByCubeCoordinate(fromCoordinates(1, 1)).get()
+                .<SatelliteData>getSatelliteData().get();
+
+        assertFalse(spilled);
+        assertFalse(target.isSpillable());
+        assertEquals("red", result.<String>getCustomData("owner").get());
+        assertEquals(3.0, result.getMovementCost());
+    }
+
+    @Test
+    public void shouldReloadTerrainWhenGridWithoutCustomDataIsSpilled() throws IOException {
+        applyUpdates("[{\"gridCoordinate\": [1, 1], \"passable\": true, \"movementCost\": 3}]");
+
+        final boolean spilled = target.spill(directory, registry.getSnapshotFormat());
+        final boolean loadedAfterSpill = target.isLoaded();
+        final SatelliteData result = target.getGrid().getByCubeCoordinate(fromCoordinates(1, 1)).get()
+                .<SatelliteData>getSatelliteData().get();
+
+        assertTrue(spilled);
+        assertFalse(loadedAfterSpill);
+        assertTrue(result.isPassable());
+        assertEquals(3.0, result.getMovementCost());
+    }
+
+    @Test
+    public void shouldNotSpillGridWhenItHoldsOffGridSatelliteData() throws IOException {
+        target.getGrid().getHexagonStorage().put(fromCoordinates(GRID_SIZE * 2, GRID_SIZE * 2), new DefaultSatelliteData());
+
+        assertFalse(target.spill(directory, registry.getSnapshotFormat()));
+        assertTrue(target.isLoaded());
+        assertFalse(target.isSpillable());
+    }
+
+    @Test
+    public void shouldNotSpillGridWhenItIsPinned() throws IOException {
+        target.acquire();
+        try {
+            assertFalse(target.spill(directory, registry.getSnapshotFormat()));
+            assertTrue(target.isLoaded());
+        } finally {
+            target.release();
+        }
+    }
+
+    @Test
+    public void shouldSpillGridAgainWhenCustomDataWasCleared() throws IOException {
+        applyUpdates("[{\"gridCoordinate\": [1, 1], \"customData\": {\"owner\": \"red\"}}]");
+        target.getGrid().clearSatelliteData();
+
+        assertTrue(target.spill(directory, registry.getSnapshotFormat()));
+    }
+
+    @Test
+    public void shouldDropGridWhenItCantBeSpilledButIsEvicted() throws IOException {
+        final GridRegistry overBudget = new GridRegistry(0, Long.MAX_VALUE / 2, directory);
+        final GridEntry unspillable = overBudget.put(GRID_ID, createGrid());
+        unspillable.getGrid().getHexagonStorage().put(fromCoordinates(GRID_SIZE * 2, GRID_SIZE * 2), new DefaultSatelliteData());
+        final GridEntry pinned = overBudget.put(GRID_ID + 1, createGrid());
+        pinned.acquire();
+        try {
+            pinned.getGrid().getHexagonStorage().put(fromCoordinates(GRID_SIZE * 2, GRID_SIZE * 2), new DefaultSatelliteData());
+
+            overBudget.put(GRID_ID + 2, createGrid());
+
+            assertNull(overBudget.get(GRID_ID));
+            assertFalse(unspillable.isLoaded());
+            assertSame(pinned, overBudget.get(GRID_ID + 1));
+            assertTrue(pinned.isLoaded());
+        } finally {
+            pinned.release();
+        }
+    }
+
+    private static HexagonalGridImpl createGrid() {
+        return (HexagonalGridImpl) new HexagonalGridBuilder()
+                .setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE).setRadius(RADIUS).setGridLayout(RECTANGULAR).buildLazy();
+    }
+
+    private void applyUpdates(final String updates) throws IOException {
+        batch.applyUpdates(target.getGrid(), new ByteArrayInputStream(updates.getBytes(StandardCharsets.UTF_8)));
+    }
+}
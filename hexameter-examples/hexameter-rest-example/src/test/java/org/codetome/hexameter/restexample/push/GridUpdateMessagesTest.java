@@ -0,0 +1,67 @@
+package org.codetome.hexameter.restexample.push;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.codetome.hexameter.restexample.model.GridEntry;
+import org.codetome.hexameter.restexample.model.GridRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+
+public class GridUpdateMessagesTest {
+
+    private static final int GRID_ID = 1;
+    private static final int GRID_SIZE = 200;
+    private static final int RADIUS = 30;
+    private static final long VERSION = 42;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ObjectMapper objectMapper;
+    private GridRegistry registry;
+    private HexagonalGridBuilder builder;
+    private GridUpdateMessages target;
+
+    @Before
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        registry = new GridRegistry(Long.MAX_VALUE, Long.MAX_VALUE / 2, temporaryFolder.getRoot().toPath());
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE).setRadius(RADIUS).setGridLayout(RECTANGULAR);
+        target = new GridUpdateMessages(objectMapper);
+    }
+
+    @Test
+    public void shouldOnlyWriteCellsWithSatelliteDataWhenSnapshotIsEncoded() throws IOException {
+        final GridEntry entry = registry.put(GRID_ID, (HexagonalGridImpl) builder.build());
+        entry.getGrid().getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(new DefaultSatelliteData());
+
+        final JsonNode result = objectMapper.readTree(target.snapshot(entry, VERSION));
+
+        assertEquals(GridUpdateMessages.SNAPSHOT, result.get("type").asText());
+        assertEquals(VERSION, result.get("version").asLong());
+        assertEquals(1, result.get("cells").size());
+        assertEquals(1, result.get("cells").get(0).get("gridCoordinate").get(0).asInt());
+    }
+
+    @Test
+    public void shouldNotMaterializeLazyGridWhenSnapshotIsEncoded() throws IOException {
+        final GridEntry entry = registry.put(GRID_ID, (HexagonalGridImpl) builder.buildLazy());
+
+        final JsonNode result = objectMapper.readTree(target.snapshot(entry, VERSION));
+
+        assertEquals(0, result.get("cells").size());
+        assertFalse(entry.getGrid().isMaterialized());
+    }
+}
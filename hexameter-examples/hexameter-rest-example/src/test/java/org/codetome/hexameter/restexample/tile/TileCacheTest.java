@@ -0,0 +1,126 @@
+package org.codetome.hexameter.restexample.tile;
+
+import org.codetome.hexameter.core.api.DefaultSatelliteData;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.internal.GridData;
+import org.codetome.hexameter.core.internal.impl.HexagonalGridImpl;
+import org.codetome.hexameter.restexample.model.GridEntry;
+import org.codetome.hexameter.restexample.model.GridRegistry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static org.codetome.hexameter.core.api.CubeCoordinate.fromCoordinates;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+
+public class TileCacheTest {
+
+    private static final int GRID_SIZE = 20;
+    private static final int RADIUS = 30;
+    private static final int ZOOM = 2;
+    private static final int TILES_PER_SIDE = 1 << ZOOM;
+    private static final int TILE_SIZE = 100;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private GridRegistry registry;
+    private HexagonalGridBuilder builder;
+    private GridEntry entry;
+    private GridData gridData;
+    private TileCache target;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new GridRegistry(Long.MAX_VALUE, Long.MAX_VALUE / 2, temporaryFolder.getRoot().toPath());
+        builder = new HexagonalGridBuilder().setGridWidth(GRID_SIZE).setGridHeight(GRID_SIZE).setRadius(RADIUS).setGridLayout(RECTANGULAR);
+        entry = registry.put(1, (HexagonalGridImpl) builder.build());
+        gridData = entry.getGrid().getGridData();
+        target = new TileCache(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void shouldDropOnlyTilesOverlappedByCellWhenItsSatelliteDataIsSet() {
+        putAllTiles(entry);
+
+        entry.getGrid().getByCubeCoordinate(fromCoordinates(0, 0)).get().setSatelliteData(new DefaultSatelliteData());
+
+        assertNull(target.get(new TileKey(entry, ZOOM, 0, 0)));
+        assertNotNull(target.get(new TileKey(entry, ZOOM, 1, 0)));
+        assertNotNull(target.get(new TileKey(entry, ZOOM, TILES_PER_SIDE - 1, TILES_PER_SIDE - 1)));
+        assertEquals(TILES_PER_SIDE * TILES_PER_SIDE - 1, target.getTileCount());
+        assertEquals((TILES_PER_SIDE * TILES_PER_SIDE - 1) * TILE_SIZE, target.getSize());
+    }
+
+    @Test
+    public void shouldDropOnlyTilesOverlappedByCellWhenItsSatelliteDataIsCleared() {
+        entry.getGrid().getByCubeCoordinate(fromCoordinates(0, 0)).get().setSatelliteData(new DefaultSatelliteData());
+        putAllTiles(entry);
+
+        entry.getGrid().getByCubeCoordinate(fromCoordinates(0, 0)).get().clearSatelliteData();
+
+        assertNull(target.get(new TileKey(entry, ZOOM, 0, 0)));
+        assertEquals(TILES_PER_SIDE * TILES_PER_SIDE - 1, target.getTileCount());
+    }
+
+    @Test
+    public void shouldKeepTilesOfOtherGridsWhenSatelliteDataOfACellIsSet() {
+        final GridEntry otherEntry = registry.put(2, (HexagonalGridImpl) builder.build());
+        putAllTiles(entry);
+        putAllTiles(otherEntry);
+
+        entry.getGrid().getByCubeCoordinate(fromCoordinates(0, 0)).get().setSatelliteData(new DefaultSatelliteData());
+
+        assertNotNull(target.get(new TileKey(otherEntry, ZOOM, 0, 0)));
+        assertEquals(2 * TILES_PER_SIDE * TILES_PER_SIDE - 1, target.getTileCount());
+    }
+
+    @Test
+    public void shouldDropEveryTileOfGridWhenAllSatelliteDataIsCleared() {
+        putAllTiles(entry);
+
+        entry.getGrid().clearSatelliteData();
+
+        assertEquals(0, target.getTileCount());
+        assertEquals(0, target.getSize());
+    }
+
+    @Test
+    public void shouldNotStoreTileWhenGridChangedSinceRenderingStarted() {
+        final long version = entry.getVersion();
+        entry.getGrid().getByCubeCoordinate(fromCoordinates(1, 1)).get().setSatelliteData(new DefaultSatelliteData());
+
+        target.put(new TileKey(entry, ZOOM, 0, 0), gridData, new byte[TILE_SIZE], version);
+
+        assertNull(target.get(new TileKey(entry, ZOOM, 0, 0)));
+        assertEquals(0, target.getSize());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTileWhenCacheIsFull() {
+        target = new TileCache(2 * TILE_SIZE);
+        final TileKey first = new TileKey(entry, ZOOM, 0, 0);
+        final TileKey second = new TileKey(entry, ZOOM, 1, 0);
+        target.put(first, gridData, new byte[TILE_SIZE], entry.getVersion());
+        target.put(second, gridData, new byte[TILE_SIZE], entry.getVersion());
+        target.get(first);
+
+        target.put(new TileKey(entry, ZOOM, 2, 0), gridData, new byte[TILE_SIZE], entry.getVersion());
+
+        assertNotNull(target.get(first));
+        assertNull(target.get(second));
+        assertEquals(2 * TILE_SIZE, target.getSize());
+    }
+
+    private void putAllTiles(final GridEntry gridEntry) {
+        for (int tileX = 0; tileX < TILES_PER_SIDE; tileX++) {
+            for (int tileY = 0; tileY < TILES_PER_SIDE; tileY++) {
+                target.put(new TileKey(gridEntry, ZOOM, tileX, tileY), gridData, new byte[TILE_SIZE], gridEntry.getVersion());
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.codetome.hexameter.restexample.viewport;
+
+import org.codetome.hexameter.core.api.Hexagon;
+import org.codetome.hexameter.core.api.HexagonOrientation;
+import org.codetome.hexameter.core.api.HexagonalGrid;
+import org.codetome.hexameter.core.api.HexagonalGridBuilder;
+import org.codetome.hexameter.core.api.HexagonalGridLayout;
+import org.codetome.hexameter.core.api.HexagonalGridMask;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Integer.MIN_VALUE;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.codetome.hexameter.core.api.HexagonOrientation.FLAT_TOP;
+import static org.codetome.hexameter.core.api.HexagonOrientation.POINTY_TOP;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.HEXAGONAL;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.MASK;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.RECTANGULAR;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRAPEZOID;
+import static org.codetome.hexameter.core.api.HexagonalGridLayout.TRIANGULAR;
+
+public class OffsetRangeTest {
+
+    private static final int RADIUS = 30;
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 7;
+    private static final int SQUARE_GRID_SIZE = 7;
+    private static final long MAX_CELL_COUNT = 10;
+
+    @Test
+    public void shouldCoverEveryCellOfRectangularGridWhenClamped() {
+        assertCoversEveryCell(createBuilder(RECTANGULAR, POINTY_TOP, GRID_WIDTH, GRID_HEIGHT).build());
+        assertCoversEveryCell(createBuilder(RECTANGULAR, FLAT_TOP, GRID_WIDTH, GRID_HEIGHT).build());
+    }
+
+    @Test
+    public void shouldCoverEveryCellOfHexagonalGridWhenClamped() {
+        assertCoversEveryCell(createBuilder(HEXAGONAL, POINTY_TOP, SQUARE_GRID_SIZE, SQUARE_GRID_SIZE).build());
+        assertCoversEveryCell(createBuilder(HEXAGONAL, FLAT_TOP, SQUARE_GRID_SIZE, SQUARE_GRID_SIZE).build());
+    }
+
+    @Test
+    public void shouldCoverEveryCellOfTriangularGridWhenClamped() {
+        assertCoversEveryCell(createBuilder(TRIANGULAR, POINTY_TOP, SQUARE_GRID_SIZE, SQUARE_GRID_SIZE).build());
+        assertCoversEveryCell(createBuilder(TRIANGULAR, FLAT_TOP, SQUARE_GRID_SIZE, SQUARE_GRID_SIZE).build());
+    }
+
+    @Test
+    public void shouldCoverEveryCellOfTrapezoidGridWhenClamped() {
+        assertCoversEveryCell(createBuilder(TRAPEZOID, POINTY_TOP, GRID_WIDTH, GRID_HEIGHT).build());
+        assertCoversEveryCell(createBuilder(TRAPEZOID, FLAT_TOP, GRID_WIDTH, GRID_HEIGHT).build());
+    }
+
+    @Test
+    public void shouldCoverEveryCellOfMaskGridWhenClamped() {
+        assertCoversEveryCell(createMaskGrid(POINTY_TOP));
+        assertCoversEveryCell(createMaskGrid(FLAT_TOP));
+    }
+
+    @Test
+    public void shouldReachShiftedRowsOfPointyTopTrapezoidGridWhenClamped() {
+        final HexagonalGrid grid = createBuilder(TRAPEZOID, POINTY_TOP, GRID_WIDTH, GRID_HEIGHT).build();
+
+        final OffsetRange result = clampWholeRange(grid);
+
+        assertEquals(new OffsetRange(0, GRID_WIDTH - 1 + (GRID_HEIGHT - 1) / 2, 0, GRID_HEIGHT - 1), result);
+        assertIsBoundingBoxOfCells(grid, result);
+    }
+
+    @Test
+    public void shouldReachShiftedColumnsOfFlatTopTrapezoidGridWhenClamped() {
+        final HexagonalGrid grid = createBuilder(TRAPEZOID, FLAT_TOP, GRID_WIDTH, GRID_HEIGHT).build();
+
+        final OffsetRange result = clampWholeRange(grid);
+
+        assertEquals(new OffsetRange(0, GRID_WIDTH - 1, 0, GRID_HEIGHT - 1 + (GRID_WIDTH - 1) / 2), result);
+        assertIsBoundingBoxOfCells(grid, result);
+    }
+
+    @Test
+    public void shouldReachShiftedCornerOfMaskGridWhenClamped() {
+        assertIsBoundingBoxOfCells(createMaskGrid(POINTY_TOP), clampWholeRange(createMaskGrid(POINTY_TOP)));
+        assertIsBoundingBoxOfCells(createMaskGrid(FLAT_TOP), clampWholeRange(createMaskGrid(FLAT_TOP)));
+    }
+
+    @Test
+    public void shouldKeepBoundsInsideOfGridWhenClamped() {
+        final HexagonalGrid grid = createBuilder(RECTANGULAR, POINTY_TOP, GRID_WIDTH, GRID_HEIGHT).build();
+
+        final OffsetRange result = OffsetRange.clampedTo(grid.getGridData(), 2, 3, 1, 4);
+
+        assertEquals(new OffsetRange(2, 3, 1, 4), result);
+        assertEquals(8, result.getCellCount());
+        assertEquals(8, (int) result.getHexagons(grid).count().toBlocking().single());
+    }
+
+    @Test
+    public void shouldBeEmptyWhenRangeDoesNotOverlapWithGrid() {
+        final HexagonalGrid grid = createBuilder(RECTANGULAR, POINTY_TOP, GRID_WIDTH, GRID_HEIGHT).build();
+
+        final OffsetRange result = OffsetRange.clampedTo(grid.getGridData(), MIN_VALUE, -1, 0, GRID_HEIGHT);
+
+        assertEquals(0, result.getCellCount());
+        assertEquals(0, (int) result.getHexagons(grid).count().toBlocking().single());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenRangeCoversTooManyCells() {
+        new OffsetRange(0, GRID_WIDTH - 1, 0, GRID_HEIGHT - 1).checkCellCount(MAX_CELL_COUNT);
+    }
+
+    private static HexagonalGridBuilder createBuilder(final HexagonalGridLayout layout, final HexagonOrientation orientation,
+                                                      final int width, final int height) {
+        return new HexagonalGridBuilder().setGridWidth(width).setGridHeight(height).setRadius(RADIUS)
+                .setGridLayout(layout).setOrientation(orientation);
+    }
+
+    /**
+     * Creates a mask grid with a few cells including the far corner of its parallelogram which has the biggest
+     * offset coordinates.
+     */
+    private static HexagonalGrid createMaskGrid(final HexagonOrientation orientation) {
+        final BitSet bits = new BitSet();
+        bits.set(0);
+        bits.set(GRID_WIDTH + 1);
+        bits.set(GRID_WIDTH * GRID_HEIGHT - 1);
+        return createBuilder(MASK, orientation, GRID_WIDTH, GRID_HEIGHT)
+                .setGridMask(HexagonalGridMask.fromBitSet(GRID_WIDTH, GRID_HEIGHT, bits)).build();
+    }
+
+    private static OffsetRange clampWholeRange(final HexagonalGrid grid) {
+        return OffsetRange.clampedTo(grid.getGridData(), MIN_VALUE, MAX_VALUE, MIN_VALUE, MAX_VALUE);
+    }
+
+    private static void assertCoversEveryCell(final HexagonalGrid grid) {
+        final OffsetRange range = clampWholeRange(grid);
+        final int cellCount = grid.getHexagons().count().toBlocking().single();
+        assertEquals(cellCount, (int) range.getHexagons(grid).count().toBlocking().single());
+        for (final Hexagon hexagon : grid.getHexagons().toBlocking().toIterable()) {
+            final int offsetX = offsetXOf(grid, hexagon);
+            final int offsetY = offsetYOf(grid, hexagon);
+            assertTrue(offsetX >= range.getGridXFrom() && offsetX <= range.getGridXTo());
+            assertTrue(offsetY >= range.getGridYFrom() && offsetY <= range.getGridYTo());
+        }
+    }
+
+    private static void assertIsBoundingBoxOfCells(final HexagonalGrid grid, final OffsetRange range) {
+        int maxOffsetX = 0;
+        int maxOffsetY = 0;
+        for (final Hexagon hexagon : grid.getHexagons().toBlocking().toIterable()) {
+            maxOffsetX = Math.max(maxOffsetX, offsetXOf(grid, hexagon));
+            maxOffsetY = Math.max(maxOffsetY, offsetYOf(grid, hexagon));
+        }
+        assertEquals(0, range.getGridXFrom());
+        assertEquals(0, range.getGridYFrom());
+        assertEquals(maxOffsetX, range.getGridXTo());
+        assertEquals(maxOffsetY, range.getGridYTo());
+    }
+
+    private static int offsetXOf(final HexagonalGrid grid, final Hexagon hexagon) {
+        return FLAT_TOP.equals(grid.getGridData().getOrientation()) ? hexagon.getGridX() : hexagon.getGridX() + hexagon.getGridZ() / 2;
+    }
+
+    private static int offsetYOf(final HexagonalGrid grid, final Hexagon hexagon) {
+        return FLAT_TOP.equals(grid.getGridData().getOrientation()) ? hexagon.getGridZ() + hexagon.getGridX() / 2 : hexagon.getGridZ();
+    }
+}